@@ -29,6 +29,7 @@ import com.insync.repository.PasswordResetTokenRepository;
 import com.insync.repository.UserRepository;
 import com.insync.security.JwtUtils;
 import com.insync.service.EmailService;
+import com.insync.service.InboxService;
 
 import jakarta.validation.Valid;
 
@@ -54,6 +55,9 @@ public class AuthController {
     @Autowired
     PasswordResetTokenRepository passwordResetTokenRepository;
 
+    @Autowired
+    InboxService inboxService;
+
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         Authentication authentication = authenticationManager.authenticate(
@@ -84,6 +88,7 @@ public class AuthController {
         user.setDepartment(signUpRequest.getDepartment());
 
         userRepository.save(user);
+        inboxService.createCounter(user.getId());
 
         // Authenticate the new user
         Authentication authentication = authenticationManager.authenticate(
@@ -1,6 +1,7 @@
 package com.insync.controller;
 
 import com.insync.dto.CallDto;
+import com.insync.dto.CursorPage;
 import com.insync.dto.request.CallActionRequest;
 import com.insync.dto.request.InitiateCallRequest;
 import com.insync.dto.response.ApiResponse;
@@ -10,11 +11,13 @@ import com.insync.repository.UserRepository;
 import com.insync.security.UserPrincipal;
 import com.insync.service.CallService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -124,17 +127,20 @@ public class CallController {
 
     @GetMapping("/history")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getCallHistory(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+    public ResponseEntity<?> getCallHistory(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) Call.CallStatus status,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         try {
             User user = userRepository.findByEmail(userPrincipal.getEmail())
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
-            List<Call> calls = callService.getCallHistory(user);
-            List<CallDto> callDtos = calls.stream()
-                    .map(CallDto::new)
-                    .collect(Collectors.toList());
+            CursorPage<CallDto> page = callService.getCallHistory(user, cursor, limit, status, from, to).map(CallDto::new);
             
-            return ResponseEntity.ok(ApiResponse.success("Call history retrieved", callDtos));
+            return ResponseEntity.ok().headers(page.headers())
+                    .body(ApiResponse.success("Call history retrieved", page.getItems()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -1,10 +1,12 @@
 package com.insync.controller;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,10 +26,13 @@ import com.insync.dto.BreakoutRoomDto;
 import com.insync.dto.CalendarEventDto;
 import com.insync.dto.CallParticipantDto;
 import com.insync.dto.ChatMessageDto;
+import com.insync.dto.CursorPage;
 import com.insync.dto.MeetingAnalyticsDto;
 import com.insync.dto.MeetingDto;
 import com.insync.dto.MeetingTemplateDto;
+import com.insync.dto.ParticipantStateDto;
 import com.insync.dto.PollDto;
+import com.insync.dto.RoomStateDto;
 import com.insync.dto.TranscriptionEntryDto;
 import com.insync.dto.request.CallStateUpdateRequest;
 import com.insync.dto.request.ChatMessageRequest;
@@ -44,6 +49,7 @@ import com.insync.dto.response.ApiResponse;
 import com.insync.dto.response.ExportResponse;
 import com.insync.dto.response.MeetingSettingsResponse;
 import com.insync.entity.Meeting;
+import com.insync.security.UserPrincipal;
 import com.insync.service.CalendarService;
 import com.insync.service.MeetingService;
 
@@ -59,20 +65,30 @@ public class MeetingController {
     private CalendarService calendarService;
 
     @GetMapping("/my")
-    public ResponseEntity<?> getUserMeetings(Authentication authentication) {
+    public ResponseEntity<?> getUserMeetings(Authentication authentication,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) Meeting.MeetingStatus status,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         try {
-            List<MeetingDto> meetings = meetingService.getUserMeetings(authentication.getName());
-            return ResponseEntity.ok(ApiResponse.success("User meetings retrieved", meetings));
+            CursorPage<MeetingDto> page = meetingService.getUserMeetings(authentication.getName(), cursor, limit, status, from, to);
+            return ResponseEntity.ok().headers(page.headers()).body(ApiResponse.success("User meetings retrieved", page.getItems()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve meetings: " + e.getMessage()));
         }
     }
 
     @GetMapping("/upcoming")
-    public ResponseEntity<?> getUpcomingMeetings(Authentication authentication) {
+    public ResponseEntity<?> getUpcomingMeetings(Authentication authentication,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) Meeting.MeetingStatus status,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         try {
-            List<MeetingDto> meetings = meetingService.getUpcomingMeetings(authentication.getName());
-            return ResponseEntity.ok(ApiResponse.success("Upcoming meetings retrieved", meetings));
+            CursorPage<MeetingDto> page = meetingService.getUpcomingMeetings(authentication.getName(), cursor, limit, status, from, to);
+            return ResponseEntity.ok().headers(page.headers()).body(ApiResponse.success("Upcoming meetings retrieved", page.getItems()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve upcoming meetings: " + e.getMessage()));
         }
@@ -226,7 +242,7 @@ public class MeetingController {
                                                   Authentication authentication) {
         try {
             MeetingSettingsResponse response = meetingService.updateMeetingSettings(meetingId, 
-                    request.getSettings(), authentication.getName());
+                    request.getSettings(), currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Meeting settings updated successfully", response));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to update meeting settings: " + e.getMessage()));
@@ -236,7 +252,7 @@ public class MeetingController {
     @GetMapping("/{meetingId}/settings")
     public ResponseEntity<?> getMeetingSettings(@PathVariable String meetingId, Authentication authentication) {
         try {
-            MeetingSettingsResponse response = meetingService.getMeetingSettings(meetingId, authentication.getName());
+            MeetingSettingsResponse response = meetingService.getMeetingSettings(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Meeting settings retrieved", response));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get meeting settings: " + e.getMessage()));
@@ -248,7 +264,7 @@ public class MeetingController {
                                              @RequestBody HostSettingsRequest request,
                                              Authentication authentication) {
         try {
-            meetingService.applyHostSettings(meetingId, request, authentication.getName());
+            meetingService.applyHostSettings(meetingId, request, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Host settings applied successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to apply host settings: " + e.getMessage()));
@@ -262,17 +278,29 @@ public class MeetingController {
                                            @RequestBody CallStateUpdateRequest request,
                                            Authentication authentication) {
         try {
-            meetingService.updateCallState(meetingId, request, authentication.getName());
-            return ResponseEntity.ok(ApiResponse.success("Call state updated successfully"));
+            ParticipantStateDto state = meetingService.updateCallState(meetingId, request, currentUserId(authentication));
+            return ResponseEntity.ok(ApiResponse.success("Call state updated successfully", state));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to update call state: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/{meetingId}/call-state")
+    public ResponseEntity<?> getCallState(@PathVariable String meetingId,
+                                        @RequestParam(required = false) Long sinceVersion,
+                                        Authentication authentication) {
+        try {
+            RoomStateDto state = meetingService.getRoomState(meetingId, sinceVersion, currentUserId(authentication));
+            return ResponseEntity.ok(ApiResponse.success("Call state retrieved", state));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get call state: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/{meetingId}/participants")
     public ResponseEntity<?> getMeetingParticipants(@PathVariable String meetingId, Authentication authentication) {
         try {
-            List<CallParticipantDto> participants = meetingService.getMeetingParticipants(meetingId, authentication.getName());
+            List<CallParticipantDto> participants = meetingService.getMeetingParticipants(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Meeting participants retrieved", participants));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get participants: " + e.getMessage()));
@@ -286,7 +314,7 @@ public class MeetingController {
                                            @RequestBody ChatMessageRequest request,
                                            Authentication authentication) {
         try {
-            ChatMessageDto message = meetingService.sendChatMessage(meetingId, request, authentication.getName());
+            ChatMessageDto message = meetingService.sendChatMessage(meetingId, request, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Message sent successfully", message));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to send message: " + e.getMessage()));
@@ -296,7 +324,7 @@ public class MeetingController {
     @GetMapping("/{meetingId}/chat")
     public ResponseEntity<?> getChatMessages(@PathVariable String meetingId, Authentication authentication) {
         try {
-            List<ChatMessageDto> messages = meetingService.getChatMessages(meetingId, authentication.getName());
+            List<ChatMessageDto> messages = meetingService.getChatMessages(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Chat messages retrieved", messages));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get chat messages: " + e.getMessage()));
@@ -310,7 +338,7 @@ public class MeetingController {
                                       @RequestBody CreatePollRequest request,
                                       Authentication authentication) {
         try {
-            PollDto poll = meetingService.createPoll(meetingId, request, authentication.getName());
+            PollDto poll = meetingService.createPoll(meetingId, request, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Poll created successfully", poll));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create poll: " + e.getMessage()));
@@ -323,7 +351,7 @@ public class MeetingController {
                                               @RequestBody PollResponseRequest request,
                                               Authentication authentication) {
         try {
-            meetingService.submitPollResponse(meetingId, pollId, request, authentication.getName());
+            meetingService.submitPollResponse(meetingId, pollId, request, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Poll response submitted successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to submit poll response: " + e.getMessage()));
@@ -333,7 +361,7 @@ public class MeetingController {
     @GetMapping("/{meetingId}/polls/active")
     public ResponseEntity<?> getActivePolls(@PathVariable String meetingId, Authentication authentication) {
         try {
-            List<PollDto> polls = meetingService.getActivePolls(meetingId, authentication.getName());
+            List<PollDto> polls = meetingService.getActivePolls(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Active polls retrieved", polls));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get active polls: " + e.getMessage()));
@@ -347,7 +375,7 @@ public class MeetingController {
                                               @RequestBody CreateBreakoutRoomRequest request,
                                               Authentication authentication) {
         try {
-            BreakoutRoomDto room = meetingService.createBreakoutRoom(meetingId, request, authentication.getName());
+            BreakoutRoomDto room = meetingService.createBreakoutRoom(meetingId, request, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Breakout room created successfully", room));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to create breakout room: " + e.getMessage()));
@@ -359,7 +387,7 @@ public class MeetingController {
                                             @PathVariable String roomId,
                                             Authentication authentication) {
         try {
-            meetingService.joinBreakoutRoom(meetingId, roomId, authentication.getName());
+            meetingService.joinBreakoutRoom(meetingId, roomId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Joined breakout room successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to join breakout room: " + e.getMessage()));
@@ -371,7 +399,7 @@ public class MeetingController {
                                              @PathVariable String roomId,
                                              Authentication authentication) {
         try {
-            meetingService.leaveBreakoutRoom(meetingId, roomId, authentication.getName());
+            meetingService.leaveBreakoutRoom(meetingId, roomId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Left breakout room successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to leave breakout room: " + e.getMessage()));
@@ -381,7 +409,7 @@ public class MeetingController {
     @GetMapping("/{meetingId}/breakout-rooms")
     public ResponseEntity<?> getBreakoutRooms(@PathVariable String meetingId, Authentication authentication) {
         try {
-            List<BreakoutRoomDto> rooms = meetingService.getBreakoutRooms(meetingId, authentication.getName());
+            List<BreakoutRoomDto> rooms = meetingService.getBreakoutRooms(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Breakout rooms retrieved", rooms));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get breakout rooms: " + e.getMessage()));
@@ -393,7 +421,7 @@ public class MeetingController {
     @PostMapping("/{meetingId}/recording/start")
     public ResponseEntity<?> startRecording(@PathVariable String meetingId, Authentication authentication) {
         try {
-            meetingService.startRecording(meetingId, authentication.getName());
+            meetingService.startRecording(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Recording started successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to start recording: " + e.getMessage()));
@@ -403,7 +431,7 @@ public class MeetingController {
     @PostMapping("/{meetingId}/recording/stop")
     public ResponseEntity<?> stopRecording(@PathVariable String meetingId, Authentication authentication) {
         try {
-            meetingService.stopRecording(meetingId, authentication.getName());
+            meetingService.stopRecording(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Recording stopped successfully"));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to stop recording: " + e.getMessage()));
@@ -415,7 +443,7 @@ public class MeetingController {
     @GetMapping("/{meetingId}/analytics")
     public ResponseEntity<?> getMeetingAnalytics(@PathVariable String meetingId, Authentication authentication) {
         try {
-            MeetingAnalyticsDto analytics = meetingService.getMeetingAnalytics(meetingId, authentication.getName());
+            MeetingAnalyticsDto analytics = meetingService.getMeetingAnalytics(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Meeting analytics retrieved", analytics));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get analytics: " + e.getMessage()));
@@ -425,7 +453,7 @@ public class MeetingController {
     @GetMapping("/{meetingId}/transcription")
     public ResponseEntity<?> getTranscription(@PathVariable String meetingId, Authentication authentication) {
         try {
-            List<TranscriptionEntryDto> transcription = meetingService.getTranscription(meetingId, authentication.getName());
+            List<TranscriptionEntryDto> transcription = meetingService.getTranscription(meetingId, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Transcription retrieved", transcription));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to get transcription: " + e.getMessage()));
@@ -439,7 +467,7 @@ public class MeetingController {
                                              @RequestBody ExportRequest request,
                                              Authentication authentication) {
         try {
-            ExportResponse exportResponse = meetingService.exportMeetingData(meetingId, request, authentication.getName());
+            ExportResponse exportResponse = meetingService.exportMeetingData(meetingId, request, currentUserId(authentication));
             return ResponseEntity.ok(ApiResponse.success("Meeting data exported successfully", exportResponse));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to export meeting data: " + e.getMessage()));
@@ -531,4 +559,8 @@ public class MeetingController {
             return ResponseEntity.badRequest().body(ApiResponse.error("Failed to retrieve templates: " + e.getMessage()));
         }
     }
+
+    private Long currentUserId(Authentication authentication) {
+        return ((UserPrincipal) authentication.getPrincipal()).getId();
+    }
 }
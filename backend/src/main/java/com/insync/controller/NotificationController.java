@@ -1,13 +1,24 @@
 package com.insync.controller;
 
+import com.insync.dto.request.RegisterDeviceRequest;
+import com.insync.entity.DeviceToken;
 import com.insync.entity.NotificationPreference;
 import com.insync.entity.User;
 import com.insync.repository.NotificationPreferenceRepository;
 import com.insync.repository.UserRepository;
+import com.insync.service.InboxService;
+import com.insync.service.InboxStreamService;
+import com.insync.service.NotificationPreferenceCache;
+import com.insync.service.PushService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/notifications")
@@ -20,6 +31,18 @@ public class NotificationController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private NotificationPreferenceCache notificationPreferenceCache;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private InboxStreamService inboxStreamService;
+
+    @Autowired
+    private PushService pushService;
+
     /**
      * Get notification preferences for the authenticated user
      */
@@ -79,7 +102,13 @@ public class NotificationController {
         existingPreferences.setPushMeetingCancelled(updatedPreferences.isPushMeetingCancelled());
         existingPreferences.setPushMeetingRescheduled(updatedPreferences.isPushMeetingRescheduled());
 
+        existingPreferences.setEmailDigest(updatedPreferences.isEmailDigest());
+        existingPreferences.setSmsDigest(updatedPreferences.isSmsDigest());
+        existingPreferences.setPushDigest(updatedPreferences.isPushDigest());
+        existingPreferences.setMorningAgenda(updatedPreferences.isMorningAgenda());
+
         NotificationPreference savedPreferences = notificationPreferenceRepository.save(existingPreferences);
+        notificationPreferenceCache.invalidate(user.getId());
         return ResponseEntity.ok(savedPreferences);
     }
 
@@ -99,7 +128,86 @@ public class NotificationController {
         // Create new default preferences
         NotificationPreference defaultPreferences = new NotificationPreference(user);
         NotificationPreference savedPreferences = notificationPreferenceRepository.save(defaultPreferences);
+        notificationPreferenceCache.invalidate(user.getId());
         
         return ResponseEntity.ok(savedPreferences);
     }
+
+    /**
+     * Get a page of the in-app inbox, newest first. Pass the returned nextCursor to get the next page.
+     */
+    @GetMapping("/inbox")
+    public ResponseEntity<Map<String, Object>> getInbox(Authentication authentication,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(inboxService.getPage(currentUserId(authentication), cursor, limit));
+    }
+
+    /**
+     * Get the number of unread inbox items
+     */
+    @GetMapping("/inbox/unread-count")
+    public ResponseEntity<Map<String, Object>> getUnreadCount(Authentication authentication) {
+        return ResponseEntity.ok(InboxService.unreadPayload(inboxService.getUnreadCount(currentUserId(authentication))));
+    }
+
+    /**
+     * Mark one inbox item read
+     */
+    @PostMapping("/inbox/{itemId}/read")
+    public ResponseEntity<Map<String, Object>> markInboxItemRead(Authentication authentication, @PathVariable Long itemId) {
+        return ResponseEntity.ok(Map.of("updated", inboxService.markRead(currentUserId(authentication), itemId)));
+    }
+
+    /**
+     * Mark all inbox items read, or only those up to upToId
+     */
+    @PostMapping("/inbox/read-all")
+    public ResponseEntity<Map<String, Object>> markInboxRead(Authentication authentication,
+                                                             @RequestParam(required = false) Long upToId) {
+        return ResponseEntity.ok(Map.of("updated", inboxService.markAllRead(currentUserId(authentication), upToId)));
+    }
+
+    /**
+     * Stream new inbox items ("inbox" events) and unread counts ("unread" events) as Server-Sent Events
+     */
+    @GetMapping(value = "/inbox/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamInbox(Authentication authentication) {
+        Long userId = currentUserId(authentication);
+        return inboxStreamService.connect(userId, InboxService.unreadPayload(inboxService.getUnreadCount(userId)));
+    }
+
+    /**
+     * Register a device for push notifications, or refresh one already registered
+     */
+    @PostMapping("/devices")
+    public ResponseEntity<DeviceToken> registerDevice(Authentication authentication,
+                                                      @RequestBody RegisterDeviceRequest request) {
+        if (request.getToken() == null || request.getToken().isBlank() || request.getPlatform() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(pushService.registerToken(currentUserId(authentication), request.getToken(), request.getPlatform()));
+    }
+
+    /**
+     * Get the devices registered for push notifications, most recently seen first
+     */
+    @GetMapping("/devices")
+    public ResponseEntity<List<DeviceToken>> getDevices(Authentication authentication) {
+        return ResponseEntity.ok(pushService.getTokens(currentUserId(authentication)));
+    }
+
+    /**
+     * Unregister a device, e.g. on logout
+     */
+    @DeleteMapping("/devices/{token}")
+    public ResponseEntity<Map<String, Object>> unregisterDevice(Authentication authentication, @PathVariable String token) {
+        return ResponseEntity.ok(Map.of("removed", pushService.unregisterToken(currentUserId(authentication), token)));
+    }
+
+    private Long currentUserId(Authentication authentication) {
+        return userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"))
+                .getId();
+    }
 }
@@ -1,11 +1,14 @@
 package com.insync.controller;
 
+import com.insync.dto.CursorPage;
 import com.insync.dto.UserDto;
 import com.insync.dto.response.ApiResponse;
 import com.insync.entity.User;
 import com.insync.repository.UserRepository;
 import com.insync.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -22,6 +25,12 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${listings.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${listings.max-page-size:200}")
+    private int maxPageSize;
+
     @GetMapping("/me")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> getCurrentUser(@AuthenticationPrincipal UserPrincipal userPrincipal) {
@@ -77,16 +86,26 @@ public class UserController {
 
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getAllUsers(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+    public ResponseEntity<?> getAllUsers(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) User.UserStatus status) {
         User currentUser = userRepository.findByEmail(userPrincipal.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<User> users = userRepository.findAllExceptUser(currentUser.getId());
-        List<UserDto> userDtos = users.stream()
-                .map(UserDto::new)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(ApiResponse.success("Users retrieved", userDtos));
+        CursorPage.Cursor after;
+        try {
+            after = cursor != null ? CursorPage.decode(cursor) : new CursorPage.Cursor("", 0);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        int pageSize = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        List<User> users = userRepository.findAllExceptUser(currentUser.getId(),
+                status != null ? List.of(status) : List.of(User.UserStatus.values()),
+                after.getKey(), after.getId(), PageRequest.of(0, pageSize + 1));
+        CursorPage<UserDto> page = CursorPage.of(users, pageSize, User::getName, User::getId).map(UserDto::new);
+
+        return ResponseEntity.ok().headers(page.headers()).body(ApiResponse.success("Users retrieved", page.getItems()));
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,94 @@
+package com.insync.controller;
+
+import com.insync.dto.request.RegisterWebhookRequest;
+import com.insync.dto.response.ApiResponse;
+import com.insync.security.UserPrincipal;
+import com.insync.service.WebhookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/webhooks")
+public class WebhookController {
+
+    @Autowired
+    private WebhookService webhookService;
+
+    /**
+     * Register an endpoint for meeting and call events. The response holds the signing secret,
+     * which is not shown again.
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> registerEndpoint(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                              @RequestBody RegisterWebhookRequest request) {
+        try {
+            if (request.getUrl() == null || request.getUrl().isBlank()) {
+                throw new RuntimeException("Webhook URL is required");
+            }
+            return ResponseEntity.ok(ApiResponse.success("Webhook endpoint registered successfully",
+                webhookService.registerEndpoint(userPrincipal.getId(), request.getUrl(), request.getEvents())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getEndpoints(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Webhook endpoints retrieved successfully",
+                webhookService.getEndpoints(userPrincipal.getId())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{endpointId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> deleteEndpoint(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                            @PathVariable Long endpointId) {
+        try {
+            if (!webhookService.deleteEndpoint(userPrincipal.getId(), endpointId)) {
+                throw new RuntimeException("Webhook endpoint not found");
+            }
+            return ResponseEntity.ok(ApiResponse.success("Webhook endpoint deleted successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the latest deliveries to an endpoint with their status, attempts and last error
+     */
+    @GetMapping("/{endpointId}/deliveries")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getDeliveries(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                           @PathVariable Long endpointId,
+                                           @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Webhook deliveries retrieved successfully",
+                webhookService.getRecentDeliveries(userPrincipal.getId(), endpointId, Math.max(1, Math.min(limit, 200)))));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * Send a ping event to an endpoint
+     */
+    @PostMapping("/{endpointId}/ping")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> ping(@AuthenticationPrincipal UserPrincipal userPrincipal, @PathVariable Long endpointId) {
+        try {
+            webhookService.ping(userPrincipal.getId(), endpointId);
+            return ResponseEntity.ok(ApiResponse.success("Ping queued"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.insync.dto;
+
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * Listings are ordered by a sort key and then id, and the next page starts strictly after the last
+ * row of this one, so pages stay consistent while rows are added and each page is a range scan on
+ * a (key, id) index rather than an OFFSET. The continuation token is opaque to clients; it is the
+ * last row's key and id, base64url-encoded, and goes back in the cursor parameter unchanged.
+ */
+public class CursorPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Stand-ins for an open end of a time range, inside what both H2 and Postgres timestamps hold
+    public static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of one more than the page size; the extra row
+     * only signals that there is a next page and is dropped
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int pageSize, Function<T, Object> keyOf, Function<T, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        T last = items.get(pageSize - 1);
+        return new CursorPage<>(items, encode(String.valueOf(keyOf.apply(last)), idOf.apply(last)));
+    }
+
+    /**
+     * Clamps a requested page size to [1, maxSize], using the default when none was requested
+     */
+    public static int pageSize(Integer requested, int defaultSize, int maxSize) {
+        if (requested == null) {
+            return Math.min(defaultSize, maxSize);
+        }
+        return Math.max(1, Math.min(requested, maxSize));
+    }
+
+    static String encode(String key, long id) {
+        byte[] bytes = (key + "\n" + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Decodes a continuation token
+     *
+     * @throws IllegalArgumentException if the token was not issued by a listing
+     */
+    public static Cursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('\n');
+            return new Cursor(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Converts the items of this page, keeping its continuation token
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+
+    /**
+     * Gets the response headers carrying the continuation token, if there is a next page
+     */
+    public HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.set(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return headers;
+    }
+
+    public List<T> getItems() { return items; }
+
+    public String getNextCursor() { return nextCursor; }
+
+    /**
+     * The sort key and id a page continues after
+     */
+    public static class Cursor {
+        private final String key;
+        private final long id;
+
+        public Cursor(String key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        public String getKey() { return key; }
+
+        public long getId() { return id; }
+
+        /**
+         * Gets the sort key of a time-ordered listing
+         *
+         * @throws IllegalArgumentException if the key is not a timestamp
+         */
+        public LocalDateTime getTimeKey() {
+            try {
+                return LocalDateTime.parse(key);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -41,6 +41,28 @@ public class MeetingDto {
         this.updatedAt = meeting.getUpdatedAt();
     }
 
+    /**
+     * Listing projection: the meeting's own columns and a summary of its host
+     */
+    public MeetingDto(Long id, String title, String description, LocalDateTime startTime, LocalDateTime endTime,
+                      Meeting.MeetingStatus status, Meeting.MeetingType type, String meetingId, String recordingUrl,
+                      String transcriptUrl, LocalDateTime createdAt, LocalDateTime updatedAt,
+                      Long hostId, String hostName, String hostEmail) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.host = new UserDto(hostId, hostName, hostEmail);
+        this.status = status;
+        this.type = type;
+        this.meetingId = meetingId;
+        this.recordingUrl = recordingUrl;
+        this.transcriptUrl = transcriptUrl;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,90 @@
+package com.insync.dto;
+
+public class ParticipantStateDto {
+    private Long userId;
+    private Boolean isMuted;
+    private Boolean isVideoOn;
+    private Boolean isHandRaised;
+    private Boolean isScreenSharing;
+    private Boolean isPresenter;
+    private String breakoutRoomId;
+    private Long version;
+
+    public ParticipantStateDto() {}
+
+    public ParticipantStateDto(Long userId, Boolean isMuted, Boolean isVideoOn, Boolean isHandRaised,
+                               Boolean isScreenSharing, Boolean isPresenter, String breakoutRoomId, Long version) {
+        this.userId = userId;
+        this.isMuted = isMuted;
+        this.isVideoOn = isVideoOn;
+        this.isHandRaised = isHandRaised;
+        this.isScreenSharing = isScreenSharing;
+        this.isPresenter = isPresenter;
+        this.breakoutRoomId = breakoutRoomId;
+        this.version = version;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Boolean getIsMuted() {
+        return isMuted;
+    }
+
+    public void setIsMuted(Boolean isMuted) {
+        this.isMuted = isMuted;
+    }
+
+    public Boolean getIsVideoOn() {
+        return isVideoOn;
+    }
+
+    public void setIsVideoOn(Boolean isVideoOn) {
+        this.isVideoOn = isVideoOn;
+    }
+
+    public Boolean getIsHandRaised() {
+        return isHandRaised;
+    }
+
+    public void setIsHandRaised(Boolean isHandRaised) {
+        this.isHandRaised = isHandRaised;
+    }
+
+    public Boolean getIsScreenSharing() {
+        return isScreenSharing;
+    }
+
+    public void setIsScreenSharing(Boolean isScreenSharing) {
+        this.isScreenSharing = isScreenSharing;
+    }
+
+    public Boolean getIsPresenter() {
+        return isPresenter;
+    }
+
+    public void setIsPresenter(Boolean isPresenter) {
+        this.isPresenter = isPresenter;
+    }
+
+    public String getBreakoutRoomId() {
+        return breakoutRoomId;
+    }
+
+    public void setBreakoutRoomId(String breakoutRoomId) {
+        this.breakoutRoomId = breakoutRoomId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
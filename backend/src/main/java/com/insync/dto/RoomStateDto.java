@@ -0,0 +1,51 @@
+package com.insync.dto;
+
+import java.util.List;
+
+public class RoomStateDto {
+    private String meetingId;
+    private Long version;
+    private Boolean fullSnapshot;
+    private List<ParticipantStateDto> participants;
+
+    public RoomStateDto() {}
+
+    public RoomStateDto(String meetingId, Long version, Boolean fullSnapshot, List<ParticipantStateDto> participants) {
+        this.meetingId = meetingId;
+        this.version = version;
+        this.fullSnapshot = fullSnapshot;
+        this.participants = participants;
+    }
+
+    public String getMeetingId() {
+        return meetingId;
+    }
+
+    public void setMeetingId(String meetingId) {
+        this.meetingId = meetingId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Boolean getFullSnapshot() {
+        return fullSnapshot;
+    }
+
+    public void setFullSnapshot(Boolean fullSnapshot) {
+        this.fullSnapshot = fullSnapshot;
+    }
+
+    public List<ParticipantStateDto> getParticipants() {
+        return participants;
+    }
+
+    public void setParticipants(List<ParticipantStateDto> participants) {
+        this.participants = participants;
+    }
+}
@@ -33,6 +33,15 @@ public class UserDto {
         this.createdAt = user.getCreatedAt();
     }
 
+    /**
+     * Summary with just the fields shown alongside meetings
+     */
+    public UserDto(Long id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -1,11 +1,14 @@
 package com.insync.dto.request;
 
 public class CallStateUpdateRequest {
+    // User id of the participant to change (CallParticipantDto.user.id, not the participant row id);
+    // the caller when null. Changing anyone else needs the host.
     private Long participantId;
     private Boolean isMuted;
     private Boolean isVideoOn;
     private Boolean isHandRaised;
     private Boolean isScreenSharing;
+    private Boolean isPresenter;
 
     public CallStateUpdateRequest() {}
 
@@ -57,4 +60,12 @@ public class CallStateUpdateRequest {
     public void setIsScreenSharing(Boolean isScreenSharing) {
         this.isScreenSharing = isScreenSharing;
     }
-} 
\ No newline at end of file
+
+    public Boolean getIsPresenter() {
+        return isPresenter;
+    }
+
+    public void setIsPresenter(Boolean isPresenter) {
+        this.isPresenter = isPresenter;
+    }
+}
\ No newline at end of file
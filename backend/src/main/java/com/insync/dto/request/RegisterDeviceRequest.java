@@ -0,0 +1,28 @@
+package com.insync.dto.request;
+
+import com.insync.entity.DeviceToken;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public class RegisterDeviceRequest {
+    @NotBlank
+    private String token;
+
+    @NotNull
+    private DeviceToken.Platform platform;
+
+    // Constructors
+    public RegisterDeviceRequest() {}
+
+    public RegisterDeviceRequest(String token, DeviceToken.Platform platform) {
+        this.token = token;
+        this.platform = platform;
+    }
+
+    // Getters and Setters
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public DeviceToken.Platform getPlatform() { return platform; }
+    public void setPlatform(DeviceToken.Platform platform) { this.platform = platform; }
+}
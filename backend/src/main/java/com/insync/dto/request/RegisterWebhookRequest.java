@@ -0,0 +1,28 @@
+package com.insync.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.List;
+
+public class RegisterWebhookRequest {
+    @NotBlank
+    private String url;
+
+    // Event types to subscribe to; empty or missing for all
+    private List<String> events;
+
+    // Constructors
+    public RegisterWebhookRequest() {}
+
+    public RegisterWebhookRequest(String url, List<String> events) {
+        this.url = url;
+        this.events = events;
+    }
+
+    // Getters and Setters
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public List<String> getEvents() { return events; }
+    public void setEvents(List<String> events) { this.events = events; }
+}
@@ -7,7 +7,11 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "calls")
+@Table(name = "calls", indexes = {
+    // Keyset pages of call history, one index per side of the call
+    @Index(name = "idx_calls_caller_id_created_at_id", columnList = "caller_id, created_at, id"),
+    @Index(name = "idx_calls_receiver_id_created_at_id", columnList = "receiver_id, created_at, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Call {
     @Id
@@ -0,0 +1,76 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * A push token registered by one of a user's devices. A token belongs to one user at a time;
+ * registering it again from another account moves it.
+ */
+@Entity
+@Table(name = "device_tokens", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_device_tokens_token", columnNames = "token")
+}, indexes = {
+    @Index(name = "idx_device_tokens_user_id", columnList = "user_id")
+})
+public class DeviceToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "user_id")
+    private Long userId;
+
+    @NotBlank
+    @Size(max = 255)
+    private String token;
+
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private Platform platform;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastSeenAt;
+
+    // Constructors
+    public DeviceToken() {}
+
+    public DeviceToken(Long userId, String token, Platform platform, LocalDateTime now) {
+        this.userId = userId;
+        this.token = token;
+        this.platform = platform;
+        this.createdAt = now;
+        this.lastSeenAt = now;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public Platform getPlatform() { return platform; }
+    public void setPlatform(Platform platform) { this.platform = platform; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastSeenAt() { return lastSeenAt; }
+    public void setLastSeenAt(LocalDateTime lastSeenAt) { this.lastSeenAt = lastSeenAt; }
+
+    public enum Platform {
+        ANDROID,
+        IOS,
+        WEB
+    }
+}
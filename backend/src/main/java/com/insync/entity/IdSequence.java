@@ -0,0 +1,42 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * A named counter handed out in blocks, so an instance takes one database round trip per block
+ * rather than per value
+ */
+@Entity
+@Table(name = "id_sequences")
+public class IdSequence {
+    @Id
+    @Size(max = 100)
+    private String name;
+
+    // First value not yet reserved by any instance
+    private long nextValue;
+
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public IdSequence() {}
+
+    public IdSequence(String name, long nextValue, LocalDateTime updatedAt) {
+        this.name = name;
+        this.nextValue = nextValue;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public long getNextValue() { return nextValue; }
+    public void setNextValue(long nextValue) { this.nextValue = nextValue; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,40 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unread count of a user's inbox, kept up to date by increments and decrements
+ * so it never has to be counted
+ */
+@Entity
+@Table(name = "inbox_counters")
+public class InboxCounter {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private long unreadCount;
+
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public InboxCounter() {}
+
+    public InboxCounter(Long userId, long unreadCount, LocalDateTime updatedAt) {
+        this.userId = userId;
+        this.unreadCount = unreadCount;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getUnreadCount() { return unreadCount; }
+    public void setUnreadCount(long unreadCount) { this.unreadCount = unreadCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,85 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * An in-app notification in a user's inbox. History is read newest first by id,
+ * so the (user_id, id) index serves every page.
+ */
+@Entity
+@Table(name = "inbox_items", indexes = {
+    @Index(name = "idx_inbox_items_user_id", columnList = "user_id, id")
+})
+public class InboxItem {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inbox_item_seq")
+    @SequenceGenerator(name = "inbox_item_seq", sequenceName = "inbox_items_seq", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(name = "user_id")
+    private Long userId;
+
+    private Long meetingId;
+
+    private Long notificationId;
+
+    @Enumerated(EnumType.STRING)
+    private Notification.NotificationType type;
+
+    @Size(max = 100)
+    private String title;
+
+    @Size(max = 500)
+    private String message;
+
+    @NotNull
+    private LocalDateTime createdAt;
+
+    private LocalDateTime readAt;
+
+    // Constructors
+    public InboxItem() {}
+
+    public InboxItem(Notification notification, LocalDateTime createdAt) {
+        this.userId = notification.getUser().getId();
+        this.meetingId = notification.getMeeting().getId();
+        this.notificationId = notification.getId();
+        this.type = notification.getType();
+        this.title = notification.getTitle();
+        this.message = notification.getMessage();
+        this.createdAt = createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getMeetingId() { return meetingId; }
+    public void setMeetingId(Long meetingId) { this.meetingId = meetingId; }
+
+    public Long getNotificationId() { return notificationId; }
+    public void setNotificationId(Long notificationId) { this.notificationId = notificationId; }
+
+    public Notification.NotificationType getType() { return type; }
+    public void setType(Notification.NotificationType type) { this.type = type; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getReadAt() { return readAt; }
+    public void setReadAt(LocalDateTime readAt) { this.readAt = readAt; }
+}
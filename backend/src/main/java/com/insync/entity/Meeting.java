@@ -8,13 +8,15 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "meetings")
+@Table(name = "meetings", indexes = {
+    // Keyset pages of a host's meetings by start time
+    @Index(name = "idx_meetings_host_id_start_time_id", columnList = "host_id, start_time, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Meeting {
     @Id
@@ -73,26 +75,6 @@ public class Meeting {
         this.title = title;
         this.startTime = startTime;
         this.host = host;
-        this.meetingId = generateMeetingId();
-    }
-
-    /**
-     * Generates a unique meeting ID that users can use to join the meeting.
-     * Format: XXX-XXX-XXX where X is a digit or uppercase letter (excluding 0, O, I, L for clarity)
-     */
-    private String generateMeetingId() {
-        SecureRandom random = new SecureRandom();
-        String chars = "123456789ABCDEFGHJKMNPQRSTUVWXYZ"; // Excludes 0, O, I, L for clarity
-        StringBuilder idBuilder = new StringBuilder();
-        
-        for (int i = 0; i < 9; i++) {
-            if (i == 3 || i == 6) {
-                idBuilder.append("-");
-            }
-            idBuilder.append(chars.charAt(random.nextInt(chars.length())));
-        }
-        
-        return idBuilder.toString();
     }
 
     // Getters and Setters
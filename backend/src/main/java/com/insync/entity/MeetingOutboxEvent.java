@@ -0,0 +1,116 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+/**
+ * A meeting domain event, written in the same transaction as the meeting change and relayed to
+ * notification scheduling afterwards. Events carry the meeting's times as of the change, so they
+ * replay correctly in order even when several changes queue up before the relay runs.
+ */
+@Entity
+@Table(name = "meeting_outbox_events", indexes = {
+    @Index(name = "idx_meeting_outbox_events_status_id", columnList = "status, id")
+})
+public class MeetingOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private EventType type;
+
+    // Plain ids rather than associations, so an event stays readable whatever happens to the rows
+    @NotNull
+    private Long meetingId;
+
+    private Long userId;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private LocalDateTime previousStartTime;
+
+    private LocalDateTime previousEndTime;
+
+    @Enumerated(EnumType.STRING)
+    private EventStatus status = EventStatus.PENDING;
+
+    private int attemptCount = 0;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    // Constructors
+    public MeetingOutboxEvent() {}
+
+    public MeetingOutboxEvent(EventType type, Meeting meeting) {
+        this.type = type;
+        this.meetingId = meeting.getId();
+        this.startTime = meeting.getStartTime();
+        this.endTime = meeting.getEndTime();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public EventType getType() { return type; }
+    public void setType(EventType type) { this.type = type; }
+
+    public Long getMeetingId() { return meetingId; }
+    public void setMeetingId(Long meetingId) { this.meetingId = meetingId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getStartTime() { return startTime; }
+    public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+
+    public LocalDateTime getEndTime() { return endTime; }
+    public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+
+    public LocalDateTime getPreviousStartTime() { return previousStartTime; }
+    public void setPreviousStartTime(LocalDateTime previousStartTime) { this.previousStartTime = previousStartTime; }
+
+    public LocalDateTime getPreviousEndTime() { return previousEndTime; }
+    public void setPreviousEndTime(LocalDateTime previousEndTime) { this.previousEndTime = previousEndTime; }
+
+    public EventStatus getStatus() { return status; }
+    public void setStatus(EventStatus status) { this.status = status; }
+
+    public int getAttemptCount() { return attemptCount; }
+    public void setAttemptCount(int attemptCount) { this.attemptCount = attemptCount; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    public enum EventType {
+        MEETING_CREATED,
+        MEETING_CANCELLED,
+        MEETING_RESCHEDULED,
+        MEETING_STARTED,
+        MEETING_ENDED,
+        PARTICIPANT_JOINED
+    }
+
+    public enum EventStatus {
+        PENDING,
+        PROCESSED,
+        FAILED
+    }
+}
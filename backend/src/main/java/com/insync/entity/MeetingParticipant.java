@@ -7,11 +7,17 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "meeting_participants")
+@Table(name = "meeting_participants", indexes = {
+    @Index(name = "idx_meeting_participants_user_id_meeting_id", columnList = "user_id, meeting_id"),
+    // Membership checks of one user in one meeting
+    @Index(name = "idx_meeting_participants_meeting_id_user_id", columnList = "meeting_id, user_id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class MeetingParticipant {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so inserts can be JDBC-batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "meeting_participant_seq")
+    @SequenceGenerator(name = "meeting_participant_seq", sequenceName = "meeting_participants_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
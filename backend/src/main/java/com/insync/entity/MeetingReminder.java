@@ -0,0 +1,81 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of a meeting's reminder schedule. In lazy materialization mode only these rows
+ * are stored up front; the per-user, per-channel notifications are expanded when it fires.
+ */
+@Entity
+@Table(name = "meeting_reminders", indexes = {
+    @Index(name = "idx_meeting_reminders_status_fire_time", columnList = "status, fire_time"),
+    @Index(name = "idx_meeting_reminders_meeting_id", columnList = "meeting_id")
+})
+@EntityListeners(AuditingEntityListener.class)
+public class MeetingReminder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "meeting_id")
+    private Meeting meeting;
+
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private Notification.NotificationType type;
+
+    @NotNull
+    private LocalDateTime fireTime;
+
+    @Enumerated(EnumType.STRING)
+    private ReminderStatus status = ReminderStatus.PENDING;
+
+    private LocalDateTime firedAt;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public MeetingReminder() {}
+
+    public MeetingReminder(Meeting meeting, Notification.NotificationType type, LocalDateTime fireTime) {
+        this.meeting = meeting;
+        this.type = type;
+        this.fireTime = fireTime;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Meeting getMeeting() { return meeting; }
+    public void setMeeting(Meeting meeting) { this.meeting = meeting; }
+
+    public Notification.NotificationType getType() { return type; }
+    public void setType(Notification.NotificationType type) { this.type = type; }
+
+    public LocalDateTime getFireTime() { return fireTime; }
+    public void setFireTime(LocalDateTime fireTime) { this.fireTime = fireTime; }
+
+    public ReminderStatus getStatus() { return status; }
+    public void setStatus(ReminderStatus status) { this.status = status; }
+
+    public LocalDateTime getFiredAt() { return firedAt; }
+    public void setFiredAt(LocalDateTime firedAt) { this.firedAt = firedAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public enum ReminderStatus {
+        PENDING,
+        FIRED,
+        CANCELLED
+    }
+}
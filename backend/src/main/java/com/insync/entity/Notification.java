@@ -10,11 +10,19 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_claim_token", columnList = "claim_token"),
+    @Index(name = "idx_notifications_status_next_attempt", columnList = "status, next_attempt_time"),
+    @Index(name = "idx_notifications_status_scheduled", columnList = "status, scheduled_time"),
+    @Index(name = "idx_notifications_meeting_status", columnList = "meeting_id, status"),
+    @Index(name = "idx_notifications_user_status_scheduled", columnList = "user_id, status, scheduled_time")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Notification {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY so inserts can be JDBC-batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_seq")
+    @SequenceGenerator(name = "notification_seq", sequenceName = "notifications_seq", allocationSize = 50)
     private Long id;
 
     @NotNull
@@ -54,6 +62,20 @@ public class Notification {
     @Size(max = 500)
     private String errorMessage;
 
+    // Delivery attempts made so far and when a failed notification may be retried
+    private int attemptCount = 0;
+
+    private LocalDateTime nextAttemptTime;
+
+    // Dispatch lease: set when a dispatcher run claims the row, cleared on status write-back
+    @Size(max = 36)
+    private String claimToken;
+
+    private LocalDateTime claimedUntil;
+
+    // Outbox event a cancellation or reschedule notice announces; tells repeated changes apart
+    private Long sourceEventId;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -105,6 +127,21 @@ public class Notification {
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
 
+    public int getAttemptCount() { return attemptCount; }
+    public void setAttemptCount(int attemptCount) { this.attemptCount = attemptCount; }
+
+    public LocalDateTime getNextAttemptTime() { return nextAttemptTime; }
+    public void setNextAttemptTime(LocalDateTime nextAttemptTime) { this.nextAttemptTime = nextAttemptTime; }
+
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+
+    public LocalDateTime getClaimedUntil() { return claimedUntil; }
+    public void setClaimedUntil(LocalDateTime claimedUntil) { this.claimedUntil = claimedUntil; }
+
+    public Long getSourceEventId() { return sourceEventId; }
+    public void setSourceEventId(Long sourceEventId) { this.sourceEventId = sourceEventId; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -129,6 +166,8 @@ public class Notification {
         PENDING,
         SENT,
         FAILED,
-        CANCELLED
+        CANCELLED,
+        DEAD_LETTER, // Gave up after the maximum number of attempts
+        DUPLICATE // Suppressed: the same notification was already delivered
     }
 }
@@ -0,0 +1,69 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A terminal notification moved out of the live notifications table by the retention job.
+ * Rows keep their original id; user and meeting are plain ids so archived rows outlive them.
+ * Written only by the bulk INSERT ... SELECT in NotificationRepository.
+ */
+@Entity
+@Table(name = "notifications_archive", indexes = {
+    @Index(name = "idx_notifications_archive_user_scheduled", columnList = "user_id, scheduled_time")
+})
+public class NotificationArchive {
+    @Id
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "meeting_id")
+    private Long meetingId;
+
+    @Column(length = 100)
+    private String title;
+
+    @Column(length = 500)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    private Notification.NotificationType type;
+
+    @Enumerated(EnumType.STRING)
+    private Notification.NotificationChannel channel;
+
+    @Enumerated(EnumType.STRING)
+    private Notification.NotificationStatus status;
+
+    private LocalDateTime scheduledTime;
+
+    private LocalDateTime sentTime;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    private int attemptCount;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime archivedAt;
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public Long getMeetingId() { return meetingId; }
+    public String getTitle() { return title; }
+    public String getMessage() { return message; }
+    public Notification.NotificationType getType() { return type; }
+    public Notification.NotificationChannel getChannel() { return channel; }
+    public Notification.NotificationStatus getStatus() { return status; }
+    public LocalDateTime getScheduledTime() { return scheduledTime; }
+    public LocalDateTime getSentTime() { return sentTime; }
+    public String getErrorMessage() { return errorMessage; }
+    public int getAttemptCount() { return attemptCount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
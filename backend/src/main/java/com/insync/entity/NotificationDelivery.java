@@ -0,0 +1,54 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger entry for one logical notification that has been handed to a provider.
+ * The unique dedup key makes a second delivery of the same notification impossible to record.
+ */
+@Entity
+@Table(name = "notification_deliveries", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_notification_deliveries_dedup_key", columnNames = "dedup_key")
+})
+public class NotificationDelivery {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_delivery_seq")
+    @SequenceGenerator(name = "notification_delivery_seq", sequenceName = "notification_deliveries_seq", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Size(max = 200)
+    @Column(name = "dedup_key")
+    private String dedupKey;
+
+    private Long notificationId;
+
+    @NotNull
+    private LocalDateTime deliveredAt;
+
+    // Constructors
+    public NotificationDelivery() {}
+
+    public NotificationDelivery(String dedupKey, Long notificationId, LocalDateTime deliveredAt) {
+        this.dedupKey = dedupKey;
+        this.notificationId = notificationId;
+        this.deliveredAt = deliveredAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getDedupKey() { return dedupKey; }
+    public void setDedupKey(String dedupKey) { this.dedupKey = dedupKey; }
+
+    public Long getNotificationId() { return notificationId; }
+    public void setNotificationId(Long notificationId) { this.notificationId = notificationId; }
+
+    public LocalDateTime getDeliveredAt() { return deliveredAt; }
+    public void setDeliveredAt(LocalDateTime deliveredAt) { this.deliveredAt = deliveredAt; }
+}
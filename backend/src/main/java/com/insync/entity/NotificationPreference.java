@@ -48,6 +48,14 @@ public class NotificationPreference {
     private boolean pushMeetingCancelled = true;
     private boolean pushMeetingRescheduled = true;
 
+    // Digest preferences: collapse a channel's reminders due close together into one message
+    private boolean emailDigest = false;
+    private boolean smsDigest = false;
+    private boolean pushDigest = false;
+
+    // Morning agenda email with the day's meetings and overdue action items
+    private boolean morningAgenda = false;
+
     @CreatedDate
     private LocalDateTime createdAt;
 
@@ -61,6 +69,75 @@ public class NotificationPreference {
         this.user = user;
     }
 
+    // Number of notification types, i.e. bits per channel in the bitmask encoding
+    private static final int TYPE_COUNT = Notification.NotificationType.values().length;
+
+    // Bits after the channel and type flags: one digest flag per channel
+    private static final int DIGEST_BIT_OFFSET = (Notification.NotificationChannel.PUSH.ordinal() + 1) * TYPE_COUNT;
+
+    // Bitmask of the default preferences, for users who never saved any
+    public static final int DEFAULT_BITMASK = new NotificationPreference().toBitmask();
+
+    /**
+     * Packs the 21 channel and type flags into one int, bit (channel * 7 + type) per flag,
+     * followed by the three digest flags
+     */
+    public int toBitmask() {
+        int mask = 0;
+        for (Notification.NotificationChannel channel : Notification.NotificationChannel.values()) {
+            for (Notification.NotificationType type : Notification.NotificationType.values()) {
+                if (isEnabled(type, channel)) {
+                    mask |= bit(type, channel);
+                }
+            }
+            if (isDigest(channel)) {
+                mask |= digestBit(channel);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Checks a notification type and channel against a bitmask from toBitmask()
+     */
+    public static boolean isEnabled(int mask, Notification.NotificationType type, Notification.NotificationChannel channel) {
+        return (mask & bit(type, channel)) != 0;
+    }
+
+    /**
+     * Checks whether a channel's reminders are collapsed into digests, against a bitmask from toBitmask()
+     */
+    public static boolean isDigest(int mask, Notification.NotificationChannel channel) {
+        return (mask & digestBit(channel)) != 0;
+    }
+
+    private static int digestBit(Notification.NotificationChannel channel) {
+        if (channel.ordinal() > Notification.NotificationChannel.PUSH.ordinal()) {
+            return 0; // The inbox keeps every notification
+        }
+        return 1 << (DIGEST_BIT_OFFSET + channel.ordinal());
+    }
+
+    public boolean isDigest(Notification.NotificationChannel channel) {
+        switch (channel) {
+            case EMAIL:
+                return emailDigest;
+            case SMS:
+                return smsDigest;
+            case PUSH:
+                return pushDigest;
+            default:
+                return false;
+        }
+    }
+
+    private static int bit(Notification.NotificationType type, Notification.NotificationChannel channel) {
+        if (channel.ordinal() > Notification.NotificationChannel.PUSH.ordinal()) {
+            return 0; // No stored preferences for IN_APP
+        }
+        return 1 << (channel.ordinal() * TYPE_COUNT + type.ordinal());
+    }
+
     // Helper methods to check if a specific notification type and channel is enabled
     public boolean isEnabled(Notification.NotificationType type, Notification.NotificationChannel channel) {
         switch (channel) {
@@ -184,6 +261,18 @@ public class NotificationPreference {
     public boolean isPushMeetingRescheduled() { return pushMeetingRescheduled; }
     public void setPushMeetingRescheduled(boolean pushMeetingRescheduled) { this.pushMeetingRescheduled = pushMeetingRescheduled; }
 
+    public boolean isEmailDigest() { return emailDigest; }
+    public void setEmailDigest(boolean emailDigest) { this.emailDigest = emailDigest; }
+
+    public boolean isSmsDigest() { return smsDigest; }
+    public void setSmsDigest(boolean smsDigest) { this.smsDigest = smsDigest; }
+
+    public boolean isPushDigest() { return pushDigest; }
+    public void setPushDigest(boolean pushDigest) { this.pushDigest = pushDigest; }
+
+    public boolean isMorningAgenda() { return morningAgenda; }
+    public void setMorningAgenda(boolean morningAgenda) { this.morningAgenda = morningAgenda; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -0,0 +1,50 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * A named lease held by one backend instance, used to coordinate scheduled work across a cluster
+ */
+@Entity
+@Table(name = "scheduler_locks")
+public class SchedulerLock {
+    @Id
+    @Size(max = 100)
+    private String name;
+
+    @NotNull
+    @Size(max = 100)
+    private String lockedBy;
+
+    @NotNull
+    private LocalDateTime lockedUntil;
+
+    private LocalDateTime lockedAt;
+
+    // Constructors
+    public SchedulerLock() {}
+
+    public SchedulerLock(String name, String lockedBy, LocalDateTime lockedUntil, LocalDateTime lockedAt) {
+        this.name = name;
+        this.lockedBy = lockedBy;
+        this.lockedUntil = lockedUntil;
+        this.lockedAt = lockedAt;
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+
+    public LocalDateTime getLockedAt() { return lockedAt; }
+    public void setLockedAt(LocalDateTime lockedAt) { this.lockedAt = lockedAt; }
+}
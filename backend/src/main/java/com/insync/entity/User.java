@@ -13,7 +13,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    // Keyset pages of the user directory by name
+    @Index(name = "idx_users_name_id", columnList = "name, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class User {
     @Id
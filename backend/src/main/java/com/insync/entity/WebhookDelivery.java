@@ -0,0 +1,126 @@
+package com.insync.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger entry for one event owed to one webhook endpoint. A row stays PENDING until the
+ * endpoint acknowledges it with a 2xx, so every event is delivered at least once; receivers
+ * deduplicate on the event id in the payload.
+ */
+@Entity
+@Table(name = "webhook_deliveries", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_webhook_deliveries_endpoint_event", columnNames = {"endpoint_id", "event_id"})
+}, indexes = {
+    @Index(name = "idx_webhook_deliveries_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_webhook_deliveries_claim_token", columnList = "claim_token")
+})
+public class WebhookDelivery {
+    @Id
+    // Pooled sequence rather than IDENTITY so the deliveries of an event can be JDBC-batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_delivery_seq")
+    @SequenceGenerator(name = "webhook_delivery_seq", sequenceName = "webhook_deliveries_seq", allocationSize = 50)
+    private Long id;
+
+    @NotNull
+    @Column(name = "endpoint_id")
+    private Long endpointId;
+
+    @NotBlank
+    @Size(max = 100)
+    private String eventId;
+
+    @NotBlank
+    @Size(max = 50)
+    private String eventType;
+
+    // The event as the JSON object sent to the endpoint
+    @NotBlank
+    @Column(length = 4000)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus status = DeliveryStatus.PENDING;
+
+    private int attemptCount = 0;
+
+    @NotNull
+    private LocalDateTime nextAttemptAt;
+
+    private String claimToken;
+
+    private LocalDateTime claimedUntil;
+
+    private Integer lastStatusCode;
+
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime deliveredAt;
+
+    // Constructors
+    public WebhookDelivery() {}
+
+    public WebhookDelivery(Long endpointId, String eventId, String eventType, String payload) {
+        this.endpointId = endpointId;
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getEndpointId() { return endpointId; }
+    public void setEndpointId(Long endpointId) { this.endpointId = endpointId; }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public DeliveryStatus getStatus() { return status; }
+    public void setStatus(DeliveryStatus status) { this.status = status; }
+
+    public int getAttemptCount() { return attemptCount; }
+    public void setAttemptCount(int attemptCount) { this.attemptCount = attemptCount; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+
+    public LocalDateTime getClaimedUntil() { return claimedUntil; }
+    public void setClaimedUntil(LocalDateTime claimedUntil) { this.claimedUntil = claimedUntil; }
+
+    public Integer getLastStatusCode() { return lastStatusCode; }
+    public void setLastStatusCode(Integer lastStatusCode) { this.lastStatusCode = lastStatusCode; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getDeliveredAt() { return deliveredAt; }
+    public void setDeliveredAt(LocalDateTime deliveredAt) { this.deliveredAt = deliveredAt; }
+
+    public enum DeliveryStatus {
+        PENDING,
+        DELIVERED,
+        DEAD // Gave up after max attempts
+    }
+}
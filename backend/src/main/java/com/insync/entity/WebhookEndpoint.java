@@ -0,0 +1,87 @@
+package com.insync.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * A URL a user registered to receive meeting and call events. Requests are signed with the
+ * endpoint's secret, which is only shown once, when the endpoint is registered.
+ */
+@Entity
+@Table(name = "webhook_endpoints", indexes = {
+    @Index(name = "idx_webhook_endpoints_user_id", columnList = "user_id")
+})
+public class WebhookEndpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "user_id")
+    private Long userId;
+
+    @NotBlank
+    @Size(max = 1000)
+    private String url;
+
+    @JsonIgnore
+    @NotBlank
+    @Size(max = 64)
+    private String secret;
+
+    // Comma-separated event types the endpoint subscribes to; null for all
+    @Size(max = 500)
+    private String events;
+
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public WebhookEndpoint() {}
+
+    public WebhookEndpoint(Long userId, String url, String secret, String events) {
+        this.userId = userId;
+        this.url = url;
+        this.secret = secret;
+        this.events = events;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Whether the endpoint wants events of the given type
+     */
+    public boolean subscribesTo(String eventType) {
+        if (events == null || events.isBlank()) {
+            return true;
+        }
+        for (String event : events.split(",")) {
+            if (event.trim().equals(eventType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public String getSecret() { return secret; }
+    public void setSecret(String secret) { this.secret = secret; }
+
+    public String getEvents() { return events; }
+    public void setEvents(String events) { this.events = events; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,4 +28,13 @@ public interface ActionItemRepository extends JpaRepository<ActionItem, Long> {
     
     @Query("SELECT COUNT(ai) FROM ActionItem ai WHERE ai.assignee = :user AND ai.status = :status")
     Long countByAssigneeAndStatus(@Param("user") User user, @Param("status") ActionItem.ActionItemStatus status);
-}
\ No newline at end of file
+
+    /**
+     * Find the open action items due by a date of several assignees in one query,
+     * as (assignee id, task, due date, meeting title) rows
+     */
+    @Query("SELECT ai.assignee.id, ai.task, ai.dueDate, m.title FROM ActionItem ai LEFT JOIN ai.meeting m " +
+           "WHERE ai.assignee.id IN :userIds AND ai.dueDate <= :date AND ai.status != 'COMPLETED' " +
+           "ORDER BY ai.dueDate")
+    List<Object[]> findOverdueActionItemsForUsers(@Param("userIds") Collection<Long> userIds, @Param("date") LocalDate date);
+}
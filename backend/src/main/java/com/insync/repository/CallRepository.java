@@ -2,12 +2,14 @@ package com.insync.repository;
 
 import com.insync.entity.Call;
 import com.insync.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,8 +18,18 @@ public interface CallRepository extends JpaRepository<Call, Long> {
     
     Optional<Call> findByCallId(String callId);
     
-    @Query("SELECT c FROM Call c WHERE (c.caller = :user OR c.receiver = :user) ORDER BY c.createdAt DESC")
-    List<Call> findCallHistoryForUser(@Param("user") User user);
+    /**
+     * Find a page of a user's calls, newest first, continuing after (afterTime, afterId); fetch with a Pageable limit
+     */
+    @Query("SELECT c FROM Call c JOIN FETCH c.caller JOIN FETCH c.receiver " +
+           "WHERE (c.caller.id = :userId OR c.receiver.id = :userId) " +
+           "AND c.status IN :statuses AND c.createdAt >= :from AND c.createdAt < :to " +
+           "AND (c.createdAt < :afterTime OR (c.createdAt = :afterTime AND c.id < :afterId)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Call> findCallHistoryForUser(@Param("userId") Long userId, @Param("statuses") Collection<Call.CallStatus> statuses,
+                                      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                      @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                      Pageable pageable);
     
     @Query("SELECT c FROM Call c WHERE (c.caller = :user OR c.receiver = :user) AND c.createdAt >= :since ORDER BY c.createdAt DESC")
     List<Call> findRecentCallsForUser(@Param("user") User user, @Param("since") LocalDateTime since);
@@ -0,0 +1,37 @@
+package com.insync.repository;
+
+import com.insync.entity.DeviceToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long> {
+
+    Optional<DeviceToken> findByToken(String token);
+
+    List<DeviceToken> findByUserIdOrderByLastSeenAtDesc(Long userId);
+
+    /**
+     * Find user id and token of every device of the given users
+     */
+    @Query("SELECT d.userId, d.token FROM DeviceToken d WHERE d.userId IN :userIds")
+    List<Object[]> findTokensByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Removes tokens the push gateway reported as no longer valid
+     */
+    @Modifying
+    @Query("DELETE FROM DeviceToken d WHERE d.token IN :tokens")
+    int deleteByTokens(@Param("tokens") Collection<String> tokens);
+
+    @Modifying
+    @Query("DELETE FROM DeviceToken d WHERE d.token = :token AND d.userId = :userId")
+    int deleteByTokenAndUserId(@Param("token") String token, @Param("userId") Long userId);
+}
@@ -0,0 +1,37 @@
+package com.insync.repository;
+
+import com.insync.entity.IdSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdSequenceRepository extends JpaRepository<IdSequence, String> {
+
+    /**
+     * Moves a counter past the next block. The row stays locked until the transaction ends, so
+     * reading it back in the same transaction gives this caller's block alone.
+     */
+    @Modifying
+    @Query("UPDATE IdSequence s SET s.nextValue = s.nextValue + :blockSize, s.updatedAt = :currentTime WHERE s.name = :name")
+    int advance(@Param("name") String name, @Param("blockSize") long blockSize, @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Creates a counter. A plain INSERT rather than save(), which would merge over a row another
+     * instance has just created instead of failing on the duplicate key.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO id_sequences (name, next_value, updated_at) VALUES (:name, :nextValue, :currentTime)",
+           nativeQuery = true)
+    void create(@Param("name") String name, @Param("nextValue") long nextValue, @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Gets the first value not yet reserved
+     */
+    @Query("SELECT s.nextValue FROM IdSequence s WHERE s.name = :name")
+    long findNextValue(@Param("name") String name);
+}
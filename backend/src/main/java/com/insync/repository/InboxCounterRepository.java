@@ -0,0 +1,26 @@
+package com.insync.repository;
+
+import com.insync.entity.InboxCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface InboxCounterRepository extends JpaRepository<InboxCounter, Long> {
+
+    /**
+     * Adds to a user's unread count in place, never going below zero.
+     * Returns 0 if the user has no counter row yet.
+     */
+    @Modifying
+    @Query("UPDATE InboxCounter c SET c.unreadCount = CASE WHEN c.unreadCount + :delta < 0 THEN 0 ELSE c.unreadCount + :delta END, " +
+           "c.updatedAt = :updatedAt WHERE c.userId = :userId")
+    int adjust(@Param("userId") Long userId, @Param("delta") long delta, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT c.unreadCount FROM InboxCounter c WHERE c.userId = :userId")
+    Long findUnreadCount(@Param("userId") Long userId);
+}
@@ -0,0 +1,36 @@
+package com.insync.repository;
+
+import com.insync.entity.InboxItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InboxItemRepository extends JpaRepository<InboxItem, Long> {
+
+    /**
+     * Find a page of a user's inbox, newest first, starting below the given id
+     */
+    @Query("SELECT i FROM InboxItem i WHERE i.userId = :userId AND i.id < :beforeId ORDER BY i.id DESC")
+    List<InboxItem> findPage(@Param("userId") Long userId, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    /**
+     * Marks one unread item read. Returns 0 if it is not the user's or was already read.
+     */
+    @Modifying
+    @Query("UPDATE InboxItem i SET i.readAt = :readAt WHERE i.id = :id AND i.userId = :userId AND i.readAt IS NULL")
+    int markRead(@Param("id") Long id, @Param("userId") Long userId, @Param("readAt") LocalDateTime readAt);
+
+    /**
+     * Marks all of a user's unread items up to the given id read
+     */
+    @Modifying
+    @Query("UPDATE InboxItem i SET i.readAt = :readAt WHERE i.userId = :userId AND i.id <= :upToId AND i.readAt IS NULL")
+    int markAllRead(@Param("userId") Long userId, @Param("upToId") Long upToId, @Param("readAt") LocalDateTime readAt);
+}
@@ -0,0 +1,47 @@
+package com.insync.repository;
+
+import com.insync.entity.MeetingOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MeetingOutboxEventRepository extends JpaRepository<MeetingOutboxEvent, Long> {
+
+    /**
+     * Find the oldest pending events, in the order they were written
+     */
+    @Query("SELECT e FROM MeetingOutboxEvent e WHERE e.status = 'PENDING' ORDER BY e.id")
+    List<MeetingOutboxEvent> findPending(Pageable pageable);
+
+    long countByStatus(MeetingOutboxEvent.EventStatus status);
+
+    /**
+     * Marks an event relayed
+     */
+    @Modifying
+    @Query("UPDATE MeetingOutboxEvent e SET e.status = 'PROCESSED', e.processedAt = :currentTime WHERE e.id = :id")
+    int markProcessed(@Param("id") Long id, @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Records a failed relay attempt; the event is given up on as FAILED once it has used up its attempts
+     */
+    @Modifying
+    @Query("UPDATE MeetingOutboxEvent e SET e.attemptCount = e.attemptCount + 1, e.lastError = :error, " +
+           "e.status = CASE WHEN e.attemptCount + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END " +
+           "WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Deletes relayed events written before the given time
+     */
+    @Modifying
+    @Query("DELETE FROM MeetingOutboxEvent e WHERE e.status = 'PROCESSED' AND e.createdAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +25,14 @@ public interface MeetingParticipantRepository extends JpaRepository<MeetingParti
     
     @Query("SELECT AVG(mp.engagementScore) FROM MeetingParticipant mp WHERE mp.meeting = :meeting")
     Double getAverageEngagementForMeeting(@Param("meeting") Meeting meeting);
+
+    boolean existsByMeeting_IdAndUser_Id(Long meetingId, Long userId);
+
+    /**
+     * Find the participants of several meetings, as (meeting id, participant id, join time, leave time,
+     * user id, user name, user email) rows in join order
+     */
+    @Query("SELECT p.meeting.id, p.id, p.joinTime, p.leaveTime, u.id, u.name, u.email FROM MeetingParticipant p JOIN p.user u " +
+           "WHERE p.meeting.id IN :meetingIds ORDER BY p.id")
+    List<Object[]> findParticipantSummaries(@Param("meetingIds") Collection<Long> meetingIds);
 }
\ No newline at end of file
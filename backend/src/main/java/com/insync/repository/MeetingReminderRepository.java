@@ -0,0 +1,44 @@
+package com.insync.repository;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.MeetingReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MeetingReminderRepository extends JpaRepository<MeetingReminder, Long> {
+
+    /**
+     * Find id, meeting id and fire time of pending reminders in the given meeting-id shards due up to the given horizon
+     */
+    @Query("SELECT r.id, r.meeting.id, r.fireTime FROM MeetingReminder r WHERE r.status = 'PENDING' " +
+           "AND r.fireTime <= :horizonEnd AND MOD(r.meeting.id, :shardCount) IN :shards")
+    List<Object[]> findPendingScheduleUntil(@Param("horizonEnd") LocalDateTime horizonEnd,
+                                            @Param("shardCount") int shardCount,
+                                            @Param("shards") Collection<Integer> shards);
+
+    long countByStatus(MeetingReminder.ReminderStatus status);
+
+    /**
+     * Marks a due pending reminder as fired. Returns 0 if it was cancelled, moved
+     * or already fired by someone else, so each reminder is expanded at most once.
+     */
+    @Modifying
+    @Query("UPDATE MeetingReminder r SET r.status = 'FIRED', r.firedAt = :currentTime " +
+           "WHERE r.id = :id AND r.status = 'PENDING' AND r.fireTime <= :currentTime")
+    int markFired(@Param("id") Long id, @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Cancels all pending reminders of a meeting
+     */
+    @Modifying
+    @Query("UPDATE MeetingReminder r SET r.status = 'CANCELLED' WHERE r.meeting = :meeting AND r.status = 'PENDING'")
+    int cancelPendingReminders(@Param("meeting") Meeting meeting);
+}
@@ -1,33 +1,122 @@
 package com.insync.repository;
 
+import com.insync.dto.MeetingDto;
 import com.insync.entity.Meeting;
 import com.insync.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MeetingRepository extends JpaRepository<Meeting, Long> {
+
+    // Listing projection: one row per meeting with its host summary, without loading either entity
+    String SUMMARY_COLUMNS = "SELECT new com.insync.dto.MeetingDto(m.id, m.title, m.description, m.startTime, m.endTime, " +
+        "m.status, m.type, m.meetingId, m.recordingUrl, m.transcriptUrl, m.createdAt, m.updatedAt, h.id, h.name, h.email) ";
+
+    // Hosted meetings, read in (host_id, start_time, id) index order
+    String HOSTED_SUMMARY_SELECT = SUMMARY_COLUMNS + "FROM Meeting m JOIN m.host h WHERE m.host.id = :userId ";
+
+    // Joined meetings, found through the (user_id, meeting_id) participant index
+    String JOINED_SUMMARY_SELECT = SUMMARY_COLUMNS +
+        "FROM MeetingParticipant p JOIN p.meeting m JOIN m.host h WHERE p.user.id = :userId ";
+
+    // Keyset continuation as a row comparison, so the database can start an index range scan at the cursor
+    String NEWEST_FIRST_AFTER = "AND m.status IN :statuses AND m.startTime >= :from AND m.startTime < :to " +
+        "AND (m.startTime, m.id) < (:afterTime, :afterId) ORDER BY m.startTime DESC, m.id DESC";
+
+    String SOONEST_FIRST_AFTER = "AND m.status IN :statuses AND m.startTime > :now AND m.startTime >= :from AND m.startTime < :to " +
+        "AND (m.startTime, m.id) > (:afterTime, :afterId) ORDER BY m.startTime, m.id";
+
     Optional<Meeting> findByMeetingId(String meetingId);
+
+    /**
+     * Find a meeting's id, host id and status by its join code, as at most one (id, host id, status) row
+     */
+    @Query("SELECT m.id, m.host.id, m.status FROM Meeting m WHERE m.meetingId = :meetingId")
+    List<Object[]> findIdHostIdAndStatusByMeetingId(@Param("meetingId") String meetingId);
+
+    @Query("SELECT DISTINCT m FROM Meeting m JOIN FETCH m.host LEFT JOIN FETCH m.participants p LEFT JOIN FETCH p.user WHERE m.id = :id")
+    Optional<Meeting> findByIdWithParticipants(@Param("id") Long id);
     
     List<Meeting> findByHostOrderByStartTimeDesc(User host);
     
     @Query("SELECT m FROM Meeting m JOIN m.participants p WHERE p.user = :user ORDER BY m.startTime DESC")
     List<Meeting> findMeetingsByParticipant(@Param("user") User user);
     
-    @Query("SELECT m FROM Meeting m WHERE m.host = :user OR m.id IN (SELECT p.meeting.id FROM MeetingParticipant p WHERE p.user = :user) ORDER BY m.startTime DESC")
-    List<Meeting> findAllUserMeetings(@Param("user") User user);
+    /**
+     * Find a page of the meetings a user hosts, newest first, as listing projections.
+     * The page continues after (afterTime, afterId); fetch with a Pageable limit.
+     */
+    @Query(HOSTED_SUMMARY_SELECT + NEWEST_FIRST_AFTER)
+    List<MeetingDto> findHostedMeetingSummaries(@Param("userId") Long userId,
+                                                @Param("statuses") Collection<Meeting.MeetingStatus> statuses,
+                                                @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    /**
+     * Find a page of the meetings a user takes part in, newest first, as listing projections.
+     * The page continues after (afterTime, afterId); fetch with a Pageable limit.
+     */
+    @Query(JOINED_SUMMARY_SELECT + NEWEST_FIRST_AFTER)
+    List<MeetingDto> findJoinedMeetingSummaries(@Param("userId") Long userId,
+                                                @Param("statuses") Collection<Meeting.MeetingStatus> statuses,
+                                                @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                                Pageable pageable);
     
     @Query("SELECT m FROM Meeting m WHERE m.startTime BETWEEN :startDate AND :endDate ORDER BY m.startTime")
     List<Meeting> findMeetingsBetweenDates(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
     
     List<Meeting> findByStatusOrderByStartTimeDesc(Meeting.MeetingStatus status);
+
+    @Query("SELECT m.id FROM Meeting m WHERE m.id IN :ids AND m.status = 'CANCELLED'")
+    List<Long> findCancelledIds(@Param("ids") Collection<Long> ids);
     
-    @Query("SELECT m FROM Meeting m WHERE m.startTime > :now AND (m.host = :user OR m.id IN (SELECT p.meeting.id FROM MeetingParticipant p WHERE p.user = :user)) ORDER BY m.startTime")
-    List<Meeting> findUpcomingMeetingsForUser(@Param("user") User user, @Param("now") LocalDateTime now);
-}
\ No newline at end of file
+    /**
+     * Find a page of the meetings a user hosts that start after the given time, soonest first,
+     * as listing projections. The page continues after (afterTime, afterId).
+     */
+    @Query(HOSTED_SUMMARY_SELECT + SOONEST_FIRST_AFTER)
+    List<MeetingDto> findUpcomingHostedMeetingSummaries(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                                        @Param("statuses") Collection<Meeting.MeetingStatus> statuses,
+                                                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                        @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                                        Pageable pageable);
+
+    /**
+     * Find a page of the meetings a user takes part in that start after the given time, soonest first,
+     * as listing projections. The page continues after (afterTime, afterId).
+     */
+    @Query(JOINED_SUMMARY_SELECT + SOONEST_FIRST_AFTER)
+    List<MeetingDto> findUpcomingJoinedMeetingSummaries(@Param("userId") Long userId, @Param("now") LocalDateTime now,
+                                                        @Param("statuses") Collection<Meeting.MeetingStatus> statuses,
+                                                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                        @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                                        Pageable pageable);
+
+    /**
+     * Find the meetings several users host in a time range, as (host id, meeting id, title, join code, start time) rows
+     */
+    @Query("SELECT m.host.id, m.id, m.title, m.meetingId, m.startTime FROM Meeting m " +
+           "WHERE m.host.id IN :userIds AND m.startTime >= :from AND m.startTime < :to AND m.status != 'CANCELLED'")
+    List<Object[]> findHostedMeetingsForUsers(@Param("userIds") Collection<Long> userIds,
+                                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Find the meetings several users take part in during a time range, as (participant id, meeting id, title,
+     * join code, start time) rows
+     */
+    @Query("SELECT p.user.id, m.id, m.title, m.meetingId, m.startTime FROM MeetingParticipant p JOIN p.meeting m " +
+           "WHERE p.user.id IN :userIds AND m.startTime >= :from AND m.startTime < :to AND m.status != 'CANCELLED'")
+    List<Object[]> findJoinedMeetingsForUsers(@Param("userIds") Collection<Long> userIds,
+                                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,40 @@
+package com.insync.repository;
+
+import com.insync.entity.NotificationDelivery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationDeliveryRepository extends JpaRepository<NotificationDelivery, Long> {
+
+    /**
+     * Find which of the given dedup keys are already in the ledger
+     */
+    @Query("SELECT d.dedupKey FROM NotificationDelivery d WHERE d.dedupKey IN :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    /**
+     * Removes ledger entries for sends that did not go through, so they can be retried
+     */
+    @Modifying
+    @Query("DELETE FROM NotificationDelivery d WHERE d.dedupKey IN :keys")
+    int deleteByDedupKeys(@Param("keys") Collection<String> keys);
+
+    /**
+     * Find the next chunk of ledger entries delivered before the cutoff, in id order after the given id
+     */
+    @Query("SELECT d.id FROM NotificationDelivery d WHERE d.deliveredAt < :cutoff AND d.id > :afterId ORDER BY d.id")
+    List<Long> findIdsDeliveredBefore(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM NotificationDelivery d WHERE d.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
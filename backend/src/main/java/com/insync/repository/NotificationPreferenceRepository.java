@@ -1,9 +1,15 @@
 package com.insync.repository;
 
 import com.insync.entity.NotificationPreference;
+import com.insync.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +19,16 @@ public interface NotificationPreferenceRepository extends JpaRepository<Notifica
      * Find notification preference by user ID (since it's OneToOne relationship)
      */
     Optional<NotificationPreference> findByUser_Id(Long userId);
+
+    /**
+     * Find the notification preferences of several users in one query
+     */
+    List<NotificationPreference> findByUser_IdIn(Collection<Long> userIds);
+
+    /**
+     * Find the next page of users who asked for the morning agenda, in user id order after the given id
+     */
+    @Query("SELECT p.user FROM NotificationPreference p WHERE p.morningAgenda = true AND p.user.id > :afterUserId " +
+           "ORDER BY p.user.id")
+    List<User> findMorningAgendaUsers(@Param("afterUserId") Long afterUserId, Pageable pageable);
 }
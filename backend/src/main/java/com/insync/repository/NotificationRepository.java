@@ -3,23 +3,204 @@ package com.insync.repository;
 import com.insync.entity.Notification;
 import com.insync.entity.Meeting;
 import com.insync.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
     /**
-     * Find all pending notifications that should be sent now or before the given time
+     * Find id, meeting id and scheduled time of unleased pending notifications in the given user-id shards
+     * due up to the given horizon
      */
-    @Query("SELECT n FROM Notification n WHERE n.status = 'PENDING' AND n.scheduledTime <= :currentTime")
-    List<Notification> findPendingNotificationsToSend(@Param("currentTime") LocalDateTime currentTime);
-    
+    @Query("SELECT n.id, n.meeting.id, n.scheduledTime FROM Notification n WHERE n.status = 'PENDING' " +
+           "AND n.scheduledTime <= :horizonEnd AND (n.claimedUntil IS NULL OR n.claimedUntil < :currentTime) " +
+           "AND MOD(n.user.id, :shardCount) IN :shards")
+    List<Object[]> findPendingScheduleUntil(@Param("horizonEnd") LocalDateTime horizonEnd,
+                                            @Param("currentTime") LocalDateTime currentTime,
+                                            @Param("shardCount") int shardCount,
+                                            @Param("shards") Collection<Integer> shards);
+
+    /**
+     * Find the ids of failed notifications in the given user-id shards whose next retry is due,
+     * using the (status, next_attempt_time) index
+     */
+    @Query("SELECT n.id FROM Notification n WHERE n.status = 'FAILED' AND n.nextAttemptTime <= :currentTime " +
+           "AND (n.claimedUntil IS NULL OR n.claimedUntil < :currentTime) " +
+           "AND MOD(n.user.id, :shardCount) IN :shards ORDER BY n.nextAttemptTime")
+    List<Long> findRetryableNotificationIds(@Param("currentTime") LocalDateTime currentTime,
+                                            @Param("shardCount") int shardCount, @Param("shards") Collection<Integer> shards,
+                                            Pageable pageable);
+
+    /**
+     * Leases the given notifications to a dispatcher run. Rows already leased by
+     * an overlapping run are skipped, so each row is claimed by at most one run.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.claimToken = :claimToken, n.claimedUntil = :leaseUntil " +
+           "WHERE n.id IN :ids AND n.status IN ('PENDING', 'FAILED') " +
+           "AND (n.claimedUntil IS NULL OR n.claimedUntil < :currentTime)")
+    int claimNotifications(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken,
+                           @Param("currentTime") LocalDateTime currentTime, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Leases the given pending notifications if they are due. Used when the timing wheel
+     * fires, so rows that were cancelled or moved later in the meantime are skipped.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.claimToken = :claimToken, n.claimedUntil = :leaseUntil " +
+           "WHERE n.id IN :ids AND n.status = 'PENDING' AND n.scheduledTime <= :currentTime " +
+           "AND (n.claimedUntil IS NULL OR n.claimedUntil < :currentTime)")
+    int claimDueNotifications(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken,
+                              @Param("currentTime") LocalDateTime currentTime, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Find the (id, user id, channel) of unleased pending notifications of several users that are
+     * due by the given time. Used to gather reminders into a digest ahead of their own time.
+     */
+    @Query("SELECT n.id, n.user.id, n.channel FROM Notification n WHERE n.user.id IN :userIds " +
+           "AND n.status = 'PENDING' AND n.type IN :types AND n.scheduledTime <= :until " +
+           "AND (n.claimedUntil IS NULL OR n.claimedUntil < :currentTime)")
+    List<Object[]> findDigestCandidates(@Param("userIds") Collection<Long> userIds,
+                                        @Param("types") Collection<Notification.NotificationType> types,
+                                        @Param("until") LocalDateTime until, @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Find some of the notifications leased under a claim token, with their recipients and meetings
+     */
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user JOIN FETCH n.meeting WHERE n.id IN :ids AND n.claimToken = :claimToken")
+    List<Notification> findClaimedNotificationsByIds(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken);
+
+    /**
+     * Find the notifications leased under a claim token, with their recipients
+     */
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user WHERE n.claimToken = :claimToken")
+    List<Notification> findClaimedNotifications(@Param("claimToken") String claimToken);
+
+    /**
+     * Count pending and failed notifications by channel and status
+     */
+    @Query("SELECT n.channel, n.status, COUNT(n) FROM Notification n WHERE n.status IN ('PENDING', 'FAILED') " +
+           "GROUP BY n.channel, n.status")
+    List<Object[]> countBacklogByChannel();
+
+    /**
+     * Find which of the given claimed notifications are still pending and due.
+     * Used before sending notifications that were held back by smoothing.
+     */
+    @Query("SELECT n.id FROM Notification n WHERE n.id IN :ids AND n.claimToken = :claimToken " +
+           "AND n.status = 'PENDING' AND n.scheduledTime <= :currentTime")
+    List<Long> findStillDueClaimedIds(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken,
+                                      @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Releases the lease on claimed notifications without changing their status
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.claimToken = NULL, n.claimedUntil = NULL WHERE n.id IN :ids AND n.claimToken = :claimToken")
+    int releaseClaims(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken);
+
+    /**
+     * Marks claimed notifications as sent and releases their lease
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = 'SENT', n.sentTime = :sentTime, n.attemptCount = n.attemptCount + 1, " +
+           "n.nextAttemptTime = NULL, n.claimToken = NULL, n.claimedUntil = NULL " +
+           "WHERE n.id IN :ids AND n.claimToken = :claimToken")
+    int markSent(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken, @Param("sentTime") LocalDateTime sentTime);
+
+    /**
+     * Marks claimed notifications as suppressed duplicates and releases their lease
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = 'DUPLICATE', n.nextAttemptTime = NULL, " +
+           "n.claimToken = NULL, n.claimedUntil = NULL WHERE n.id IN :ids AND n.claimToken = :claimToken")
+    int markDuplicate(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken);
+
+    /**
+     * Records a failed attempt on a claimed notification and releases its lease.
+     * The status is FAILED with a next attempt time, or DEAD_LETTER once attempts run out.
+     * A notification cancelled while the attempt was under way stays cancelled.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :status, n.attemptCount = :attemptCount, n.nextAttemptTime = :nextAttemptTime, " +
+           "n.errorMessage = :errorMessage, n.claimToken = NULL, n.claimedUntil = NULL " +
+           "WHERE n.id = :id AND n.claimToken = :claimToken AND n.status <> 'CANCELLED'")
+    int markAttemptFailed(@Param("id") Long id, @Param("claimToken") String claimToken,
+                          @Param("status") Notification.NotificationStatus status, @Param("attemptCount") int attemptCount,
+                          @Param("nextAttemptTime") LocalDateTime nextAttemptTime, @Param("errorMessage") String errorMessage);
+
+    /**
+     * Cancels all unsent notifications of a meeting in one statement, using the (meeting_id, status) index.
+     * Failed ones are included, so the retry sweep does not send them after the meeting is gone.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = 'CANCELLED' WHERE n.meeting = :meeting AND n.status IN ('PENDING', 'FAILED')")
+    int cancelUnsentNotifications(@Param("meeting") Meeting meeting);
+
+    /**
+     * Cancels a rescheduled meeting's reminders that must not go out: failed ones of the given types,
+     * which would be retried with the old time, and pending ones of the types that no longer apply
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = 'CANCELLED' WHERE n.meeting = :meeting AND n.type IN :types " +
+           "AND (n.status = 'FAILED' OR (n.status = 'PENDING' AND n.type IN :droppedTypes))")
+    int cancelStaleReminders(@Param("meeting") Meeting meeting,
+                             @Param("types") Collection<Notification.NotificationType> types,
+                             @Param("droppedTypes") Collection<Notification.NotificationType> droppedTypes);
+
+    /**
+     * Moves a meeting's pending reminders of the given types in one statement: end-relative types by
+     * endSeconds and the rest by startSeconds. Used when a meeting is rescheduled.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.scheduledTime = n.scheduledTime + " +
+           "(CASE WHEN n.type IN :endTypes THEN :endSeconds ELSE :startSeconds END) second " +
+           "WHERE n.meeting = :meeting AND n.status = 'PENDING' AND n.type IN :types")
+    int shiftPendingReminders(@Param("meeting") Meeting meeting,
+                              @Param("types") Collection<Notification.NotificationType> types,
+                              @Param("endTypes") Collection<Notification.NotificationType> endTypes,
+                              @Param("startSeconds") long startSeconds, @Param("endSeconds") long endSeconds);
+
+    /**
+     * Replaces the title and message of a meeting's pending notifications of one type, each channel
+     * getting its own wording
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET " +
+           "n.title = CASE n.channel WHEN 'EMAIL' THEN :emailTitle WHEN 'SMS' THEN :smsTitle " +
+           "WHEN 'PUSH' THEN :pushTitle ELSE :inAppTitle END, " +
+           "n.message = CASE n.channel WHEN 'EMAIL' THEN :emailMessage WHEN 'SMS' THEN :smsMessage " +
+           "WHEN 'PUSH' THEN :pushMessage ELSE :inAppMessage END " +
+           "WHERE n.meeting = :meeting AND n.status = 'PENDING' AND n.type = :type")
+    int rewordPendingNotifications(@Param("meeting") Meeting meeting, @Param("type") Notification.NotificationType type,
+                                   @Param("emailTitle") String emailTitle, @Param("emailMessage") String emailMessage,
+                                   @Param("smsTitle") String smsTitle, @Param("smsMessage") String smsMessage,
+                                   @Param("pushTitle") String pushTitle, @Param("pushMessage") String pushMessage,
+                                   @Param("inAppTitle") String inAppTitle, @Param("inAppMessage") String inAppMessage);
+
+    /**
+     * Find the (user id, type) pairs a meeting still has pending notifications for
+     */
+    @Query("SELECT DISTINCT n.user.id, n.type FROM Notification n WHERE n.meeting = :meeting AND n.status = 'PENDING'")
+    List<Object[]> findPendingUserTypes(@Param("meeting") Meeting meeting);
+
+    /**
+     * Find id, meeting id and scheduled time of a meeting's pending notifications due up to the given horizon
+     */
+    @Query("SELECT n.id, n.meeting.id, n.scheduledTime FROM Notification n " +
+           "WHERE n.meeting = :meeting AND n.status = 'PENDING' AND n.scheduledTime <= :horizonEnd")
+    List<Object[]> findPendingScheduleForMeeting(@Param("meeting") Meeting meeting,
+                                                 @Param("horizonEnd") LocalDateTime horizonEnd);
+
     /**
      * Find all notifications for a specific meeting
      */
@@ -35,10 +216,26 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     @Query("SELECT n FROM Notification n WHERE n.meeting = :meeting AND n.type = :type")
     List<Notification> findByMeetingAndType(@Param("meeting") Meeting meeting, @Param("type") Notification.NotificationType type);
-    
+
     /**
-     * Find notifications that failed to send
+     * Find the next chunk of terminal notifications scheduled before the cutoff, in id order after the given id
      */
-    @Query("SELECT n FROM Notification n WHERE n.status = 'FAILED'")
-    List<Notification> findFailedNotifications();
+    @Query("SELECT n.id FROM Notification n WHERE n.status IN ('SENT', 'CANCELLED', 'DEAD_LETTER', 'DUPLICATE') " +
+           "AND n.scheduledTime < :cutoff AND n.id > :afterId ORDER BY n.id")
+    List<Long> findTerminalIdsBefore(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Copies notifications into notifications_archive in one statement
+     */
+    @Modifying
+    @Query(value = "INSERT INTO notifications_archive (id, user_id, meeting_id, title, message, type, channel, status, " +
+                   "scheduled_time, sent_time, error_message, attempt_count, created_at, archived_at) " +
+                   "SELECT id, user_id, meeting_id, title, message, type, channel, status, " +
+                   "scheduled_time, sent_time, error_message, attempt_count, created_at, :archivedAt " +
+                   "FROM notifications WHERE id IN :ids", nativeQuery = true)
+    int archiveByIds(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
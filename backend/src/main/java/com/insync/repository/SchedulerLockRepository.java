@@ -0,0 +1,50 @@
+package com.insync.repository;
+
+import com.insync.entity.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Takes over or renews a lock if it has expired or is already held by the given owner
+     */
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedBy = :owner, l.lockedUntil = :lockedUntil, l.lockedAt = :currentTime " +
+           "WHERE l.name = :name AND (l.lockedUntil < :currentTime OR l.lockedBy = :owner)")
+    int acquire(@Param("name") String name, @Param("owner") String owner,
+                @Param("currentTime") LocalDateTime currentTime, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    /**
+     * Releases a lock held by the given owner
+     */
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :currentTime WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Deletes a lock held by the given owner
+     */
+    @Modifying
+    @Query("DELETE FROM SchedulerLock l WHERE l.name = :name AND l.lockedBy = :owner")
+    int deleteHeld(@Param("name") String name, @Param("owner") String owner);
+
+    /**
+     * Deletes locks whose name starts with the given prefix and whose lease ran out before the given time
+     */
+    @Modifying
+    @Query("DELETE FROM SchedulerLock l WHERE l.name LIKE CONCAT(:prefix, '%') AND l.lockedUntil < :cutoff")
+    int deleteExpired(@Param("prefix") String prefix, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Counts unexpired locks whose name starts with the given prefix
+     */
+    @Query("SELECT COUNT(l) FROM SchedulerLock l WHERE l.name LIKE CONCAT(:prefix, '%') AND l.lockedUntil >= :currentTime")
+    long countHeld(@Param("prefix") String prefix, @Param("currentTime") LocalDateTime currentTime);
+}
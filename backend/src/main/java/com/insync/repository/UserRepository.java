@@ -1,11 +1,13 @@
 package com.insync.repository;
 
 import com.insync.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +24,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findByStatus(User.UserStatus status);
     
-    @Query("SELECT u FROM User u WHERE u.id != :userId ORDER BY u.name")
-    List<User> findAllExceptUser(@Param("userId") Long userId);
+    /**
+     * Find a page of users other than the given one by name, continuing after (afterName, afterId);
+     * fetch with a Pageable limit
+     */
+    @Query("SELECT u FROM User u WHERE u.id != :userId AND u.status IN :statuses " +
+           "AND (u.name > :afterName OR (u.name = :afterName AND u.id > :afterId)) ORDER BY u.name, u.id")
+    List<User> findAllExceptUser(@Param("userId") Long userId, @Param("statuses") Collection<User.UserStatus> statuses,
+                                 @Param("afterName") String afterName, @Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
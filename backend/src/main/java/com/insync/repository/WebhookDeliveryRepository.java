@@ -0,0 +1,87 @@
+package com.insync.repository;
+
+import com.insync.entity.WebhookDelivery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+
+    /**
+     * Find ids of unleased pending deliveries whose next attempt is due, oldest first
+     */
+    @Query("SELECT d.id FROM WebhookDelivery d WHERE d.status = 'PENDING' AND d.nextAttemptAt <= :currentTime " +
+           "AND (d.claimedUntil IS NULL OR d.claimedUntil < :currentTime) ORDER BY d.id")
+    List<Long> findDueIds(@Param("currentTime") LocalDateTime currentTime, Pageable pageable);
+
+    /**
+     * Leases the given deliveries to a dispatcher run. Rows leased by another run are skipped,
+     * so each row is sent by at most one instance at a time.
+     */
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.claimToken = :claimToken, d.claimedUntil = :leaseUntil " +
+           "WHERE d.id IN :ids AND d.status = 'PENDING' AND (d.claimedUntil IS NULL OR d.claimedUntil < :currentTime)")
+    int claim(@Param("ids") List<Long> ids, @Param("claimToken") String claimToken,
+              @Param("currentTime") LocalDateTime currentTime, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Query("SELECT d FROM WebhookDelivery d WHERE d.claimToken = :claimToken ORDER BY d.id")
+    List<WebhookDelivery> findClaimed(@Param("claimToken") String claimToken);
+
+    /**
+     * Marks a batch acknowledged by its endpoint
+     */
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = 'DELIVERED', d.deliveredAt = :currentTime, " +
+           "d.attemptCount = d.attemptCount + 1, d.lastStatusCode = :statusCode, d.lastError = NULL, " +
+           "d.claimToken = NULL, d.claimedUntil = NULL WHERE d.id IN :ids")
+    int markDelivered(@Param("ids") List<Long> ids, @Param("statusCode") int statusCode,
+                      @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Records a failed attempt on a batch and schedules its next one
+     */
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.attemptCount = d.attemptCount + 1, d.lastStatusCode = :statusCode, " +
+           "d.lastError = :error, d.nextAttemptAt = :nextAttemptAt, d.claimToken = NULL, d.claimedUntil = NULL " +
+           "WHERE d.id IN :ids")
+    int recordFailure(@Param("ids") List<Long> ids, @Param("statusCode") Integer statusCode,
+                      @Param("error") String error, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    /**
+     * Gives up on the given deliveries that have used up their attempts
+     */
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.status = 'DEAD' WHERE d.id IN :ids AND d.attemptCount >= :maxAttempts")
+    int markDead(@Param("ids") List<Long> ids, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Puts deliveries back without counting an attempt, e.g. behind a failed batch to the same endpoint
+     */
+    @Modifying
+    @Query("UPDATE WebhookDelivery d SET d.nextAttemptAt = :nextAttemptAt, d.claimToken = NULL, d.claimedUntil = NULL " +
+           "WHERE d.id IN :ids")
+    int release(@Param("ids") List<Long> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Query("SELECT d FROM WebhookDelivery d WHERE d.endpointId = :endpointId ORDER BY d.id DESC")
+    List<WebhookDelivery> findRecent(@Param("endpointId") Long endpointId, Pageable pageable);
+
+    long countByStatus(WebhookDelivery.DeliveryStatus status);
+
+    /**
+     * Deletes delivered and given-up entries created before the cutoff
+     */
+    @Modifying
+    @Query("DELETE FROM WebhookDelivery d WHERE d.status IN ('DELIVERED', 'DEAD') AND d.createdAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM WebhookDelivery d WHERE d.endpointId = :endpointId")
+    int deleteByEndpointId(@Param("endpointId") Long endpointId);
+}
@@ -0,0 +1,29 @@
+package com.insync.repository;
+
+import com.insync.entity.WebhookEndpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookEndpointRepository extends JpaRepository<WebhookEndpoint, Long> {
+
+    List<WebhookEndpoint> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    /**
+     * Find the endpoints of several users, e.g. both parties of a call
+     */
+    @Query("SELECT e FROM WebhookEndpoint e WHERE e.userId IN :userIds")
+    List<WebhookEndpoint> findByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    long countByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM WebhookEndpoint e WHERE e.id = :id AND e.userId = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+}
@@ -0,0 +1,30 @@
+package com.insync.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Jittered exponential backoff.
+ * The delay doubles with every attempt up to a cap, and half of it is randomised
+ * ("equal jitter") so retries of a failed wave don't all land at the same moment.
+ */
+public class BackoffPolicy {
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public BackoffPolicy(Duration baseDelay, Duration maxDelay) {
+        this.baseDelayMillis = Math.max(1, baseDelay.toMillis());
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelay.toMillis());
+    }
+
+    /**
+     * Gets the delay before the next attempt, given how many attempts have already failed
+     */
+    public Duration delayAfter(int failedAttempts) {
+        int exponent = Math.max(0, Math.min(failedAttempts - 1, 30));
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << exponent);
+        long half = delay / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+}
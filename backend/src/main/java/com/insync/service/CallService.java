@@ -1,10 +1,13 @@
 package com.insync.service;
 
+import com.insync.dto.CursorPage;
 import com.insync.entity.Call;
 import com.insync.entity.User;
 import com.insync.repository.CallRepository;
 import com.insync.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -22,6 +25,15 @@ public class CallService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private WebhookService webhookService;
+
+    @Value("${listings.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${listings.max-page-size:200}")
+    private int maxPageSize;
+
     public Call initiateCall(User caller, Long receiverId, Call.CallType type) {
         User receiver = userRepository.findById(receiverId)
                 .orElseThrow(() -> new RuntimeException("Receiver not found"));
@@ -52,7 +64,9 @@ public class CallService {
         call.setStatus(Call.CallStatus.ACCEPTED);
         call.setStartedAt(LocalDateTime.now());
         
-        return callRepository.save(call);
+        Call savedCall = callRepository.save(call);
+        webhookService.publishCallEvent(savedCall, "call.started");
+        return savedCall;
     }
     
     public Call declineCall(String callId, User user, String reason) {
@@ -71,7 +85,9 @@ public class CallService {
         call.setEndedAt(LocalDateTime.now());
         call.setEndReason(reason != null ? reason : "Declined by receiver");
         
-        return callRepository.save(call);
+        Call savedCall = callRepository.save(call);
+        webhookService.publishCallEvent(savedCall, "call.declined");
+        return savedCall;
     }
     
     public Call endCall(String callId, User user, String reason) {
@@ -98,7 +114,9 @@ public class CallService {
             call.setDurationSeconds((int) duration);
         }
         
-        return callRepository.save(call);
+        Call savedCall = callRepository.save(call);
+        webhookService.publishCallEvent(savedCall, "call.ended");
+        return savedCall;
     }
     
     public Call cancelCall(String callId, User user, String reason) {
@@ -117,15 +135,34 @@ public class CallService {
         call.setEndedAt(LocalDateTime.now());
         call.setEndReason(reason != null ? reason : "Cancelled by caller");
         
-        return callRepository.save(call);
+        Call savedCall = callRepository.save(call);
+        webhookService.publishCallEvent(savedCall, "call.cancelled");
+        return savedCall;
     }
     
     public Optional<Call> getCall(String callId) {
         return callRepository.findByCallId(callId);
     }
     
-    public List<Call> getCallHistory(User user) {
-        return callRepository.findCallHistoryForUser(user);
+    /**
+     * Gets a page of a user's calls, newest first
+     *
+     * @param cursor continuation token from the previous page, or null for the first page
+     * @param status only calls in this status, or null for any
+     * @param from only calls created at or after this time, or null
+     * @param to only calls created before this time, or null
+     */
+    public CursorPage<Call> getCallHistory(User user, String cursor, Integer limit,
+                                           Call.CallStatus status, LocalDateTime from, LocalDateTime to) {
+        CursorPage.Cursor after = cursor != null
+            ? CursorPage.decode(cursor)
+            : new CursorPage.Cursor(CursorPage.MAX_TIME.toString(), Long.MAX_VALUE);
+        int pageSize = CursorPage.pageSize(limit, defaultPageSize, maxPageSize);
+        List<Call> calls = callRepository.findCallHistoryForUser(user.getId(),
+            status != null ? List.of(status) : List.of(Call.CallStatus.values()),
+            from != null ? from : CursorPage.MIN_TIME, to != null ? to : CursorPage.MAX_TIME,
+            after.getTimeKey(), after.getId(), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(calls, pageSize, Call::getCreatedAt, Call::getId);
     }
     
     public List<Call> getRecentCalls(User user, int hours) {
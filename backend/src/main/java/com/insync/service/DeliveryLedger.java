@@ -0,0 +1,175 @@
+package com.insync.service;
+
+import com.insync.entity.Notification;
+import com.insync.entity.NotificationDelivery;
+import com.insync.repository.NotificationDeliveryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exactly-once guard for notification delivery.
+ *
+ * Every logical notification - (meeting, user, type, channel) plus its fire time, or its content
+ * for immediate notifications - has a dedup key. A key is reserved in the ledger table before the
+ * send and released again if the send fails, so a second copy of the same notification, whether
+ * from a duplicate row or a retry after the provider already accepted it, is suppressed. Recently
+ * reserved keys are also kept in memory, so repeats are turned away without a query.
+ */
+@Service
+public class DeliveryLedger {
+
+    @Autowired
+    private NotificationDeliveryRepository notificationDeliveryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.dedup.recent-keys:100000}")
+    private int recentKeysCapacity;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Recently delivered keys, least recently used evicted first
+    private Map<String, Boolean> recentKeys;
+
+    private final AtomicLong duplicatesSuppressed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // Reservations commit on their own so they are visible to other senders immediately
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        recentKeys = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentKeysCapacity;
+            }
+        });
+    }
+
+    /**
+     * Builds the dedup key of a logical notification. Scheduled reminders are identified by their
+     * fire time, so a rescheduled meeting's reminders count as new; cancellation and reschedule
+     * notices by the outbox event they announce, since a meeting moved back and forth repeats the
+     * same text for what are separate changes.
+     */
+    public static String dedupKey(Notification notification) {
+        String anchor;
+        switch (notification.getType()) {
+            case MEETING_CANCELLED:
+            case MEETING_RESCHEDULED:
+                anchor = notification.getSourceEventId() != null
+                    ? "e" + notification.getSourceEventId()
+                    : notification.getScheduledTime().toString();
+                break;
+            default:
+                anchor = notification.getScheduledTime().truncatedTo(ChronoUnit.SECONDS).toString();
+        }
+        return "m" + notification.getMeeting().getId() + ":u" + notification.getUser().getId() + ":" +
+               notification.getType() + ":" + notification.getChannel() + ":" + anchor;
+    }
+
+    /**
+     * Reserves the dedup keys of notifications about to be sent
+     *
+     * @return the notifications whose key was free; the rest are duplicates and must not be sent
+     */
+    public List<Notification> reserve(List<Notification> notifications) {
+        Map<String, Notification> candidates = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            String key = dedupKey(notification);
+            if (recentKeys.containsKey(key) || candidates.putIfAbsent(key, notification) != null) {
+                duplicatesSuppressed.incrementAndGet();
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> reserved;
+        try {
+            reserved = transactionTemplate.execute(status -> insertNewKeys(candidates));
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with another sender for some key; fall back to one key at a time
+            reserved = new HashSet<>();
+            for (Map.Entry<String, Notification> candidate : candidates.entrySet()) {
+                try {
+                    reserved.addAll(transactionTemplate.execute(status -> insertNewKeys(Map.of(candidate.getKey(), candidate.getValue()))));
+                } catch (DataIntegrityViolationException duplicate) {
+                    // Already delivered by someone else
+                }
+            }
+        }
+
+        List<Notification> accepted = new ArrayList<>(reserved.size());
+        for (Map.Entry<String, Notification> candidate : candidates.entrySet()) {
+            recentKeys.put(candidate.getKey(), Boolean.TRUE);
+            if (reserved.contains(candidate.getKey())) {
+                accepted.add(candidate.getValue());
+            } else {
+                duplicatesSuppressed.incrementAndGet();
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Reserves the dedup key of a single notification
+     *
+     * @return false if the same notification has already been delivered
+     */
+    public boolean reserve(Notification notification) {
+        return !reserve(List.of(notification)).isEmpty();
+    }
+
+    /**
+     * Releases the keys of notifications whose send failed, so a retry may deliver them
+     */
+    public void release(Collection<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String key = dedupKey(notification);
+            keys.add(key);
+            recentKeys.remove(key);
+        }
+        transactionTemplate.executeWithoutResult(status -> notificationDeliveryRepository.deleteByDedupKeys(keys));
+    }
+
+    private Set<String> insertNewKeys(Map<String, Notification> candidates) {
+        Set<String> fresh = new HashSet<>(candidates.keySet());
+        fresh.removeAll(notificationDeliveryRepository.findExistingKeys(candidates.keySet()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationDelivery> deliveries = new ArrayList<>(fresh.size());
+        for (String key : fresh) {
+            deliveries.add(new NotificationDelivery(key, candidates.get(key).getId(), now));
+        }
+        notificationDeliveryRepository.saveAllAndFlush(deliveries);
+        return fresh;
+    }
+
+    public long getDuplicatesSuppressed() {
+        return duplicatesSuppressed.get();
+    }
+}
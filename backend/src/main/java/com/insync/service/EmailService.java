@@ -1,26 +1,316 @@
 package com.insync.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends email through a small number of long-lived SMTP connections.
+ *
+ * Messages are queued and picked up by one sender thread per connection, which gathers
+ * whatever arrives within a short window into a batch and sends it over its own open
+ * Transport, reconnecting only when the server has dropped the connection.
+ *
+ * A queued message that no connection has started sending within the send timeout fails, and the
+ * senders skip it, as they skip one whose future the caller cancelled; so a caller that retries
+ * after a timeout never has the original go out as well. A message already being sent always
+ * reports its real outcome; the SMTP socket timeouts bound how long that takes.
+ */
 @Service
 public class EmailService {
     @Autowired(required = false)
     private JavaMailSender mailSender;
 
+    @Value("${notifications.email.connections:2}")
+    private int connections;
+
+    @Value("${notifications.email.batch-window-ms:50}")
+    private long batchWindowMs;
+
+    @Value("${notifications.email.max-batch-size:50}")
+    private int maxBatchSize;
+
+    @Value("${notifications.email.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${notifications.email.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    private BlockingQueue<PendingEmail> queue;
+
+    private final List<Thread> senders = new ArrayList<>();
+
+    private volatile boolean running;
+
+    // Per-batch metrics
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong messagesFailed = new AtomicLong();
+    private final AtomicLong messagesExpired = new AtomicLong();
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong totalBatchMillis = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+
+    @PostConstruct
+    public void start() {
+        if (!(mailSender instanceof JavaMailSenderImpl)) {
+            return; // Not configured, or a custom sender we can't pool; send one by one
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        for (int i = 1; i <= Math.max(1, connections); i++) {
+            Thread sender = new Thread(this::runSender, "email-sender-" + i);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        senders.forEach(Thread::interrupt);
+    }
+
     public void sendEmail(String to, String subject, String text) {
         if (mailSender == null) {
             // Log warning instead of failing if mail sender is not configured
             System.out.println("Email service not configured. Would send email to: " + to + " with subject: " + subject);
             return;
         }
-        
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(text);
-        mailSender.send(message);
+
+        if (queue == null) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(to);
+            message.setSubject(subject);
+            message.setText(text);
+            mailSender.send(message);
+            return;
+        }
+
+        // Completes within the send timeout unless the message is already on the wire
+        try {
+            sendEmailAsync(to, subject, text).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted sending email to " + to);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Failed to send email: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Queues an email for the next batch. The future completes once the server has accepted it, or
+     * fails if no connection started sending it within the send timeout; cancelling it drops the
+     * email unless it is already being sent.
+     */
+    public CompletableFuture<Void> sendEmailAsync(String to, String subject, String text) {
+        PendingEmail email = new PendingEmail(to, subject, text);
+        if (queue == null) {
+            try {
+                sendEmail(to, subject, text);
+                email.result.complete(null);
+            } catch (Exception e) {
+                email.result.completeExceptionally(e);
+            }
+        } else if (!queue.offer(email)) {
+            email.result.completeExceptionally(new RuntimeException("Email queue is full"));
+        } else {
+            CompletableFuture.delayedExecutor(sendTimeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (email.expire()) {
+                    messagesExpired.incrementAndGet();
+                }
+            });
+        }
+        return email.result;
+    }
+
+    private void runSender() {
+        JavaMailSenderImpl sender = (JavaMailSenderImpl) mailSender;
+        Transport transport = null;
+        List<PendingEmail> batch = new ArrayList<>(maxBatchSize);
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long windowEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                while (batch.size() < maxBatchSize) {
+                    PendingEmail next = queue.poll(windowEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                transport = sendBatch(sender, transport, batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+        closeQuietly(transport);
+    }
+
+    /**
+     * Sends a batch over the connection, reconnecting once per message if it was dropped
+     *
+     * @return the connection to reuse for the next batch
+     */
+    private Transport sendBatch(JavaMailSenderImpl sender, Transport transport, List<PendingEmail> batch) {
+        long startNanos = System.nanoTime();
+        int sentCount = 0;
+        int skippedCount = 0;
+
+        for (PendingEmail email : batch) {
+            if (!email.claim()) {
+                skippedCount++; // Timed out or cancelled while queued; its caller already saw it fail
+                continue;
+            }
+            try {
+                MimeMessage message = createMessage(sender.getSession(), email);
+                try {
+                    transport = connected(sender, transport);
+                    transport.sendMessage(message, message.getAllRecipients());
+                } catch (SendFailedException e) {
+                    throw e; // Rejected recipient; the connection is fine
+                } catch (MessagingException e) {
+                    closeQuietly(transport);
+                    transport = connected(sender, null);
+                    transport.sendMessage(message, message.getAllRecipients());
+                }
+                email.result.complete(null);
+                sentCount++;
+            } catch (Exception e) {
+                email.result.completeExceptionally(e);
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        batches.incrementAndGet();
+        messagesSent.addAndGet(sentCount);
+        messagesFailed.addAndGet(batch.size() - skippedCount - sentCount);
+        totalBatchMillis.addAndGet(elapsedMillis);
+        lastBatchSize = batch.size();
+        lastBatchMillis = elapsedMillis;
+        return transport;
+    }
+
+    private Transport connected(JavaMailSenderImpl sender, Transport transport) throws MessagingException {
+        if (transport != null && transport.isConnected()) {
+            return transport;
+        }
+        closeQuietly(transport);
+        Session session = sender.getSession();
+        Transport newTransport = session.getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+        newTransport.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+        connectionsOpened.incrementAndGet();
+        return newTransport;
+    }
+
+    private MimeMessage createMessage(Session session, PendingEmail email) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(email.to));
+        message.setSubject(email.subject);
+        message.setText(email.text);
+        message.setSentDate(new Date());
+        message.saveChanges();
+        return message;
+    }
+
+    private static void closeQuietly(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Gets per-batch counters for the email sender
+     */
+    public Map<String, Object> getStats() {
+        long batchCount = batches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batchCount);
+        stats.put("sent", messagesSent.get());
+        stats.put("failed", messagesFailed.get());
+        stats.put("expired", messagesExpired.get());
+        stats.put("connectionsOpened", connectionsOpened.get());
+        stats.put("queued", queue != null ? queue.size() : 0);
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("lastBatchMillis", lastBatchMillis);
+        stats.put("averageBatchSize", batchCount > 0 ? (messagesSent.get() + messagesFailed.get()) / batchCount : 0);
+        stats.put("averageBatchMillis", batchCount > 0 ? totalBatchMillis.get() / batchCount : 0);
+        return stats;
+    }
+
+    private static class PendingEmail {
+        private static final int QUEUED = 0;
+        private static final int SENDING = 1;
+        private static final int EXPIRED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final String to;
+        private final String subject;
+        private final String text;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingEmail(String to, String subject, String text) {
+            this.to = to;
+            this.subject = subject;
+            this.text = text;
+        }
+
+        /**
+         * Takes the email for sending, unless it already timed out or was cancelled
+         */
+        boolean claim() {
+            return state.compareAndSet(QUEUED, SENDING) && !result.isDone();
+        }
+
+        /**
+         * Fails the email if no connection has started sending it yet
+         *
+         * @return whether it was still queued
+         */
+        boolean expire() {
+            if (!state.compareAndSet(QUEUED, EXPIRED)) {
+                return false;
+            }
+            result.completeExceptionally(new RuntimeException("Timed out sending email to " + to));
+            return true;
+        }
     }
-} 
\ No newline at end of file
+}
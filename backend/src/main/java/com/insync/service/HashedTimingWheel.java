@@ -0,0 +1,197 @@
+package com.insync.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for notification ids.
+ *
+ * Timers are hashed into a ring of buckets by their deadline tick; a single worker thread
+ * advances one bucket per tick and hands every expired id of that tick to the callback
+ * in one list. Scheduling and cancelling are O(1) and can be called from any thread.
+ * Timers are also indexed by meeting so a whole meeting can be cancelled at once.
+ */
+public class HashedTimingWheel {
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<LinkedList<Timer>> buckets;
+    private final Queue<Timer> pendingTimers = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Timer> timersById = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> timerIdsByMeeting = new ConcurrentHashMap<>();
+
+    private final long startNanos = System.nanoTime();
+    private volatile boolean running;
+    private long tick;
+    private Thread worker;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1; // round up to a power of two
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new LinkedList<>());
+        }
+    }
+
+    /**
+     * Starts the worker thread; expired ids of each tick are passed to the callback together
+     */
+    public synchronized void start(String threadName, Consumer<List<Long>> onExpired) {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(() -> run(onExpired), threadName);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Schedules an id to expire at the given instant. Past deadlines expire on the next tick.
+     *
+     * @return false if the id is already scheduled
+     */
+    public boolean schedule(long id, long meetingId, Instant deadline) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(deadline.toEpochMilli() - System.currentTimeMillis());
+        Timer timer = new Timer(id, meetingId, System.nanoTime() - startNanos + Math.max(0, delayNanos));
+        if (timersById.putIfAbsent(id, timer) != null) {
+            return false;
+        }
+        timerIdsByMeeting.computeIfAbsent(meetingId, key -> ConcurrentHashMap.newKeySet()).add(id);
+        pendingTimers.add(timer);
+        return true;
+    }
+
+    public boolean contains(long id) {
+        return timersById.containsKey(id);
+    }
+
+    public void cancel(long id) {
+        Timer timer = timersById.remove(id);
+        if (timer != null) {
+            timer.cancelled = true;
+            removeFromMeetingIndex(timer);
+        }
+    }
+
+    /**
+     * Cancels every timer registered for a meeting
+     */
+    public void cancelMeeting(long meetingId) {
+        Set<Long> ids = timerIdsByMeeting.remove(meetingId);
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            Timer timer = timersById.remove(id);
+            if (timer != null) {
+                timer.cancelled = true;
+            }
+        }
+    }
+
+    public int size() {
+        return timersById.size();
+    }
+
+    private void run(Consumer<List<Long>> onExpired) {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+
+            transferPendingTimers();
+            List<Long> expired = expireBucket(buckets.get((int) (tick & mask)));
+            tick++;
+
+            if (!expired.isEmpty()) {
+                try {
+                    onExpired.accept(expired);
+                } catch (Exception e) {
+                    System.err.println("Timing wheel callback failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void transferPendingTimers() {
+        Timer timer;
+        while ((timer = pendingTimers.poll()) != null) {
+            if (timer.cancelled) {
+                continue;
+            }
+            long deadlineTick = Math.max(timer.deadlineNanos / tickNanos, tick);
+            timer.remainingRounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timer);
+        }
+    }
+
+    private List<Long> expireBucket(LinkedList<Timer> bucket) {
+        List<Long> expired = new ArrayList<>();
+        Iterator<Timer> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timer timer = iterator.next();
+            if (timer.cancelled) {
+                iterator.remove();
+            } else if (timer.remainingRounds <= 0) {
+                iterator.remove();
+                if (timersById.remove(timer.id, timer)) {
+                    removeFromMeetingIndex(timer);
+                    expired.add(timer.id);
+                }
+            } else {
+                timer.remainingRounds--;
+            }
+        }
+        return expired;
+    }
+
+    private void removeFromMeetingIndex(Timer timer) {
+        timerIdsByMeeting.computeIfPresent(timer.meetingId, (key, ids) -> {
+            ids.remove(timer.id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static class Timer {
+        private final long id;
+        private final long meetingId;
+        private final long deadlineNanos; // relative to the wheel start
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        Timer(long id, long meetingId, long deadlineNanos) {
+            this.id = id;
+            this.meetingId = meetingId;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
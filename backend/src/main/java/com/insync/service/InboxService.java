@@ -0,0 +1,189 @@
+package com.insync.service;
+
+import com.insync.entity.InboxCounter;
+import com.insync.entity.InboxItem;
+import com.insync.entity.Notification;
+import com.insync.repository.InboxCounterRepository;
+import com.insync.repository.InboxItemRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-app inbox: stores IN_APP notifications per user, keeps each user's unread count
+ * as a counter row and pushes new items and counts to open inbox streams.
+ */
+@Service
+public class InboxService {
+
+    @Autowired
+    private InboxItemRepository inboxItemRepository;
+
+    @Autowired
+    private InboxCounterRepository inboxCounterRepository;
+
+    @Autowired
+    private InboxStreamService inboxStreamService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.inbox.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${notifications.inbox.max-page-size:100}")
+    private int maxPageSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate counterCreationTemplate;
+
+    // Serializes this instance's fallback counter creation, so its own deliveries never race on the insert
+    private final Object counterCreationLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        counterCreationTemplate = new TransactionTemplate(transactionManager);
+        counterCreationTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Creates a new user's unread counter
+     */
+    public void createCounter(Long userId) {
+        inboxCounterRepository.save(new InboxCounter(userId, 0, LocalDateTime.now()));
+    }
+
+    /**
+     * Adds an IN_APP notification to its user's inbox and pushes it to their open streams
+     */
+    public InboxItem deliver(Notification notification) {
+        Long userId = notification.getUser().getId();
+        InboxItem item = transactionTemplate.execute(status -> {
+            InboxItem saved = inboxItemRepository.save(new InboxItem(notification, LocalDateTime.now()));
+            adjustUnread(userId, 1);
+            return saved;
+        });
+        inboxStreamService.publish(userId, "inbox", item);
+        inboxStreamService.publish(userId, "unread", unreadPayload(getUnreadCount(userId)));
+        return item;
+    }
+
+    /**
+     * Gets one page of a user's inbox, newest first
+     *
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     */
+    public Map<String, Object> getPage(Long userId, String cursor, Integer limit) {
+        int size = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+        long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : decodeCursor(cursor);
+        List<InboxItem> items = transactionTemplate.execute(status ->
+            inboxItemRepository.findPage(userId, beforeId, PageRequest.of(0, size)));
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", items.size() < size ? null : encodeCursor(items.get(items.size() - 1).getId()));
+        page.put("unreadCount", getUnreadCount(userId));
+        return page;
+    }
+
+    public long getUnreadCount(Long userId) {
+        Long count = transactionTemplate.execute(status -> inboxCounterRepository.findUnreadCount(userId));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Marks one item read
+     *
+     * @return false if it is not the user's or was already read
+     */
+    public boolean markRead(Long userId, Long itemId) {
+        boolean changed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (inboxItemRepository.markRead(itemId, userId, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            adjustUnread(userId, -1);
+            return true;
+        }));
+        if (changed) {
+            inboxStreamService.publish(userId, "unread", unreadPayload(getUnreadCount(userId)));
+        }
+        return changed;
+    }
+
+    /**
+     * Marks every unread item read, up to the given item if one is given
+     *
+     * @return the number of items marked read
+     */
+    public int markAllRead(Long userId, Long upToId) {
+        int changed = transactionTemplate.execute(status -> {
+            int count = inboxItemRepository.markAllRead(userId, upToId != null ? upToId : Long.MAX_VALUE, LocalDateTime.now());
+            if (count > 0) {
+                adjustUnread(userId, -count);
+            }
+            return count;
+        });
+        if (changed > 0) {
+            inboxStreamService.publish(userId, "unread", unreadPayload(getUnreadCount(userId)));
+        }
+        return changed;
+    }
+
+    /**
+     * Adjusts a user's unread counter in place. Users get their counter row when they sign up;
+     * one is created here only for a user added some other way.
+     */
+    private void adjustUnread(Long userId, long delta) {
+        LocalDateTime now = LocalDateTime.now();
+        if (inboxCounterRepository.adjust(userId, delta, now) > 0) {
+            return;
+        }
+        try {
+            synchronized (counterCreationLock) {
+                counterCreationTemplate.executeWithoutResult(status -> {
+                    if (!inboxCounterRepository.existsById(userId)) {
+                        inboxCounterRepository.saveAndFlush(new InboxCounter(userId, 0, now));
+                    }
+                });
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first
+        }
+        inboxCounterRepository.adjust(userId, delta, now);
+    }
+
+    public static Map<String, Object> unreadPayload(long unreadCount) {
+        return Map.of("unreadCount", unreadCount);
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(("inbox:" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith("inbox:")) {
+                throw new IllegalArgumentException();
+            }
+            return Long.parseLong(decoded.substring("inbox:".length()));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid inbox cursor");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.insync.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events connections for in-app inboxes.
+ *
+ * Events are pushed to every open connection of a user as they happen. Each connection has a
+ * bounded buffer drained by a small shared sender pool; a client too slow to keep its buffer
+ * from filling up is disconnected instead of letting the buffer grow, and can reconnect and
+ * page the inbox for what it missed.
+ */
+@Service
+public class InboxStreamService {
+
+    @Value("${notifications.inbox.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${notifications.inbox.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${notifications.inbox.stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${notifications.inbox.stream.senders:4}")
+    private int senders;
+
+    private final Map<Long, Set<Connection>> connectionsByUser = new ConcurrentHashMap<>();
+
+    private ExecutorService senderPool;
+
+    // Counters
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicLong slowClientsDropped = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senderPool = Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "inbox-sse-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionsByUser.values().forEach(connections -> new ArrayList<>(connections).forEach(Connection::close));
+        senderPool.shutdownNow();
+    }
+
+    /**
+     * Opens a stream for a user. The oldest of the user's connections is closed if they already have the maximum.
+     */
+    public SseEmitter connect(Long userId, Object initialUnread) {
+        Connection connection = new Connection(userId, new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes)));
+        Set<Connection> connections = connectionsByUser.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet());
+        connections.add(connection);
+        while (connections.size() > maxConnectionsPerUser) {
+            connections.stream().min((a, b) -> Long.compare(a.openedAt, b.openedAt)).ifPresent(Connection::close);
+        }
+        opened.incrementAndGet();
+        connection.offer(SseEmitter.event().name("unread").data(initialUnread));
+        return connection.emitter;
+    }
+
+    /**
+     * Pushes an event to every open connection of a user
+     */
+    public void publish(Long userId, String eventName, Object data) {
+        Set<Connection> connections = connectionsByUser.get(userId);
+        if (connections == null || connections.isEmpty()) {
+            return;
+        }
+        for (Connection connection : connections) {
+            connection.offer(SseEmitter.event().name(eventName).data(data));
+        }
+    }
+
+    /**
+     * Sends a comment line on every connection so proxies keep them open and dead ones are noticed
+     */
+    @Scheduled(fixedDelayString = "${notifications.inbox.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        connectionsByUser.values().forEach(connections ->
+            connections.forEach(connection -> connection.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    /**
+     * Gets connection counters for the inbox streams
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connectionsByUser.values().stream().mapToInt(Set::size).sum());
+        stats.put("users", connectionsByUser.size());
+        stats.put("opened", opened.get());
+        stats.put("eventsSent", eventsSent.get());
+        stats.put("slowClientsDropped", slowClientsDropped.get());
+        return stats;
+    }
+
+    private void remove(Connection connection) {
+        connectionsByUser.computeIfPresent(connection.userId, (key, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private class Connection {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final long openedAt = System.nanoTime();
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            emitter.onCompletion(this::discard);
+            emitter.onTimeout(this::close);
+            emitter.onError(error -> discard());
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                slowClientsDropped.incrementAndGet();
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senderPool.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = buffer.poll()) != null) {
+                    emitter.send(event);
+                    eventsSent.incrementAndGet();
+                }
+            } catch (Exception e) {
+                close(); // client went away
+            } finally {
+                draining.set(false);
+            }
+            // An event offered after the last poll but before the flag was cleared still needs sending
+            if (!closed && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                senderPool.execute(this::drain);
+            }
+        }
+
+        void close() {
+            discard();
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // already completed
+            }
+        }
+
+        private void discard() {
+            closed = true;
+            buffer.clear();
+            remove(this);
+        }
+    }
+}
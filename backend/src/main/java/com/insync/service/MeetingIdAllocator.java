@@ -0,0 +1,91 @@
+package com.insync.service;
+
+import com.insync.repository.IdSequenceRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Allocates meeting join codes.
+ *
+ * Each instance reserves a block of counter values from the id_sequences table and hands them
+ * out from memory, enciphering each through MeetingIdCipher. Blocks never overlap and the cipher
+ * is a permutation, so codes are unique by construction and need no lookup before use. The key
+ * must stay the same for as long as issued codes are in use; a new key is a new permutation and
+ * could repeat an old code.
+ */
+@Service
+public class MeetingIdAllocator {
+
+    private static final String SEQUENCE_NAME = "meeting-ids";
+
+    @Autowired
+    private IdSequenceRepository idSequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${meetings.ids.key}")
+    private String key;
+
+    @Value("${meetings.ids.block-size:1000}")
+    private int blockSize;
+
+    private MeetingIdCipher cipher;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Current block, guarded by this
+    private long nextValue;
+    private long blockEnd;
+
+    @PostConstruct
+    public void init() {
+        cipher = new MeetingIdCipher(key);
+        // A reserved block stays reserved even if the meeting that needed it rolls back
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Gets a new meeting code in the format XXX-XXX-XXX
+     */
+    public synchronized String nextMeetingId() {
+        if (nextValue >= blockEnd) {
+            reserveBlock();
+        }
+        return MeetingIdCipher.format(cipher.encrypt(nextValue++));
+    }
+
+    private void reserveBlock() {
+        long end;
+        try {
+            end = transactionTemplate.execute(status -> advance());
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the counter first; its row is there to advance now
+            end = transactionTemplate.execute(status -> advance());
+        }
+        if (end > MeetingIdCipher.DOMAIN_SIZE) {
+            throw new IllegalStateException("Meeting code space exhausted");
+        }
+        nextValue = end - blockSize;
+        blockEnd = end;
+    }
+
+    private long advance() {
+        LocalDateTime now = LocalDateTime.now();
+        if (idSequenceRepository.advance(SEQUENCE_NAME, blockSize, now) > 0) {
+            return idSequenceRepository.findNextValue(SEQUENCE_NAME);
+        }
+        // First block ever: create the counter already past it
+        idSequenceRepository.create(SEQUENCE_NAME, blockSize, now);
+        return blockSize;
+    }
+}
@@ -0,0 +1,92 @@
+package com.insync.service;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Keyed permutation of the meeting code space, XXX-XXX-XXX over a 32-character alphabet.
+ *
+ * Nine characters of five bits each make exactly 2^45 codes, so a code is a 45-bit number with
+ * nothing left over to cycle-walk. Numbers are enciphered with a ten-round Feistel network over
+ * alternating 22- and 23-bit halves, as in NIST FF1, using AES under the configured key as the
+ * round function. Distinct counters therefore map to distinct codes, and without the key the codes
+ * of consecutive counters look unrelated. Not thread-safe.
+ */
+public class MeetingIdCipher {
+
+    public static final String ALPHABET = "123456789ABCDEFGHJKMNPQRSTUVWXYZ"; // Excludes 0, O, I, L for clarity
+    public static final long DOMAIN_SIZE = 1L << 45;
+
+    private static final int ROUNDS = 10;
+    private static final int LEFT_BITS = 22;
+    private static final int RIGHT_BITS = 23;
+
+    private final Cipher aes;
+    private final byte[] input = new byte[16];
+    private final byte[] output = new byte[16];
+
+    public MeetingIdCipher(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            aes = Cipher.getInstance("AES/ECB/NoPadding");
+            aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(digest, 0, 16, "AES"));
+        } catch (Exception e) {
+            throw new IllegalStateException("AES unavailable", e);
+        }
+    }
+
+    /**
+     * Maps a counter in [0, DOMAIN_SIZE) to its code number, one-to-one
+     */
+    public long encrypt(long value) {
+        if (value < 0 || value >= DOMAIN_SIZE) {
+            throw new IllegalArgumentException("Counter out of range: " + value);
+        }
+        long left = value >>> RIGHT_BITS;
+        long right = value & mask(RIGHT_BITS);
+        int leftBits = LEFT_BITS;
+        int rightBits = RIGHT_BITS;
+        for (int round = 0; round < ROUNDS; round++) {
+            long mixed = (left ^ roundFunction(round, right)) & mask(leftBits);
+            left = right;
+            right = mixed;
+            int bits = leftBits;
+            leftBits = rightBits;
+            rightBits = bits;
+        }
+        return (left << rightBits) | right;
+    }
+
+    /**
+     * Formats a code number as XXX-XXX-XXX
+     */
+    public static String format(long code) {
+        StringBuilder idBuilder = new StringBuilder(11);
+        for (int i = 0; i < 9; i++) {
+            if (i == 3 || i == 6) {
+                idBuilder.append('-');
+            }
+            idBuilder.append(ALPHABET.charAt((int) (code >>> (5 * (8 - i))) & 31));
+        }
+        return idBuilder.toString();
+    }
+
+    private long roundFunction(int round, long half) {
+        input[0] = (byte) round;
+        input[13] = (byte) (half >>> 16);
+        input[14] = (byte) (half >>> 8);
+        input[15] = (byte) half;
+        try {
+            aes.doFinal(input, 0, 16, output, 0);
+        } catch (Exception e) {
+            throw new IllegalStateException("AES failed", e);
+        }
+        return ((output[0] & 0xFFL) << 16) | ((output[1] & 0xFFL) << 8) | (output[2] & 0xFFL);
+    }
+
+    private static long mask(int bits) {
+        return (1L << bits) - 1;
+    }
+}
@@ -0,0 +1,169 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.repository.MeetingParticipantRepository;
+import com.insync.repository.MeetingRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authorizes in-meeting requests against an in-memory set of member user ids per meeting.
+ *
+ * An entry holds the meeting's host and the participants seen so far. A user not yet in the set is
+ * looked up once with an indexed existence query on (meeting_id, user_id) and added if they are a
+ * participant; only members are cached. Participants are never removed, so a cached member stays
+ * valid, and a join on another instance is picked up by that lookup. Joins on this instance add the
+ * user once their transaction commits. Cancelling a meeting turns its entry into a tombstone that
+ * refuses everyone, and an entry loaded for an already cancelled meeting starts out as one; a cancel
+ * on another instance is seen once this instance's entry is evicted. Least recently used entries
+ * are evicted first.
+ */
+@Service
+public class MeetingMembershipGuard {
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private MeetingParticipantRepository meetingParticipantRepository;
+
+    @Value("${meetings.membership.cache-max-entries:10000}")
+    private int maxEntries;
+
+    // Least recently used meetings evicted first; loads and cancels update it under its lock
+    private Map<String, Membership> membershipsByMeetingId;
+
+    // Bumped on every cancel, so a load that raced with one is not cached
+    private final AtomicLong cancels = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        membershipsByMeetingId = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Membership> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Checks that a user is the host or a participant of a meeting
+     *
+     * @throws RuntimeException with the given message if they are not, or if the meeting does not exist
+     *                          or has been cancelled
+     */
+    public void requireMember(String meetingId, Long userId, String deniedMessage) {
+        Membership membership = membership(meetingId);
+        if (membership.cancelled) {
+            throw new RuntimeException(deniedMessage);
+        }
+        if (membership.hostId == userId.longValue() || membership.memberIds.contains(userId)) {
+            return;
+        }
+        if (!meetingParticipantRepository.existsByMeeting_IdAndUser_Id(membership.id, userId)) {
+            throw new RuntimeException(deniedMessage);
+        }
+        membership.memberIds.add(userId);
+    }
+
+    /**
+     * Checks that a user is the host of a meeting
+     *
+     * @throws RuntimeException with the given message if they are not, or if the meeting does not exist
+     *                          or has been cancelled
+     */
+    public void requireHost(String meetingId, Long userId, String deniedMessage) {
+        Membership membership = membership(meetingId);
+        if (membership.cancelled || membership.hostId != userId.longValue()) {
+            throw new RuntimeException(deniedMessage);
+        }
+    }
+
+    /**
+     * Records that a user joined a meeting, once the caller's transaction commits
+     */
+    public void memberJoined(String meetingId, Long userId) {
+        afterCommit(() -> {
+            Membership membership = membershipsByMeetingId.get(meetingId);
+            if (membership != null) {
+                membership.memberIds.add(userId);
+            }
+        });
+    }
+
+    /**
+     * Refuses everyone in a meeting once the caller's transaction cancelling it commits
+     */
+    public void meetingCancelled(String meetingId) {
+        afterCommit(() -> {
+            synchronized (membershipsByMeetingId) {
+                cancels.incrementAndGet();
+                membershipsByMeetingId.computeIfPresent(meetingId, (key, membership) ->
+                    new Membership(membership.id, membership.hostId, true));
+            }
+        });
+    }
+
+    private Membership membership(String meetingId) {
+        Membership membership = membershipsByMeetingId.get(meetingId);
+        if (membership != null) {
+            return membership;
+        }
+
+        long generation = cancels.get();
+        List<Object[]> rows = meetingRepository.findIdHostIdAndStatusByMeetingId(meetingId);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Meeting not found with ID: " + meetingId);
+        }
+        Object[] row = rows.get(0);
+        membership = new Membership((Long) row[0], (Long) row[1], row[2] == Meeting.MeetingStatus.CANCELLED);
+
+        synchronized (membershipsByMeetingId) {
+            if (cancels.get() == generation) {
+                Membership existing = membershipsByMeetingId.putIfAbsent(meetingId, membership);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+        }
+        return membership;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Membership {
+        private final long id;
+        private final long hostId;
+        private final boolean cancelled;
+        private final Set<Long> memberIds = ConcurrentHashMap.newKeySet();
+
+        private Membership(long id, long hostId, boolean cancelled) {
+            this.id = id;
+            this.hostId = hostId;
+            this.cancelled = cancelled;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.MeetingOutboxEvent;
+import com.insync.entity.User;
+import com.insync.repository.MeetingOutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional outbox for meeting changes.
+ *
+ * MeetingService writes a compact event row in the same transaction as the change, so the HTTP
+ * request never waits on notification scheduling or sending. A single relay thread reads pending
+ * events in id order and hands each to NotificationService and WebhookService in its own
+ * transaction, marking it processed in that same transaction. The relay is woken when a publishing transaction commits
+ * and also polls, so events written on another instance or left behind by a crash are picked up.
+ * One instance in the cluster relays at a time, which keeps the events of a meeting in order.
+ */
+@Service
+public class MeetingOutboxService {
+
+    private static final String LOCK_NAME = "meeting-outbox";
+
+    @Autowired
+    private MeetingOutboxEventRepository meetingOutboxEventRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notifications.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notifications.outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${notifications.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService relayExecutor;
+
+    // Set while a relay run is queued but not started, so a burst of commits queues one run
+    private final AtomicBoolean relayQueued = new AtomicBoolean();
+
+    // Counters
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong relayFailures = new AtomicLong();
+    private final AtomicLong givenUp = new AtomicLong();
+    private final AtomicLong lagMillisTotal = new AtomicLong();
+    private volatile long maxLagMillis;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        relayExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "meeting-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    /**
+     * Records a meeting event in the caller's transaction and wakes the relay once it commits
+     */
+    public void publish(MeetingOutboxEvent.EventType type, Meeting meeting) {
+        save(new MeetingOutboxEvent(type, meeting));
+    }
+
+    /**
+     * Records that a user joined a meeting
+     */
+    public void publishParticipantJoined(Meeting meeting, User user) {
+        MeetingOutboxEvent event = new MeetingOutboxEvent(MeetingOutboxEvent.EventType.PARTICIPANT_JOINED, meeting);
+        event.setUserId(user.getId());
+        save(event);
+    }
+
+    /**
+     * Records that a meeting moved from the given times to its current ones
+     */
+    public void publishRescheduled(Meeting meeting, LocalDateTime previousStartTime, LocalDateTime previousEndTime) {
+        MeetingOutboxEvent event = new MeetingOutboxEvent(MeetingOutboxEvent.EventType.MEETING_RESCHEDULED, meeting);
+        event.setPreviousStartTime(previousStartTime);
+        event.setPreviousEndTime(previousEndTime);
+        save(event);
+    }
+
+    private void save(MeetingOutboxEvent event) {
+        meetingOutboxEventRepository.save(event);
+        published.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeRelay();
+                }
+            });
+        } else {
+            wakeRelay();
+        }
+    }
+
+    private void wakeRelay() {
+        if (relayQueued.compareAndSet(false, true)) {
+            relayExecutor.execute(() -> {
+                relayQueued.set(false);
+                relay();
+            });
+        }
+    }
+
+    /**
+     * Catches events the commit wake-up missed: written elsewhere in the cluster, left by a
+     * crash, or held back after a failed attempt
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wakeRelay();
+    }
+
+    /**
+     * Relays pending events in order until none are left. An event that fails stops the run, so
+     * later events of the same meeting never overtake it; it is retried on the next run and given
+     * up on as FAILED after max-attempts, letting the events behind it through.
+     */
+    private void relay() {
+        try {
+            schedulerLockService.runExclusively(LOCK_NAME, Duration.ofSeconds(leaseSeconds), this::relayPending);
+        } catch (Exception e) {
+            System.err.println("Meeting outbox relay failed: " + e.getMessage());
+        }
+    }
+
+    private void relayPending() {
+        List<MeetingOutboxEvent> events;
+        do {
+            // Renew the lease per batch, so a long backlog never lets a second instance relay alongside
+            if (!schedulerLockService.tryLock(LOCK_NAME, Duration.ofSeconds(leaseSeconds))) {
+                return;
+            }
+            events = transactionTemplate.execute(status ->
+                meetingOutboxEventRepository.findPending(PageRequest.of(0, batchSize)));
+            for (MeetingOutboxEvent event : events) {
+                if (!relayEvent(event)) {
+                    return;
+                }
+            }
+        } while (events.size() == batchSize);
+    }
+
+    private boolean relayEvent(MeetingOutboxEvent event) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                notificationService.handleMeetingEvent(event);
+                webhookService.publishMeetingEvent(event);
+                meetingOutboxEventRepository.markProcessed(event.getId(), LocalDateTime.now());
+            });
+        } catch (Exception e) {
+            relayFailures.incrementAndGet();
+            String error = e.getMessage() != null && e.getMessage().length() > 255 ? e.getMessage().substring(0, 255) : e.getMessage();
+            transactionTemplate.executeWithoutResult(status ->
+                meetingOutboxEventRepository.recordFailure(event.getId(), error, maxAttempts));
+            System.err.println("Failed to relay meeting event " + event.getId() + " (" + event.getType() +
+                " for meeting " + event.getMeetingId() + "): " + e.getMessage());
+            if (event.getAttemptCount() + 1 >= maxAttempts) {
+                givenUp.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        relayed.incrementAndGet();
+        long lagMillis = Duration.between(event.getCreatedAt(), LocalDateTime.now()).toMillis();
+        lagMillisTotal.addAndGet(lagMillis);
+        if (lagMillis > maxLagMillis) {
+            maxLagMillis = lagMillis;
+        }
+        return true;
+    }
+
+    /**
+     * Deletes relayed events once they are past the retention window
+     */
+    @Scheduled(initialDelayString = "${notifications.outbox.cleanup-initial-delay-ms:60000}",
+               fixedDelayString = "${notifications.outbox.cleanup-interval-ms:3600000}")
+    public void deleteProcessed() {
+        transactionTemplate.executeWithoutResult(status ->
+            meetingOutboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours)));
+    }
+
+    /**
+     * Gets counters for the outbox relay
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long relayedCount = relayed.get();
+        stats.put("published", published.get());
+        stats.put("relayed", relayedCount);
+        stats.put("relayFailures", relayFailures.get());
+        stats.put("givenUp", givenUp.get());
+        stats.put("pending", transactionTemplate.execute(status ->
+            meetingOutboxEventRepository.countByStatus(MeetingOutboxEvent.EventStatus.PENDING)));
+        stats.put("avgLagMillis", relayedCount == 0 ? 0 : lagMillisTotal.get() / relayedCount);
+        stats.put("maxLagMillis", maxLagMillis);
+        return stats;
+    }
+}
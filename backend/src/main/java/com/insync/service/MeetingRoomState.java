@@ -0,0 +1,203 @@
+package com.insync.service;
+
+import com.insync.dto.ParticipantStateDto;
+import com.insync.dto.RoomStateDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live call state of one meeting room: each participant's media flags, the presenter, the screen
+ * sharer and breakout room assignments.
+ *
+ * Participants live in parallel primitive arrays (user id, a flag byte, a breakout room index and
+ * the version of their last change), so a room of n participants costs about 18n bytes plus a few
+ * small arrays. Rooms are small enough that a linear scan finds a participant faster than hashing.
+ * Every method holds the room's own monitor, so updates to different rooms never contend.
+ * A room closed by the idle sweep refuses further changes, so an update racing the sweep is
+ * retried on a fresh room instead of landing in one that is no longer reachable.
+ *
+ * Versions come from one clock shared by all rooms, so they only ever grow, even across a room
+ * being dropped and recreated. A client that passes the last version it saw gets back only the
+ * participants changed since, or the whole room if it has been recreated since then.
+ */
+public class MeetingRoomState {
+
+    public static final int MUTED = 1;
+    public static final int VIDEO_ON = 1 << 1;
+    public static final int HAND_RAISED = 1 << 2;
+    public static final int SCREEN_SHARING = 1 << 3;
+    public static final int PRESENTER = 1 << 4;
+
+    // Breakout indexes are stored in a byte, with 0 meaning the main room
+    private static final int MAX_BREAKOUT_ROOMS = 255;
+
+    private static final AtomicLong CLOCK = new AtomicLong();
+
+    private final String meetingId;
+    private final long createdVersion;
+    private long version;
+    private long lastActiveMillis;
+    private boolean closed;
+
+    private int size;
+    private long[] userIds = new long[4];
+    private byte[] flags = new byte[4];
+    private byte[] breakoutRooms = new byte[4];
+    private long[] changedVersions = new long[4];
+    private String[] breakoutRoomIds = new String[0];
+
+    public MeetingRoomState(String meetingId) {
+        this.meetingId = meetingId;
+        this.createdVersion = CLOCK.incrementAndGet();
+        this.version = createdVersion;
+        this.lastActiveMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Sets or clears the given flags of a participant; null leaves a flag as it is. Starting a
+     * screen share or becoming presenter takes it over from whoever had it.
+     *
+     * @return the participant's state after the change, or null if the room has been closed
+     */
+    public synchronized ParticipantStateDto update(long userId, Boolean muted, Boolean videoOn, Boolean handRaised,
+                                                   Boolean screenSharing, Boolean presenter) {
+        if (closed) {
+            return null;
+        }
+        int slot = slotOf(userId);
+        int set = 0;
+        int cleared = 0;
+        if (muted != null) { if (muted) set |= MUTED; else cleared |= MUTED; }
+        if (videoOn != null) { if (videoOn) set |= VIDEO_ON; else cleared |= VIDEO_ON; }
+        if (handRaised != null) { if (handRaised) set |= HAND_RAISED; else cleared |= HAND_RAISED; }
+        if (screenSharing != null) { if (screenSharing) set |= SCREEN_SHARING; else cleared |= SCREEN_SHARING; }
+        if (presenter != null) { if (presenter) set |= PRESENTER; else cleared |= PRESENTER; }
+
+        // Only one participant shares their screen or presents at a time
+        int exclusive = set & (SCREEN_SHARING | PRESENTER);
+        if (exclusive != 0) {
+            for (int i = 0; i < size; i++) {
+                if (i != slot && (flags[i] & exclusive) != 0) {
+                    change(i, flags[i] & ~exclusive, breakoutRooms[i]);
+                }
+            }
+        }
+        change(slot, (flags[slot] | set) & ~cleared, breakoutRooms[slot]);
+        return toDto(slot);
+    }
+
+    /**
+     * Moves a participant into a breakout room, or back to the main room when roomId is null
+     *
+     * @return the participant's state after the change, or null if the room has been closed
+     */
+    public synchronized ParticipantStateDto assignBreakoutRoom(long userId, String roomId) {
+        if (closed) {
+            return null;
+        }
+        int slot = slotOf(userId);
+        change(slot, flags[slot], roomId != null ? breakoutIndexOf(roomId) : 0);
+        return toDto(slot);
+    }
+
+    /**
+     * Mutes everyone in the room except the given user
+     */
+    public synchronized void muteAllExcept(long userId) {
+        for (int i = 0; i < size; i++) {
+            if (userIds[i] != userId && (flags[i] & MUTED) == 0) {
+                change(i, flags[i] | MUTED, breakoutRooms[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets the state of participants changed after the given version, or of all participants when
+     * sinceVersion is 0 or predates this room
+     */
+    public synchronized RoomStateDto snapshot(long sinceVersion) {
+        lastActiveMillis = System.currentTimeMillis();
+        boolean full = sinceVersion < createdVersion;
+        List<ParticipantStateDto> participants = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (full || changedVersions[i] > sinceVersion) {
+                participants.add(toDto(i));
+            }
+        }
+        return new RoomStateDto(meetingId, version, full, participants);
+    }
+
+    /**
+     * Closes the room if nothing has touched it since the cutoff. A closed room takes no more changes.
+     *
+     * @return whether the room is closed
+     */
+    public synchronized boolean closeIfIdle(long cutoffMillis) {
+        if (lastActiveMillis < cutoffMillis) {
+            closed = true;
+        }
+        return closed;
+    }
+
+    private int slotOf(long userId) {
+        for (int i = 0; i < size; i++) {
+            if (userIds[i] == userId) {
+                return i;
+            }
+        }
+        if (size == userIds.length) {
+            int capacity = size * 2;
+            userIds = Arrays.copyOf(userIds, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            breakoutRooms = Arrays.copyOf(breakoutRooms, capacity);
+            changedVersions = Arrays.copyOf(changedVersions, capacity);
+        }
+        // Version 0 marks a participant no delta has reported yet
+        userIds[size] = userId;
+        flags[size] = 0;
+        breakoutRooms[size] = 0;
+        changedVersions[size] = 0;
+        return size++;
+    }
+
+    private int breakoutIndexOf(String roomId) {
+        for (int i = 0; i < breakoutRoomIds.length; i++) {
+            if (breakoutRoomIds[i].equals(roomId)) {
+                return i + 1;
+            }
+        }
+        if (breakoutRoomIds.length == MAX_BREAKOUT_ROOMS) {
+            throw new RuntimeException("A meeting can have at most " + MAX_BREAKOUT_ROOMS + " breakout rooms");
+        }
+        breakoutRoomIds = Arrays.copyOf(breakoutRoomIds, breakoutRoomIds.length + 1);
+        breakoutRoomIds[breakoutRoomIds.length - 1] = roomId;
+        return breakoutRoomIds.length;
+    }
+
+    private void change(int slot, int newFlags, int breakoutIndex) {
+        lastActiveMillis = System.currentTimeMillis();
+        if (flags[slot] == (byte) newFlags && breakoutRooms[slot] == (byte) breakoutIndex && changedVersions[slot] != 0) {
+            return;
+        }
+        flags[slot] = (byte) newFlags;
+        breakoutRooms[slot] = (byte) breakoutIndex;
+        version = CLOCK.incrementAndGet();
+        changedVersions[slot] = version;
+    }
+
+    private ParticipantStateDto toDto(int slot) {
+        int slotFlags = flags[slot];
+        int breakoutIndex = breakoutRooms[slot] & 0xFF;
+        return new ParticipantStateDto(userIds[slot],
+            (slotFlags & MUTED) != 0,
+            (slotFlags & VIDEO_ON) != 0,
+            (slotFlags & HAND_RAISED) != 0,
+            (slotFlags & SCREEN_SHARING) != 0,
+            (slotFlags & PRESENTER) != 0,
+            breakoutIndex == 0 ? null : breakoutRoomIds[breakoutIndex - 1],
+            changedVersions[slot]);
+    }
+}
@@ -0,0 +1,129 @@
+package com.insync.service;
+
+import com.insync.dto.ParticipantStateDto;
+import com.insync.dto.RoomStateDto;
+import com.insync.dto.request.CallStateUpdateRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the live call state of every active meeting room on this instance, keyed by meeting code.
+ *
+ * A room is created by its first update and dropped when its meeting is cancelled or completed, or
+ * once nothing has touched it for the idle timeout. Nothing is persisted: the state only describes
+ * calls in progress, and clients resend their own flags when they rejoin. All requests for one
+ * meeting must therefore reach the same instance.
+ */
+@Service
+public class MeetingRoomStateService {
+
+    @Value("${meetings.rooms.idle-timeout-minutes:240}")
+    private long idleTimeoutMinutes;
+
+    private final Map<String, MeetingRoomState> rooms = new ConcurrentHashMap<>();
+
+    /**
+     * Applies a call state update to a participant, creating the room if needed
+     */
+    public ParticipantStateDto update(String meetingId, Long userId, CallStateUpdateRequest request) {
+        while (true) {
+            MeetingRoomState room = room(meetingId);
+            ParticipantStateDto state = room.update(userId, request.getIsMuted(), request.getIsVideoOn(),
+                request.getIsHandRaised(), request.getIsScreenSharing(), request.getIsPresenter());
+            if (state != null) {
+                return state;
+            }
+            rooms.remove(meetingId, room); // Closed by the idle sweep meanwhile
+        }
+    }
+
+    /**
+     * Moves a participant into a breakout room, or back to the main room when roomId is null
+     */
+    public ParticipantStateDto assignBreakoutRoom(String meetingId, Long userId, String roomId) {
+        while (true) {
+            MeetingRoomState room = room(meetingId);
+            ParticipantStateDto state = room.assignBreakoutRoom(userId, roomId);
+            if (state != null) {
+                return state;
+            }
+            rooms.remove(meetingId, room); // Closed by the idle sweep meanwhile
+        }
+    }
+
+    /**
+     * Mutes everyone in a meeting's room except the given user, typically the host
+     */
+    public void muteAllExcept(String meetingId, Long userId) {
+        MeetingRoomState room = rooms.get(meetingId);
+        if (room != null) {
+            room.muteAllExcept(userId);
+        }
+    }
+
+    /**
+     * Gets the participants changed after the given version, or the whole room when sinceVersion is
+     * null, 0 or older than the room
+     */
+    public RoomStateDto snapshot(String meetingId, Long sinceVersion) {
+        long since = sinceVersion != null ? sinceVersion : 0L;
+        MeetingRoomState room = rooms.get(meetingId);
+        return room != null ? room.snapshot(since) : new MeetingRoomState(meetingId).snapshot(0L);
+    }
+
+    /**
+     * Gets the current state of each participant with one, by user id
+     */
+    public Map<Long, ParticipantStateDto> participantStates(String meetingId) {
+        Map<Long, ParticipantStateDto> states = new HashMap<>();
+        MeetingRoomState room = rooms.get(meetingId);
+        if (room != null) {
+            for (ParticipantStateDto state : room.snapshot(0L).getParticipants()) {
+                states.put(state.getUserId(), state);
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Drops a meeting's room once the caller's transaction commits, e.g. after the meeting ends
+     */
+    public void close(String meetingId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rooms.remove(meetingId);
+                }
+            });
+        } else {
+            rooms.remove(meetingId);
+        }
+    }
+
+    /**
+     * Drops rooms nothing has touched for the idle timeout, e.g. of meetings never marked completed.
+     * Each room is closed under its own monitor before it is removed, so an update that got hold of
+     * it just before is retried on a new room rather than lost.
+     */
+    @Scheduled(fixedDelayString = "${meetings.rooms.sweep-interval-ms:300000}")
+    public void dropIdleRooms() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMinutes * 60_000L;
+        rooms.forEach((meetingId, room) -> {
+            if (room.closeIfIdle(cutoff)) {
+                rooms.remove(meetingId, room);
+            }
+        });
+    }
+
+    private MeetingRoomState room(String meetingId) {
+        return rooms.computeIfAbsent(meetingId, MeetingRoomState::new);
+    }
+}
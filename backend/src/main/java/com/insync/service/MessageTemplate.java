@@ -0,0 +1,111 @@
+package com.insync.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A notification template parsed once into literal text and placeholder slots.
+ *
+ * "Reminder: '{title}' starts at {time}" becomes the literals ["Reminder: '", "' starts at ", ""]
+ * and the fields [TITLE, TIME]; rendering appends them in turn to a builder sized up front, with
+ * no pattern parsing or varargs formatting per call.
+ */
+public final class MessageTemplate {
+
+    /**
+     * Values a template can refer to
+     */
+    public enum Field {
+        TITLE("title"),
+        MEETING_ID("meetingId"),
+        TIME("time"),
+        DATE_TIME("dateTime"),
+        DATE("date"),
+        TASK("task"),
+        MESSAGE("message"),
+        COUNT("count"),
+        ITEMS("items");
+
+        private final String placeholder;
+
+        Field(String placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        static Field forPlaceholder(String name) {
+            for (Field field : values()) {
+                if (field.placeholder.equals(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final String[] literals; // one more than fields: text before, between and after them
+    private final Field[] fields;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, Field[] fields) {
+        this.literals = literals;
+        this.fields = fields;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parses a template
+     *
+     * @throws IllegalArgumentException on an unclosed brace or an unknown placeholder
+     */
+    public static MessageTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<Field> fields = new ArrayList<>();
+        int from = 0;
+        int open;
+        while ((open = source.indexOf('{', from)) >= 0) {
+            int close = source.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template: " + source);
+            }
+            Field field = Field.forPlaceholder(source.substring(open + 1, close));
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown placeholder " + source.substring(open, close + 1) + " in template: " + source);
+            }
+            literals.add(source.substring(from, open));
+            fields.add(field);
+            from = close + 1;
+        }
+        literals.add(source.substring(from));
+        return new MessageTemplate(literals.toArray(new String[0]), fields.toArray(new Field[0]));
+    }
+
+    public boolean uses(Field field) {
+        for (Field used : fields) {
+            if (used == field) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Renders the template
+     *
+     * @param values field values indexed by {@link Field#ordinal()}; only the fields the template uses need be set
+     */
+    public String render(String[] values) {
+        int length = literalLength;
+        for (Field field : fields) {
+            length += values[field.ordinal()].length();
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < fields.length; i++) {
+            out.append(literals[i]).append(values[fields[i].ordinal()]);
+        }
+        return out.append(literals[fields.length]).toString();
+    }
+}
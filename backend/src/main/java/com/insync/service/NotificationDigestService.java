@@ -0,0 +1,394 @@
+package com.insync.service;
+
+import com.insync.entity.Notification;
+import com.insync.entity.NotificationPreference;
+import com.insync.entity.User;
+import com.insync.repository.ActionItemRepository;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationPreferenceRepository;
+import com.insync.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Digests for users who opted in on a channel, and the morning agenda.
+ *
+ * When the dispatcher claims a due reminder of a digest user, that user's pending advance reminders
+ * (15 and 5 minutes) on the same channel due within the digest window are claimed with it, and all
+ * of them go out as one message together with anything else of theirs due at the same time. A
+ * reminder claimed before it is due is reworded with the meeting's start time, since "starts in 5
+ * minutes" would be wrong when it arrives ten minutes early. Every reminder row keeps its own
+ * outcome, so dedup, retries and dead-lettering work as they do for single sends. Cancellations
+ * and reschedules are never held for a digest.
+ *
+ * The morning agenda lists each opted-in user's remaining meetings of the day and their overdue
+ * action items. It is built for all users in pages of user ids, with one query per page for
+ * hosted meetings, joined meetings and action items each, never one query per user.
+ */
+@Service
+public class NotificationDigestService {
+
+    private static final String AGENDA_LOCK_NAME = "notification-agenda";
+
+    // Scheduled reminders; immediate notifications are never held back for a digest
+    private static final Set<Notification.NotificationType> DIGEST_TYPES = EnumSet.of(
+        Notification.NotificationType.MEETING_REMINDER_15MIN,
+        Notification.NotificationType.MEETING_REMINDER_5MIN,
+        Notification.NotificationType.MEETING_STARTED,
+        Notification.NotificationType.MEETING_ENDING_SOON,
+        Notification.NotificationType.MEETING_ENDED);
+
+    // Only advance reminders may go out early; "has started" and the like must wait for their moment
+    private static final Set<Notification.NotificationType> PULL_FORWARD_TYPES = EnumSet.of(
+        Notification.NotificationType.MEETING_REMINDER_15MIN,
+        Notification.NotificationType.MEETING_REMINDER_5MIN);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationPreferenceCache notificationPreferenceCache;
+
+    @Autowired
+    private NotificationPreferenceRepository notificationPreferenceRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private ActionItemRepository actionItemRepository;
+
+    @Autowired
+    private NotificationTemplates notificationTemplates;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.digest.enabled:true}")
+    private boolean enabled;
+
+    // How far ahead a digest gathers a user's later reminders
+    @Value("${notifications.digest.window-seconds:600}")
+    private long windowSeconds;
+
+    @Value("${notifications.digest.agenda.enabled:true}")
+    private boolean agendaEnabled;
+
+    @Value("${notifications.digest.agenda.page-size:500}")
+    private int agendaPageSize;
+
+    @Value("${notifications.digest.agenda.max-run-minutes:30}")
+    private long agendaMaxRunMinutes;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Counters
+    private final AtomicLong digestsBuilt = new AtomicLong();
+    private final AtomicLong notificationsDigested = new AtomicLong();
+    private final AtomicLong pulledForward = new AtomicLong();
+    private final AtomicLong agendaRuns = new AtomicLong();
+    private final AtomicLong agendasSent = new AtomicLong();
+    private final AtomicLong agendasFailed = new AtomicLong();
+    private volatile LocalDateTime lastAgendaAt;
+    private volatile long lastAgendaMillis;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Claims, under the batch's claim token, the pending advance reminders that digest users in the
+     * batch have due within the digest window, so they are sent in the same digest
+     *
+     * @return the newly claimed notifications, with their recipients
+     */
+    public List<Notification> claimDigestCompanions(String claimToken, List<Notification> claimed, long leaseSeconds) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        Set<String> digestKeys = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> claimedIds = new HashSet<>();
+        Map<Long, Integer> masks = digestMasks(claimed);
+        for (Notification notification : claimed) {
+            claimedIds.add(notification.getId());
+            if (isDigested(notification, masks)) {
+                Long userId = notification.getUser().getId();
+                digestKeys.add(digestKey(userId, notification.getChannel()));
+                userIds.add(userId);
+            }
+        }
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Notification> companions = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = new ArrayList<>();
+            for (Object[] row : notificationRepository.findDigestCandidates(userIds, PULL_FORWARD_TYPES, now.plusSeconds(windowSeconds), now)) {
+                Long id = (Long) row[0];
+                if (!claimedIds.contains(id) && digestKeys.contains(digestKey((Long) row[1], (Notification.NotificationChannel) row[2]))) {
+                    ids.add(id);
+                }
+            }
+            if (ids.isEmpty() || notificationRepository.claimNotifications(ids, claimToken, now, now.plusSeconds(leaseSeconds)) == 0) {
+                return Collections.<Notification>emptyList();
+            }
+            List<Notification> claimedCompanions = notificationRepository.findClaimedNotificationsByIds(ids, claimToken);
+            for (Notification companion : claimedCompanions) {
+                if (companion.getScheduledTime().isAfter(now)) {
+                    NotificationTemplates.RenderedMessage text =
+                        notificationTemplates.renderEarlyReminder(companion.getMeeting(), companion.getChannel());
+                    companion.setTitle(text.getSubject());
+                    companion.setMessage(text.getMessage());
+                }
+            }
+            return claimedCompanions;
+        });
+        pulledForward.addAndGet(companions.size());
+        return companions;
+    }
+
+    /**
+     * Groups the notifications of digest users by user and channel. Each group of two or more
+     * becomes one digest message; everything else is left to be sent on its own.
+     */
+    public List<Digest> coalesce(List<Notification> notifications) {
+        if (!enabled || notifications.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Integer> masks = digestMasks(notifications);
+        Map<String, List<Notification>> groups = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            if (isDigested(notification, masks)) {
+                groups.computeIfAbsent(digestKey(notification.getUser().getId(), notification.getChannel()),
+                    key -> new ArrayList<>()).add(notification);
+            }
+        }
+
+        List<Digest> digests = new ArrayList<>();
+        for (List<Notification> members : groups.values()) {
+            if (members.size() < 2) {
+                continue;
+            }
+            members.sort(Comparator.comparing(Notification::getScheduledTime));
+            digests.add(new Digest(digestNotification(members), members));
+            notificationsDigested.addAndGet(members.size());
+        }
+        digestsBuilt.addAndGet(digests.size());
+        return digests;
+    }
+
+    /**
+     * Builds the unsaved notification that carries a digest to its channel
+     */
+    private Notification digestNotification(List<Notification> members) {
+        Notification first = members.get(0);
+        List<String> messages = new ArrayList<>(members.size());
+        members.forEach(member -> messages.add(member.getMessage()));
+        NotificationTemplates.RenderedMessage text = notificationTemplates.renderDigest(first.getChannel(), messages);
+
+        Notification digest = new Notification();
+        digest.setUser(first.getUser());
+        digest.setType(first.getType());
+        digest.setChannel(first.getChannel());
+        digest.setScheduledTime(first.getScheduledTime());
+        digest.setStatus(Notification.NotificationStatus.PENDING);
+        digest.setAttemptCount(first.getAttemptCount());
+        digest.setTitle(text.getSubject());
+        digest.setMessage(text.getMessage());
+        return digest;
+    }
+
+    private Map<Long, Integer> digestMasks(List<Notification> notifications) {
+        Set<Long> userIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (DIGEST_TYPES.contains(notification.getType())) {
+                userIds.add(notification.getUser().getId());
+            }
+        }
+        return userIds.isEmpty() ? Collections.emptyMap() : notificationPreferenceCache.getMasks(userIds);
+    }
+
+    private static boolean isDigested(Notification notification, Map<Long, Integer> masks) {
+        Integer mask = masks.get(notification.getUser().getId());
+        return mask != null && DIGEST_TYPES.contains(notification.getType())
+            && NotificationPreference.isDigest(mask, notification.getChannel());
+    }
+
+    private static String digestKey(Long userId, Notification.NotificationChannel channel) {
+        return userId + ":" + channel;
+    }
+
+    /**
+     * Emails the morning agenda to every user who asked for it. One instance in the cluster runs it.
+     */
+    @Scheduled(cron = "${notifications.digest.agenda.cron:0 0 7 * * *}")
+    public void sendMorningAgenda() {
+        if (!enabled || !agendaEnabled) {
+            return;
+        }
+        Duration maxRun = Duration.ofMinutes(agendaMaxRunMinutes);
+        schedulerLockService.runExclusively(AGENDA_LOCK_NAME, maxRun.plusMinutes(1), () -> runAgenda(maxRun));
+    }
+
+    private void runAgenda(Duration maxRun) {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + maxRun.toNanos();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
+
+        int users = 0;
+        long afterUserId = 0;
+        AtomicInteger sentCount = new AtomicInteger();
+        while (System.nanoTime() < deadline) {
+            long after = afterUserId;
+            Map<User, List<String>> agendas = new LinkedHashMap<>();
+            Map<User, Integer> meetingCounts = new HashMap<>();
+            List<User> page = transactionTemplate.execute(status ->
+                loadAgendaPage(after, now, endOfDay, today, agendas, meetingCounts));
+            if (page.isEmpty()) {
+                break;
+            }
+            users += page.size();
+
+            List<CompletableFuture<Void>> sends = new ArrayList<>(agendas.size());
+            agendas.forEach((user, lines) -> {
+                NotificationTemplates.RenderedMessage text =
+                    notificationTemplates.renderAgenda(today, meetingCounts.getOrDefault(user, 0), lines);
+                sends.add(emailService.sendEmailAsync(user.getEmail(), text.getSubject(), text.getMessage())
+                    .handle((ignored, error) -> {
+                        if (error != null) {
+                            agendasFailed.incrementAndGet();
+                            System.err.println("Failed to send agenda to user " + user.getId() + ": " + error.getMessage());
+                        } else {
+                            sentCount.incrementAndGet();
+                        }
+                        return null;
+                    }));
+            });
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).join();
+
+            afterUserId = page.get(page.size() - 1).getId();
+            if (page.size() < agendaPageSize) {
+                break;
+            }
+        }
+
+        agendasSent.addAndGet(sentCount.get());
+        agendaRuns.incrementAndGet();
+        lastAgendaAt = now;
+        lastAgendaMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("Morning agenda: sent " + sentCount.get() + " of " + users + " opted-in users in " + lastAgendaMillis + "ms");
+    }
+
+    /**
+     * Loads one page of opted-in users with their meetings and overdue action items and renders
+     * their agenda lines. Users with nothing on their agenda get no entry.
+     *
+     * @return the users of the page
+     */
+    private List<User> loadAgendaPage(long afterUserId, LocalDateTime from, LocalDateTime to, LocalDate today,
+                                      Map<User, List<String>> agendas, Map<User, Integer> meetingCounts) {
+        List<User> users = notificationPreferenceRepository.findMorningAgendaUsers(afterUserId, PageRequest.of(0, agendaPageSize));
+        if (users.isEmpty()) {
+            return users;
+        }
+        List<Long> userIds = users.stream().map(User::getId).toList();
+
+        // A user can both host and have joined a meeting; keep each meeting once
+        Map<Long, Map<Long, Object[]>> meetingsByUser = new HashMap<>();
+        List<Object[]> meetingRows = new ArrayList<>(meetingRepository.findHostedMeetingsForUsers(userIds, from, to));
+        meetingRows.addAll(meetingRepository.findJoinedMeetingsForUsers(userIds, from, to));
+        for (Object[] row : meetingRows) {
+            meetingsByUser.computeIfAbsent((Long) row[0], key -> new HashMap<>()).putIfAbsent((Long) row[1], row);
+        }
+        Map<Long, List<Object[]>> actionItemsByUser = new HashMap<>();
+        for (Object[] row : actionItemRepository.findOverdueActionItemsForUsers(userIds, today)) {
+            actionItemsByUser.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add(row);
+        }
+
+        for (User user : users) {
+            List<Object[]> meetings = new ArrayList<>(meetingsByUser.getOrDefault(user.getId(), Collections.emptyMap()).values());
+            List<Object[]> actionItems = actionItemsByUser.getOrDefault(user.getId(), Collections.emptyList());
+            if (meetings.isEmpty() && actionItems.isEmpty()) {
+                continue;
+            }
+            meetings.sort(Comparator.comparing(row -> (LocalDateTime) row[4]));
+            List<String> lines = new ArrayList<>(meetings.size() + actionItems.size());
+            for (Object[] row : meetings) {
+                lines.add(notificationTemplates.renderAgendaMeeting((String) row[2], (String) row[3], (LocalDateTime) row[4]));
+            }
+            for (Object[] row : actionItems) {
+                lines.add(notificationTemplates.renderAgendaActionItem((String) row[1], (String) row[3], (LocalDate) row[2]));
+            }
+            agendas.put(user, lines);
+            meetingCounts.put(user, meetings.size());
+        }
+        return users;
+    }
+
+    /**
+     * Gets digest and agenda counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("digestsBuilt", digestsBuilt.get());
+        stats.put("notificationsDigested", notificationsDigested.get());
+        stats.put("pulledForward", pulledForward.get());
+        stats.put("agendaRuns", agendaRuns.get());
+        stats.put("agendasSent", agendasSent.get());
+        stats.put("agendasFailed", agendasFailed.get());
+        stats.put("lastAgendaAt", lastAgendaAt);
+        stats.put("lastAgendaMillis", lastAgendaMillis);
+        return stats;
+    }
+
+    /**
+     * Several notifications of one user and channel sent as one message
+     */
+    public static final class Digest {
+        private final Notification notification;
+        private final List<Notification> members;
+
+        Digest(Notification notification, List<Notification> members) {
+            this.notification = notification;
+            this.members = members;
+        }
+
+        public Notification getNotification() { return notification; }
+        public List<Notification> getMembers() { return members; }
+    }
+}
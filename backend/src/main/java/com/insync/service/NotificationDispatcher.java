@@ -0,0 +1,567 @@
+package com.insync.service;
+
+import com.insync.entity.Notification;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dispatch engine for due notifications.
+ *
+ * Each run claims bounded batches of due rows under a lease, so overlapping runs never
+ * pick up the same row, fans every batch out to a bounded worker pool per channel and
+ * writes the outcome back with bulk updates. Failed sends are retried with jittered
+ * exponential backoff until the attempt limit moves them to DEAD_LETTER.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationSender notificationSender;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NotificationShardCoordinator notificationShardCoordinator;
+
+    @Autowired
+    private DeliveryLedger deliveryLedger;
+
+    @Autowired
+    private NotificationDigestService notificationDigestService;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private NotificationMetrics notificationMetrics;
+
+    @Value("${notifications.dispatch.batch-size:200}")
+    private int batchSize;
+
+    @Value("${notifications.dispatch.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${notifications.dispatch.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${notifications.dispatch.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${notifications.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${notifications.retry.delay-minutes:5}")
+    private long retryDelayMinutes;
+
+    @Value("${notifications.retry.max-delay-minutes:240}")
+    private long retryMaxDelayMinutes;
+
+    @Value("${notifications.dispatch.workers.sms:4}")
+    private int smsWorkers;
+
+    @Value("${notifications.dispatch.workers.in-app:2}")
+    private int inAppWorkers;
+
+    @Value("${notifications.smoothing.enabled:true}")
+    private boolean smoothingEnabled;
+
+    @Value("${notifications.smoothing.senders:4}")
+    private int smoothingSenders;
+
+    @Value("${notifications.smoothing.capacity-per-second.email:20}")
+    private int emailCapacityPerSecond;
+
+    @Value("${notifications.smoothing.capacity-per-second.sms:10}")
+    private int smsCapacityPerSecond;
+
+    @Value("${notifications.smoothing.capacity-per-second.push:50}")
+    private int pushCapacityPerSecond;
+
+    @Value("${notifications.smoothing.capacity-per-second.in-app:100}")
+    private int inAppCapacityPerSecond;
+
+    @Value("${notifications.smoothing.tolerance-seconds.reminder-15min:120}")
+    private long reminder15MinTolerance;
+
+    @Value("${notifications.smoothing.tolerance-seconds.reminder-5min:60}")
+    private long reminder5MinTolerance;
+
+    @Value("${notifications.smoothing.tolerance-seconds.started:15}")
+    private long startedTolerance;
+
+    @Value("${notifications.smoothing.tolerance-seconds.ending-soon:60}")
+    private long endingSoonTolerance;
+
+    @Value("${notifications.smoothing.tolerance-seconds.ended:120}")
+    private long endedTolerance;
+
+    private TransactionTemplate transactionTemplate;
+
+    private BackoffPolicy backoffPolicy;
+
+    private SendSmoother sendSmoother;
+
+    private ScheduledExecutorService smoothingExecutor;
+
+    private final Map<Notification.NotificationChannel, ThreadPoolExecutor> workerPools =
+        new EnumMap<>(Notification.NotificationChannel.class);
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        backoffPolicy = new BackoffPolicy(Duration.ofMinutes(retryDelayMinutes), Duration.ofMinutes(retryMaxDelayMinutes));
+        workerPools.put(Notification.NotificationChannel.SMS, createWorkerPool("sms", smsWorkers));
+        workerPools.put(Notification.NotificationChannel.IN_APP, createWorkerPool("in-app", inAppWorkers));
+        workerPools.forEach(notificationMetrics::bindWorkerPool);
+        notificationMetrics.bindDeliveryLedger(deliveryLedger);
+
+        Map<Notification.NotificationChannel, Integer> capacities = new EnumMap<>(Notification.NotificationChannel.class);
+        capacities.put(Notification.NotificationChannel.EMAIL, emailCapacityPerSecond);
+        capacities.put(Notification.NotificationChannel.SMS, smsCapacityPerSecond);
+        capacities.put(Notification.NotificationChannel.PUSH, pushCapacityPerSecond);
+        capacities.put(Notification.NotificationChannel.IN_APP, inAppCapacityPerSecond);
+        Map<Notification.NotificationType, Duration> tolerances = new EnumMap<>(Notification.NotificationType.class);
+        tolerances.put(Notification.NotificationType.MEETING_REMINDER_15MIN, Duration.ofSeconds(reminder15MinTolerance));
+        tolerances.put(Notification.NotificationType.MEETING_REMINDER_5MIN, Duration.ofSeconds(reminder5MinTolerance));
+        tolerances.put(Notification.NotificationType.MEETING_STARTED, Duration.ofSeconds(startedTolerance));
+        tolerances.put(Notification.NotificationType.MEETING_ENDING_SOON, Duration.ofSeconds(endingSoonTolerance));
+        tolerances.put(Notification.NotificationType.MEETING_ENDED, Duration.ofSeconds(endedTolerance));
+        sendSmoother = new SendSmoother(capacities, tolerances);
+        AtomicInteger smootherCount = new AtomicInteger();
+        smoothingExecutor = Executors.newScheduledThreadPool(smoothingSenders, runnable -> {
+            Thread thread = new Thread(runnable, "notify-smoother-" + smootherCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Sends still held back are dropped; their claims expire and the next refill picks them up again
+        smoothingExecutor.shutdownNow();
+        workerPools.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    /**
+     * Dispatches failed notifications whose next attempt time has passed, in claimed batches
+     * until none are left or the per-run batch limit is reached. First attempts are sent when
+     * their timing wheel timer fires instead.
+     *
+     * @return the number of notifications retried
+     */
+    public int dispatchRetries() {
+        int total = 0;
+
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            String claimToken = UUID.randomUUID().toString();
+            List<Notification> claimed = claimRetryBatch(claimToken, LocalDateTime.now());
+            if (claimed.isEmpty()) {
+                break;
+            }
+
+            dispatchBatch(claimToken, claimed);
+            total += claimed.size();
+
+            if (claimed.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Dispatches the given notifications, skipping any that are no longer pending and due.
+     * Called by the timing wheel when their scheduled time arrives. With smoothing on, the wave
+     * is spread over each type's tolerance window and the held back part is sent later under
+     * the same claim, whose lease is extended by the longest tolerance.
+     *
+     * @return the number of notifications dispatched or planned
+     */
+    public int dispatchIds(List<Long> ids) {
+        long lease = leaseSeconds + (smoothingEnabled ? sendSmoother.maxTolerance().getSeconds() : 0);
+        int total = 0;
+        List<Notification> wave = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            String claimToken = UUID.randomUUID().toString();
+            List<Notification> claimed = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                int claimedCount = notificationRepository.claimDueNotifications(
+                    chunk, claimToken, now, now.plusSeconds(lease));
+                return claimedCount == 0
+                    ? Collections.<Notification>emptyList()
+                    : notificationRepository.findClaimedNotifications(claimToken);
+            });
+
+            if (claimed.isEmpty()) {
+                continue;
+            }
+            total += claimed.size();
+            if (smoothingEnabled) {
+                wave.addAll(claimed);
+            } else {
+                dispatchBatch(claimToken, claimed);
+            }
+        }
+
+        if (!wave.isEmpty()) {
+            smooth(wave, held -> dispatchClaimed(held, false), held -> dispatchClaimed(held, true));
+        }
+        return total;
+    }
+
+    /**
+     * Dispatches claimed notifications, one batch per claim token. Held back notifications are
+     * checked again first; those cancelled or moved later in the meantime are released unsent.
+     */
+    private void dispatchClaimed(List<Notification> claimed, boolean heldBack) {
+        Map<String, List<Notification>> byToken = new LinkedHashMap<>();
+        for (Notification notification : claimed) {
+            byToken.computeIfAbsent(notification.getClaimToken(), key -> new ArrayList<>()).add(notification);
+        }
+        byToken.forEach((claimToken, notifications) -> {
+            List<Notification> toDispatch = heldBack ? stillDue(claimToken, notifications) : notifications;
+            if (!toDispatch.isEmpty()) {
+                dispatchBatch(claimToken, toDispatch);
+            }
+        });
+    }
+
+    private List<Notification> stillDue(String claimToken, List<Notification> notifications) {
+        List<Long> ids = notifications.stream().map(Notification::getId).toList();
+        return transactionTemplate.execute(status -> {
+            Set<Long> due = new HashSet<>(
+                notificationRepository.findStillDueClaimedIds(ids, claimToken, LocalDateTime.now()));
+            if (due.size() < ids.size()) {
+                notificationRepository.releaseClaims(ids.stream().filter(id -> !due.contains(id)).toList(), claimToken);
+            }
+            return notifications.stream().filter(notification -> due.contains(notification.getId())).toList();
+        });
+    }
+
+    /**
+     * Plans a wave into send slots. The part due now is sent on the calling thread and the rest
+     * is scheduled for its slot on the smoothing senders. A held back slot occupies its sender
+     * until all of its sends have an outcome, so slots only start late when every sender is
+     * still busy with an earlier one.
+     */
+    private void smooth(List<Notification> wave, Consumer<List<Notification>> sendNow,
+                        Consumer<List<Notification>> sendHeldBack) {
+        SendSmoother.Plan plan = sendSmoother.plan(wave, System.currentTimeMillis());
+        notificationMetrics.recordSmoothedWave(plan);
+
+        List<Notification> now = Collections.emptyList();
+        for (Map.Entry<Long, List<Notification>> slot : plan.getBySecond().entrySet()) {
+            long delay = plan.delaySeconds(slot.getKey());
+            if (delay == 0) {
+                now = slot.getValue();
+                continue;
+            }
+            smoothingExecutor.schedule(() -> {
+                try {
+                    sendHeldBack.accept(slot.getValue());
+                } catch (Exception e) {
+                    // Their claims expire and the next refill or retry run picks them up again
+                    logger.warn("Failed to send {} smoothed notifications: {}", slot.getValue().size(), e.getMessage());
+                }
+            }, delay, TimeUnit.SECONDS);
+        }
+        if (!now.isEmpty()) {
+            sendNow.accept(now);
+        }
+    }
+
+
+    /**
+     * Leases up to one batch of retryable notifications from this instance's shards
+     * under the given claim token
+     */
+    private List<Notification> claimRetryBatch(String claimToken, LocalDateTime now) {
+        List<Integer> shards = notificationShardCoordinator.getOwnedShards();
+        if (shards.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int shardCount = notificationShardCoordinator.getShardCount();
+        return transactionTemplate.execute(status -> {
+            List<Long> dueIds = notificationRepository.findRetryableNotificationIds(
+                now, shardCount, shards, PageRequest.of(0, batchSize));
+            if (dueIds.isEmpty()) {
+                return Collections.<Notification>emptyList();
+            }
+
+            int claimedCount = notificationRepository.claimNotifications(
+                dueIds, claimToken, now, now.plusSeconds(leaseSeconds));
+            if (claimedCount == 0) {
+                return Collections.<Notification>emptyList();
+            }
+            return notificationRepository.findClaimedNotifications(claimToken);
+        });
+    }
+
+    /**
+     * Sends a claimed batch on the channel worker pools and writes the results back. Reminders
+     * that digest users have due soon are claimed along with the batch and sent in their digest.
+     */
+    private void dispatchBatch(String claimToken, List<Notification> batch) {
+        List<Notification> claimed = new ArrayList<>(batch);
+        claimed.addAll(notificationDigestService.claimDigestCompanions(claimToken, batch, leaseSeconds));
+        List<Notification> toSend = deliveryLedger.reserve(claimed);
+        List<Long> duplicateIds = new ArrayList<>();
+        if (toSend.size() < claimed.size()) {
+            Set<Notification> accepted = Collections.newSetFromMap(new IdentityHashMap<>());
+            accepted.addAll(toSend);
+            claimed.stream().filter(notification -> !accepted.contains(notification))
+                .forEach(notification -> duplicateIds.add(notification.getId()));
+        }
+
+        List<CompletableFuture<DispatchResult>> futures = submitAll(toSend);
+
+        List<Long> sentIds = new ArrayList<>();
+        List<DispatchResult> failures = new ArrayList<>();
+        List<Notification> failedNotifications = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            DispatchResult result = futures.get(i).join();
+            if (result.success) {
+                sentIds.add(result.notificationId);
+            } else {
+                failures.add(result);
+                failedNotifications.add(toSend.get(i));
+            }
+        }
+        deliveryLedger.release(failedNotifications);
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                notificationRepository.markSent(sentIds, claimToken, now);
+            }
+            if (!duplicateIds.isEmpty()) {
+                notificationRepository.markDuplicate(duplicateIds, claimToken);
+            }
+            // Failures are the minority and each carries its own attempt count and backoff
+            for (int i = 0; i < failures.size(); i++) {
+                DispatchResult failure = failures.get(i);
+                int attempts = failure.previousAttempts + 1;
+                boolean exhausted = attempts >= maxAttempts;
+                notificationRepository.markAttemptFailed(failure.notificationId, claimToken,
+                    exhausted ? Notification.NotificationStatus.DEAD_LETTER : Notification.NotificationStatus.FAILED,
+                    attempts, exhausted ? null : now.plus(backoffPolicy.delayAfter(attempts)), failure.errorMessage);
+                if (exhausted) {
+                    notificationMetrics.recordDeadLetter(failedNotifications.get(i).getChannel());
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends notifications that have not been saved yet and then saves them with their outcome,
+     * so only sends that actually happened are written. Used for lazily expanded meeting reminders.
+     * Duplicates of already delivered notifications are dropped without being written.
+     * With smoothing on, part of the wave may be held back and sent later.
+     */
+    public void deliverAndRecord(List<Notification> expanded) {
+        if (smoothingEnabled) {
+            smooth(expanded, this::sendAndRecord, held -> sendAndRecord(withoutCancelledMeetings(held)));
+        } else {
+            sendAndRecord(expanded);
+        }
+    }
+
+    private List<Notification> withoutCancelledMeetings(List<Notification> notifications) {
+        Set<Long> meetingIds = new HashSet<>();
+        notifications.forEach(notification -> meetingIds.add(notification.getMeeting().getId()));
+        List<Long> cancelled = transactionTemplate.execute(status -> meetingRepository.findCancelledIds(meetingIds));
+        return notifications.stream()
+            .filter(notification -> !cancelled.contains(notification.getMeeting().getId()))
+            .toList();
+    }
+
+    private void sendAndRecord(List<Notification> expanded) {
+        if (expanded.isEmpty()) {
+            return;
+        }
+        List<Notification> notifications = deliveryLedger.reserve(expanded);
+        List<CompletableFuture<DispatchResult>> futures = submitAll(notifications);
+
+        List<Notification> failedNotifications = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            DispatchResult result = futures.get(i).join();
+            if (result.success) {
+                notification.setStatus(Notification.NotificationStatus.SENT);
+                notification.setSentTime(now);
+                notification.setAttemptCount(1);
+            } else {
+                // Saved as FAILED so the regular retry pass picks it up
+                applyFailedAttempt(notification, result.errorMessage);
+                failedNotifications.add(notification);
+            }
+        }
+        deliveryLedger.release(failedNotifications);
+
+        transactionTemplate.executeWithoutResult(status -> notificationRepository.saveAll(notifications));
+    }
+
+    /**
+     * Starts sending a batch: one message per digest and one per remaining notification
+     *
+     * @return one result future per notification, in order; the members of a digest share its outcome
+     */
+    private List<CompletableFuture<DispatchResult>> submitAll(List<Notification> notifications) {
+        Map<Notification, CompletableFuture<DispatchResult>> digested = new IdentityHashMap<>();
+        for (NotificationDigestService.Digest digest : notificationDigestService.coalesce(notifications)) {
+            CompletableFuture<DispatchResult> sent = submit(digest.getNotification());
+            for (Notification member : digest.getMembers()) {
+                digested.put(member, sent.thenApply(result ->
+                    new DispatchResult(member.getId(), member.getAttemptCount(), result.success, result.errorMessage)));
+            }
+        }
+        List<CompletableFuture<DispatchResult>> futures = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            CompletableFuture<DispatchResult> future = digested.get(notification);
+            futures.add(future != null ? future : submit(notification));
+        }
+        return futures;
+    }
+
+    /**
+     * Starts sending a notification. Push sends are gathered into multicast gateway requests by
+     * the push service and emails into SMTP batches by the email service, so both are queued there
+     * directly instead of holding a worker thread each; a batch can then be as large as the
+     * dispatch batch rather than the worker count.
+     */
+    private CompletableFuture<DispatchResult> submit(Notification notification) {
+        Notification.NotificationChannel channel = notification.getChannel();
+        if (channel != Notification.NotificationChannel.PUSH && channel != Notification.NotificationChannel.EMAIL) {
+            ThreadPoolExecutor pool = workerPools.get(channel);
+            return CompletableFuture.supplyAsync(() -> deliver(notification), pool);
+        }
+        int attempts = recordAttempt(notification);
+        CompletableFuture<Boolean> sending = channel == Notification.NotificationChannel.PUSH
+            ? notificationSender.sendPushAsync(notification)
+            : notificationSender.sendEmailAsync(notification);
+        return sending.handle((delivered, error) -> {
+            if (error != null) {
+                return new DispatchResult(notification.getId(), attempts, false, truncate(error.getMessage()));
+            }
+            return new DispatchResult(notification.getId(), attempts, delivered, delivered ? null : "Failed to send notification");
+        });
+    }
+
+    /**
+     * Sends a single notification on a worker thread
+     */
+    private DispatchResult deliver(Notification notification) {
+        int attempts = recordAttempt(notification);
+        try {
+            if (notificationSender.send(notification)) {
+                return new DispatchResult(notification.getId(), attempts, true, null);
+            }
+            return new DispatchResult(notification.getId(), attempts, false, "Failed to send notification");
+        } catch (Exception e) {
+            return new DispatchResult(notification.getId(), attempts, false, truncate(e.getMessage()));
+        }
+    }
+
+    private int recordAttempt(Notification notification) {
+        int attempts = notification.getAttemptCount();
+        if (attempts == 0) {
+            notificationMetrics.recordLag(notification);
+        } else {
+            notificationMetrics.recordRetry(notification.getChannel());
+        }
+        return attempts;
+    }
+
+    /**
+     * Records a failed attempt on a notification that was sent outside the dispatcher
+     */
+    public void applyFailedAttempt(Notification notification, String errorMessage) {
+        int attempts = notification.getAttemptCount() + 1;
+        notification.setAttemptCount(attempts);
+        notification.setErrorMessage(truncate(errorMessage));
+        if (attempts >= maxAttempts) {
+            notification.setStatus(Notification.NotificationStatus.DEAD_LETTER);
+            notification.setNextAttemptTime(null);
+            notificationMetrics.recordDeadLetter(notification.getChannel());
+        } else {
+            notification.setStatus(Notification.NotificationStatus.FAILED);
+            notification.setNextAttemptTime(LocalDateTime.now().plus(backoffPolicy.delayAfter(attempts)));
+        }
+    }
+
+    private ThreadPoolExecutor createWorkerPool(String name, int workers) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            workers, workers, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "notify-" + name + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // Backpressure: when a channel's queue is full the dispatching thread sends itself
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "Failed to send notification";
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+
+    private static class DispatchResult {
+        private final Long notificationId;
+        private final int previousAttempts;
+        private final boolean success;
+        private final String errorMessage;
+
+        DispatchResult(Long notificationId, int previousAttempts, boolean success, String errorMessage) {
+            this.notificationId = notificationId;
+            this.previousAttempts = previousAttempts;
+            this.success = success;
+            this.errorMessage = errorMessage;
+        }
+    }
+}
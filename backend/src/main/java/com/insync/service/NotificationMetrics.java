@@ -0,0 +1,236 @@
+package com.insync.service;
+
+import com.insync.entity.MeetingReminder;
+import com.insync.entity.Notification;
+import com.insync.repository.MeetingReminderRepository;
+import com.insync.repository.NotificationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for the notification pipeline, published on /actuator/metrics.
+ *
+ * notifications.backlog                pending and failed rows by channel, refreshed on a schedule
+ * notifications.reminders.pending      unfired meeting reminders (lazy materialization)
+ * notifications.dispatch.lag           scheduled time to first send attempt, by channel and type
+ * notifications.send.latency           time spent in the channel call, by channel and outcome
+ * notifications.send.failures          failed sends by channel and error class
+ * notifications.retries                retry attempts by channel
+ * notifications.dead.lettered          notifications that ran out of attempts, by channel
+ * notifications.duplicates.suppressed  sends skipped because the delivery ledger already had them
+ * notifications.workers.*              worker pool queue depth and busy threads, by channel
+ * notifications.timers.armed           timers held by the in-memory timing wheels
+ * notifications.smoothing.peak         most sends in one second of a timer wave, as due and as planned
+ * notifications.smoothing.deferred     sends held back to a later second by smoothing
+ * notifications.smoothing.spread       seconds a timer wave was spread over
+ */
+@Service
+public class NotificationMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.95, 0.99};
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MeetingReminderRepository meetingReminderRepository;
+
+    private final Map<Notification.NotificationChannel, Map<Notification.NotificationStatus, AtomicLong>> backlog =
+        new EnumMap<>(Notification.NotificationChannel.class);
+    private final AtomicLong pendingReminders = new AtomicLong();
+
+    private final Map<Notification.NotificationChannel, Map<Notification.NotificationType, Timer>> lagTimers =
+        new EnumMap<>(Notification.NotificationChannel.class);
+    private final Map<Notification.NotificationChannel, Timer> sentTimers = new EnumMap<>(Notification.NotificationChannel.class);
+    private final Map<Notification.NotificationChannel, Timer> failedTimers = new EnumMap<>(Notification.NotificationChannel.class);
+    private final Map<Notification.NotificationChannel, Counter> retryCounters = new EnumMap<>(Notification.NotificationChannel.class);
+    private final Map<Notification.NotificationChannel, Counter> deadLetterCounters = new EnumMap<>(Notification.NotificationChannel.class);
+    private DistributionSummary duePeak;
+    private DistributionSummary plannedPeak;
+    private DistributionSummary waveSpread;
+    private Counter deferred;
+
+    @PostConstruct
+    public void init() {
+        for (Notification.NotificationChannel channel : Notification.NotificationChannel.values()) {
+            String channelTag = channel.name().toLowerCase();
+
+            Map<Notification.NotificationStatus, AtomicLong> counts = new EnumMap<>(Notification.NotificationStatus.class);
+            for (Notification.NotificationStatus status : List.of(Notification.NotificationStatus.PENDING, Notification.NotificationStatus.FAILED)) {
+                AtomicLong count = new AtomicLong();
+                counts.put(status, count);
+                Gauge.builder("notifications.backlog", count, AtomicLong::get)
+                    .description("Notifications waiting to be sent")
+                    .tag("channel", channelTag)
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry);
+            }
+            backlog.put(channel, counts);
+
+            Map<Notification.NotificationType, Timer> byType = new EnumMap<>(Notification.NotificationType.class);
+            for (Notification.NotificationType type : Notification.NotificationType.values()) {
+                byType.put(type, Timer.builder("notifications.dispatch.lag")
+                    .description("Delay between a notification's scheduled time and its first send attempt")
+                    .tag("channel", channelTag)
+                    .tag("type", type.name().toLowerCase())
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry));
+            }
+            lagTimers.put(channel, byType);
+
+            sentTimers.put(channel, sendTimer(channelTag, "sent"));
+            failedTimers.put(channel, sendTimer(channelTag, "failed"));
+            retryCounters.put(channel, Counter.builder("notifications.retries")
+                .description("Retry attempts of failed notifications")
+                .tag("channel", channelTag)
+                .register(meterRegistry));
+            deadLetterCounters.put(channel, Counter.builder("notifications.dead.lettered")
+                .description("Notifications moved to DEAD_LETTER after their last attempt")
+                .tag("channel", channelTag)
+                .register(meterRegistry));
+        }
+        Gauge.builder("notifications.reminders.pending", pendingReminders, AtomicLong::get)
+            .description("Meeting reminders waiting to fire")
+            .register(meterRegistry);
+
+        duePeak = smoothingPeak("due");
+        plannedPeak = smoothingPeak("planned");
+        waveSpread = DistributionSummary.builder("notifications.smoothing.spread")
+            .description("Seconds a timer wave was spread over")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        deferred = Counter.builder("notifications.smoothing.deferred")
+            .description("Sends held back to a later second by smoothing")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records how late a notification's first send attempt is
+     */
+    public void recordLag(Notification notification) {
+        long lagMillis = Math.max(0, Duration.between(notification.getScheduledTime(), LocalDateTime.now()).toMillis());
+        lagTimers.get(notification.getChannel()).get(notification.getType()).record(lagMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records one channel call
+     *
+     * @param errorClass null on success, otherwise the exception class or reason the send failed
+     */
+    public void recordSend(Notification.NotificationChannel channel, long durationNanos, String errorClass) {
+        if (errorClass == null) {
+            sentTimers.get(channel).record(durationNanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+        failedTimers.get(channel).record(durationNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("notifications.send.failures",
+            "channel", channel.name().toLowerCase(), "error", errorClass).increment();
+    }
+
+    /**
+     * Records how a timer wave was planned: its busiest second before and after smoothing
+     */
+    public void recordSmoothedWave(SendSmoother.Plan plan) {
+        duePeak.record(plan.getPeakPerSecond());
+        plannedPeak.record(plan.getSmoothedPeakPerSecond());
+        waveSpread.record(plan.getSpreadSeconds());
+        deferred.increment(plan.getDeferredCount());
+    }
+
+    public void recordRetry(Notification.NotificationChannel channel) {
+        retryCounters.get(channel).increment();
+    }
+
+    public void recordDeadLetter(Notification.NotificationChannel channel) {
+        deadLetterCounters.get(channel).increment();
+    }
+
+    /**
+     * Publishes queue depth and busy threads of a channel's worker pool
+     */
+    public void bindWorkerPool(Notification.NotificationChannel channel, ThreadPoolExecutor pool) {
+        String channelTag = channel.name().toLowerCase();
+        Gauge.builder("notifications.workers.queued", pool, executor -> executor.getQueue().size())
+            .description("Sends waiting for a worker thread")
+            .tag("channel", channelTag)
+            .register(meterRegistry);
+        Gauge.builder("notifications.workers.active", pool, ThreadPoolExecutor::getActiveCount)
+            .description("Worker threads busy sending")
+            .tag("channel", channelTag)
+            .register(meterRegistry);
+        Gauge.builder("notifications.workers.max", pool, ThreadPoolExecutor::getMaximumPoolSize)
+            .description("Worker pool size")
+            .tag("channel", channelTag)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Publishes how many duplicate sends the delivery ledger has stopped
+     */
+    public void bindDeliveryLedger(DeliveryLedger deliveryLedger) {
+        FunctionCounter.builder("notifications.duplicates.suppressed", deliveryLedger, DeliveryLedger::getDuplicatesSuppressed)
+            .description("Sends skipped because the delivery ledger already recorded them")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Publishes how many timers a timing wheel holds
+     */
+    public void bindTimingWheel(String wheel, HashedTimingWheel timingWheel) {
+        Gauge.builder("notifications.timers.armed", timingWheel, HashedTimingWheel::size)
+            .description("In-memory timers waiting to fire")
+            .tag("wheel", wheel)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Refreshes the backlog gauges with one grouped count, so scraping never hits the database
+     */
+    @Scheduled(fixedDelayString = "${notifications.metrics.backlog-refresh-ms:30000}")
+    public void refreshBacklog() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : notificationRepository.countBacklogByChannel()) {
+            counts.put(row[0] + "/" + row[1], (Long) row[2]);
+        }
+        backlog.forEach((channel, byStatus) -> byStatus.forEach((status, count) ->
+            count.set(counts.getOrDefault(channel + "/" + status, 0L))));
+        pendingReminders.set(meetingReminderRepository.countByStatus(MeetingReminder.ReminderStatus.PENDING));
+    }
+
+    private DistributionSummary smoothingPeak(String stage) {
+        return DistributionSummary.builder("notifications.smoothing.peak")
+            .description("Most sends in one second of a timer wave")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+
+    private Timer sendTimer(String channelTag, String outcome) {
+        return Timer.builder("notifications.send.latency")
+            .description("Time spent handing a notification to its channel")
+            .tag("channel", channelTag)
+            .tag("outcome", outcome)
+            .publishPercentiles(PERCENTILES)
+            .register(meterRegistry);
+    }
+}
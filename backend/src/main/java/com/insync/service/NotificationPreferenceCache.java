@@ -0,0 +1,107 @@
+package com.insync.service;
+
+import com.insync.entity.NotificationPreference;
+import com.insync.repository.NotificationPreferenceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches users' notification preferences as bitmasks (see NotificationPreference#toBitmask),
+ * so scheduling fan-out checks a bit instead of querying preferences per recipient.
+ * Entries are invalidated when a user updates or resets their preferences. That only reaches
+ * the instance serving the change, so entries also expire after a short TTL; other instances
+ * pick up a change within that time.
+ */
+@Service
+public class NotificationPreferenceCache {
+
+    @Autowired
+    private NotificationPreferenceRepository notificationPreferenceRepository;
+
+    @Value("${notifications.preferences.cache-max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${notifications.preferences.cache-ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final Map<Long, CachedMask> masksByUserId = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation, so a load that raced with one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Gets the preference bitmask of one user
+     */
+    public int getMask(Long userId) {
+        return getMasks(List.of(userId)).get(userId);
+    }
+
+    /**
+     * Gets the preference bitmasks of several users, loading the uncached ones with a single IN query.
+     * Users who never saved preferences get the defaults, without a row being created for them.
+     */
+    public Map<Long, Integer> getMasks(Collection<Long> userIds) {
+        Map<Long, Integer> masks = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        for (Long userId : userIds) {
+            CachedMask cached = masksByUserId.get(userId);
+            if (cached != null && now - cached.loadedAtNanos < ttlNanos) {
+                masks.put(userId, cached.mask);
+            } else if (!masks.containsKey(userId)) {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return masks;
+        }
+
+        long generation = invalidations.get();
+        Map<Long, Integer> loaded = new HashMap<>();
+        for (NotificationPreference preferences : notificationPreferenceRepository.findByUser_IdIn(missing)) {
+            loaded.put(preferences.getUser().getId(), preferences.toBitmask());
+        }
+
+        if (masksByUserId.size() + missing.size() > maxEntries) {
+            masksByUserId.clear();
+        }
+        for (Long userId : missing) {
+            int mask = loaded.getOrDefault(userId, NotificationPreference.DEFAULT_BITMASK);
+            masks.put(userId, mask);
+            masksByUserId.put(userId, new CachedMask(mask, now));
+        }
+        if (invalidations.get() != generation) {
+            missing.forEach(masksByUserId::remove);
+        }
+        return masks;
+    }
+
+    /**
+     * Drops a user's cached preferences after they change
+     */
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        masksByUserId.remove(userId);
+    }
+
+    private static class CachedMask {
+        private final int mask;
+        private final long loadedAtNanos;
+
+        CachedMask(int mask, long loadedAtNanos) {
+            this.mask = mask;
+            this.loadedAtNanos = loadedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.insync.service;
+
+import com.insync.repository.NotificationDeliveryRepository;
+import com.insync.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Retention job for the notifications table.
+ *
+ * Terminal rows (SENT, CANCELLED, DEAD_LETTER, DUPLICATE) scheduled before the retention age
+ * are archived into notifications_archive or deleted, and old delivery ledger entries are pruned.
+ * Work is done in small id-ordered chunks, each in its own short transaction, so the live
+ * table is never locked for long. One instance in the cluster runs it at a time.
+ */
+@Service
+public class NotificationRetentionService {
+
+    private static final String LOCK_NAME = "notification-retention";
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationDeliveryRepository notificationDeliveryRepository;
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    // "archive" copies terminal rows to notifications_archive before deleting them; "delete" only deletes
+    @Value("${notifications.retention.mode:archive}")
+    private String mode;
+
+    @Value("${notifications.retention.max-age-days:90}")
+    private long maxAgeDays;
+
+    @Value("${notifications.retention.delivery-max-age-days:30}")
+    private long deliveryMaxAgeDays;
+
+    @Value("${notifications.retention.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${notifications.retention.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    @Value("${notifications.retention.max-run-minutes:10}")
+    private long maxRunMinutes;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Counters
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong deliveriesPruned = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${notifications.retention.initial-delay-ms:60000}",
+               fixedDelayString = "${notifications.retention.interval-ms:3600000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        Duration maxRun = Duration.ofMinutes(maxRunMinutes);
+        // The lease outlives the run by a minute, so another instance never starts a second purge alongside
+        schedulerLockService.runExclusively(LOCK_NAME, maxRun.plusMinutes(1), () -> runPurge(maxRun));
+    }
+
+    private void runPurge(Duration maxRun) {
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + maxRun.toNanos();
+        LocalDateTime now = LocalDateTime.now();
+        boolean archive = "archive".equalsIgnoreCase(mode);
+
+        long notifications = purgeInChunks(deadline,
+            afterId -> notificationRepository.findTerminalIdsBefore(now.minusDays(maxAgeDays), afterId, PageRequest.of(0, chunkSize)),
+            ids -> {
+                if (archive) {
+                    notificationRepository.archiveByIds(ids, now);
+                }
+                notificationRepository.deleteByIds(ids);
+            });
+        (archive ? archived : deleted).addAndGet(notifications);
+
+        long deliveries = purgeInChunks(deadline,
+            afterId -> notificationDeliveryRepository.findIdsDeliveredBefore(now.minusDays(deliveryMaxAgeDays), afterId, PageRequest.of(0, chunkSize)),
+            notificationDeliveryRepository::deleteByIds);
+        deliveriesPruned.addAndGet(deliveries);
+
+        runs.incrementAndGet();
+        lastRunAt = now;
+        lastRunMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        if (notifications > 0 || deliveries > 0) {
+            System.out.println("Notification retention: " + (archive ? "archived " : "deleted ") + notifications +
+                " notifications and pruned " + deliveries + " ledger entries in " + lastRunMillis + "ms");
+        }
+    }
+
+    /**
+     * Walks the rows in id order, one chunk per transaction, until none are left or the run deadline passes
+     *
+     * @return the number of rows removed
+     */
+    private long purgeInChunks(long deadlineNanos, Function<Long, List<Long>> nextChunk,
+                               Consumer<List<Long>> removeChunk) {
+        long removed = 0;
+        long afterId = 0;
+        while (System.nanoTime() < deadlineNanos) {
+            long from = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> chunk = nextChunk.apply(from);
+                if (!chunk.isEmpty()) {
+                    removeChunk.accept(chunk);
+                }
+                return chunk;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            removed += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            try {
+                Thread.sleep(chunkPauseMs); // let live traffic in between chunks
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Gets counters for the retention job
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("mode", mode);
+        stats.put("runs", runs.get());
+        stats.put("archived", archived.get());
+        stats.put("deleted", deleted.get());
+        stats.put("deliveriesPruned", deliveriesPruned.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        return stats;
+    }
+}
@@ -0,0 +1,129 @@
+package com.insync.service;
+
+import com.insync.entity.Notification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Service
+public class NotificationSender {
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private SmsService smsService;
+
+    @Autowired
+    private NotificationMetrics notificationMetrics;
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private PushService pushService;
+
+    /**
+     * Sends a notification via the appropriate channel, recording the call's latency and any failure class.
+     * The notification's user must already be loaded, since this may run outside a persistence context.
+     */
+    public boolean send(Notification notification) {
+        long startNanos = System.nanoTime();
+        String errorClass = null;
+        try {
+            if (!sendOnChannel(notification)) {
+                errorClass = "Rejected";
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to send " + notification.getChannel().name().toLowerCase() + " notification: " + e.getMessage());
+            errorClass = e.getClass().getSimpleName();
+        }
+        notificationMetrics.recordSend(notification.getChannel(), System.nanoTime() - startNanos, errorClass);
+        return errorClass == null;
+    }
+
+    /**
+     * Sends a push notification without holding a thread while the gateway batch is in flight,
+     * so a whole dispatch batch can be gathered into multicast requests
+     */
+    public CompletableFuture<Boolean> sendPushAsync(Notification notification) {
+        long startNanos = System.nanoTime();
+        return pushService.sendPushAsync(notification).handle((delivered, error) ->
+            recordAsyncSend(Notification.NotificationChannel.PUSH, startNanos, Boolean.TRUE.equals(delivered), error));
+    }
+
+    /**
+     * Queues an email without holding a thread until its SMTP batch has gone out, so a whole
+     * dispatch batch can share the pooled connections' batches
+     */
+    public CompletableFuture<Boolean> sendEmailAsync(Notification notification) {
+        long startNanos = System.nanoTime();
+        return emailService.sendEmailAsync(notification.getUser().getEmail(), notification.getTitle(), notification.getMessage())
+            .handle((ignored, error) -> recordAsyncSend(Notification.NotificationChannel.EMAIL, startNanos, true, error));
+    }
+
+    private boolean recordAsyncSend(Notification.NotificationChannel channel, long startNanos, boolean delivered, Throwable error) {
+        String errorClass = null;
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            System.err.println("Failed to send " + channel.name().toLowerCase() + " notification: " + cause.getMessage());
+            errorClass = cause.getClass().getSimpleName();
+        } else if (!delivered) {
+            errorClass = "Rejected";
+        }
+        notificationMetrics.recordSend(channel, System.nanoTime() - startNanos, errorClass);
+        return errorClass == null;
+    }
+
+    private boolean sendOnChannel(Notification notification) {
+        switch (notification.getChannel()) {
+            case EMAIL:
+                return sendEmailNotification(notification);
+            case SMS:
+                return sendSmsNotification(notification);
+            case PUSH:
+                return sendPushNotification(notification);
+            case IN_APP:
+                inboxService.deliver(notification);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Sends email notification
+     */
+    private boolean sendEmailNotification(Notification notification) {
+        emailService.sendEmail(
+            notification.getUser().getEmail(),
+            notification.getTitle(),
+            notification.getMessage()
+        );
+        return true;
+    }
+
+    /**
+     * Sends SMS notification
+     */
+    private boolean sendSmsNotification(Notification notification) {
+        String phoneNumber = notification.getUser().getPhone();
+        if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
+            return false;
+        }
+
+        return smsService.sendSms(
+            smsService.formatPhoneNumber(phoneNumber),
+            notification.getMessage()
+        );
+    }
+
+    /**
+     * Sends push notification to the user's registered devices
+     */
+    private boolean sendPushNotification(Notification notification) {
+        return pushService.sendPush(notification);
+    }
+}
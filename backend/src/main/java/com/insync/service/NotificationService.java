@@ -1,129 +1,330 @@
 package com.insync.service;
 
 import com.insync.entity.Meeting;
+import com.insync.entity.MeetingOutboxEvent;
+import com.insync.entity.MeetingReminder;
 import com.insync.entity.Notification;
 import com.insync.entity.NotificationPreference;
 import com.insync.entity.User;
+import com.insync.repository.MeetingReminderRepository;
+import com.insync.repository.MeetingRepository;
 import com.insync.repository.NotificationRepository;
-import com.insync.repository.NotificationPreferenceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 @Transactional
 public class NotificationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
     @Autowired
     private NotificationRepository notificationRepository;
 
     @Autowired
-    private NotificationPreferenceRepository notificationPreferenceRepository;
+    private NotificationPreferenceCache notificationPreferenceCache;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private MeetingReminderRepository meetingReminderRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private NotificationShardCoordinator notificationShardCoordinator;
 
     @Autowired
-    private EmailService emailService;
+    private NotificationMetrics notificationMetrics;
 
     @Autowired
-    private SmsService smsService;
+    private NotificationTemplates notificationTemplates;
+
+    // "eager" stores a notification row per user, type and channel up front;
+    // "lazy" stores only the meeting's reminder schedule and expands it when a reminder fires
+    @Value("${notifications.materialization:eager}")
+    private String materialization;
+
+    @Value("${notifications.inbox.enabled:true}")
+    private boolean inboxEnabled;
+
+    @Value("${notifications.scheduler.tick-millis:1000}")
+    private long schedulerTickMillis;
+
+    @Value("${notifications.scheduler.wheel-size:1024}")
+    private int schedulerWheelSize;
+
+    @Value("${notifications.scheduler.horizon-minutes:10}")
+    private long schedulerHorizonMinutes;
+
+    // In-memory timers for pending notifications due within the scheduling horizon
+    private HashedTimingWheel timingWheel;
+
+    // In-memory timers for pending meeting reminders (lazy materialization)
+    private HashedTimingWheel reminderWheel;
+
+    private ExecutorService timerDispatchExecutor;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Shards the timing wheels were last refilled for
+    private volatile List<Integer> refilledShards = Collections.emptyList();
+
+    private static final List<Notification.NotificationType> REMINDER_TYPES = List.of(
+        Notification.NotificationType.MEETING_REMINDER_15MIN,
+        Notification.NotificationType.MEETING_REMINDER_5MIN,
+        Notification.NotificationType.MEETING_STARTED,
+        Notification.NotificationType.MEETING_ENDING_SOON,
+        Notification.NotificationType.MEETING_ENDED);
+
+    private static final List<Notification.NotificationType> END_RELATIVE_TYPES = List.of(
+        Notification.NotificationType.MEETING_ENDING_SOON,
+        Notification.NotificationType.MEETING_ENDED);
+
+    @PostConstruct
+    public void startScheduler() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        timerDispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notify-timer-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timingWheel = new HashedTimingWheel(schedulerTickMillis, schedulerWheelSize);
+        timingWheel.start("notify-timer", ids ->
+            timerDispatchExecutor.execute(() -> notificationDispatcher.dispatchIds(ids)));
+        reminderWheel = new HashedTimingWheel(schedulerTickMillis, schedulerWheelSize);
+        reminderWheel.start("notify-reminder-timer", ids ->
+            timerDispatchExecutor.execute(() -> fireReminders(ids)));
+        notificationMetrics.bindTimingWheel("notifications", timingWheel);
+        notificationMetrics.bindTimingWheel("reminders", reminderWheel);
+    }
+
+    @PreDestroy
+    public void stopScheduler() {
+        timingWheel.stop();
+        reminderWheel.stop();
+        timerDispatchExecutor.shutdown();
+    }
+
+    /**
+     * Applies a meeting event relayed from the outbox. Runs in the relay's transaction, which
+     * also marks the event processed. Reminder times come from the event rather than the meeting
+     * row, which may already reflect later changes whose events are still queued behind this one.
+     */
+    public void handleMeetingEvent(MeetingOutboxEvent event) {
+        Meeting meeting = meetingRepository.findByIdWithParticipants(event.getMeetingId()).orElse(null);
+        if (meeting == null) {
+            return; // Deleted since; nothing left to notify about
+        }
+        boolean cancelled = meeting.getStatus() == Meeting.MeetingStatus.CANCELLED;
 
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("h:mm a");
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("MMM d, yyyy 'at' h:mm a");
+        switch (event.getType()) {
+            case MEETING_CREATED -> {
+                if (!cancelled) {
+                    scheduleMeetingNotifications(meeting, event.getStartTime(), event.getEndTime());
+                }
+            }
+            case MEETING_CANCELLED -> {
+                cancelMeetingNotifications(meeting);
+                sendImmediateMeetingNotification(meeting, Notification.NotificationType.MEETING_CANCELLED, event.getId());
+            }
+            case MEETING_RESCHEDULED -> {
+                rescheduleMeetingNotifications(meeting, event.getPreviousStartTime(), event.getPreviousEndTime(),
+                                               event.getStartTime(), event.getEndTime());
+                if (!cancelled) {
+                    sendImmediateMeetingNotification(meeting, Notification.NotificationType.MEETING_RESCHEDULED, event.getId());
+                }
+            }
+            case PARTICIPANT_JOINED -> {
+                if (!cancelled) {
+                    scheduleParticipantNotifications(meeting, event.getUserId(), event.getStartTime(), event.getEndTime());
+                }
+            }
+            default -> {
+                // Started and ended are only published as webhooks; their reminders were scheduled up front
+            }
+        }
+    }
 
     /**
-     * Schedules all notifications for a meeting when it's created or updated
+     * Schedules all notifications for a meeting starting and ending at the given times
      */
-    public void scheduleMeetingNotifications(Meeting meeting) {
-        if (meeting.getStartTime() == null) {
+    public void scheduleMeetingNotifications(Meeting meeting, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null) {
             return; // Can't schedule notifications without a start time
         }
 
+        Map<Notification.NotificationType, LocalDateTime> schedule = reminderSchedule(startTime, endTime);
+        if (isLazyMaterialization()) {
+            scheduleMeetingReminders(meeting, schedule);
+            return;
+        }
+
+        List<Notification> notifications = new ArrayList<>();
+        Map<Long, Integer> preferenceMasks = preferenceMasks(meeting);
+
         // Schedule notifications for the host
-        scheduleNotificationsForUser(meeting, meeting.getHost());
+        scheduleNotificationsForUser(meeting, meeting.getHost(), preferenceMasks.get(meeting.getHost().getId()),
+                                     schedule, notifications);
 
         // Schedule notifications for all participants
         meeting.getParticipants().forEach(participant -> 
-            scheduleNotificationsForUser(meeting, participant.getUser())
+            scheduleNotificationsForUser(meeting, participant.getUser(), preferenceMasks.get(participant.getUser().getId()),
+                                         schedule, notifications)
         );
+
+        saveScheduledNotifications(notifications);
+    }
+
+    private boolean isLazyMaterialization() {
+        return "lazy".equalsIgnoreCase(materialization);
     }
 
     /**
-     * Schedules notifications for a specific user and meeting
+     * Gets the reminder types of a meeting with the given times and when they fire, leaving out any already in the past
      */
-    private void scheduleNotificationsForUser(Meeting meeting, User user) {
-        NotificationPreference preferences = getOrCreateNotificationPreferences(user);
-        LocalDateTime startTime = meeting.getStartTime();
-        LocalDateTime endTime = meeting.getEndTime();
+    private Map<Notification.NotificationType, LocalDateTime> reminderSchedule(LocalDateTime startTime,
+                                                                             LocalDateTime endTime) {
+        Map<Notification.NotificationType, LocalDateTime> schedule = new EnumMap<>(Notification.NotificationType.class);
+        LocalDateTime now = LocalDateTime.now();
 
-        // Schedule 15-minute reminder
+        // 15-minute reminder
         LocalDateTime reminder15Min = startTime.minusMinutes(15);
-        if (reminder15Min.isAfter(LocalDateTime.now())) {
-            scheduleNotification(meeting, user, Notification.NotificationType.MEETING_REMINDER_15MIN, 
-                               reminder15Min, preferences);
+        if (reminder15Min.isAfter(now)) {
+            schedule.put(Notification.NotificationType.MEETING_REMINDER_15MIN, reminder15Min);
         }
 
-        // Schedule 5-minute reminder
+        // 5-minute reminder
         LocalDateTime reminder5Min = startTime.minusMinutes(5);
-        if (reminder5Min.isAfter(LocalDateTime.now())) {
-            scheduleNotification(meeting, user, Notification.NotificationType.MEETING_REMINDER_5MIN, 
-                               reminder5Min, preferences);
+        if (reminder5Min.isAfter(now)) {
+            schedule.put(Notification.NotificationType.MEETING_REMINDER_5MIN, reminder5Min);
         }
 
-        // Schedule meeting started notification
-        if (startTime.isAfter(LocalDateTime.now())) {
-            scheduleNotification(meeting, user, Notification.NotificationType.MEETING_STARTED, 
-                               startTime, preferences);
+        // Meeting started notification
+        if (startTime.isAfter(now)) {
+            schedule.put(Notification.NotificationType.MEETING_STARTED, startTime);
         }
 
-        // Schedule meeting ending soon notification (5 minutes before end)
         if (endTime != null) {
+            // Meeting ending soon notification (5 minutes before end)
             LocalDateTime endingSoon = endTime.minusMinutes(5);
-            if (endingSoon.isAfter(LocalDateTime.now()) && endingSoon.isAfter(startTime)) {
-                scheduleNotification(meeting, user, Notification.NotificationType.MEETING_ENDING_SOON, 
-                                   endingSoon, preferences);
+            if (endingSoon.isAfter(now) && endingSoon.isAfter(startTime)) {
+                schedule.put(Notification.NotificationType.MEETING_ENDING_SOON, endingSoon);
             }
 
-            // Schedule meeting ended notification
-            if (endTime.isAfter(LocalDateTime.now())) {
-                scheduleNotification(meeting, user, Notification.NotificationType.MEETING_ENDED, 
-                                   endTime, preferences);
+            // Meeting ended notification
+            if (endTime.isAfter(now)) {
+                schedule.put(Notification.NotificationType.MEETING_ENDED, endTime);
             }
         }
+        return schedule;
     }
 
     /**
-     * Schedules a notification for multiple channels based on user preferences
+     * Builds the notifications for a specific user and meeting and adds them to the batch to save
      */
-    private void scheduleNotification(Meeting meeting, User user, Notification.NotificationType type, 
-                                    LocalDateTime scheduledTime, NotificationPreference preferences) {
-        
-        // Schedule email notification if enabled
-        if (preferences.isEnabled(type, Notification.NotificationChannel.EMAIL)) {
-            createNotification(meeting, user, type, Notification.NotificationChannel.EMAIL, scheduledTime);
+    private void scheduleNotificationsForUser(Meeting meeting, User user, int preferenceMask,
+                                            Map<Notification.NotificationType, LocalDateTime> schedule,
+                                            List<Notification> batch) {
+        schedule.forEach((type, scheduledTime) -> {
+            for (Notification.NotificationChannel channel : enabledChannels(preferenceMask, user, type)) {
+                batch.add(buildNotification(meeting, user, type, channel, scheduledTime));
+            }
+        });
+    }
+
+    /**
+     * Stores only the meeting's reminder schedule; recipients and channels are resolved when each reminder fires
+     */
+    private void scheduleMeetingReminders(Meeting meeting, Map<Notification.NotificationType, LocalDateTime> schedule) {
+        schedule.forEach((type, fireTime) -> {
+            MeetingReminder reminder = meetingReminderRepository.save(new MeetingReminder(meeting, type, fireTime));
+            armTimerAfterCommit(reminderWheel, reminder.getId(), meeting.getId(), fireTime);
+        });
+    }
+
+    /**
+     * Gets the channels a user should be notified on for a notification type
+     */
+    private List<Notification.NotificationChannel> enabledChannels(int preferenceMask, User user,
+                                                                 Notification.NotificationType type) {
+        List<Notification.NotificationChannel> channels = new ArrayList<>(4);
+
+        // Email notification if enabled
+        if (NotificationPreference.isEnabled(preferenceMask, type, Notification.NotificationChannel.EMAIL)) {
+            channels.add(Notification.NotificationChannel.EMAIL);
         }
 
-        // Schedule SMS notification if enabled and user has a phone number
-        if (preferences.isEnabled(type, Notification.NotificationChannel.SMS) && 
+        // SMS notification if enabled and user has a phone number
+        if (NotificationPreference.isEnabled(preferenceMask, type, Notification.NotificationChannel.SMS) && 
             user.getPhone() != null && !user.getPhone().trim().isEmpty()) {
-            createNotification(meeting, user, type, Notification.NotificationChannel.SMS, scheduledTime);
+            channels.add(Notification.NotificationChannel.SMS);
+        }
+
+        // Push notification if enabled; sent to every device the user registered
+        if (NotificationPreference.isEnabled(preferenceMask, type, Notification.NotificationChannel.PUSH)) {
+            channels.add(Notification.NotificationChannel.PUSH);
         }
 
-        // Schedule push notification if enabled (for future implementation)
-        if (preferences.isEnabled(type, Notification.NotificationChannel.PUSH)) {
-            createNotification(meeting, user, type, Notification.NotificationChannel.PUSH, scheduledTime);
+        // In-app inbox entry; the inbox is the user's history, so it has no per-type preference
+        if (inboxEnabled) {
+            channels.add(Notification.NotificationChannel.IN_APP);
         }
+        return channels;
     }
 
     /**
-     * Creates and saves a notification entity
+     * Saves scheduled notifications together, so their inserts go out as JDBC batches on flush,
+     * and arms the ones due soon once the transaction commits
      */
-    private void createNotification(Meeting meeting, User user, Notification.NotificationType type, 
-                                  Notification.NotificationChannel channel, LocalDateTime scheduledTime) {
+    private void saveScheduledNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        notificationRepository.saveAll(notifications);
+        for (Notification notification : notifications) {
+            armTimerAfterCommit(timingWheel, notification.getId(), notification.getMeeting().getId(),
+                                notification.getScheduledTime());
+        }
+    }
+
+    /**
+     * Builds a pending notification without saving it
+     */
+    private Notification buildNotification(Meeting meeting, User user, Notification.NotificationType type,
+                                         Notification.NotificationChannel channel, LocalDateTime scheduledTime) {
         Notification notification = new Notification();
         notification.setMeeting(meeting);
         notification.setUser(user);
@@ -131,259 +332,346 @@ public class NotificationService {
         notification.setChannel(channel);
         notification.setScheduledTime(scheduledTime);
         notification.setStatus(Notification.NotificationStatus.PENDING);
-        notification.setMessage(generateNotificationMessage(meeting, type));
-        notification.setTitle(generateNotificationSubject(meeting, type));
-
-        notificationRepository.save(notification);
+        NotificationTemplates.RenderedMessage text = notificationTemplates.render(meeting, type, channel);
+        notification.setMessage(text.getMessage());
+        notification.setTitle(text.getSubject());
+        return notification;
     }
 
     /**
-     * Processes pending notifications that are due to be sent
-     * This method is called every minute by Spring's scheduler
+     * Adds a new timer to a timing wheel once its transaction commits,
+     * if it falls inside the scheduling horizon. Later ones are picked up by a refill.
      */
-    @Scheduled(fixedRate = 60000) // Run every minute
-    public void processPendingNotifications() {
-        List<Notification> pendingNotifications = notificationRepository
-            .findPendingNotificationsToSend(LocalDateTime.now());
+    private void armTimerAfterCommit(HashedTimingWheel wheel, Long id, Long meetingId, LocalDateTime dueTime) {
+        if (dueTime.isAfter(LocalDateTime.now().plusMinutes(schedulerHorizonMinutes))) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            armTimer(wheel, id, meetingId, dueTime);
+            return;
+        }
 
-        for (Notification notification : pendingNotifications) {
-            sendNotification(notification);
+        PendingTimers pendingTimers = (PendingTimers) TransactionSynchronizationManager.getResource(this);
+        if (pendingTimers == null) {
+            pendingTimers = new PendingTimers();
+            TransactionSynchronizationManager.bindResource(this, pendingTimers);
+            TransactionSynchronizationManager.registerSynchronization(pendingTimers);
         }
+        pendingTimers.add(wheel, id, meetingId, dueTime);
+    }
+
+    private void armTimer(HashedTimingWheel wheel, Long id, Long meetingId, LocalDateTime dueTime) {
+        wheel.schedule(id, meetingId, dueTime.atZone(ZoneId.systemDefault()).toInstant());
     }
 
     /**
-     * Sends a notification via the appropriate channel
+     * Timers created in the current transaction, armed on commit
      */
-    @Async
-    public void sendNotification(Notification notification) {
-        try {
-            boolean success = false;
-            
-            switch (notification.getChannel()) {
-                case EMAIL:
-                    success = sendEmailNotification(notification);
-                    break;
-                case SMS:
-                    success = sendSmsNotification(notification);
-                    break;
-                case PUSH:
-                    success = sendPushNotification(notification);
-                    break;
-                case IN_APP:
-                    success = sendPushNotification(notification); // Handle IN_APP same as PUSH for now
-                    break;
-            }
+    private class PendingTimers implements TransactionSynchronization {
+        private final List<Object[]> timers = new ArrayList<>();
 
-            if (success) {
-                notification.setStatus(Notification.NotificationStatus.SENT);
-                notification.setSentTime(LocalDateTime.now());
-            } else {
-                notification.setStatus(Notification.NotificationStatus.FAILED);
-                notification.setErrorMessage("Failed to send notification");
-            }
+        void add(HashedTimingWheel wheel, Long id, Long meetingId, LocalDateTime dueTime) {
+            timers.add(new Object[] { wheel, id, meetingId, dueTime });
+        }
 
-        } catch (Exception e) {
-            notification.setStatus(Notification.NotificationStatus.FAILED);
-            notification.setErrorMessage(e.getMessage());
+        @Override
+        public void afterCommit() {
+            for (Object[] timer : timers) {
+                armTimer((HashedTimingWheel) timer[0], (Long) timer[1], (Long) timer[2], (LocalDateTime) timer[3]);
+            }
         }
 
-        notificationRepository.save(notification);
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(NotificationService.this);
+        }
     }
 
     /**
-     * Sends email notification
+     * Refills the timing wheels with pending notifications and meeting reminders due within the
+     * scheduling horizon. This is the only periodic query for due rows: rows created later are
+     * armed directly, and each one is sent when its timer fires. The first run at startup re-arms
+     * everything still pending after a restart, overdue rows included. Only the shards this
+     * instance holds are loaded, so a cluster splits the work instead of repeating it.
      */
-    private boolean sendEmailNotification(Notification notification) {
-        try {
-            emailService.sendEmail(
-                notification.getUser().getEmail(),
-                notification.getTitle(),
-                notification.getMessage()
-            );
-            return true;
-        } catch (Exception e) {
-            System.err.println("Failed to send email notification: " + e.getMessage());
-            return false;
-        }
+    @Scheduled(fixedDelayString = "${notifications.scheduler.refill-interval-ms:300000}")
+    @Transactional(readOnly = true)
+    public void processPendingNotifications() {
+        List<Integer> shards = notificationShardCoordinator.getOwnedShards();
+        refillShards(shards);
+        refilledShards = shards;
     }
 
     /**
-     * Sends SMS notification
+     * Refills right away for shards this instance has just taken over, e.g. from an instance that
+     * went away, instead of leaving them until the next full refill
      */
-    private boolean sendSmsNotification(Notification notification) {
-        try {
-            String phoneNumber = notification.getUser().getPhone();
-            if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
-                return false;
-            }
-
-            return smsService.sendSms(
-                smsService.formatPhoneNumber(phoneNumber),
-                notification.getMessage()
-            );
-        } catch (Exception e) {
-            System.err.println("Failed to send SMS notification: " + e.getMessage());
-            return false;
+    @Scheduled(fixedDelayString = "${notifications.cluster.heartbeat-ms:10000}")
+    @Transactional(readOnly = true)
+    public void refillNewShards() {
+        List<Integer> shards = notificationShardCoordinator.getOwnedShards();
+        List<Integer> gained = new ArrayList<>(shards);
+        gained.removeAll(refilledShards);
+        if (!gained.isEmpty()) {
+            refillShards(gained);
         }
+        refilledShards = shards;
     }
 
-    /**
-     * Sends push notification (placeholder for future implementation)
-     */
-    private boolean sendPushNotification(Notification notification) {
-        // TODO: Implement push notification logic
-        System.out.println("Push notification would be sent to: " + notification.getUser().getEmail() + 
-                          " - " + notification.getMessage());
-        return true;
+    private void refillShards(List<Integer> shards) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        int shardCount = notificationShardCoordinator.getShardCount();
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> schedule = notificationRepository.findPendingScheduleUntil(
+            now.plusMinutes(schedulerHorizonMinutes), now, shardCount, shards);
+
+        for (Object[] row : schedule) {
+            armTimer(timingWheel, (Long) row[0], (Long) row[1], (LocalDateTime) row[2]);
+        }
+
+        List<Object[]> reminders = meetingReminderRepository.findPendingScheduleUntil(
+            now.plusMinutes(schedulerHorizonMinutes), shardCount, shards);
+        for (Object[] row : reminders) {
+            armTimer(reminderWheel, (Long) row[0], (Long) row[1], (LocalDateTime) row[2]);
+        }
     }
 
     /**
-     * Generates notification message based on type and meeting
+     * Expands fired meeting reminders into per-user, per-channel notifications and sends them
+     * as one wave. Runs on the timer dispatch thread, one transaction per reminder. A reminder is
+     * marked fired before its notifications are saved, so it is delivered at most once: if the
+     * process dies in between, including while smoothed sends are held back, they are not sent.
      */
-    private String generateNotificationMessage(Meeting meeting, Notification.NotificationType type) {
-        String meetingTitle = meeting.getTitle();
-        String meetingTime = meeting.getStartTime().format(TIME_FORMATTER);
-        String meetingDateTime = meeting.getStartTime().format(DATE_TIME_FORMATTER);
-        String meetingId = meeting.getMeetingId();
-
-        switch (type) {
-            case MEETING_REMINDER_15MIN:
-                return String.format("Reminder: '%s' starts in 15 minutes at %s. Meeting ID: %s", 
-                                    meetingTitle, meetingTime, meetingId);
-            case MEETING_REMINDER_5MIN:
-                return String.format("Reminder: '%s' starts in 5 minutes at %s. Meeting ID: %s", 
-                                    meetingTitle, meetingTime, meetingId);
-            case MEETING_STARTED:
-                return String.format("'%s' has started! Join now with Meeting ID: %s", 
-                                    meetingTitle, meetingId);
-            case MEETING_ENDING_SOON:
-                return String.format("'%s' will end in 5 minutes. Please wrap up your discussion.", 
-                                    meetingTitle);
-            case MEETING_ENDED:
-                return String.format("'%s' has ended. Thank you for participating!", meetingTitle);
-            case MEETING_CANCELLED:
-                return String.format("'%s' scheduled for %s has been cancelled.", 
-                                    meetingTitle, meetingDateTime);
-            case MEETING_RESCHEDULED:
-                return String.format("'%s' has been rescheduled to %s. Meeting ID: %s", 
-                                    meetingTitle, meetingDateTime, meetingId);
-            default:
-                return String.format("Meeting update: %s", meetingTitle);
+    private void fireReminders(List<Long> reminderIds) {
+        List<Notification> wave = new ArrayList<>();
+        for (Long reminderId : reminderIds) {
+            try {
+                wave.addAll(transactionTemplate.execute(status -> expandReminder(reminderId)));
+            } catch (Exception e) {
+                logger.error("Failed to fire meeting reminder {}", reminderId, e);
+            }
+        }
+        if (!wave.isEmpty()) {
+            notificationDispatcher.deliverAndRecord(wave);
         }
     }
 
     /**
-     * Generates notification subject for email notifications
+     * Marks a reminder fired and builds its notifications from each recipient's current preferences.
+     * Returns nothing if the reminder was cancelled, moved or already fired.
      */
-    private String generateNotificationSubject(Meeting meeting, Notification.NotificationType type) {
-        String meetingTitle = meeting.getTitle();
-
-        switch (type) {
-            case MEETING_REMINDER_15MIN:
-                return String.format("Meeting Reminder: %s starts in 15 minutes", meetingTitle);
-            case MEETING_REMINDER_5MIN:
-                return String.format("Meeting Reminder: %s starts in 5 minutes", meetingTitle);
-            case MEETING_STARTED:
-                return String.format("Meeting Started: %s", meetingTitle);
-            case MEETING_ENDING_SOON:
-                return String.format("Meeting Ending Soon: %s", meetingTitle);
-            case MEETING_ENDED:
-                return String.format("Meeting Ended: %s", meetingTitle);
-            case MEETING_CANCELLED:
-                return String.format("Meeting Cancelled: %s", meetingTitle);
-            case MEETING_RESCHEDULED:
-                return String.format("Meeting Rescheduled: %s", meetingTitle);
-            default:
-                return String.format("Meeting Update: %s", meetingTitle);
+    private List<Notification> expandReminder(Long reminderId) {
+        MeetingReminder reminder = meetingReminderRepository.findById(reminderId).orElse(null);
+        if (reminder == null || meetingReminderRepository.markFired(reminderId, LocalDateTime.now()) == 0) {
+            return Collections.emptyList();
+        }
+
+        Meeting meeting = meetingRepository.findByIdWithParticipants(reminder.getMeeting().getId()).orElse(null);
+        if (meeting == null || meeting.getStatus() == Meeting.MeetingStatus.CANCELLED) {
+            return Collections.emptyList();
+        }
+
+        // Host first, then participants; a user is notified once even if listed twice
+        Map<Long, User> recipients = new LinkedHashMap<>();
+        recipients.put(meeting.getHost().getId(), meeting.getHost());
+        meeting.getParticipants().forEach(participant ->
+            recipients.putIfAbsent(participant.getUser().getId(), participant.getUser()));
+
+        List<Notification> notifications = new ArrayList<>();
+        Map<Long, Integer> preferenceMasks = notificationPreferenceCache.getMasks(recipients.keySet());
+        for (User user : recipients.values()) {
+            int preferenceMask = preferenceMasks.get(user.getId());
+            for (Notification.NotificationChannel channel : enabledChannels(preferenceMask, user, reminder.getType())) {
+                notifications.add(buildNotification(meeting, user, reminder.getType(), channel, reminder.getFireTime()));
+            }
         }
+        return notifications;
     }
 
     /**
-     * Gets or creates notification preferences for a user
+     * Gets the preference bitmasks of a meeting's host and participants, loading uncached ones in one query
      */
-    private NotificationPreference getOrCreateNotificationPreferences(User user) {
-        return notificationPreferenceRepository.findByUser_Id(user.getId())
-            .orElseGet(() -> {
-                NotificationPreference preferences = new NotificationPreference(user);
-                return notificationPreferenceRepository.save(preferences);
-            });
+    private Map<Long, Integer> preferenceMasks(Meeting meeting) {
+        List<Long> userIds = new ArrayList<>();
+        userIds.add(meeting.getHost().getId());
+        meeting.getParticipants().forEach(participant -> userIds.add(participant.getUser().getId()));
+        return notificationPreferenceCache.getMasks(userIds);
     }
 
     /**
      * Cancels all pending notifications for a meeting
      */
     public void cancelMeetingNotifications(Meeting meeting) {
-        List<Notification> notifications = notificationRepository.findByMeeting(meeting);
-        for (Notification notification : notifications) {
-            if (notification.getStatus() == Notification.NotificationStatus.PENDING) {
-                notification.setStatus(Notification.NotificationStatus.CANCELLED);
-                notificationRepository.save(notification);
-            }
-        }
+        notificationRepository.cancelUnsentNotifications(meeting);
+        timingWheel.cancelMeeting(meeting.getId());
+
+        meetingReminderRepository.cancelPendingReminders(meeting);
+        reminderWheel.cancelMeeting(meeting.getId());
     }
 
     /**
-     * Sends immediate notification for meeting cancellation or rescheduling
+     * Moves a rescheduled meeting's pending notifications instead of cancelling and recreating them.
+     * Start-relative reminders shift by the change in start time and end-relative ones by the change
+     * in end time, all in one UPDATE; only types whose wording shows the start time are reworded, one
+     * UPDATE per type. Types that no longer apply are cancelled along with failed reminders, and types
+     * that newly apply are created, so the result matches scheduling the meeting from scratch.
      */
-    public void sendImmediateMeetingNotification(Meeting meeting, Notification.NotificationType type) {
-        // Send to host
-        sendImmediateNotificationToUser(meeting, meeting.getHost(), type);
+    public void rescheduleMeetingNotifications(Meeting meeting, LocalDateTime previousStartTime,
+                                               LocalDateTime previousEndTime, LocalDateTime startTime,
+                                               LocalDateTime endTime) {
+        if (startTime == null || previousStartTime == null) {
+            cancelMeetingNotifications(meeting);
+            scheduleMeetingNotifications(meeting, startTime, endTime);
+            return;
+        }
 
-        // Send to all participants
-        meeting.getParticipants().forEach(participant -> 
-            sendImmediateNotificationToUser(meeting, participant.getUser(), type)
+        Map<Notification.NotificationType, LocalDateTime> schedule = reminderSchedule(startTime, endTime);
+        timingWheel.cancelMeeting(meeting.getId());
+
+        List<Notification.NotificationType> movedTypes = new ArrayList<>();
+        List<Notification.NotificationType> droppedTypes = new ArrayList<>();
+        for (Notification.NotificationType type : REMINDER_TYPES) {
+            LocalDateTime previousTime = isEndRelative(type) ? previousEndTime : previousStartTime;
+            if (!schedule.containsKey(type) || previousTime == null) {
+                droppedTypes.add(type);
+            } else {
+                movedTypes.add(type);
+            }
+        }
+        notificationRepository.cancelStaleReminders(meeting, REMINDER_TYPES, droppedTypes);
+
+        long startSeconds = Duration.between(previousStartTime, startTime).getSeconds();
+        long endSeconds = previousEndTime != null && endTime != null ? Duration.between(previousEndTime, endTime).getSeconds() : 0;
+        if (!movedTypes.isEmpty() && (startSeconds != 0 || endSeconds != 0)) {
+            notificationRepository.shiftPendingReminders(meeting, movedTypes, END_RELATIVE_TYPES, startSeconds, endSeconds);
+        }
+        if (startSeconds != 0) {
+            for (Notification.NotificationType type : movedTypes) {
+                if (notificationTemplates.mentionsStartTime(type)) {
+                    rewordPendingNotifications(meeting, type);
+                }
+            }
+        }
+
+        // Re-arm the moved rows that now fall inside the scheduling horizon
+        for (Object[] row : notificationRepository.findPendingScheduleForMeeting(
+                meeting, LocalDateTime.now().plusMinutes(schedulerHorizonMinutes))) {
+            armTimerAfterCommit(timingWheel, (Long) row[0], (Long) row[1], (LocalDateTime) row[2]);
+        }
+
+        if (isLazyMaterialization()) {
+            // At most one row per type, so the reminder schedule is simply rebuilt
+            meetingReminderRepository.cancelPendingReminders(meeting);
+            reminderWheel.cancelMeeting(meeting.getId());
+            scheduleMeetingReminders(meeting, schedule);
+            return;
+        }
+
+        // Reminders that had already gone out, had no end time to hang off, or belong to
+        // participants who joined after scheduling are created fresh
+        Map<Long, Set<Notification.NotificationType>> pendingTypesByUser = new HashMap<>();
+        for (Object[] row : notificationRepository.findPendingUserTypes(meeting)) {
+            pendingTypesByUser.computeIfAbsent((Long) row[0], key -> EnumSet.noneOf(Notification.NotificationType.class))
+                .add((Notification.NotificationType) row[1]);
+        }
+        List<Notification> notifications = new ArrayList<>();
+        Map<Long, Integer> preferenceMasks = preferenceMasks(meeting);
+        scheduleMissingNotifications(meeting, meeting.getHost(), preferenceMasks, schedule, pendingTypesByUser, notifications);
+        meeting.getParticipants().forEach(participant ->
+            scheduleMissingNotifications(meeting, participant.getUser(), preferenceMasks, schedule, pendingTypesByUser,
+                                         notifications)
         );
+        saveScheduledNotifications(notifications);
     }
 
     /**
-     * Sends immediate notification to a specific user
+     * Schedules the reminders of a user who joined after the meeting was scheduled. Lazily
+     * materialized reminders resolve their recipients when they fire, so they need nothing here.
      */
-    private void sendImmediateNotificationToUser(Meeting meeting, User user, Notification.NotificationType type) {
-        NotificationPreference preferences = getOrCreateNotificationPreferences(user);
-
-        // Send email notification if enabled
-        if (preferences.isEnabled(type, Notification.NotificationChannel.EMAIL)) {
-            Notification emailNotification = new Notification();
-            emailNotification.setMeeting(meeting);
-            emailNotification.setUser(user);
-            emailNotification.setType(type);
-            emailNotification.setChannel(Notification.NotificationChannel.EMAIL);
-            emailNotification.setScheduledTime(LocalDateTime.now());
-            emailNotification.setStatus(Notification.NotificationStatus.PENDING);
-            emailNotification.setMessage(generateNotificationMessage(meeting, type));
-            emailNotification.setTitle(generateNotificationSubject(meeting, type));
-            
-            notificationRepository.save(emailNotification);
-            sendNotification(emailNotification);
-        }
-
-        // Send SMS notification if enabled and user has phone
-        if (preferences.isEnabled(type, Notification.NotificationChannel.SMS) && 
-            user.getPhone() != null && !user.getPhone().trim().isEmpty()) {
-            Notification smsNotification = new Notification();
-            smsNotification.setMeeting(meeting);
-            smsNotification.setUser(user);
-            smsNotification.setType(type);
-            smsNotification.setChannel(Notification.NotificationChannel.SMS);
-            smsNotification.setScheduledTime(LocalDateTime.now());
-            smsNotification.setStatus(Notification.NotificationStatus.PENDING);
-            smsNotification.setMessage(generateNotificationMessage(meeting, type));
-            smsNotification.setTitle(generateNotificationSubject(meeting, type));
-            
-            notificationRepository.save(smsNotification);
-            sendNotification(smsNotification);
+    private void scheduleParticipantNotifications(Meeting meeting, Long userId, LocalDateTime startTime,
+                                                  LocalDateTime endTime) {
+        if (isLazyMaterialization() || startTime == null) {
+            return;
+        }
+        User user = meeting.getParticipants().stream()
+            .map(participant -> participant.getUser())
+            .filter(participantUser -> participantUser.getId().equals(userId))
+            .findFirst()
+            .orElse(null);
+        if (user == null) {
+            return;
+        }
+
+        // The user may already have been scheduled along with the meeting if it was relayed after the join
+        Map<Long, Set<Notification.NotificationType>> pendingTypesByUser = new HashMap<>();
+        for (Object[] row : notificationRepository.findPendingUserTypes(meeting)) {
+            pendingTypesByUser.computeIfAbsent((Long) row[0], key -> EnumSet.noneOf(Notification.NotificationType.class))
+                .add((Notification.NotificationType) row[1]);
         }
+        List<Notification> notifications = new ArrayList<>();
+        scheduleMissingNotifications(meeting, user, notificationPreferenceCache.getMasks(List.of(userId)),
+                                     reminderSchedule(startTime, endTime), pendingTypesByUser, notifications);
+        saveScheduledNotifications(notifications);
+    }
+
+    private void scheduleMissingNotifications(Meeting meeting, User user, Map<Long, Integer> preferenceMasks,
+                                              Map<Notification.NotificationType, LocalDateTime> schedule,
+                                              Map<Long, Set<Notification.NotificationType>> pendingTypesByUser,
+                                              List<Notification> batch) {
+        Map<Notification.NotificationType, LocalDateTime> missing = new EnumMap<>(Notification.NotificationType.class);
+        missing.putAll(schedule);
+        missing.keySet().removeAll(pendingTypesByUser.getOrDefault(user.getId(), Collections.emptySet()));
+        if (!missing.isEmpty()) {
+            scheduleNotificationsForUser(meeting, user, preferenceMasks.get(user.getId()), missing, batch);
+        }
+    }
+
+    private static boolean isEndRelative(Notification.NotificationType type) {
+        return END_RELATIVE_TYPES.contains(type);
+    }
+
+    private void rewordPendingNotifications(Meeting meeting, Notification.NotificationType type) {
+        NotificationTemplates.RenderedMessage email = notificationTemplates.render(meeting, type, Notification.NotificationChannel.EMAIL);
+        NotificationTemplates.RenderedMessage sms = notificationTemplates.render(meeting, type, Notification.NotificationChannel.SMS);
+        NotificationTemplates.RenderedMessage push = notificationTemplates.render(meeting, type, Notification.NotificationChannel.PUSH);
+        NotificationTemplates.RenderedMessage inApp = notificationTemplates.render(meeting, type, Notification.NotificationChannel.IN_APP);
+        notificationRepository.rewordPendingNotifications(meeting, type, email.getSubject(), email.getMessage(),
+            sms.getSubject(), sms.getMessage(), push.getSubject(), push.getMessage(), inApp.getSubject(), inApp.getMessage());
     }
 
     /**
-     * Retries failed notifications (can be called by a scheduled job)
+     * Sends immediate notification for meeting cancellation or rescheduling. The notifications are
+     * saved as due now and go out through the timing wheel once the transaction commits. They carry
+     * the id of the outbox event announcing the change, which is what deduplicates them.
      */
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
+    public void sendImmediateMeetingNotification(Meeting meeting, Notification.NotificationType type, Long sourceEventId) {
+        Map<Long, Integer> preferenceMasks = preferenceMasks(meeting);
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>();
+
+        // Send to host
+        scheduleNotificationsForUser(meeting, meeting.getHost(), preferenceMasks.get(meeting.getHost().getId()),
+                                     Map.of(type, now), notifications);
+
+        // Send to all participants
+        meeting.getParticipants().forEach(participant ->
+            scheduleNotificationsForUser(meeting, participant.getUser(), preferenceMasks.get(participant.getUser().getId()),
+                                         Map.of(type, now), notifications)
+        );
+
+        notifications.forEach(notification -> notification.setSourceEventId(sourceEventId));
+        saveScheduledNotifications(notifications);
+    }
+
+    /**
+     * Retries failed notifications whose backoff has elapsed.
+     * Only the indexed next-attempt window is scanned; exhausted rows are DEAD_LETTER and never retried.
+     */
+    @Scheduled(fixedRate = 60000) // Run every minute
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void retryFailedNotifications() {
-        List<Notification> failedNotifications = notificationRepository.findFailedNotifications();
-        
-        for (Notification notification : failedNotifications) {
-            sendNotification(notification);
-        }
+        notificationDispatcher.dispatchRetries();
     }
 }
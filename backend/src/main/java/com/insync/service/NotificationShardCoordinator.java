@@ -0,0 +1,123 @@
+package com.insync.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Splits due-notification work across backend instances.
+ *
+ * Notifications belong to shard MOD(user_id, shard-count), and each shard is a lease lock that
+ * exactly one instance holds at a time. Every heartbeat an instance renews its own membership
+ * lease, works out its fair share of shards from the number of live instances, renews the shards
+ * it holds, gives back any above its share and picks up free ones. With the default single shard
+ * this is plain leader election: one instance runs the periodic jobs, and another takes over
+ * within a lease if it goes away.
+ *
+ * Membership rows are named after the process, so every start adds one. An instance deletes its
+ * own row on shutdown, and each heartbeat deletes rows whose lease ran out a full lease ago, left
+ * by instances that died without shutting down.
+ */
+@Service
+public class NotificationShardCoordinator {
+
+    private static final String NODE_LOCK_PREFIX = "node:";
+    private static final String SHARD_LOCK_PREFIX = "notification-shard-";
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Value("${notifications.cluster.shard-count:1}")
+    private int shardCount;
+
+    @Value("${notifications.cluster.lease-seconds:30}")
+    private long leaseSeconds;
+
+    private volatile List<Integer> ownedShards = Collections.emptyList();
+
+    private volatile long liveNodes;
+
+    @PostConstruct
+    public void init() {
+        shardCount = Math.max(1, shardCount);
+        heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Integer shard : ownedShards) {
+            schedulerLockService.unlock(SHARD_LOCK_PREFIX + shard);
+        }
+        schedulerLockService.delete(NODE_LOCK_PREFIX + schedulerLockService.getNodeId());
+        ownedShards = Collections.emptyList();
+    }
+
+    /**
+     * Renews this instance's membership and rebalances the shards it holds
+     */
+    @Scheduled(fixedDelayString = "${notifications.cluster.heartbeat-ms:10000}")
+    public void heartbeat() {
+        try {
+            Duration lease = Duration.ofSeconds(leaseSeconds);
+            schedulerLockService.tryLock(NODE_LOCK_PREFIX + schedulerLockService.getNodeId(), lease);
+            schedulerLockService.deleteExpired(NODE_LOCK_PREFIX, lease);
+            liveNodes = Math.max(1, schedulerLockService.countHeld(NODE_LOCK_PREFIX));
+            int fairShare = (int) ((shardCount + liveNodes - 1) / liveNodes);
+
+            TreeSet<Integer> held = new TreeSet<>();
+            for (Integer shard : ownedShards) {
+                if (schedulerLockService.tryLock(SHARD_LOCK_PREFIX + shard, lease)) {
+                    held.add(shard);
+                }
+            }
+            while (held.size() > fairShare) {
+                schedulerLockService.unlock(SHARD_LOCK_PREFIX + held.pollLast());
+            }
+
+            // Start from a node-specific offset so instances don't all contend for the same free shards
+            int offset = Math.floorMod(schedulerLockService.getNodeId().hashCode(), shardCount);
+            for (int i = 0; i < shardCount && held.size() < fairShare; i++) {
+                int shard = (offset + i) % shardCount;
+                if (!held.contains(shard) && schedulerLockService.tryLock(SHARD_LOCK_PREFIX + shard, lease)) {
+                    held.add(shard);
+                }
+            }
+            ownedShards = Collections.unmodifiableList(new ArrayList<>(held));
+        } catch (Exception e) {
+            // Without a renewed lease our shards may pass to another instance; stop working them
+            ownedShards = Collections.emptyList();
+            System.err.println("Notification shard heartbeat failed: " + e.getMessage());
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Gets the shards this instance currently works; empty means it should skip the periodic jobs
+     */
+    public List<Integer> getOwnedShards() {
+        return ownedShards;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", schedulerLockService.getNodeId());
+        stats.put("liveNodes", liveNodes);
+        stats.put("shardCount", shardCount);
+        stats.put("ownedShards", ownedShards);
+        return stats;
+    }
+}
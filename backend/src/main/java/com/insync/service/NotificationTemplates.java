@@ -0,0 +1,494 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subjects and messages of notifications, rendered from notification-templates.properties.
+ *
+ * Templates are compiled once per locale into {@link MessageTemplate}s for every (type, channel),
+ * along with the digest and morning agenda templates.
+ * Rendered text is memoized per (meeting, type, channel, locale), so a reminder wave to a
+ * meeting's participants renders each message once instead of once per row. The key includes
+ * the meeting's title and start time, so renaming or rescheduling a meeting never serves stale text.
+ *
+ * Files in notifications.templates.location override the bundled wording key by key and are
+ * reloaded when they change. If the default locale's templates no longer compile, the error is
+ * reported and the previous templates are kept; a broken translation falls back to the default.
+ */
+@Service
+public class NotificationTemplates {
+
+    private static final String BASE_NAME = "notification-templates";
+
+    // Directory with notification-templates[_<language>].properties overrides
+    @Value("${notifications.templates.location:#{null}}")
+    private String location;
+
+    @Value("${notifications.templates.locale:en}")
+    private String defaultLocaleTag;
+
+    @Value("${notifications.templates.cache-size:2048}")
+    private int cacheSize;
+
+    private Locale defaultLocale;
+
+    private final Map<Locale, TemplateSet> templateSets = new ConcurrentHashMap<>();
+
+    // Rendered messages, least recently used evicted first
+    private Map<RenderKey, RenderedMessage> rendered;
+
+    private volatile Map<Path, Long> overrideModifiedTimes = Collections.emptyMap();
+
+    // Counters
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private volatile LocalDateTime loadedAt;
+
+    @PostConstruct
+    public void init() {
+        defaultLocale = Locale.forLanguageTag(defaultLocaleTag);
+        rendered = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RenderKey, RenderedMessage> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        // Fail startup on a broken template rather than on the first reminder
+        templateSets.put(defaultLocale, TemplateSet.compile(loadProperties(defaultLocale), defaultLocale));
+        overrideModifiedTimes = overrideModifiedTimes();
+        loadedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Renders a notification in the default locale
+     */
+    public RenderedMessage render(Meeting meeting, Notification.NotificationType type,
+                                  Notification.NotificationChannel channel) {
+        return render(meeting, type, channel, defaultLocale);
+    }
+
+    public RenderedMessage render(Meeting meeting, Notification.NotificationType type,
+                                  Notification.NotificationChannel channel, Locale locale) {
+        RenderKey key = new RenderKey(meeting, type, channel, locale);
+        RenderedMessage message = rendered.get(key);
+        if (message != null) {
+            cacheHits.incrementAndGet();
+            return message;
+        }
+        message = templateSets.computeIfAbsent(locale, this::compileLocale).render(meeting, type, channel);
+        renders.incrementAndGet();
+        rendered.put(key, message);
+        return message;
+    }
+
+    /**
+     * Tells whether any channel's wording of a notification type shows the meeting's start time,
+     * i.e. whether rescheduling the meeting changes the text
+     */
+    public boolean mentionsStartTime(Notification.NotificationType type) {
+        return templateSets.get(defaultLocale).mentionsStartTime(type);
+    }
+
+    /**
+     * Renders an advance reminder sent before it is due, e.g. pulled into a digest, with the
+     * meeting's start time instead of "starts in 5 minutes"
+     */
+    public RenderedMessage renderEarlyReminder(Meeting meeting, Notification.NotificationChannel channel) {
+        return templateSets.get(defaultLocale).renderEarlyReminder(meeting, channel);
+    }
+
+    /**
+     * Renders a digest of several notifications' messages for one channel
+     */
+    public RenderedMessage renderDigest(Notification.NotificationChannel channel, List<String> itemMessages) {
+        return templateSets.get(defaultLocale).renderDigest(channel, itemMessages);
+    }
+
+    /**
+     * Renders one meeting line of a morning agenda
+     */
+    public String renderAgendaMeeting(String title, String meetingId, LocalDateTime startTime) {
+        return templateSets.get(defaultLocale).renderAgendaMeeting(title, meetingId, startTime);
+    }
+
+    /**
+     * Renders one overdue action item line of a morning agenda
+     */
+    public String renderAgendaActionItem(String task, String meetingTitle, LocalDate dueDate) {
+        return templateSets.get(defaultLocale).renderAgendaActionItem(task, meetingTitle, dueDate);
+    }
+
+    /**
+     * Renders a morning agenda from its lines
+     *
+     * @param count the number of meetings on the agenda
+     */
+    public RenderedMessage renderAgenda(LocalDate date, int count, List<String> lines) {
+        return templateSets.get(defaultLocale).renderAgenda(date, count, lines);
+    }
+
+    /**
+     * Recompiles the templates when an override file was added, changed or removed
+     */
+    @Scheduled(fixedDelayString = "${notifications.templates.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        Map<Path, Long> modifiedTimes = overrideModifiedTimes();
+        if (modifiedTimes.equals(overrideModifiedTimes)) {
+            return;
+        }
+        overrideModifiedTimes = modifiedTimes;
+        try {
+            templateSets.put(defaultLocale, TemplateSet.compile(loadProperties(defaultLocale), defaultLocale));
+            // Other locales are compiled again on their next use
+            templateSets.keySet().retainAll(Collections.singleton(defaultLocale));
+            rendered.clear();
+            reloads.incrementAndGet();
+            loadedAt = LocalDateTime.now();
+            System.out.println("Reloaded notification templates from " + location);
+        } catch (RuntimeException e) {
+            System.err.println("Keeping previous notification templates: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets render and cache counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("locales", templateSets.size());
+        stats.put("renders", renders.get());
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("cached", rendered.size());
+        stats.put("reloads", reloads.get());
+        stats.put("loadedAt", loadedAt);
+        return stats;
+    }
+
+    /**
+     * Compiles a locale on first use, falling back to the default locale if its templates are broken
+     */
+    private TemplateSet compileLocale(Locale locale) {
+        try {
+            return TemplateSet.compile(loadProperties(locale), locale);
+        } catch (RuntimeException e) {
+            System.err.println("Using " + defaultLocale + " notification templates for " + locale + ": " + e.getMessage());
+            return templateSets.get(defaultLocale);
+        }
+    }
+
+    /**
+     * Bundled base templates, then their overrides, then the language's bundled templates and overrides
+     */
+    private Properties loadProperties(Locale locale) {
+        Properties properties = new Properties();
+        loadClasspath(properties, BASE_NAME + ".properties", true);
+        loadOverride(properties, BASE_NAME + ".properties");
+        if (!locale.getLanguage().isEmpty()) {
+            String languageFile = BASE_NAME + "_" + locale.getLanguage() + ".properties";
+            loadClasspath(properties, languageFile, false);
+            loadOverride(properties, languageFile);
+        }
+        return properties;
+    }
+
+    private void loadClasspath(Properties properties, String name, boolean required) {
+        try (InputStream in = NotificationTemplates.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                if (required) {
+                    throw new RuntimeException("Missing " + name + " on the classpath");
+                }
+                return;
+            }
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void loadOverride(Properties properties, String name) {
+        if (location == null || location.isBlank()) {
+            return;
+        }
+        Path file = Paths.get(location, name);
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Map<Path, Long> overrideModifiedTimes() {
+        if (location == null || location.isBlank()) {
+            return Collections.emptyMap();
+        }
+        Map<Path, Long> modifiedTimes = new LinkedHashMap<>();
+        try (var files = Files.list(Paths.get(location))) {
+            files.filter(file -> file.getFileName().toString().startsWith(BASE_NAME))
+                .forEach(file -> {
+                    try {
+                        modifiedTimes.put(file, Files.getLastModifiedTime(file).toMillis());
+                    } catch (IOException e) {
+                        // removed while listing; the next check sees it gone
+                    }
+                });
+        } catch (IOException e) {
+            // Directory missing: no overrides
+        }
+        return modifiedTimes;
+    }
+
+    /**
+     * Subject and message of a notification
+     */
+    public static final class RenderedMessage {
+        private final String subject;
+        private final String message;
+
+        RenderedMessage(String subject, String message) {
+            this.subject = subject;
+            this.message = message;
+        }
+
+        public String getSubject() { return subject; }
+        public String getMessage() { return message; }
+    }
+
+    /**
+     * Compiled templates of one locale: meeting notifications indexed by type and channel, digests by channel
+     */
+    private static final class TemplateSet {
+        private final MessageTemplate[][] subjects;
+        private final MessageTemplate[][] messages;
+        private final MessageTemplate[] earlyReminderSubjects;
+        private final MessageTemplate[] earlyReminderMessages;
+        private final MessageTemplate[] digestSubjects;
+        private final MessageTemplate[] digestMessages;
+        private final MessageTemplate digestItem;
+        private final MessageTemplate agendaSubject;
+        private final MessageTemplate agendaMessage;
+        private final MessageTemplate agendaMeeting;
+        private final MessageTemplate agendaActionItem;
+        private final DateTimeFormatter timeFormatter;
+        private final DateTimeFormatter dateTimeFormatter;
+        private final DateTimeFormatter dateFormatter;
+
+        private TemplateSet(Properties properties, Locale locale) {
+            Notification.NotificationType[] types = Notification.NotificationType.values();
+            Notification.NotificationChannel[] channels = Notification.NotificationChannel.values();
+            subjects = new MessageTemplate[types.length][channels.length];
+            messages = new MessageTemplate[types.length][channels.length];
+            earlyReminderSubjects = new MessageTemplate[channels.length];
+            earlyReminderMessages = new MessageTemplate[channels.length];
+            digestSubjects = new MessageTemplate[channels.length];
+            digestMessages = new MessageTemplate[channels.length];
+            for (Notification.NotificationChannel channel : channels) {
+                for (Notification.NotificationType type : types) {
+                    subjects[type.ordinal()][channel.ordinal()] = template(properties, type.name().toLowerCase(), channel, "subject");
+                    messages[type.ordinal()][channel.ordinal()] = template(properties, type.name().toLowerCase(), channel, "message");
+                }
+                earlyReminderSubjects[channel.ordinal()] = template(properties, "early_reminder", channel, "subject");
+                earlyReminderMessages[channel.ordinal()] = template(properties, "early_reminder", channel, "message");
+                digestSubjects[channel.ordinal()] = template(properties, "digest", channel, "subject");
+                digestMessages[channel.ordinal()] = template(properties, "digest", channel, "message");
+            }
+            digestItem = template(properties, "digest.item");
+            agendaSubject = template(properties, "agenda.subject");
+            agendaMessage = template(properties, "agenda.message");
+            agendaMeeting = template(properties, "agenda.meeting");
+            agendaActionItem = template(properties, "agenda.actionItem");
+            timeFormatter = DateTimeFormatter.ofPattern(required(properties, "format.time"), locale);
+            dateTimeFormatter = DateTimeFormatter.ofPattern(required(properties, "format.dateTime"), locale);
+            dateFormatter = DateTimeFormatter.ofPattern(required(properties, "format.date"), locale);
+        }
+
+        static TemplateSet compile(Properties properties, Locale locale) {
+            return new TemplateSet(properties, locale);
+        }
+
+        /**
+         * Compiles <prefix>.<channel>.<part>, or <prefix>.<part> if the channel has no wording of its own
+         */
+        private static MessageTemplate template(Properties properties, String prefix,
+                                                Notification.NotificationChannel channel, String part) {
+            String key = prefix + "." + channel.name().toLowerCase() + "." + part;
+            return template(properties, properties.containsKey(key) ? key : prefix + "." + part);
+        }
+
+        private static MessageTemplate template(Properties properties, String key) {
+            try {
+                return MessageTemplate.compile(required(properties, key));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid notification template " + key + ": " + e.getMessage());
+            }
+        }
+
+        private static String required(Properties properties, String key) {
+            String value = properties.getProperty(key);
+            if (value == null) {
+                throw new RuntimeException("Missing notification template " + key);
+            }
+            return value;
+        }
+
+        private static String[] emptyValues() {
+            String[] values = new String[MessageTemplate.Field.values().length];
+            Arrays.fill(values, "");
+            return values;
+        }
+
+        RenderedMessage render(Meeting meeting, Notification.NotificationType type, Notification.NotificationChannel channel) {
+            return render(meeting, subjects[type.ordinal()][channel.ordinal()], messages[type.ordinal()][channel.ordinal()]);
+        }
+
+        boolean mentionsStartTime(Notification.NotificationType type) {
+            for (Notification.NotificationChannel channel : Notification.NotificationChannel.values()) {
+                for (MessageTemplate template : List.of(subjects[type.ordinal()][channel.ordinal()],
+                                                        messages[type.ordinal()][channel.ordinal()])) {
+                    if (template.uses(MessageTemplate.Field.TIME) || template.uses(MessageTemplate.Field.DATE_TIME)
+                            || template.uses(MessageTemplate.Field.DATE)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        RenderedMessage renderEarlyReminder(Meeting meeting, Notification.NotificationChannel channel) {
+            return render(meeting, earlyReminderSubjects[channel.ordinal()], earlyReminderMessages[channel.ordinal()]);
+        }
+
+        private RenderedMessage render(Meeting meeting, MessageTemplate subject, MessageTemplate message) {
+            String[] values = emptyValues();
+            values[MessageTemplate.Field.TITLE.ordinal()] = Objects.toString(meeting.getTitle(), "");
+            values[MessageTemplate.Field.MEETING_ID.ordinal()] = Objects.toString(meeting.getMeetingId(), "");
+            // Times are only formatted for templates that show them
+            LocalDateTime start = meeting.getStartTime();
+            if (start != null) {
+                if (subject.uses(MessageTemplate.Field.TIME) || message.uses(MessageTemplate.Field.TIME)) {
+                    values[MessageTemplate.Field.TIME.ordinal()] = start.format(timeFormatter);
+                }
+                if (subject.uses(MessageTemplate.Field.DATE_TIME) || message.uses(MessageTemplate.Field.DATE_TIME)) {
+                    values[MessageTemplate.Field.DATE_TIME.ordinal()] = start.format(dateTimeFormatter);
+                }
+                if (subject.uses(MessageTemplate.Field.DATE) || message.uses(MessageTemplate.Field.DATE)) {
+                    values[MessageTemplate.Field.DATE.ordinal()] = start.format(dateFormatter);
+                }
+            }
+            return new RenderedMessage(subject.render(values), message.render(values));
+        }
+
+        RenderedMessage renderDigest(Notification.NotificationChannel channel, List<String> itemMessages) {
+            String[] values = emptyValues();
+            StringBuilder items = new StringBuilder();
+            for (String itemMessage : itemMessages) {
+                values[MessageTemplate.Field.MESSAGE.ordinal()] = itemMessage;
+                if (items.length() > 0) {
+                    items.append('\n');
+                }
+                items.append(digestItem.render(values));
+            }
+            values[MessageTemplate.Field.MESSAGE.ordinal()] = "";
+            values[MessageTemplate.Field.COUNT.ordinal()] = String.valueOf(itemMessages.size());
+            values[MessageTemplate.Field.ITEMS.ordinal()] = items.toString();
+            return new RenderedMessage(digestSubjects[channel.ordinal()].render(values),
+                                       digestMessages[channel.ordinal()].render(values));
+        }
+
+        String renderAgendaMeeting(String title, String meetingId, LocalDateTime startTime) {
+            String[] values = emptyValues();
+            values[MessageTemplate.Field.TITLE.ordinal()] = Objects.toString(title, "");
+            values[MessageTemplate.Field.MEETING_ID.ordinal()] = Objects.toString(meetingId, "");
+            values[MessageTemplate.Field.TIME.ordinal()] = startTime.format(timeFormatter);
+            return agendaMeeting.render(values);
+        }
+
+        String renderAgendaActionItem(String task, String meetingTitle, LocalDate dueDate) {
+            String[] values = emptyValues();
+            values[MessageTemplate.Field.TASK.ordinal()] = Objects.toString(task, "");
+            values[MessageTemplate.Field.TITLE.ordinal()] = Objects.toString(meetingTitle, "");
+            values[MessageTemplate.Field.DATE.ordinal()] = dueDate != null ? dueDate.format(dateFormatter) : "";
+            return agendaActionItem.render(values);
+        }
+
+        RenderedMessage renderAgenda(LocalDate date, int count, List<String> lines) {
+            String[] values = emptyValues();
+            values[MessageTemplate.Field.DATE.ordinal()] = date.format(dateFormatter);
+            values[MessageTemplate.Field.COUNT.ordinal()] = String.valueOf(count);
+            values[MessageTemplate.Field.ITEMS.ordinal()] = String.join("\n", lines);
+            return new RenderedMessage(agendaSubject.render(values), agendaMessage.render(values));
+        }
+    }
+
+    /**
+     * Identifies a rendering by everything that goes into it
+     */
+    private static final class RenderKey {
+        private final Long meetingId;
+        private final String title;
+        private final String joinCode;
+        private final LocalDateTime startTime;
+        private final Notification.NotificationType type;
+        private final Notification.NotificationChannel channel;
+        private final Locale locale;
+
+        RenderKey(Meeting meeting, Notification.NotificationType type, Notification.NotificationChannel channel, Locale locale) {
+            this.meetingId = meeting.getId();
+            this.title = meeting.getTitle();
+            this.joinCode = meeting.getMeetingId();
+            this.startTime = meeting.getStartTime();
+            this.type = type;
+            this.channel = channel;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof RenderKey)) {
+                return false;
+            }
+            RenderKey key = (RenderKey) other;
+            return Objects.equals(meetingId, key.meetingId) && Objects.equals(title, key.title) &&
+                   Objects.equals(joinCode, key.joinCode) && Objects.equals(startTime, key.startTime) &&
+                   type == key.type && channel == key.channel && locale.equals(key.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(meetingId, title, joinCode, startTime, type, channel, locale);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.insync.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client for an FCM/APNs-style multicast push gateway.
+ *
+ * One HttpClient is shared by all requests, so batches are multiplexed over a persistent
+ * HTTP/2 connection where the gateway supports it (and fall back to pooled HTTP/1.1 otherwise).
+ * A request carries one payload for up to a batch of tokens; the response reports a status
+ * per token, in request order:
+ *
+ *   POST {url}  {"tokens": [...], "notification": {"title": ..., "body": ...}, "data": {...}}
+ *   200         {"results": [{"status": "OK" | "UNREGISTERED" | "INVALID_ARGUMENT" | ...}, ...]}
+ *
+ * A request that fails to connect or is answered with a 5xx is sent again after a doubling delay,
+ * up to max-attempts in total; the gateway has then delivered to none of the batch's tokens.
+ */
+public class PushGatewayClient {
+
+    /**
+     * Outcome for one token
+     */
+    public enum Result {
+        OK,
+        INVALID_TOKEN, // The gateway will never deliver to this token again
+        FAILED
+    }
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final String apiKey;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Executor executor;
+
+    public PushGatewayClient(URI uri, String apiKey, Duration connectTimeout, Duration requestTimeout,
+                             int maxAttempts, Duration retryDelay, ObjectMapper objectMapper, Executor executor) {
+        this.uri = uri;
+        this.apiKey = apiKey;
+        this.requestTimeout = requestTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(connectTimeout)
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * Sends one payload to a batch of tokens
+     *
+     * @return a result per token, in the order given; every token FAILED if the request itself failed
+     */
+    public CompletableFuture<List<Result>> sendMulticast(List<String> tokens, String title, String body, Map<String, String> data) {
+        HttpRequest request;
+        try {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("tokens", tokens);
+            payload.put("notification", Map.of("title", title, "body", body));
+            payload.put("data", data);
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload)));
+            if (apiKey != null && !apiKey.isBlank()) {
+                builder.header("Authorization", "Bearer " + apiKey);
+            }
+            request = builder.build();
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(Collections.nCopies(tokens.size(), Result.FAILED));
+        }
+
+        return send(request, tokens.size(), 1);
+    }
+
+    private CompletableFuture<List<Result>> send(HttpRequest request, int tokenCount, int attempt) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .handle((response, error) -> {
+                boolean retryable = error != null || response.statusCode() >= 500;
+                if (retryable && attempt < maxAttempts) {
+                    long delayMillis = retryDelay.toMillis() << (attempt - 1);
+                    Executor delayed = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor);
+                    return CompletableFuture.supplyAsync(() -> attempt + 1, delayed)
+                        .thenCompose(next -> send(request, tokenCount, next));
+                }
+                if (error != null) {
+                    System.err.println("Push gateway request failed: " + error.getMessage());
+                    return CompletableFuture.completedFuture(Collections.nCopies(tokenCount, Result.FAILED));
+                }
+                if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                    System.err.println("Push gateway responded with status " + response.statusCode());
+                    return CompletableFuture.completedFuture(Collections.nCopies(tokenCount, Result.FAILED));
+                }
+                return CompletableFuture.completedFuture(parseResults(response.body(), tokenCount));
+            })
+            .thenCompose(result -> result);
+    }
+
+    private List<Result> parseResults(byte[] body, int tokenCount) {
+        List<Result> results = new ArrayList<>(tokenCount);
+        try {
+            JsonNode entries = objectMapper.readTree(body).path("results");
+            for (int i = 0; i < tokenCount; i++) {
+                String status = entries.path(i).path("status").asText("");
+                if ("OK".equals(status)) {
+                    results.add(Result.OK);
+                } else if ("UNREGISTERED".equals(status) || "INVALID_ARGUMENT".equals(status)) {
+                    results.add(Result.INVALID_TOKEN);
+                } else {
+                    results.add(Result.FAILED);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Unreadable push gateway response: " + e.getMessage());
+            return Collections.nCopies(tokenCount, Result.FAILED);
+        }
+        return results;
+    }
+}
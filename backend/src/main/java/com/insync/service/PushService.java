@@ -0,0 +1,392 @@
+package com.insync.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insync.entity.DeviceToken;
+import com.insync.entity.Notification;
+import com.insync.repository.DeviceTokenRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends push notifications to every registered device of a user through a multicast gateway.
+ *
+ * Messages are queued and gathered by one batcher thread within a short window. The batcher
+ * looks up the devices of the whole batch in one query, groups messages with the same payload
+ * (a meeting wave sends the same text to everyone) and sends each group as multicast requests
+ * of up to batch-size tokens, several in flight at once over the gateway client's shared
+ * connection. Tokens the gateway reports as unregistered are deleted.
+ */
+@Service
+public class PushService {
+
+    @Value("${push.gateway.url:#{null}}")
+    private String gatewayUrl;
+
+    @Value("${push.gateway.api-key:#{null}}")
+    private String apiKey;
+
+    @Value("${push.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${push.client.request-timeout-ms:10000}")
+    private long requestTimeoutMs;
+
+    @Value("${push.client.batch-size:500}")
+    private int batchSize;
+
+    @Value("${push.client.batch-window-ms:20}")
+    private long batchWindowMs;
+
+    @Value("${push.client.max-messages-per-round:5000}")
+    private int maxMessagesPerRound;
+
+    @Value("${push.client.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${push.client.queue-capacity:20000}")
+    private int queueCapacity;
+
+    @Value("${push.client.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${push.client.retry-delay-ms:500}")
+    private long retryDelayMs;
+
+    @Value("${push.client.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Value("${push.max-devices-per-user:10}")
+    private int maxDevicesPerUser;
+
+    @Autowired
+    private DeviceTokenRepository deviceTokenRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private PushGatewayClient gatewayClient;
+
+    private BlockingQueue<PendingPush> queue;
+
+    private Semaphore inFlight;
+
+    private Thread batcher;
+
+    private volatile boolean running;
+
+    // Counters
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong messagesFailed = new AtomicLong();
+    private final AtomicLong messagesWithoutDevices = new AtomicLong();
+    private final AtomicLong tokensSent = new AtomicLong();
+    private final AtomicLong tokensPruned = new AtomicLong();
+    private final AtomicLong totalRequestMillis = new AtomicLong();
+    private volatile int lastRequestSize;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        if (gatewayUrl == null || gatewayUrl.isBlank()) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        gatewayClient = new PushGatewayClient(URI.create(gatewayUrl), apiKey,
+            Duration.ofMillis(connectTimeoutMs), Duration.ofMillis(requestTimeoutMs),
+            maxAttempts, Duration.ofMillis(retryDelayMs), objectMapper,
+            Executors.newFixedThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "push-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        inFlight = new Semaphore(maxInFlight);
+        running = true;
+        batcher = new Thread(this::runBatcher, "push-batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (batcher != null) {
+            batcher.interrupt();
+        }
+    }
+
+    /**
+     * Pushes a notification to all of its user's devices, waiting until the gateway has answered
+     *
+     * @return true if at least one device accepted it or the user has no devices left
+     */
+    public boolean sendPush(Notification notification) {
+        try {
+            return sendPushAsync(notification).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted sending push to user " + notification.getUser().getId());
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Failed to send push: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Queues a notification for the next multicast round without blocking. The future completes
+     * like {@link #sendPush}, or exceptionally if the queue is full or the send timeout passes.
+     */
+    public CompletableFuture<Boolean> sendPushAsync(Notification notification) {
+        if (gatewayClient == null) {
+            System.out.println("Push gateway not configured. Would send push to user " + notification.getUser().getId() +
+                               ": " + notification.getMessage());
+            return CompletableFuture.completedFuture(true);
+        }
+
+        PendingPush push = new PendingPush(notification);
+        if (!queue.offer(push)) {
+            return CompletableFuture.failedFuture(new RuntimeException("Push queue is full"));
+        }
+        return push.result.orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a device token for a user, moving it from another user if needed.
+     * The user's least recently seen devices beyond the per-user limit are removed.
+     */
+    public DeviceToken registerToken(Long userId, String token, DeviceToken.Platform platform) {
+        try {
+            return transactionTemplate.execute(status -> upsertToken(userId, token, platform));
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently from another request; update the row that won
+            return transactionTemplate.execute(status -> upsertToken(userId, token, platform));
+        }
+    }
+
+    public boolean unregisterToken(Long userId, String token) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status ->
+            deviceTokenRepository.deleteByTokenAndUserId(token, userId) > 0));
+    }
+
+    public List<DeviceToken> getTokens(Long userId) {
+        return deviceTokenRepository.findByUserIdOrderByLastSeenAtDesc(userId);
+    }
+
+    private DeviceToken upsertToken(Long userId, String token, DeviceToken.Platform platform) {
+        LocalDateTime now = LocalDateTime.now();
+        DeviceToken deviceToken = deviceTokenRepository.findByToken(token).orElse(null);
+        if (deviceToken == null) {
+            deviceToken = new DeviceToken(userId, token, platform, now);
+        } else {
+            deviceToken.setUserId(userId);
+            deviceToken.setPlatform(platform);
+            deviceToken.setLastSeenAt(now);
+        }
+        DeviceToken saved = deviceTokenRepository.saveAndFlush(deviceToken);
+
+        List<DeviceToken> devices = deviceTokenRepository.findByUserIdOrderByLastSeenAtDesc(userId);
+        if (devices.size() > maxDevicesPerUser) {
+            deviceTokenRepository.deleteAll(devices.subList(maxDevicesPerUser, devices.size()));
+        }
+        return saved;
+    }
+
+    private void runBatcher() {
+        List<PendingPush> round = new ArrayList<>();
+        while (running) {
+            try {
+                round.add(queue.take());
+                long windowEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+                while (round.size() < maxMessagesPerRound) {
+                    PendingPush next = queue.poll(windowEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    round.add(next);
+                }
+                sendRound(round);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    round.forEach(push -> push.result.completeExceptionally(new RuntimeException("Push service stopped")));
+                    break;
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to send push batch: " + e.getMessage());
+                round.forEach(push -> push.result.completeExceptionally(e));
+            } finally {
+                round.clear();
+            }
+        }
+    }
+
+    /**
+     * Resolves the devices of a round of messages and sends them as multicast requests per payload
+     */
+    private void sendRound(List<PendingPush> round) throws InterruptedException {
+        Set<Long> userIds = new HashSet<>();
+        round.forEach(push -> userIds.add(push.userId));
+        Map<Long, List<String>> tokensByUser = new HashMap<>();
+        for (Object[] row : deviceTokenRepository.findTokensByUserIds(userIds)) {
+            tokensByUser.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        // Same meeting, type and text -> one multicast group
+        Map<String, List<Target>> groups = new LinkedHashMap<>();
+        for (PendingPush push : round) {
+            List<String> tokens = tokensByUser.get(push.userId);
+            if (tokens == null) {
+                messagesWithoutDevices.incrementAndGet();
+                push.result.complete(true);
+                continue;
+            }
+            push.remainingTokens.set(tokens.size());
+            List<Target> group = groups.computeIfAbsent(
+                push.meetingId + "\u0000" + push.type + "\u0000" + push.title + "\u0000" + push.body, key -> new ArrayList<>());
+            tokens.forEach(token -> group.add(new Target(push, token)));
+        }
+
+        for (List<Target> group : groups.values()) {
+            for (int from = 0; from < group.size(); from += batchSize) {
+                List<Target> batch = group.subList(from, Math.min(group.size(), from + batchSize));
+                inFlight.acquire();
+                sendBatch(batch);
+            }
+        }
+    }
+
+    private void sendBatch(List<Target> batch) {
+        PendingPush first = batch.get(0).push;
+        List<String> tokens = batch.stream().map(target -> target.token).toList();
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("meetingId", String.valueOf(first.meetingId));
+        data.put("type", first.type);
+
+        long startNanos = System.nanoTime();
+        gatewayClient.sendMulticast(tokens, first.title, first.body, data)
+            .whenComplete((results, error) -> {
+                inFlight.release();
+                requests.incrementAndGet();
+                lastRequestSize = batch.size();
+                totalRequestMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+                List<String> invalid = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    Target target = batch.get(i);
+                    PushGatewayClient.Result result = error == null ? results.get(i) : PushGatewayClient.Result.FAILED;
+                    if (result == PushGatewayClient.Result.OK) {
+                        tokensSent.incrementAndGet();
+                        target.push.delivered = true;
+                    } else if (result == PushGatewayClient.Result.INVALID_TOKEN) {
+                        invalid.add(target.token);
+                    } else {
+                        target.push.failed = true;
+                    }
+                    target.push.tokenDone();
+                }
+                if (!invalid.isEmpty()) {
+                    pruneTokens(invalid);
+                }
+            });
+    }
+
+    private void pruneTokens(List<String> tokens) {
+        try {
+            int removed = transactionTemplate.execute(status -> deviceTokenRepository.deleteByTokens(tokens));
+            tokensPruned.addAndGet(removed);
+        } catch (Exception e) {
+            System.err.println("Failed to prune push tokens: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets batching and gateway counters
+     */
+    public Map<String, Object> getStats() {
+        long requestCount = requests.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("configured", gatewayClient != null);
+        stats.put("requests", requestCount);
+        stats.put("messagesSent", messagesSent.get());
+        stats.put("messagesFailed", messagesFailed.get());
+        stats.put("messagesWithoutDevices", messagesWithoutDevices.get());
+        stats.put("tokensSent", tokensSent.get());
+        stats.put("tokensPruned", tokensPruned.get());
+        stats.put("queued", queue != null ? queue.size() : 0);
+        stats.put("inFlight", inFlight != null ? maxInFlight - inFlight.availablePermits() : 0);
+        stats.put("lastRequestSize", lastRequestSize);
+        stats.put("averageRequestMillis", requestCount > 0 ? totalRequestMillis.get() / requestCount : 0);
+        return stats;
+    }
+
+    private class PendingPush {
+        private final Long userId;
+        private final Long meetingId;
+        private final String type;
+        private final String title;
+        private final String body;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private final AtomicInteger remainingTokens = new AtomicInteger();
+        private volatile boolean delivered;
+        private volatile boolean failed;
+
+        PendingPush(Notification notification) {
+            this.userId = notification.getUser().getId();
+            this.meetingId = notification.getMeeting() != null ? notification.getMeeting().getId() : null;
+            this.type = notification.getType().name();
+            this.title = notification.getTitle();
+            this.body = notification.getMessage();
+        }
+
+        /**
+         * Completes the message once every one of its tokens has an outcome: sent if any device took it,
+         * or if no device failed (all of its tokens were invalid and are gone now)
+         */
+        void tokenDone() {
+            if (remainingTokens.decrementAndGet() == 0) {
+                boolean success = delivered || !failed;
+                (success ? messagesSent : messagesFailed).incrementAndGet();
+                result.complete(success);
+            }
+        }
+    }
+
+    private static class Target {
+        private final PendingPush push;
+        private final String token;
+
+        Target(PendingPush push, String token) {
+            this.push = push;
+            this.token = token;
+        }
+    }
+}
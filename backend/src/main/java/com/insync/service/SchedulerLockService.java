@@ -0,0 +1,135 @@
+package com.insync.service;
+
+import com.insync.entity.SchedulerLock;
+import com.insync.repository.SchedulerLockRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lease-based locks on the scheduler_locks table, shared by all backend instances through the datasource.
+ *
+ * A lock is a row holding its owner and an expiry; taking it over is a single conditional UPDATE,
+ * so only one instance wins, and a crashed owner's lock frees itself when its lease runs out.
+ * Plain JPQL only, so it works the same on H2 and Postgres.
+ */
+@Service
+public class SchedulerLockService {
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.cluster.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+            ? configuredNodeId
+            : ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        // Lock changes commit on their own, independent of any caller transaction
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Gets the id this instance holds locks under
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Acquires or renews a lock for the given lease
+     *
+     * @return false if another instance holds an unexpired lease on it
+     */
+    public boolean tryLock(String name, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockedUntil = now.plus(lease);
+        Boolean acquired = transactionTemplate.execute(status ->
+            schedulerLockRepository.acquire(name, nodeId, now, lockedUntil) > 0);
+        if (Boolean.TRUE.equals(acquired)) {
+            return true;
+        }
+
+        // First use of this lock name: create the row, racing other instances for it
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (schedulerLockRepository.existsById(name)) {
+                    return false;
+                }
+                schedulerLockRepository.saveAndFlush(new SchedulerLock(name, nodeId, lockedUntil, now));
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            return false; // Another instance created it first
+        }
+    }
+
+    /**
+     * Releases a lock if this instance holds it
+     */
+    public void unlock(String name) {
+        transactionTemplate.executeWithoutResult(status ->
+            schedulerLockRepository.release(name, nodeId, LocalDateTime.now()));
+    }
+
+    /**
+     * Deletes a lock row this instance holds, for names that are not reused after it lets go
+     */
+    public void delete(String name) {
+        transactionTemplate.executeWithoutResult(status -> schedulerLockRepository.deleteHeld(name, nodeId));
+    }
+
+    /**
+     * Deletes the rows of locks with the given prefix whose lease ran out at least the given time ago
+     *
+     * @return the number of rows deleted
+     */
+    public int deleteExpired(String prefix, Duration expiredFor) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(expiredFor);
+        return transactionTemplate.execute(status -> schedulerLockRepository.deleteExpired(prefix, cutoff));
+    }
+
+    /**
+     * Runs a task only if this instance gets the lock, so at most one instance runs it per lease
+     *
+     * @return false if the task was skipped because another instance holds the lock
+     */
+    public boolean runExclusively(String name, Duration lease, Runnable task) {
+        if (!tryLock(name, lease)) {
+            return false;
+        }
+        try {
+            task.run();
+        } finally {
+            unlock(name);
+        }
+        return true;
+    }
+
+    /**
+     * Counts unexpired locks whose name starts with the given prefix
+     */
+    public long countHeld(String prefix) {
+        return transactionTemplate.execute(status -> schedulerLockRepository.countHeld(prefix, LocalDateTime.now()));
+    }
+}
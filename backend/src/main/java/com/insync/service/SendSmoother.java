@@ -0,0 +1,124 @@
+package com.insync.service;
+
+import com.insync.entity.Notification;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Spreads notification waves over time so they fit each channel's send capacity.
+ *
+ * Every notification type has a tolerance: how long after its scheduled time it may still go out.
+ * Notifications are taken in deadline order (scheduled time plus tolerance) and each is given the
+ * earliest one-second slot from its scheduled time on that still has capacity on its channel. A
+ * notification that finds no free slot before its deadline is put in the deadline slot anyway, so
+ * no send is ever pushed past its tolerance. Slot usage is kept across waves.
+ */
+public class SendSmoother {
+
+    private final Map<Notification.NotificationChannel, Integer> capacityPerSecond;
+    private final Map<Notification.NotificationType, Duration> tolerances;
+    private final Map<Notification.NotificationChannel, TreeMap<Long, Integer>> usedSlots =
+        new EnumMap<>(Notification.NotificationChannel.class);
+
+    public SendSmoother(Map<Notification.NotificationChannel, Integer> capacityPerSecond,
+                        Map<Notification.NotificationType, Duration> tolerances) {
+        this.capacityPerSecond = capacityPerSecond;
+        this.tolerances = tolerances;
+        for (Notification.NotificationChannel channel : Notification.NotificationChannel.values()) {
+            usedSlots.put(channel, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Assigns each notification a send second
+     *
+     * @param nowMillis current time, the earliest possible slot
+     */
+    public synchronized Plan plan(List<Notification> notifications, long nowMillis) {
+        long nowSecond = nowMillis / 1000;
+        usedSlots.values().forEach(slots -> slots.headMap(nowSecond).clear());
+
+        List<Notification> byDeadline = new ArrayList<>(notifications);
+        byDeadline.sort(Comparator.comparingLong(this::deadlineSecond));
+
+        Plan plan = new Plan(nowSecond);
+        Map<Long, Integer> dueCounts = new HashMap<>();
+        Map<Long, Integer> slotCounts = new HashMap<>();
+        for (Notification notification : byDeadline) {
+            long dueSecond = Math.max(nowSecond, epochSecond(notification));
+            long deadline = Math.max(dueSecond, deadlineSecond(notification));
+            int capacity = Math.max(1, capacityPerSecond.getOrDefault(notification.getChannel(), Integer.MAX_VALUE));
+            TreeMap<Long, Integer> slots = usedSlots.get(notification.getChannel());
+
+            long slot = dueSecond;
+            while (slot < deadline && slots.getOrDefault(slot, 0) >= capacity) {
+                slot++;
+            }
+            slots.merge(slot, 1, Integer::sum);
+            plan.bySecond.computeIfAbsent(slot, key -> new ArrayList<>()).add(notification);
+
+            dueCounts.merge(dueSecond, 1, Integer::sum);
+            slotCounts.merge(slot, 1, Integer::sum);
+        }
+        plan.peakPerSecond = dueCounts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        plan.smoothedPeakPerSecond = slotCounts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        return plan;
+    }
+
+    /**
+     * Gets the longest tolerance of any type, i.e. how long a planned send may be held back
+     */
+    public Duration maxTolerance() {
+        return tolerances.values().stream().max(Comparator.naturalOrder()).orElse(Duration.ZERO);
+    }
+
+    private long deadlineSecond(Notification notification) {
+        return epochSecond(notification) + tolerances.getOrDefault(notification.getType(), Duration.ZERO).getSeconds();
+    }
+
+    private static long epochSecond(Notification notification) {
+        return notification.getScheduledTime().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    /**
+     * Notifications grouped by the second they should be sent in
+     */
+    public static class Plan {
+        private final long nowSecond;
+        private final TreeMap<Long, List<Notification>> bySecond = new TreeMap<>();
+        private int peakPerSecond;
+        private int smoothedPeakPerSecond;
+
+        Plan(long nowSecond) {
+            this.nowSecond = nowSecond;
+        }
+
+        public TreeMap<Long, List<Notification>> getBySecond() { return bySecond; }
+
+        /**
+         * Gets how many seconds from now a slot starts
+         */
+        public long delaySeconds(long slotSecond) { return Math.max(0, slotSecond - nowSecond); }
+
+        // Most notifications due in the same second, before smoothing
+        public int getPeakPerSecond() { return peakPerSecond; }
+
+        // Most notifications planned into the same second
+        public int getSmoothedPeakPerSecond() { return smoothedPeakPerSecond; }
+
+        public long getSpreadSeconds() { return bySecond.isEmpty() ? 0 : bySecond.lastKey() - nowSecond; }
+
+        // Notifications planned after the current second
+        public int getDeferredCount() {
+            return bySecond.tailMap(nowSecond, false).values().stream().mapToInt(List::size).sum();
+        }
+    }
+}
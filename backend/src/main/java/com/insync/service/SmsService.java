@@ -1,15 +1,27 @@
 package com.insync.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class SmsService {
@@ -22,11 +34,67 @@ public class SmsService {
     
     @Value("${sms.provider.from.number:#{null}}")
     private String fromNumber;
-    
-    private final RestTemplate restTemplate;
-    
-    public SmsService() {
-        this.restTemplate = new RestTemplate();
+
+    @Value("${sms.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${sms.client.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    @Value("${sms.client.max-in-flight:20}")
+    private int maxInFlight;
+
+    @Value("${sms.client.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    @Value("${sms.client.rate-per-second:10}")
+    private double ratePerSecond;
+
+    @Value("${sms.client.burst:10}")
+    private int burst;
+
+    @Value("${sms.client.circuit.failure-threshold:5}")
+    private int circuitFailureThreshold;
+
+    @Value("${sms.client.circuit.open-seconds:30}")
+    private long circuitOpenSeconds;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Shared client: keeps provider connections pooled across messages
+    private HttpClient httpClient;
+
+    private Semaphore inFlight;
+
+    private TokenBucket rateLimiter;
+
+    private CircuitBreaker circuitBreaker;
+
+    // Counters
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .executor(Executors.newFixedThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "sms-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }))
+            .build();
+        inFlight = new Semaphore(maxInFlight);
+        rateLimiter = new TokenBucket(ratePerSecond, burst);
+        circuitBreaker = new CircuitBreaker(circuitFailureThreshold, Duration.ofSeconds(circuitOpenSeconds));
     }
     
     /**
@@ -35,36 +103,145 @@ public class SmsService {
      * (Twilio, AWS SNS, etc.)
      */
     public boolean sendSms(String toPhoneNumber, String message) {
+        return sendSmsAsync(toPhoneNumber, message).join();
+    }
+
+    /**
+     * Sends an SMS message without blocking on the provider.
+     * The caller only waits, up to the acquire timeout, for an in-flight slot and a rate limit token;
+     * the returned future completes with false on failure, and immediately while the circuit is open.
+     */
+    public CompletableFuture<Boolean> sendSmsAsync(String toPhoneNumber, String message) {
         // If SMS service is not configured, log and return false
         if (apiKey == null || apiUrl == null || fromNumber == null) {
             System.out.println("SMS service not configured. Would send SMS to: " + toPhoneNumber + " with message: " + message);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
-        
+
+        if (!circuitBreaker.allowRequest()) {
+            shortCircuited.incrementAndGet();
+            recordFailure("CircuitOpen");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        HttpRequest request;
         try {
-            // Prepare request headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(apiKey); // For services that use Bearer token
-            
-            // Prepare request body (generic format - adapt based on your SMS provider)
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("to", toPhoneNumber);
-            requestBody.put("from", fromNumber);
-            requestBody.put("body", message);
-            
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
-            // Send the SMS
-            ResponseEntity<String> response = restTemplate.postForEntity(apiUrl, entity, String.class);
-            
-            // Check if the SMS was sent successfully
-            return response.getStatusCode().is2xxSuccessful();
-            
+            request = buildRequest(toPhoneNumber, message);
+            if (!acquirePermits()) {
+                circuitBreaker.releaseTrial();
+                rejected.incrementAndGet();
+                recordFailure("RateLimited");
+                System.err.println("Failed to send SMS: too many SMS requests in flight or rate limit reached");
+                return CompletableFuture.completedFuture(false);
+            }
         } catch (Exception e) {
+            circuitBreaker.releaseTrial();
+            recordFailure(e.getClass().getSimpleName());
             System.err.println("Failed to send SMS: " + e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                inFlight.release();
+                return handleResponse(response, error);
+            });
+    }
+
+    private HttpRequest buildRequest(String toPhoneNumber, String message) throws Exception {
+        // Prepare request body (generic format - adapt based on your SMS provider)
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("to", toPhoneNumber);
+        requestBody.put("from", fromNumber);
+        requestBody.put("body", message);
+
+        return HttpRequest.newBuilder(URI.create(apiUrl))
+            .timeout(Duration.ofMillis(requestTimeoutMs))
+            .header("Content-Type", "application/json")
+            .header("Authorization", "Bearer " + apiKey) // For services that use Bearer token
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody)))
+            .build();
+    }
+
+    /**
+     * Waits, within the acquire timeout, for an in-flight slot and then a rate limit token
+     */
+    private boolean acquirePermits() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+        if (!inFlight.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
             return false;
         }
+        if (!rateLimiter.tryAcquire(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+            inFlight.release();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean handleResponse(HttpResponse<Void> response, Throwable error) {
+        if (error != null) {
+            // Connect failures and timeouts count against the provider
+            circuitBreaker.recordFailure();
+            failed.incrementAndGet();
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            recordFailure(cause.getClass().getSimpleName());
+            System.err.println("Failed to send SMS: " + error.getMessage());
+            return false;
+        }
+
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            circuitBreaker.recordSuccess();
+            sent.incrementAndGet();
+            return true;
+        }
+
+        failed.incrementAndGet();
+        if (status == 429) {
+            // The provider is up but throttling us: back off for as long as it asks
+            circuitBreaker.recordSuccess();
+            throttled.incrementAndGet();
+            rateLimiter.pauseFor(retryAfter(response));
+        } else if (status >= 500) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess(); // e.g. an invalid number; not a provider outage
+        }
+        recordFailure("HTTP_" + status);
+        System.err.println("Failed to send SMS: provider responded with status " + status);
+        return false;
+    }
+
+    /**
+     * Counts a failed or refused SMS by its error class on sms.client.failures
+     */
+    private void recordFailure(String errorClass) {
+        meterRegistry.counter("sms.client.failures", "error", errorClass).increment();
+    }
+
+    private static Duration retryAfter(HttpResponse<Void> response) {
+        try {
+            return response.headers().firstValue("Retry-After")
+                .map(value -> Duration.ofSeconds(Long.parseLong(value.trim())))
+                .orElse(Duration.ofSeconds(1));
+        } catch (NumberFormatException e) {
+            return Duration.ofSeconds(1); // HTTP-date form; just back off briefly
+        }
+    }
+
+    /**
+     * Gets client counters and the circuit breaker state
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sent", sent.get());
+        stats.put("failed", failed.get());
+        stats.put("throttled", throttled.get());
+        stats.put("rejected", rejected.get());
+        stats.put("shortCircuited", shortCircuited.get());
+        stats.put("inFlight", maxInFlight - inFlight.availablePermits());
+        stats.put("circuit", circuitBreaker.getState());
+        return stats;
     }
     
     /**
@@ -0,0 +1,67 @@
+package com.insync.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter.
+ * Tokens refill continuously at the configured rate up to the burst size; a caller that finds
+ * the bucket empty may wait for its token up to a bound instead of being rejected outright.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = Math.max(permitsPerSecond, 0.001) / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+        // nanoTime may be negative, so "not paused" must be a real reading rather than 0
+        this.pausedUntilNanos = this.lastRefillNanos;
+    }
+
+    /**
+     * Takes a token, waiting up to maxWait for one to become available
+     *
+     * @return false if no token would be available within maxWait
+     */
+    public boolean tryAcquire(Duration maxWait) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            waitNanos = Math.max(0, pausedUntilNanos - now);
+            if (tokens < 1) {
+                waitNanos = Math.max(waitNanos, (long) Math.ceil((1 - tokens) / permitsPerNano));
+            }
+            if (waitNanos > maxWait.toNanos()) {
+                return false;
+            }
+            tokens -= 1; // reserve the token; the balance goes negative while callers wait for it
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * Hands out no tokens until the given delay has passed, e.g. after the provider answered 429
+     */
+    public synchronized void pauseFor(Duration delay) {
+        long until = System.nanoTime() + delay.toNanos();
+        if (until - pausedUntilNanos > 0) {
+            pausedUntilNanos = until;
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,85 @@
+package com.insync.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Sends batches of webhook events. One HttpClient with a pooled connection per endpoint host is
+ * shared by all workers. A batch goes out as one signed request:
+ *
+ *   POST {url}  {"events": [{...}, {...}]}
+ *   X-Insync-Signature: t={unix seconds},v1={hex HMAC-SHA256 of "{t}.{body}" keyed with the endpoint secret}
+ *   X-Insync-Delivery: {random id of this request}
+ *
+ * Receivers verify the signature, reject stale timestamps and deduplicate on each event's id,
+ * since a batch whose acknowledgement was lost is sent again. A retried batch can arrive after
+ * later events, so receivers order by each event's occurredAt rather than by arrival.
+ */
+public class WebhookClient {
+
+    public static final String SIGNATURE_HEADER = "X-Insync-Signature";
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    public WebhookClient(Duration connectTimeout, Duration requestTimeout, Executor executor) {
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * Posts a batch of events, each already serialised as a JSON object
+     *
+     * @return the response status code
+     * @throws Exception if the request could not be sent or timed out
+     */
+    public int send(String url, String secret, List<String> events) throws Exception {
+        StringBuilder body = new StringBuilder(64 + events.size() * 256).append("{\"events\":[");
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(events.get(i));
+        }
+        byte[] bytes = body.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        long timestamp = System.currentTimeMillis() / 1000;
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(requestTimeout)
+            .header("Content-Type", "application/json")
+            .header(SIGNATURE_HEADER, "t=" + timestamp + ",v1=" + sign(secret, timestamp, bytes))
+            .header("X-Insync-Delivery", UUID.randomUUID().toString())
+            .POST(HttpRequest.BodyPublishers.ofByteArray(bytes))
+            .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Computes the v1 signature of a request body
+     */
+    public static String sign(String secret, long timestamp, byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            mac.update((timestamp + ".").getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (Exception e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
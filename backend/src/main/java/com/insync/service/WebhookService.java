@@ -0,0 +1,560 @@
+package com.insync.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insync.entity.Call;
+import com.insync.entity.Meeting;
+import com.insync.entity.MeetingOutboxEvent;
+import com.insync.entity.WebhookDelivery;
+import com.insync.entity.WebhookEndpoint;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.WebhookDeliveryRepository;
+import com.insync.repository.WebhookEndpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound webhooks for meeting and call lifecycle events.
+ *
+ * Publishing an event writes one ledger row per subscribed endpoint of the users involved, in
+ * the caller's transaction; meeting events are published by the outbox relay, so they are
+ * recorded exactly when the meeting change is. A dispatcher thread claims due rows under a
+ * lease, groups them by endpoint and hands each endpoint's batches to a fixed pool of workers,
+ * which bounds the requests in flight overall; at most max-in-flight-per-endpoint go to any one
+ * endpoint at a time. A row is only marked delivered on a 2xx, failed batches back off
+ * exponentially and rows are given up on as DEAD after max-attempts. Endpoints must resolve to
+ * public addresses, checked on registration and again before each request (see WebhookTargetPolicy).
+ */
+@Service
+public class WebhookService {
+
+    public static final Set<String> EVENT_TYPES = Set.of(
+        "meeting.created", "meeting.rescheduled", "meeting.cancelled", "meeting.started", "meeting.ended",
+        "meeting.participant_joined", "call.started", "call.ended", "call.declined", "call.cancelled", "ping");
+
+    private static final SecureRandom SECRET_RANDOM = new SecureRandom();
+
+    @Autowired
+    private WebhookEndpointRepository webhookEndpointRepository;
+
+    @Autowired
+    private WebhookDeliveryRepository webhookDeliveryRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${webhooks.enabled:true}")
+    private boolean enabled;
+
+    @Value("${webhooks.workers:8}")
+    private int workers;
+
+    @Value("${webhooks.max-in-flight-per-endpoint:2}")
+    private int maxInFlightPerEndpoint;
+
+    @Value("${webhooks.max-batch-size:50}")
+    private int maxBatchSize;
+
+    @Value("${webhooks.claim-size:1000}")
+    private int claimSize;
+
+    @Value("${webhooks.max-rounds-per-run:20}")
+    private int maxRoundsPerRun;
+
+    @Value("${webhooks.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${webhooks.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${webhooks.request-timeout-ms:10000}")
+    private long requestTimeoutMs;
+
+    @Value("${webhooks.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${webhooks.retry.base-delay-seconds:10}")
+    private long retryBaseDelaySeconds;
+
+    @Value("${webhooks.retry.max-delay-minutes:60}")
+    private long retryMaxDelayMinutes;
+
+    @Value("${webhooks.max-endpoints-per-user:10}")
+    private int maxEndpointsPerUser;
+
+    @Value("${webhooks.retention-days:7}")
+    private long retentionDays;
+
+    // Comma-separated hosts exempt from the public-address check, e.g. an internal receiver
+    @Value("${webhooks.allowed-hosts:}")
+    private String allowedHosts;
+
+    private TransactionTemplate transactionTemplate;
+
+    private WebhookClient client;
+
+    private WebhookTargetPolicy targetPolicy;
+
+    private BackoffPolicy backoffPolicy;
+
+    private ExecutorService dispatcherExecutor;
+
+    private ExecutorService workerPool;
+
+    // Set while a dispatcher run is queued but not started, so a burst of events queues one run
+    private final AtomicBoolean dispatchQueued = new AtomicBoolean();
+
+    // Counters
+    private final AtomicLong eventsPublished = new AtomicLong();
+    private final AtomicLong deliveriesQueued = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private final AtomicLong totalRequestMillis = new AtomicLong();
+    private volatile int lastBatchSize;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        backoffPolicy = new BackoffPolicy(Duration.ofSeconds(retryBaseDelaySeconds), Duration.ofMinutes(retryMaxDelayMinutes));
+        targetPolicy = new WebhookTargetPolicy(Arrays.asList(allowedHosts.split(",")));
+        dispatcherExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webhook-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "webhook-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The HTTP client's own completion tasks get separate threads, since the workers block in send
+        AtomicInteger httpThreadCount = new AtomicInteger();
+        client = new WebhookClient(Duration.ofMillis(connectTimeoutMs), Duration.ofMillis(requestTimeoutMs),
+            Executors.newFixedThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "webhook-http-" + httpThreadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcherExecutor.shutdown();
+        workerPool.shutdown();
+    }
+
+    /**
+     * Registers an endpoint for a user
+     *
+     * @param events the event types to subscribe to; empty for all
+     * @return the endpoint, and its signing secret, which is not shown again
+     */
+    public Map<String, Object> registerEndpoint(Long userId, String url, List<String> events) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid webhook URL: " + url);
+        }
+        if (!("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) || uri.getHost() == null) {
+            throw new RuntimeException("Webhook URL must be an absolute http(s) URL: " + url);
+        }
+        targetPolicy.check(uri);
+        if (events != null) {
+            for (String event : events) {
+                if (!EVENT_TYPES.contains(event)) {
+                    throw new RuntimeException("Unknown webhook event: " + event);
+                }
+            }
+        }
+        if (webhookEndpointRepository.countByUserId(userId) >= maxEndpointsPerUser) {
+            throw new RuntimeException("A user can register at most " + maxEndpointsPerUser + " webhook endpoints");
+        }
+
+        byte[] secretBytes = new byte[32];
+        SECRET_RANDOM.nextBytes(secretBytes);
+        String secret = HexFormat.of().formatHex(secretBytes);
+        WebhookEndpoint endpoint = webhookEndpointRepository.save(new WebhookEndpoint(userId, url, secret,
+            events == null || events.isEmpty() ? null : String.join(",", events)));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoint", endpoint);
+        result.put("secret", secret);
+        return result;
+    }
+
+    public List<WebhookEndpoint> getEndpoints(Long userId) {
+        return webhookEndpointRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    }
+
+    /**
+     * Removes an endpoint and whatever is still owed to it
+     */
+    public boolean deleteEndpoint(Long userId, Long endpointId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            WebhookEndpoint endpoint = webhookEndpointRepository.findById(endpointId).orElse(null);
+            if (endpoint == null || !endpoint.getUserId().equals(userId)) {
+                return false;
+            }
+            webhookDeliveryRepository.deleteByEndpointId(endpointId);
+            return webhookEndpointRepository.deleteByIdAndUserId(endpointId, userId) > 0;
+        }));
+    }
+
+    /**
+     * Gets the most recent deliveries of one of the user's endpoints
+     */
+    public List<WebhookDelivery> getRecentDeliveries(Long userId, Long endpointId, int limit) {
+        WebhookEndpoint endpoint = webhookEndpointRepository.findById(endpointId)
+            .filter(found -> found.getUserId().equals(userId))
+            .orElseThrow(() -> new RuntimeException("Webhook endpoint not found"));
+        return webhookDeliveryRepository.findRecent(endpoint.getId(), PageRequest.of(0, limit));
+    }
+
+    /**
+     * Queues a ping event to one of the user's endpoints, to check it is reachable and verifies signatures
+     */
+    public void ping(Long userId, Long endpointId) {
+        WebhookEndpoint endpoint = webhookEndpointRepository.findById(endpointId)
+            .filter(found -> found.getUserId().equals(userId))
+            .orElseThrow(() -> new RuntimeException("Webhook endpoint not found"));
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("endpointId", endpoint.getId());
+        enqueue("ping-" + UUID.randomUUID(), "ping", LocalDateTime.now(), data, List.of(endpoint));
+    }
+
+    /**
+     * Publishes a meeting event relayed from the outbox to the host's endpoints.
+     * Runs in the relay's transaction, so the deliveries are recorded exactly once per event.
+     */
+    public void publishMeetingEvent(MeetingOutboxEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String type = switch (event.getType()) {
+            case MEETING_CREATED -> "meeting.created";
+            case MEETING_RESCHEDULED -> "meeting.rescheduled";
+            case MEETING_CANCELLED -> "meeting.cancelled";
+            case MEETING_STARTED -> "meeting.started";
+            case MEETING_ENDED -> "meeting.ended";
+            case PARTICIPANT_JOINED -> "meeting.participant_joined";
+        };
+        Meeting meeting = meetingRepository.findById(event.getMeetingId()).orElse(null);
+        if (meeting == null) {
+            return;
+        }
+        List<WebhookEndpoint> endpoints = subscribedEndpoints(List.of(meeting.getHost().getId()), type);
+        if (endpoints.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("meetingId", meeting.getMeetingId());
+        data.put("title", meeting.getTitle());
+        data.put("status", meeting.getStatus());
+        data.put("hostId", meeting.getHost().getId());
+        data.put("startTime", event.getStartTime());
+        data.put("endTime", event.getEndTime());
+        if (event.getType() == MeetingOutboxEvent.EventType.MEETING_RESCHEDULED) {
+            data.put("previousStartTime", event.getPreviousStartTime());
+            data.put("previousEndTime", event.getPreviousEndTime());
+        }
+        if (event.getUserId() != null) {
+            data.put("userId", event.getUserId());
+        }
+        enqueue("meeting-event-" + event.getId(), type, event.getCreatedAt(), data, endpoints);
+    }
+
+    /**
+     * Publishes a call event to the endpoints of both parties
+     */
+    public void publishCallEvent(Call call, String type) {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<WebhookEndpoint> endpoints = subscribedEndpoints(
+                List.of(call.getCaller().getId(), call.getReceiver().getId()), type);
+            if (endpoints.isEmpty()) {
+                return;
+            }
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("callId", call.getCallId());
+            data.put("type", call.getType());
+            data.put("status", call.getStatus());
+            data.put("callerId", call.getCaller().getId());
+            data.put("receiverId", call.getReceiver().getId());
+            data.put("startedAt", call.getStartedAt());
+            data.put("endedAt", call.getEndedAt());
+            data.put("durationSeconds", call.getDurationSeconds());
+            data.put("reason", call.getEndReason());
+            enqueue(call.getCallId() + "-" + type, type, LocalDateTime.now(), data, endpoints);
+        });
+    }
+
+    private List<WebhookEndpoint> subscribedEndpoints(Collection<Long> userIds, String type) {
+        List<WebhookEndpoint> endpoints = new ArrayList<>();
+        for (WebhookEndpoint endpoint : webhookEndpointRepository.findByUserIds(userIds)) {
+            if (endpoint.subscribesTo(type)) {
+                endpoints.add(endpoint);
+            }
+        }
+        return endpoints;
+    }
+
+    /**
+     * Writes a delivery row per endpoint, all sharing one serialised payload, and wakes the
+     * dispatcher once they are committed
+     */
+    private void enqueue(String eventId, String type, LocalDateTime occurredAt, Map<String, Object> data,
+                         List<WebhookEndpoint> endpoints) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", eventId);
+        event.put("type", type);
+        event.put("occurredAt", occurredAt);
+        event.put("data", data);
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to serialise webhook event " + eventId, e);
+        }
+
+        List<WebhookDelivery> deliveries = new ArrayList<>(endpoints.size());
+        for (WebhookEndpoint endpoint : endpoints) {
+            deliveries.add(new WebhookDelivery(endpoint.getId(), eventId, type, payload));
+        }
+        webhookDeliveryRepository.saveAll(deliveries);
+        eventsPublished.incrementAndGet();
+        deliveriesQueued.addAndGet(deliveries.size());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeDispatcher();
+                }
+            });
+        } else {
+            wakeDispatcher();
+        }
+    }
+
+    private void wakeDispatcher() {
+        if (enabled && dispatchQueued.compareAndSet(false, true)) {
+            dispatcherExecutor.execute(() -> {
+                dispatchQueued.set(false);
+                try {
+                    dispatchDue();
+                } catch (Exception e) {
+                    System.err.println("Webhook dispatch failed: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Picks up retries whose backoff has elapsed, and rows whose lease ran out on a crashed instance
+     */
+    @Scheduled(fixedDelayString = "${webhooks.poll-interval-ms:1000}")
+    public void poll() {
+        wakeDispatcher();
+    }
+
+    /**
+     * Claims due deliveries and sends them, a claim at a time, until nothing is due or the
+     * per-run limit is reached
+     */
+    private void dispatchDue() {
+        for (int round = 0; round < maxRoundsPerRun; round++) {
+            String claimToken = UUID.randomUUID().toString();
+            List<WebhookDelivery> claimed = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                List<Long> ids = webhookDeliveryRepository.findDueIds(now, PageRequest.of(0, claimSize));
+                if (ids.isEmpty() || webhookDeliveryRepository.claim(ids, claimToken, now, now.plusSeconds(leaseSeconds)) == 0) {
+                    return List.<WebhookDelivery>of();
+                }
+                return webhookDeliveryRepository.findClaimed(claimToken);
+            });
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            Map<Long, List<WebhookDelivery>> byEndpoint = new LinkedHashMap<>();
+            for (WebhookDelivery delivery : claimed) {
+                byEndpoint.computeIfAbsent(delivery.getEndpointId(), key -> new ArrayList<>()).add(delivery);
+            }
+            Map<Long, WebhookEndpoint> endpoints = new HashMap<>();
+            webhookEndpointRepository.findAllById(byEndpoint.keySet()).forEach(endpoint -> endpoints.put(endpoint.getId(), endpoint));
+
+            List<Future<?>> lanes = new ArrayList<>();
+            byEndpoint.forEach((endpointId, deliveries) -> {
+                WebhookEndpoint endpoint = endpoints.get(endpointId);
+                if (endpoint == null) {
+                    return; // Deleted meanwhile; its rows went with it
+                }
+                for (List<List<WebhookDelivery>> lane : lanes(deliveries)) {
+                    lanes.add(workerPool.submit(() -> sendLane(endpoint, lane)));
+                }
+            });
+            for (Future<?> lane : lanes) {
+                try {
+                    lane.get();
+                } catch (Exception e) {
+                    System.err.println("Webhook delivery lane failed: " + e.getMessage());
+                }
+            }
+
+            if (claimed.size() < claimSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Splits an endpoint's deliveries into batches, dealt round-robin over up to
+     * max-in-flight-per-endpoint lanes that are sent concurrently, each lane one batch at a time
+     */
+    private List<List<List<WebhookDelivery>>> lanes(List<WebhookDelivery> deliveries) {
+        int batchCount = (deliveries.size() + maxBatchSize - 1) / maxBatchSize;
+        int laneCount = Math.max(1, Math.min(maxInFlightPerEndpoint, batchCount));
+        List<List<List<WebhookDelivery>>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (int batch = 0; batch < batchCount; batch++) {
+            int from = batch * maxBatchSize;
+            lanes.get(batch % laneCount).add(deliveries.subList(from, Math.min(deliveries.size(), from + maxBatchSize)));
+        }
+        return lanes;
+    }
+
+    /**
+     * Sends a lane's batches in turn. After a failed batch the rest of the lane is put back to
+     * wait out the same backoff, without being charged an attempt.
+     */
+    private void sendLane(WebhookEndpoint endpoint, List<List<WebhookDelivery>> batches) {
+        for (int i = 0; i < batches.size(); i++) {
+            List<WebhookDelivery> batch = batches.get(i);
+            List<Long> ids = new ArrayList<>(batch.size());
+            List<String> payloads = new ArrayList<>(batch.size());
+            int attempts = 0;
+            for (WebhookDelivery delivery : batch) {
+                ids.add(delivery.getId());
+                payloads.add(delivery.getPayload());
+                attempts = Math.max(attempts, delivery.getAttemptCount() + 1);
+            }
+
+            int statusCode = -1;
+            String error = null;
+            long startNanos = System.nanoTime();
+            try {
+                targetPolicy.check(URI.create(endpoint.getUrl()));
+                statusCode = client.send(endpoint.getUrl(), endpoint.getSecret(), payloads);
+                if (statusCode < 200 || statusCode >= 300) {
+                    error = "HTTP " + statusCode;
+                }
+            } catch (Exception e) {
+                error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+            }
+            requests.incrementAndGet();
+            totalRequestMillis.addAndGet((System.nanoTime() - startNanos) / 1_000_000);
+            lastBatchSize = batch.size();
+
+            if (error == null) {
+                int code = statusCode;
+                transactionTemplate.executeWithoutResult(status ->
+                    webhookDeliveryRepository.markDelivered(ids, code, LocalDateTime.now()));
+                delivered.addAndGet(ids.size());
+                continue;
+            }
+
+            failedRequests.incrementAndGet();
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoffPolicy.delayAfter(attempts));
+            List<Long> heldBack = new ArrayList<>();
+            batches.subList(i + 1, batches.size()).forEach(rest -> rest.forEach(delivery -> heldBack.add(delivery.getId())));
+            Integer code = statusCode > 0 ? statusCode : null;
+            String lastError = error.length() > 255 ? error.substring(0, 255) : error;
+            int given = transactionTemplate.execute(status -> {
+                webhookDeliveryRepository.recordFailure(ids, code, lastError, nextAttemptAt);
+                int deadCount = webhookDeliveryRepository.markDead(ids, maxAttempts);
+                if (!heldBack.isEmpty()) {
+                    webhookDeliveryRepository.release(heldBack, nextAttemptAt);
+                }
+                return deadCount;
+            });
+            dead.addAndGet(given);
+            System.err.println("Webhook delivery to endpoint " + endpoint.getId() + " failed (" + error + "), " +
+                batch.size() + " events retry at " + nextAttemptAt);
+            return;
+        }
+    }
+
+    /**
+     * Deletes delivered and given-up ledger rows past the retention window
+     */
+    @Scheduled(initialDelayString = "${webhooks.cleanup-initial-delay-ms:60000}",
+               fixedDelayString = "${webhooks.cleanup-interval-ms:3600000}")
+    public void deleteFinished() {
+        transactionTemplate.executeWithoutResult(status ->
+            webhookDeliveryRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays)));
+    }
+
+    /**
+     * Gets counters for webhook delivery
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long requestCount = requests.get();
+        stats.put("enabled", enabled);
+        stats.put("eventsPublished", eventsPublished.get());
+        stats.put("deliveriesQueued", deliveriesQueued.get());
+        stats.put("requests", requestCount);
+        stats.put("failedRequests", failedRequests.get());
+        stats.put("delivered", delivered.get());
+        stats.put("dead", dead.get());
+        stats.put("pending", transactionTemplate.execute(status ->
+            webhookDeliveryRepository.countByStatus(WebhookDelivery.DeliveryStatus.PENDING)));
+        stats.put("avgRequestMillis", requestCount == 0 ? 0 : totalRequestMillis.get() / requestCount);
+        stats.put("lastBatchSize", lastBatchSize);
+        return stats;
+    }
+}
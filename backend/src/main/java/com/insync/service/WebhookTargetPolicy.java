@@ -0,0 +1,81 @@
+package com.insync.service;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Decides which hosts webhooks may be sent to.
+ *
+ * Users choose the URL and can read back the status code of each delivery, so an unchecked URL
+ * would let them probe the server's own network. A host is refused if any address it resolves
+ * to is loopback, link-local (including cloud metadata at 169.254.169.254), private, shared
+ * (100.64.0.0/10), unique-local IPv6, wildcard or multicast, unless the host is allow-listed.
+ * The host is resolved again before every request, so a name that later points inward is caught.
+ */
+public class WebhookTargetPolicy {
+
+    private final Set<String> allowedHosts = new HashSet<>();
+
+    public WebhookTargetPolicy(Collection<String> allowedHosts) {
+        for (String host : allowedHosts) {
+            if (!host.isBlank()) {
+                this.allowedHosts.add(host.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * Checks that a webhook URL points at a public address
+     *
+     * @throws RuntimeException if the host is not allow-listed and cannot be resolved or is internal
+     */
+    public void check(URI uri) {
+        String host = uri.getHost();
+        if (host == null) {
+            throw new RuntimeException("Webhook URL has no host: " + uri);
+        }
+        String normalised = host.toLowerCase(Locale.ROOT);
+        if (normalised.startsWith("[") && normalised.endsWith("]")) {
+            normalised = normalised.substring(1, normalised.length() - 1);
+        }
+        if (allowedHosts.contains(normalised)) {
+            return;
+        }
+
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(normalised);
+        } catch (UnknownHostException e) {
+            throw new RuntimeException("Webhook host cannot be resolved: " + host);
+        }
+        for (InetAddress address : addresses) {
+            if (isInternal(address)) {
+                throw new RuntimeException("Webhook host resolves to a non-public address: " + host);
+            }
+        }
+    }
+
+    static boolean isInternal(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isLinkLocalAddress() || address.isSiteLocalAddress()
+                || address.isAnyLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            int first = bytes[0] & 0xff;
+            int second = bytes[1] & 0xff;
+            return first == 0 || (first == 100 && second >= 64 && second < 128); // "this" network, shared CGNAT space
+        }
+        if (address instanceof Inet6Address) {
+            return (bytes[0] & 0xfe) == 0xfc; // Unique local fc00::/7
+        }
+        return false;
+    }
+}
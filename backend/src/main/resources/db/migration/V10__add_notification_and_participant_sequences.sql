@@ -0,0 +1,5 @@
+-- Pooled sequences for notifications and meeting participants, so their inserts can be batched.
+-- INCREMENT BY must match the entities' allocationSize (50).
+-- On an existing database, start each sequence above the current MAX(id) of its table.
+CREATE SEQUENCE notifications_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE meeting_participants_seq START WITH 1 INCREMENT BY 50;
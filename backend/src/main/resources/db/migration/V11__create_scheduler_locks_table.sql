@@ -0,0 +1,7 @@
+-- Lease locks shared by backend instances (scheduled job leadership and notification shards)
+CREATE TABLE scheduler_locks (
+    name VARCHAR(100) PRIMARY KEY,
+    locked_by VARCHAR(100) NOT NULL,
+    locked_until TIMESTAMP NOT NULL,
+    locked_at TIMESTAMP NULL
+);
@@ -0,0 +1,10 @@
+-- Delivery ledger: one row per logical notification handed to a provider
+CREATE SEQUENCE notification_deliveries_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE notification_deliveries (
+    id BIGINT PRIMARY KEY,
+    dedup_key VARCHAR(200) NOT NULL,
+    notification_id BIGINT NULL,
+    delivered_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_notification_deliveries_dedup_key UNIQUE (dedup_key)
+);
@@ -0,0 +1,22 @@
+-- Terminal notifications moved out of the live table by the retention job
+CREATE TABLE notifications_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NULL,
+    meeting_id BIGINT NULL,
+    title VARCHAR(100) NULL,
+    message VARCHAR(500) NULL,
+    type VARCHAR(50) NULL,
+    channel VARCHAR(20) NULL,
+    status VARCHAR(20) NULL,
+    scheduled_time TIMESTAMP NULL,
+    sent_time TIMESTAMP NULL,
+    error_message VARCHAR(500) NULL,
+    attempt_count INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NULL,
+    archived_at TIMESTAMP NULL
+);
+
+CREATE INDEX idx_notifications_archive_user_scheduled ON notifications_archive(user_id, scheduled_time);
+
+-- Due-notification scans and the retention job's terminal-row scan filter on (status, scheduled_time)
+CREATE INDEX idx_notifications_status_scheduled ON notifications(status, scheduled_time);
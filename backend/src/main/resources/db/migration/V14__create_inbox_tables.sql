@@ -0,0 +1,25 @@
+-- In-app inbox items, paged newest first per user
+CREATE SEQUENCE inbox_items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE inbox_items (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    meeting_id BIGINT NULL,
+    notification_id BIGINT NULL,
+    type VARCHAR(50) NULL,
+    title VARCHAR(100) NULL,
+    message VARCHAR(500) NULL,
+    created_at TIMESTAMP NOT NULL,
+    read_at TIMESTAMP NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_inbox_items_user_id ON inbox_items(user_id, id);
+
+-- Unread count per user, adjusted in place instead of counted
+CREATE TABLE inbox_counters (
+    user_id BIGINT PRIMARY KEY,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
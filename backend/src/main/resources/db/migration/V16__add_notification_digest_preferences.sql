@@ -0,0 +1,8 @@
+-- Digest and morning agenda opt-ins
+ALTER TABLE notification_preferences ADD COLUMN email_digest BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE notification_preferences ADD COLUMN sms_digest BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE notification_preferences ADD COLUMN push_digest BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE notification_preferences ADD COLUMN morning_agenda BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Pending reminders of a set of users, gathered into their digests
+CREATE INDEX idx_notifications_user_status_scheduled ON notifications(user_id, status, scheduled_time);
@@ -0,0 +1,18 @@
+-- Meeting domain events, written with the meeting change and relayed to notification scheduling
+CREATE TABLE meeting_outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(30) NOT NULL,
+    meeting_id BIGINT NOT NULL,
+    user_id BIGINT NULL,
+    start_time TIMESTAMP NULL,
+    end_time TIMESTAMP NULL,
+    previous_start_time TIMESTAMP NULL,
+    previous_end_time TIMESTAMP NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempt_count INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(255) NULL,
+    created_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP NULL
+);
+
+CREATE INDEX idx_meeting_outbox_events_status_id ON meeting_outbox_events(status, id);
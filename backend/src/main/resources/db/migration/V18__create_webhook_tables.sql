@@ -0,0 +1,36 @@
+-- Outbound webhooks: endpoints registered by users and the at-least-once delivery ledger
+CREATE TABLE webhook_endpoints (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    url VARCHAR(1000) NOT NULL,
+    secret VARCHAR(64) NOT NULL,
+    events VARCHAR(500) NULL,
+    created_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_webhook_endpoints_user_id ON webhook_endpoints(user_id);
+
+CREATE SEQUENCE webhook_deliveries_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE webhook_deliveries (
+    id BIGINT PRIMARY KEY,
+    endpoint_id BIGINT NOT NULL,
+    event_id VARCHAR(100) NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload VARCHAR(4000) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempt_count INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    claim_token VARCHAR(36) NULL,
+    claimed_until TIMESTAMP NULL,
+    last_status_code INT NULL,
+    last_error VARCHAR(255) NULL,
+    created_at TIMESTAMP NOT NULL,
+    delivered_at TIMESTAMP NULL,
+    CONSTRAINT uk_webhook_deliveries_endpoint_event UNIQUE (endpoint_id, event_id),
+    FOREIGN KEY (endpoint_id) REFERENCES webhook_endpoints(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_webhook_deliveries_status_next_attempt ON webhook_deliveries(status, next_attempt_at);
+CREATE INDEX idx_webhook_deliveries_claim_token ON webhook_deliveries(claim_token);
@@ -0,0 +1,6 @@
+-- Block counters for allocated identifiers, such as the counter behind meeting join codes
+CREATE TABLE id_sequences (
+    name VARCHAR(100) PRIMARY KEY,
+    next_value BIGINT NOT NULL,
+    updated_at TIMESTAMP NULL
+);
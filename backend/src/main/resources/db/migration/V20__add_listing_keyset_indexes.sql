@@ -0,0 +1,6 @@
+-- Composite indexes serving keyset-paginated listings: each page is a range scan on (owner, sort key, id)
+CREATE INDEX idx_meetings_host_id_start_time_id ON meetings(host_id, start_time, id);
+CREATE INDEX idx_meeting_participants_user_id_meeting_id ON meeting_participants(user_id, meeting_id);
+CREATE INDEX idx_calls_caller_id_created_at_id ON calls(caller_id, created_at, id);
+CREATE INDEX idx_calls_receiver_id_created_at_id ON calls(receiver_id, created_at, id);
+CREATE INDEX idx_users_name_id ON users(name, id);
@@ -0,0 +1,2 @@
+-- Serves the membership check of one user in one meeting
+CREATE INDEX idx_meeting_participants_meeting_id_user_id ON meeting_participants(meeting_id, user_id);
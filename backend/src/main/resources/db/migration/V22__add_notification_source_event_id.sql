@@ -0,0 +1,2 @@
+-- Outbox event a cancellation or reschedule notice announces; part of its delivery dedup key
+ALTER TABLE notifications ADD COLUMN source_event_id BIGINT;
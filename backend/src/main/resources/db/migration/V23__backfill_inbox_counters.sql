@@ -0,0 +1,4 @@
+-- Counter rows are now created with the user; give every existing user one
+INSERT INTO inbox_counters (user_id, unread_count, updated_at)
+SELECT u.id, 0, CURRENT_TIMESTAMP FROM users u
+WHERE NOT EXISTS (SELECT 1 FROM inbox_counters c WHERE c.user_id = u.id);
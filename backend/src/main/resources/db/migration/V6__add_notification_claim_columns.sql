@@ -0,0 +1,5 @@
+-- Dispatch lease columns used by the batched notification dispatcher
+ALTER TABLE notifications ADD COLUMN claim_token VARCHAR(36) NULL;
+ALTER TABLE notifications ADD COLUMN claimed_until TIMESTAMP NULL;
+
+CREATE INDEX idx_notifications_claim_token ON notifications(claim_token);
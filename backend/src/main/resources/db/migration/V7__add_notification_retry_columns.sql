@@ -0,0 +1,9 @@
+-- Attempt counting and backoff scheduling for notification retries
+ALTER TABLE notifications ADD COLUMN attempt_count INT NOT NULL DEFAULT 0;
+ALTER TABLE notifications ADD COLUMN next_attempt_time TIMESTAMP NULL;
+
+-- Existing failed rows become eligible for one more backoff cycle
+UPDATE notifications SET attempt_count = 1, next_attempt_time = CURRENT_TIMESTAMP WHERE status = 'FAILED';
+
+-- Retry sweep scans only the due window of FAILED rows
+CREATE INDEX idx_notifications_status_next_attempt ON notifications(status, next_attempt_time);
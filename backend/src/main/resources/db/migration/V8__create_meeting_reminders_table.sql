@@ -0,0 +1,14 @@
+-- Per-meeting reminder schedule for lazy notification materialization
+CREATE TABLE meeting_reminders (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    meeting_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    fire_time TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    fired_at TIMESTAMP NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (meeting_id) REFERENCES meetings(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_meeting_reminders_status_fire_time ON meeting_reminders(status, fire_time);
+CREATE INDEX idx_meeting_reminders_meeting_id ON meeting_reminders(meeting_id);
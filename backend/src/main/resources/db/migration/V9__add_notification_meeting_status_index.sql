@@ -0,0 +1,2 @@
+-- Bulk cancel and reschedule of a meeting's pending notifications filter on (meeting_id, status)
+CREATE INDEX idx_notifications_meeting_status ON notifications(meeting_id, status);
@@ -0,0 +1,194 @@
+package com.insync.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insync.dto.CursorPage;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the meeting listings against N+1 queries: listing a page must take the same number of
+ * SQL statements whether the user has 2 meetings or 20, each with participants. Also checks that
+ * the hosted and joined branches of each page merge into one ordered listing.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.insync.controller.MeetingListingQueryCountTest$RequestThreadStatements",
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+@AutoConfigureMockMvc
+class MeetingListingQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void myMeetingsTakesAConstantNumberOfStatements() throws Exception {
+        String small = userWithMeetings("small", 2);
+        String large = userWithMeetings("large", 20);
+
+        int smallCount = statementsFor(small, "/meetings/my");
+        int largeCount = statementsFor(large, "/meetings/my");
+
+        assertTrue(smallCount > 0, "no statements were counted");
+        assertEquals(smallCount, largeCount, "statements for 2 meetings vs 20 meetings");
+    }
+
+    @Test
+    void upcomingMeetingsTakesAConstantNumberOfStatements() throws Exception {
+        String small = userWithMeetings("soon-small", 2);
+        String large = userWithMeetings("soon-large", 20);
+
+        assertEquals(statementsFor(small, "/meetings/upcoming"), statementsFor(large, "/meetings/upcoming"),
+            "statements for 2 meetings vs 20 meetings");
+    }
+
+    @Test
+    void pagesMergeHostedAndJoinedMeetingsInOrder() throws Exception {
+        String user = signup("merge-user");
+        String other = signup("merge-other");
+        LocalDateTime base = LocalDateTime.now().plusDays(1);
+        List<String> newestFirst = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            // Alternate hosted and joined meetings so every page mixes both branches
+            String meetingId = createMeeting(i % 2 == 0 ? user : other, "merge " + i, base.plusHours(i));
+            if (i % 2 == 1) {
+                join(user, meetingId);
+            }
+            newestFirst.add(0, meetingId);
+        }
+        join(user, newestFirst.get(newestFirst.size() - 1)); // Hosted and joined: listed once
+
+        assertEquals(newestFirst, allPages(user, "/meetings/my", 2));
+        List<String> soonestFirst = new ArrayList<>(newestFirst);
+        Collections.reverse(soonestFirst);
+        assertEquals(soonestFirst, allPages(user, "/meetings/upcoming", 4));
+    }
+
+    /**
+     * Signs up a host with the given number of meetings, each joined by two other users
+     *
+     * @return the host's bearer token
+     */
+    private String userWithMeetings(String name, int meetings) throws Exception {
+        String host = signup(name + "-host");
+        String guestA = signup(name + "-guest-a");
+        String guestB = signup(name + "-guest-b");
+        for (int i = 0; i < meetings; i++) {
+            String meetingId = createMeeting(host, name + " " + i, LocalDateTime.now().plusDays(1 + i));
+            join(guestA, meetingId);
+            join(guestB, meetingId);
+        }
+        return host;
+    }
+
+    /**
+     * @return the meeting's join code
+     */
+    private String createMeeting(String token, String title, LocalDateTime start) throws Exception {
+        start = start.withNano(0);
+        String body = "{\"title\":\"" + title + "\",\"startTime\":\"" + start +
+                      "\",\"endTime\":\"" + start.plusHours(1) + "\"}";
+        JsonNode created = json(mockMvc.perform(post("/meetings").header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        return created.path("data").path("meetingId").asText();
+    }
+
+    private void join(String token, String meetingId) throws Exception {
+        mockMvc.perform(post("/meetings/" + meetingId + "/join").header("Authorization", token))
+            .andExpect(status().isOk());
+    }
+
+    /**
+     * Follows the next-page cursor to the end, collecting the join codes in listing order
+     */
+    private List<String> allPages(String token, String path, int limit) throws Exception {
+        List<String> meetingIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get(path).header("Authorization", token).param("limit", String.valueOf(limit));
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse();
+            for (JsonNode meeting : json(response.getContentAsString()).path("data")) {
+                meetingIds.add(meeting.path("meetingId").asText());
+            }
+            cursor = response.getHeader(CursorPage.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        return meetingIds;
+    }
+
+    private String signup(String name) throws Exception {
+        String body = "{\"name\":\"" + name + "\",\"email\":\"" + name + "@example.com\",\"password\":\"secret1\"}";
+        JsonNode response = json(mockMvc.perform(post("/auth/signup").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+        return "Bearer " + response.path("token").asText();
+    }
+
+    private int statementsFor(String token, String path) throws Exception {
+        RequestThreadStatements.start();
+        try {
+            String response = mockMvc.perform(get(path).header("Authorization", token))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+            assertEquals(true, json(response).path("success").asBoolean(), response);
+            return RequestThreadStatements.count.get();
+        } finally {
+            RequestThreadStatements.stop();
+        }
+    }
+
+    private JsonNode json(String content) throws Exception {
+        return objectMapper.readTree(content);
+    }
+
+    /**
+     * Counts the SQL statements Hibernate prepares on the test thread only, so the schedulers
+     * polling in the background do not skew the count
+     */
+    public static class RequestThreadStatements implements StatementInspector {
+        private static volatile Thread countedThread;
+        private static final AtomicInteger count = new AtomicInteger();
+
+        static void start() {
+            count.set(0);
+            countedThread = Thread.currentThread();
+        }
+
+        static void stop() {
+            countedThread = null;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == countedThread) {
+                count.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import com.insync.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class DeliveryLedgerTest {
+
+    @Test
+    void rescheduleNoticesWithTheSameTextAreKeptApartByTheirEvent() {
+        // A meeting moved A -> B -> A -> B: the third and fourth notices repeat the first two texts
+        Notification toB = notice(Notification.NotificationType.MEETING_RESCHEDULED, "Moved to 10:00", 11L);
+        Notification toA = notice(Notification.NotificationType.MEETING_RESCHEDULED, "Moved to 09:00", 12L);
+        Notification toBAgain = notice(Notification.NotificationType.MEETING_RESCHEDULED, "Moved to 10:00", 13L);
+
+        assertNotEquals(DeliveryLedger.dedupKey(toB), DeliveryLedger.dedupKey(toBAgain));
+        assertNotEquals(DeliveryLedger.dedupKey(toA), DeliveryLedger.dedupKey(toBAgain));
+    }
+
+    @Test
+    void copiesOfOneNoticeShareAKey() {
+        Notification first = notice(Notification.NotificationType.MEETING_CANCELLED, "Cancelled", 20L);
+        Notification copy = notice(Notification.NotificationType.MEETING_CANCELLED, "Cancelled", 20L);
+        copy.setScheduledTime(first.getScheduledTime().plusSeconds(30));
+
+        assertEquals(DeliveryLedger.dedupKey(first), DeliveryLedger.dedupKey(copy));
+    }
+
+    private static Notification notice(Notification.NotificationType type, String message, Long sourceEventId) {
+        User user = new User();
+        user.setId(7L);
+        Meeting meeting = new Meeting();
+        meeting.setId(3L);
+        Notification notification = new Notification(user, meeting, "Meeting update", message, type,
+            Notification.NotificationChannel.EMAIL, LocalDateTime.of(2026, 5, 1, 8, 0));
+        notification.setSourceEventId(sourceEventId);
+        return notification;
+    }
+}
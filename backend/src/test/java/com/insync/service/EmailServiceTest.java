@@ -0,0 +1,102 @@
+package com.insync.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private EmailService emailService;
+
+    @AfterEach
+    void tearDown() {
+        if (emailService != null) {
+            emailService.stop();
+        }
+    }
+
+    @Test
+    void sendsQueuedEmailsInBatchesOverPooledConnections() throws Exception {
+        emailService = emailService(1, 200, 30000);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(emailService.sendEmailAsync("user" + i + "@example.com", "Subject " + i, "Body " + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(20, greenMail.getReceivedMessages().length);
+        assertEquals(1L, emailService.getStats().get("connectionsOpened"));
+        assertTrue((Long) emailService.getStats().get("batches") < 20, "emails were not batched");
+    }
+
+    @Test
+    void neverSendsAnEmailThatTimedOutWhileQueued() throws Exception {
+        // The sender holds each batch open for 500ms, far longer than the 50ms send timeout
+        emailService = emailService(1, 500, 50);
+
+        CompletableFuture<Void> future = emailService.sendEmailAsync("late@example.com", "Late", "Too late");
+
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(timedOut.getCause().getMessage().contains("Timed out"));
+        Thread.sleep(1000);
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(1L, emailService.getStats().get("expired"));
+    }
+
+    @Test
+    void sendEmailReportsATimeoutAndTheEmailStaysUnsent() throws Exception {
+        emailService = emailService(1, 500, 50);
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+            () -> emailService.sendEmail("late@example.com", "Late", "Too late"));
+
+        assertTrue(failure.getMessage().contains("Timed out"));
+        Thread.sleep(1000);
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void dropsAnEmailWhoseFutureWasCancelled() throws Exception {
+        emailService = emailService(1, 300, 30000);
+
+        emailService.sendEmailAsync("cancelled@example.com", "Cancelled", "Never mind").cancel(false);
+        emailService.sendEmailAsync("kept@example.com", "Kept", "Still wanted").get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertEquals("kept@example.com", greenMail.getReceivedMessages()[0].getAllRecipients()[0].toString());
+    }
+
+    private static EmailService emailService(int connections, long batchWindowMs, long sendTimeoutMs) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        EmailService service = new EmailService();
+        ReflectionTestUtils.setField(service, "mailSender", mailSender);
+        ReflectionTestUtils.setField(service, "connections", connections);
+        ReflectionTestUtils.setField(service, "batchWindowMs", batchWindowMs);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 50);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        ReflectionTestUtils.setField(service, "sendTimeoutMs", sendTimeoutMs);
+        service.start();
+        return service;
+    }
+}
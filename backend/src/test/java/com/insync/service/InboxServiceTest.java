@@ -0,0 +1,131 @@
+package com.insync.service;
+
+import com.insync.entity.InboxItem;
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import com.insync.entity.User;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class InboxServiceTest {
+
+    @Autowired
+    private InboxService inboxService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    private User user;
+
+    private Meeting meeting;
+
+    @BeforeEach
+    void setUp() {
+        String name = "inbox-" + System.nanoTime();
+        user = userRepository.save(new User(name, name + "@example.com", "secret"));
+        meeting = meetingRepository.save(new Meeting(name, LocalDateTime.now().plusHours(1), user));
+    }
+
+    @Test
+    void pagesNewestFirstByKeysetCursorUntilTheInboxRunsOut() {
+        inboxService.createCounter(user.getId());
+        List<Long> delivered = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            delivered.add(inboxService.deliver(notification("item " + i)).getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Map<String, Object> page = inboxService.getPage(user.getId(), cursor, 2);
+            ((List<?>) page.get("items")).forEach(item -> seen.add(((InboxItem) item).getId()));
+            cursor = (String) page.get("nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        Collections.reverse(delivered);
+        assertEquals(3, pages);
+        assertEquals(delivered, seen);
+        assertThrows(RuntimeException.class, () -> inboxService.getPage(user.getId(), "not-a-cursor", 2));
+    }
+
+    @Test
+    void unreadCounterFollowsDeliveriesAndReadsWithoutGoingNegative() {
+        inboxService.createCounter(user.getId());
+        InboxItem first = inboxService.deliver(notification("first"));
+        inboxService.deliver(notification("second"));
+        InboxItem third = inboxService.deliver(notification("third"));
+        assertEquals(3, inboxService.getUnreadCount(user.getId()));
+
+        assertTrue(inboxService.markRead(user.getId(), first.getId()));
+        assertFalse(inboxService.markRead(user.getId(), first.getId()), "an item was read twice");
+        assertEquals(2, inboxService.getUnreadCount(user.getId()));
+
+        assertEquals(2, inboxService.markAllRead(user.getId(), third.getId()));
+        assertEquals(0, inboxService.markAllRead(user.getId(), null));
+        assertEquals(0, inboxService.getUnreadCount(user.getId()));
+        assertEquals(0L, inboxService.getPage(user.getId(), null, null).get("unreadCount"));
+    }
+
+    @Test
+    void concurrentFirstDeliveriesToAUserWithoutACounterCountEveryItem() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<InboxItem>> deliveries = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Notification notification = notification("concurrent " + i);
+                deliveries.add(pool.submit(() -> inboxService.deliver(notification)));
+            }
+            for (Future<InboxItem> delivery : deliveries) {
+                delivery.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(8, inboxService.getUnreadCount(user.getId()));
+    }
+
+    @Test
+    void userWithoutItemsHasAnEmptyLastPage() {
+        Map<String, Object> page = inboxService.getPage(user.getId(), null, null);
+
+        assertTrue(((List<?>) page.get("items")).isEmpty());
+        assertNull(page.get("nextCursor"));
+        assertEquals(0L, page.get("unreadCount"));
+    }
+
+    private Notification notification(String message) {
+        return new Notification(user, meeting, "Inbox", message,
+            Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.IN_APP,
+            LocalDateTime.now());
+    }
+}
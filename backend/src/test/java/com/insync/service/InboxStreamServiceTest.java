@@ -0,0 +1,71 @@
+package com.insync.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InboxStreamServiceTest {
+
+    private final InboxStreamService service = new InboxStreamService();
+
+    // Holds the only sender thread, so nothing drains the connection buffers
+    private final CountDownLatch sendersBusy = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "bufferSize", 3);
+        ReflectionTestUtils.setField(service, "maxConnectionsPerUser", 2);
+        ReflectionTestUtils.setField(service, "timeoutMinutes", 30L);
+        ReflectionTestUtils.setField(service, "senders", 1);
+        service.init();
+        ((ExecutorService) ReflectionTestUtils.getField(service, "senderPool")).execute(() -> {
+            try {
+                sendersBusy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        sendersBusy.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void dropsAClientWhoseBufferFillsUpAndKeepsTheOthers() {
+        service.connect(1L, Map.of("unreadCount", 0));
+        service.connect(2L, Map.of("unreadCount", 0));
+
+        // The initial unread event and two more fill user 1's buffer; the fourth overflows it
+        for (int i = 0; i < 3; i++) {
+            service.publish(1L, "inbox", "item " + i);
+        }
+
+        assertEquals(1L, service.getStats().get("slowClientsDropped"));
+        assertEquals(1, service.getStats().get("connections"));
+        assertEquals(1, service.getStats().get("users"));
+
+        // Later events for the dropped client go nowhere until it reconnects
+        service.publish(1L, "inbox", "missed");
+        assertEquals(1L, service.getStats().get("slowClientsDropped"));
+    }
+
+    @Test
+    void closesTheOldestConnectionBeyondTheLimitPerUser() {
+        service.connect(1L, Map.of("unreadCount", 0));
+        service.connect(1L, Map.of("unreadCount", 0));
+        service.connect(1L, Map.of("unreadCount", 0));
+
+        assertEquals(2, service.getStats().get("connections"));
+        assertEquals(0L, service.getStats().get("slowClientsDropped"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.insync.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.security.SecureRandom;
+
+/**
+ * Times meeting code generation against the previous generator, which drew nine random characters
+ * from SecureRandom and then had to check the database for a collision. Run with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class MeetingIdCipherBenchmarkTest {
+
+    private static final int IDS = 1_000_000;
+
+    @Test
+    void measureCodeGeneration() {
+        MeetingIdCipher cipher = new MeetingIdCipher("benchmark-key");
+        SecureRandom random = new SecureRandom();
+        long sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < IDS; i++) {
+                sink += MeetingIdCipher.format(cipher.encrypt((long) round * IDS + i)).charAt(4);
+            }
+            long cipherNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < IDS / 10; i++) {
+                sink += randomCode(random).charAt(4);
+            }
+            long randomNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: keyed permutation %.0f ns/code, SecureRandom %.0f ns/code (before its database check)%n",
+                round, cipherNanos / (double) IDS, randomNanos / (double) (IDS / 10));
+        }
+        System.out.println("checksum " + sink);
+    }
+
+    private static String randomCode(SecureRandom random) {
+        StringBuilder code = new StringBuilder(11);
+        for (int i = 0; i < 9; i++) {
+            if (i == 3 || i == 6) {
+                code.append('-');
+            }
+            code.append(MeetingIdCipher.ALPHABET.charAt(random.nextInt(MeetingIdCipher.ALPHABET.length())));
+        }
+        return code.toString();
+    }
+}
@@ -0,0 +1,91 @@
+package com.insync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class MeetingIdCipherTest {
+
+    private static final int COUNT = 2_000_000;
+    private static final Pattern CODE = Pattern.compile("[1-9A-HJKMNP-Z]{3}-[1-9A-HJKMNP-Z]{3}-[1-9A-HJKMNP-Z]{3}");
+
+    private final MeetingIdCipher cipher = new MeetingIdCipher("test-key");
+
+    @Test
+    void contiguousCountersMapToDistinctCodesInTheDomain() {
+        long[] codes = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            codes[i] = cipher.encrypt(i);
+        }
+        assertDistinctAndInDomain(codes);
+    }
+
+    @Test
+    void stridedCountersAcrossTheWholeDomainMapToDistinctCodes() {
+        // Counters spread over the domain, including both ends, as separate counter blocks would be
+        long stride = MeetingIdCipher.DOMAIN_SIZE / COUNT;
+        long[] codes = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            codes[i] = cipher.encrypt(i == COUNT - 1 ? MeetingIdCipher.DOMAIN_SIZE - 1 : i * stride + (i % 1000));
+        }
+        assertDistinctAndInDomain(codes);
+    }
+
+    @Test
+    void formatsEveryCodeAsNineAlphabetCharactersThatDecodeBackToIt() {
+        for (int i = 0; i < 200_000; i++) {
+            long code = cipher.encrypt(i * 7919L);
+            String formatted = MeetingIdCipher.format(code);
+            if (!CODE.matcher(formatted).matches()) {
+                fail("Malformed code " + formatted);
+            }
+            assertEquals(code, decode(formatted));
+        }
+        assertEquals("111-111-111", MeetingIdCipher.format(0));
+        assertEquals("ZZZ-ZZZ-ZZZ", MeetingIdCipher.format(MeetingIdCipher.DOMAIN_SIZE - 1));
+    }
+
+    @Test
+    void dependsOnTheKey() {
+        MeetingIdCipher other = new MeetingIdCipher("other-key");
+        int same = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (other.encrypt(i) == cipher.encrypt(i)) {
+                same++;
+            }
+        }
+        assertTrue(same < 5, same + " of 100000 codes unchanged by a different key");
+        assertEquals(new MeetingIdCipher("test-key").encrypt(42), cipher.encrypt(42));
+    }
+
+    @Test
+    void rejectsCountersOutsideTheDomain() {
+        assertThrows(IllegalArgumentException.class, () -> cipher.encrypt(-1));
+        assertThrows(IllegalArgumentException.class, () -> cipher.encrypt(MeetingIdCipher.DOMAIN_SIZE));
+    }
+
+    private static void assertDistinctAndInDomain(long[] codes) {
+        long[] sorted = codes.clone();
+        Arrays.sort(sorted);
+        assertTrue(sorted[0] >= 0 && sorted[sorted.length - 1] < MeetingIdCipher.DOMAIN_SIZE, "code outside the domain");
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                fail("Two counters share code " + sorted[i]);
+            }
+        }
+    }
+
+    private static long decode(String formatted) {
+        long code = 0;
+        for (char c : formatted.replace("-", "").toCharArray()) {
+            code = (code << 5) | MeetingIdCipher.ALPHABET.indexOf(c);
+        }
+        return code;
+    }
+}
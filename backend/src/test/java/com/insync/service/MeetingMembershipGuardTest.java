@@ -0,0 +1,106 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.repository.MeetingParticipantRepository;
+import com.insync.repository.MeetingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MeetingMembershipGuardTest {
+
+    private static final String MEETING = "ABC-DEF-GHJ";
+    private static final long MEETING_ID = 1L;
+    private static final long HOST = 10L;
+    private static final long GUEST = 11L;
+    private static final long STRANGER = 12L;
+
+    private final MeetingRepository meetingRepository = mock(MeetingRepository.class);
+    private final MeetingParticipantRepository participantRepository = mock(MeetingParticipantRepository.class);
+    private final MeetingMembershipGuard guard = new MeetingMembershipGuard();
+
+    @BeforeEach
+    void setUp() {
+        meetingRow(MEETING, MEETING_ID, Meeting.MeetingStatus.SCHEDULED);
+        ReflectionTestUtils.setField(guard, "meetingRepository", meetingRepository);
+        ReflectionTestUtils.setField(guard, "meetingParticipantRepository", participantRepository);
+        ReflectionTestUtils.setField(guard, "maxEntries", 2);
+        guard.init();
+    }
+
+    @Test
+    void joinOnThisInstanceAdmitsTheUserWithoutAnotherLookup() {
+        guard.requireMember(MEETING, HOST, "denied");
+
+        guard.memberJoined(MEETING, GUEST);
+        guard.requireMember(MEETING, GUEST, "denied");
+
+        verify(participantRepository, never()).existsByMeeting_IdAndUser_Id(anyLong(), anyLong());
+        assertThrows(RuntimeException.class, () -> guard.requireMember(MEETING, STRANGER, "denied"));
+        assertThrows(RuntimeException.class, () -> guard.requireHost(MEETING, GUEST, "denied"));
+    }
+
+    @Test
+    void participantWhoLeftTheCallKeepsAccessFromTheirParticipantRow() {
+        // Leaving only stamps the participant row's leave time, so the existence query still finds it
+        when(participantRepository.existsByMeeting_IdAndUser_Id(MEETING_ID, GUEST)).thenReturn(true);
+
+        guard.requireMember(MEETING, GUEST, "denied");
+        guard.requireMember(MEETING, GUEST, "denied");
+
+        verify(participantRepository, times(1)).existsByMeeting_IdAndUser_Id(MEETING_ID, GUEST);
+    }
+
+    @Test
+    void cancellingRefusesCachedMembersAndTheHost() {
+        guard.requireMember(MEETING, HOST, "denied");
+        guard.memberJoined(MEETING, GUEST);
+
+        guard.meetingCancelled(MEETING);
+
+        assertThrows(RuntimeException.class, () -> guard.requireMember(MEETING, GUEST, "denied"));
+        assertThrows(RuntimeException.class, () -> guard.requireHost(MEETING, HOST, "denied"));
+        verify(meetingRepository, times(1)).findIdHostIdAndStatusByMeetingId(MEETING);
+    }
+
+    @Test
+    void meetingLoadedAfterItWasCancelledRefusesEveryone() {
+        meetingRow(MEETING, MEETING_ID, Meeting.MeetingStatus.CANCELLED);
+        when(participantRepository.existsByMeeting_IdAndUser_Id(MEETING_ID, GUEST)).thenReturn(true);
+
+        assertThrows(RuntimeException.class, () -> guard.requireMember(MEETING, GUEST, "denied"));
+        assertThrows(RuntimeException.class, () -> guard.requireHost(MEETING, HOST, "denied"));
+    }
+
+    @Test
+    void aFullCacheEvictsTheLeastRecentlyUsedMeetingOnly() {
+        meetingRow("BBB-BBB-BBB", 2L, Meeting.MeetingStatus.SCHEDULED);
+        meetingRow("CCC-CCC-CCC", 3L, Meeting.MeetingStatus.SCHEDULED);
+
+        guard.requireHost(MEETING, HOST, "denied");
+        guard.requireHost("BBB-BBB-BBB", HOST, "denied");
+        guard.requireHost(MEETING, HOST, "denied");
+        // Evicts BBB, used longer ago than the first meeting, rather than clearing both
+        guard.requireHost("CCC-CCC-CCC", HOST, "denied");
+        guard.requireHost(MEETING, HOST, "denied");
+        guard.requireHost("BBB-BBB-BBB", HOST, "denied");
+
+        verify(meetingRepository, times(1)).findIdHostIdAndStatusByMeetingId(MEETING);
+        verify(meetingRepository, times(2)).findIdHostIdAndStatusByMeetingId("BBB-BBB-BBB");
+    }
+
+    private void meetingRow(String meetingId, long id, Meeting.MeetingStatus status) {
+        when(meetingRepository.findIdHostIdAndStatusByMeetingId(meetingId))
+            .thenReturn(List.<Object[]>of(new Object[] {id, HOST, status}));
+    }
+}
@@ -0,0 +1,181 @@
+package com.insync.service;
+
+import com.insync.dto.MeetingDto;
+import com.insync.dto.request.CreateMeetingRequest;
+import com.insync.entity.Meeting;
+import com.insync.entity.MeetingOutboxEvent;
+import com.insync.entity.Notification;
+import com.insync.entity.SchedulerLock;
+import com.insync.entity.User;
+import com.insync.repository.MeetingOutboxEventRepository;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationRepository;
+import com.insync.repository.SchedulerLockRepository;
+import com.insync.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Cancelling or moving a meeting only records an outbox event on the request path. The relay is
+ * held off by another node's lock while the request runs, so any notification work seen before
+ * the lock is released would have come from the request itself.
+ */
+@SpringBootTest(properties = {
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class MeetingOutboxRelayTest {
+
+    private static final String RELAY_LOCK = "meeting-outbox";
+
+    @MockitoSpyBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private MeetingService meetingService;
+
+    @Autowired
+    private MeetingOutboxService meetingOutboxService;
+
+    @Autowired
+    private MeetingOutboxEventRepository meetingOutboxEventRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void cancelReturnsBeforeTheRelayCancelsReminders() throws Exception {
+        MeetingDto meeting = scheduledMeeting("cancel");
+
+        holdRelay();
+        try {
+            meetingService.cancelMeeting(meeting.getMeetingId(), "cancel-host@example.com");
+
+            verify(notificationService, never()).handleMeetingEvent(any());
+            verify(notificationService, never()).cancelMeetingNotifications(any());
+            assertReminders(meeting, Notification.NotificationStatus.PENDING);
+        } finally {
+            releaseRelay();
+        }
+
+        verify(notificationService, timeout(10_000)).handleMeetingEvent(
+            argThat(event -> event.getType() == MeetingOutboxEvent.EventType.MEETING_CANCELLED));
+        awaitReminders(meeting, reminder -> reminder.getStatus() == Notification.NotificationStatus.CANCELLED);
+    }
+
+    @Test
+    void rescheduleReturnsBeforeTheRelayMovesReminders() throws Exception {
+        MeetingDto meeting = scheduledMeeting("reschedule");
+        LocalDateTime newStart = meeting.getStartTime().plusHours(2);
+
+        holdRelay();
+        try {
+            meetingService.rescheduleMeeting(meeting.getMeetingId(), newStart, newStart.plusHours(1), "reschedule-host@example.com");
+
+            verify(notificationService, never()).handleMeetingEvent(any());
+            verify(notificationService, never()).rescheduleMeetingNotifications(any(), any(), any(), any(), any());
+            for (Notification reminder : reminders(meeting)) {
+                assertEquals(meeting.getStartTime().minusMinutes(15), reminder.getScheduledTime());
+            }
+        } finally {
+            releaseRelay();
+        }
+
+        verify(notificationService, timeout(10_000)).handleMeetingEvent(
+            argThat(event -> event.getType() == MeetingOutboxEvent.EventType.MEETING_RESCHEDULED));
+        awaitReminders(meeting, reminder -> reminder.getScheduledTime().equals(newStart.minusMinutes(15)));
+    }
+
+    @Test
+    void cancellingThroughTheStatusUpdateAlsoCancelsReminders() throws Exception {
+        MeetingDto meeting = scheduledMeeting("status");
+
+        meetingService.updateMeetingStatus(meeting.getMeetingId(), Meeting.MeetingStatus.CANCELLED);
+
+        awaitReminders(meeting, reminder -> reminder.getStatus() == Notification.NotificationStatus.CANCELLED);
+    }
+
+    /**
+     * Creates a meeting a day out and waits for the relay to schedule its reminders
+     */
+    private MeetingDto scheduledMeeting(String name) throws InterruptedException {
+        userRepository.save(new User(name + " host", name + "-host@example.com", "secret"));
+        CreateMeetingRequest request = new CreateMeetingRequest();
+        request.setTitle(name);
+        request.setStartTime(LocalDateTime.now().plusDays(1).withNano(0));
+        request.setEndTime(request.getStartTime().plusHours(1));
+        MeetingDto meeting = meetingService.createMeeting(request, name + "-host@example.com");
+
+        awaitReminders(meeting, reminder -> reminder.getStatus() == Notification.NotificationStatus.PENDING);
+        clearInvocations(notificationService);
+        return meeting;
+    }
+
+    /**
+     * Takes the relay lock for another node, so this node's relay skips its runs
+     */
+    private void holdRelay() {
+        schedulerLockRepository.saveAndFlush(new SchedulerLock(RELAY_LOCK, "other-node",
+            LocalDateTime.now().plusMinutes(5), LocalDateTime.now()));
+    }
+
+    private void releaseRelay() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            schedulerLockRepository.release(RELAY_LOCK, "other-node", LocalDateTime.now()));
+        meetingOutboxService.poll();
+    }
+
+    private List<Notification> reminders(MeetingDto meeting) {
+        Meeting saved = meetingRepository.findByMeetingId(meeting.getMeetingId()).orElseThrow();
+        return notificationRepository.findByMeetingAndType(saved, Notification.NotificationType.MEETING_REMINDER_15MIN);
+    }
+
+    private void assertReminders(MeetingDto meeting, Notification.NotificationStatus status) {
+        List<Notification> reminders = reminders(meeting);
+        assertFalse(reminders.isEmpty());
+        reminders.forEach(reminder -> assertEquals(status, reminder.getStatus()));
+    }
+
+    private void awaitReminders(MeetingDto meeting, Predicate<Notification> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<Notification> reminders = List.of();
+        while (System.currentTimeMillis() < deadline) {
+            reminders = reminders(meeting);
+            if (!reminders.isEmpty() && reminders.stream().allMatch(condition)) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("reminders of " + meeting.getMeetingId() + " never reached the expected state: " + reminders.size() + " rows");
+    }
+}
@@ -0,0 +1,121 @@
+package com.insync.service;
+
+import com.insync.dto.ParticipantStateDto;
+import com.insync.dto.request.CallStateUpdateRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the heap held by 10k live rooms, then runs mixed call state updates, breakout moves
+ * and delta reads from 16 threads and checks each room still has at most one screen sharer and
+ * one presenter. Heap figures include the map entry and key. Run with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class MeetingRoomStateBenchmarkTest {
+
+    private static final int ROOMS = 10_000;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS = 2_000_000;
+
+    @Test
+    void measureRoomFootprint() {
+        for (int participants : new int[] {8, 50}) {
+            for (int round = 0; round < 3; round++) {
+                long before = usedHeap();
+                MeetingRoomStateService service = filledService(participants);
+                long after = usedHeap();
+                System.out.printf("round %d: %d rooms of %d participants hold %.0f bytes per room%n",
+                    round, ROOMS, participants, (after - before) / (double) ROOMS);
+                // Keeps the rooms reachable until the second measurement
+                assertEquals(participants, service.participantStates(meetingId(0)).size());
+            }
+        }
+    }
+
+    @Test
+    void measureConcurrentUpdates() throws Exception {
+        MeetingRoomStateService service = filledService(8);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                List<Future<?>> workers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    workers.add(pool.submit(() -> runOperations(service, OPERATIONS / THREADS)));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                System.out.printf("round %d: %d mixed operations on %d threads, %.2f M ops/s%n",
+                    round, OPERATIONS, THREADS, OPERATIONS / seconds / 1_000_000);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int room = 0; room < ROOMS; room++) {
+            Map<Long, ParticipantStateDto> states = service.participantStates(meetingId(room));
+            assertTrue(states.values().stream().filter(ParticipantStateDto::getIsScreenSharing).count() <= 1, "two screen sharers");
+            assertTrue(states.values().stream().filter(ParticipantStateDto::getIsPresenter).count() <= 1, "two presenters");
+        }
+    }
+
+    private static void runOperations(MeetingRoomStateService service, int operations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < operations; i++) {
+            String meetingId = meetingId(random.nextInt(ROOMS));
+            long userId = random.nextInt(8);
+            int operation = random.nextInt(10);
+            if (operation < 6) {
+                CallStateUpdateRequest request = new CallStateUpdateRequest();
+                request.setIsMuted(random.nextBoolean());
+                if (operation == 0) {
+                    request.setIsScreenSharing(random.nextBoolean());
+                } else if (operation == 1) {
+                    request.setIsPresenter(random.nextBoolean());
+                }
+                service.update(meetingId, userId, request);
+            } else if (operation < 8) {
+                service.assignBreakoutRoom(meetingId, userId, random.nextBoolean() ? "room-" + random.nextInt(4) : null);
+            } else {
+                service.snapshot(meetingId, random.nextLong(1, 1_000_000));
+            }
+        }
+    }
+
+    private static MeetingRoomStateService filledService(int participants) {
+        MeetingRoomStateService service = new MeetingRoomStateService();
+        CallStateUpdateRequest join = new CallStateUpdateRequest();
+        join.setIsVideoOn(true);
+        for (int room = 0; room < ROOMS; room++) {
+            for (long userId = 0; userId < participants; userId++) {
+                service.update(meetingId(room), userId, join);
+            }
+        }
+        return service;
+    }
+
+    private static String meetingId(int room) {
+        return String.format("R%02d-%03d-%03d", room / 1_000_000, room / 1000 % 1000, room % 1000);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,76 @@
+package com.insync.service;
+
+import com.insync.dto.ParticipantStateDto;
+import com.insync.dto.request.CallStateUpdateRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeetingRoomStateServiceTest {
+
+    private static final String MEETING = "ABC-DEF-GHJ";
+
+    private final MeetingRoomStateService service = new MeetingRoomStateService();
+
+    @Test
+    void keepsRoomsThatWereTouchedWithinTheIdleTimeout() {
+        ReflectionTestUtils.setField(service, "idleTimeoutMinutes", 240L);
+        service.update(MEETING, 1L, mute(true));
+
+        service.dropIdleRooms();
+
+        assertTrue(service.participantStates(MEETING).get(1L).getIsMuted());
+    }
+
+    @Test
+    void closedRoomRefusesChangesAndTheUpdateMovesToANewRoom() {
+        service.update(MEETING, 1L, mute(true));
+        MeetingRoomState swept = rooms().get(MEETING);
+
+        // An update that looked the room up just before the sweep closed it
+        ReflectionTestUtils.setField(service, "idleTimeoutMinutes", -1L);
+        service.dropIdleRooms();
+        assertNull(swept.update(2L, true, null, null, null, null));
+        assertNull(swept.assignBreakoutRoom(2L, "room-1"));
+
+        ReflectionTestUtils.setField(service, "idleTimeoutMinutes", 240L);
+        ParticipantStateDto state = service.update(MEETING, 2L, mute(true));
+
+        assertTrue(state.getIsMuted());
+        assertNotSame(swept, rooms().get(MEETING));
+        assertTrue(service.participantStates(MEETING).get(2L).getIsMuted());
+        assertFalse(service.participantStates(MEETING).containsKey(1L));
+    }
+
+    @Test
+    void retriesOnANewRoomWhenTheMappedRoomWasClosed() {
+        service.update(MEETING, 1L, mute(true));
+        MeetingRoomState swept = rooms().get(MEETING);
+        // Closed but not yet removed, as between the sweep's two steps
+        assertTrue(swept.closeIfIdle(Long.MAX_VALUE));
+
+        ParticipantStateDto state = service.assignBreakoutRoom(MEETING, 3L, "room-1");
+
+        assertEquals("room-1", state.getBreakoutRoomId());
+        assertNotSame(swept, rooms().get(MEETING));
+        assertEquals("room-1", service.participantStates(MEETING).get(3L).getBreakoutRoomId());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, MeetingRoomState> rooms() {
+        return (Map<String, MeetingRoomState>) ReflectionTestUtils.getField(service, "rooms");
+    }
+
+    private static CallStateUpdateRequest mute(boolean muted) {
+        CallStateUpdateRequest request = new CallStateUpdateRequest();
+        request.setIsMuted(muted);
+        return request;
+    }
+}
@@ -0,0 +1,136 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import com.insync.entity.NotificationPreference;
+import com.insync.entity.User;
+import com.insync.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDigestServiceTest {
+
+    private static final long DIGEST_USER = 1L;
+    private static final long SINGLE_USER = 2L;
+
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+    private final NotificationPreferenceCache preferenceCache = mock(NotificationPreferenceCache.class);
+    private final NotificationDigestService digestService = new NotificationDigestService();
+
+    private Meeting meeting;
+
+    @BeforeEach
+    void setUp() {
+        NotificationTemplates templates = new NotificationTemplates();
+        ReflectionTestUtils.setField(templates, "defaultLocaleTag", "en");
+        ReflectionTestUtils.setField(templates, "cacheSize", 16);
+        templates.init();
+
+        ReflectionTestUtils.setField(digestService, "notificationRepository", notificationRepository);
+        ReflectionTestUtils.setField(digestService, "notificationPreferenceCache", preferenceCache);
+        ReflectionTestUtils.setField(digestService, "notificationTemplates", templates);
+        ReflectionTestUtils.setField(digestService, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(digestService, "enabled", true);
+        ReflectionTestUtils.setField(digestService, "windowSeconds", 600L);
+        digestService.init();
+
+        NotificationPreference digestPreference = new NotificationPreference();
+        digestPreference.setEmailDigest(true);
+        Map<Long, Integer> masks = new HashMap<>();
+        masks.put(DIGEST_USER, digestPreference.toBitmask());
+        masks.put(SINGLE_USER, NotificationPreference.DEFAULT_BITMASK);
+        when(preferenceCache.getMasks(anyCollection())).thenReturn(masks);
+
+        meeting = new Meeting();
+        meeting.setId(10L);
+        meeting.setTitle("Planning");
+        meeting.setMeetingId("ABC-DEF-GHJ");
+        meeting.setStartTime(LocalDateTime.now().plusMinutes(15).withSecond(0).withNano(0));
+    }
+
+    @Test
+    void coalescesTheRemindersOfUsersWhoOptedIn() {
+        Notification fifteen = reminder(100L, DIGEST_USER, Notification.NotificationType.MEETING_REMINDER_15MIN, 0);
+        Notification five = reminder(101L, DIGEST_USER, Notification.NotificationType.MEETING_REMINDER_5MIN, 0);
+
+        List<NotificationDigestService.Digest> digests = digestService.coalesce(new ArrayList<>(List.of(fifteen, five)));
+
+        assertEquals(1, digests.size());
+        assertEquals(List.of(fifteen, five), digests.get(0).getMembers());
+        assertTrue(digests.get(0).getNotification().getMessage().contains(fifteen.getMessage()));
+        assertTrue(digests.get(0).getNotification().getMessage().contains(five.getMessage()));
+    }
+
+    @Test
+    void leavesOtherUsersAndLoneRemindersToBeSentOnTheirOwn() {
+        List<Notification> batch = new ArrayList<>(List.of(
+            reminder(100L, SINGLE_USER, Notification.NotificationType.MEETING_REMINDER_15MIN, 0),
+            reminder(101L, SINGLE_USER, Notification.NotificationType.MEETING_REMINDER_5MIN, 0),
+            reminder(102L, DIGEST_USER, Notification.NotificationType.MEETING_REMINDER_15MIN, 0),
+            reminder(103L, DIGEST_USER, Notification.NotificationType.MEETING_CANCELLED, 0)));
+
+        assertTrue(digestService.coalesce(batch).isEmpty());
+    }
+
+    @Test
+    void rewordsRemindersClaimedBeforeTheyAreDue() {
+        Notification due = reminder(100L, DIGEST_USER, Notification.NotificationType.MEETING_REMINDER_15MIN, 0);
+        Notification early = reminder(101L, DIGEST_USER, Notification.NotificationType.MEETING_REMINDER_5MIN, 10);
+        List<Object[]> candidates = new ArrayList<>();
+        candidates.add(new Object[] {101L, DIGEST_USER, Notification.NotificationChannel.EMAIL});
+        when(notificationRepository.findDigestCandidates(anyCollection(), anyCollection(), any(), any())).thenReturn(candidates);
+        when(notificationRepository.claimNotifications(eq(List.of(101L)), eq("token"), any(), any())).thenReturn(1);
+        when(notificationRepository.findClaimedNotificationsByIds(anyCollection(), eq("token"))).thenReturn(List.of(early));
+
+        List<Notification> companions = digestService.claimDigestCompanions("token", List.of(due), 60);
+
+        assertEquals(1, companions.size());
+        assertSame(early, companions.get(0));
+        assertFalse(early.getMessage().contains("5 minutes"), early.getMessage());
+        assertFalse(early.getTitle().contains("5 minutes"), early.getTitle());
+        assertTrue(early.getMessage().contains("starts at"), early.getMessage());
+    }
+
+    @Test
+    void claimsNothingForUsersWhoDidNotOptIn() {
+        Notification due = reminder(100L, SINGLE_USER, Notification.NotificationType.MEETING_REMINDER_15MIN, 0);
+
+        assertTrue(digestService.claimDigestCompanions("token", List.of(due), 60).isEmpty());
+        verify(notificationRepository, never()).claimNotifications(anyList(), anyString(), any(), any());
+    }
+
+    private Notification reminder(Long id, long userId, Notification.NotificationType type, int dueInMinutes) {
+        User user = new User();
+        user.setId(userId);
+        Notification notification = new Notification(user, meeting, type + " subject",
+            "'Planning' " + type, type, Notification.NotificationChannel.EMAIL, LocalDateTime.now().plusMinutes(dueInMinutes));
+        if (type == Notification.NotificationType.MEETING_REMINDER_5MIN) {
+            notification.setTitle("Meeting Reminder: Planning starts in 5 minutes");
+            notification.setMessage("Reminder: 'Planning' starts in 5 minutes");
+        }
+        notification.setId(id);
+        return notification;
+    }
+}
@@ -0,0 +1,106 @@
+package com.insync.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Compares the two ways Hibernate can insert scheduled notifications, at the JDBC level:
+ * IDENTITY, where every row is its own INSERT because the id only exists once the row does, and
+ * the pooled notifications_seq, where one sequence call covers 50 ids and the rows go out as
+ * JDBC batches of 50. Runs against in-memory H2, so it shows the statement overhead only; against
+ * a networked database each saved round trip also saves its latency. Run with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class NotificationInsertBenchmarkTest {
+
+    private static final int ROWS = 50_000;
+    private static final int BATCH_SIZE = 50;
+    private static final String COLUMNS = "user_id, meeting_id, title, message, type, channel, status, scheduled_time";
+
+    @Test
+    void compareIdentityWithPooledSequence() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:insert_benchmark", "sa", "")) {
+            try (Statement ddl = connection.createStatement()) {
+                ddl.execute("CREATE TABLE identity_notifications (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                            "user_id BIGINT, meeting_id BIGINT, title VARCHAR(100), message VARCHAR(500), type VARCHAR(40), " +
+                            "channel VARCHAR(20), status VARCHAR(20), scheduled_time TIMESTAMP)");
+                ddl.execute("CREATE TABLE pooled_notifications (id BIGINT PRIMARY KEY, " +
+                            "user_id BIGINT, meeting_id BIGINT, title VARCHAR(100), message VARCHAR(500), type VARCHAR(40), " +
+                            "channel VARCHAR(20), status VARCHAR(20), scheduled_time TIMESTAMP)");
+                ddl.execute("CREATE SEQUENCE pooled_notifications_seq START WITH 1 INCREMENT BY " + BATCH_SIZE);
+            }
+            connection.setAutoCommit(false);
+
+            for (int round = 0; round < 5; round++) {
+                long identityNanos = insertWithIdentity(connection);
+                long pooledNanos = insertWithPooledSequence(connection);
+                System.out.printf("round %d: IDENTITY %.2f us/row (%d statements), pooled sequence %.2f us/row (%d statements), %.1fx%n",
+                    round, identityNanos / 1000.0 / ROWS, ROWS,
+                    pooledNanos / 1000.0 / ROWS, 2 * ROWS / BATCH_SIZE,
+                    identityNanos / (double) pooledNanos);
+            }
+        }
+    }
+
+    private long insertWithIdentity(Connection connection) throws Exception {
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO identity_notifications (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                bind(insert, 1, i);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+        }
+        connection.commit();
+        return System.nanoTime() - start;
+    }
+
+    private long insertWithPooledSequence(Connection connection) throws Exception {
+        long start = System.nanoTime();
+        try (PreparedStatement nextBlock = connection.prepareStatement("SELECT NEXT VALUE FOR pooled_notifications_seq");
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO pooled_notifications (id, " + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            long nextId = 0;
+            for (int i = 0; i < ROWS; i++) {
+                if (i % BATCH_SIZE == 0) {
+                    try (ResultSet block = nextBlock.executeQuery()) {
+                        block.next();
+                        nextId = block.getLong(1);
+                    }
+                }
+                insert.setLong(1, nextId++);
+                bind(insert, 2, i);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return System.nanoTime() - start;
+    }
+
+    private static void bind(PreparedStatement insert, int first, int i) throws Exception {
+        insert.setLong(first, i % 1000);
+        insert.setLong(first + 1, i / 10);
+        insert.setString(first + 2, "Meeting Reminder: Weekly planning");
+        insert.setString(first + 3, "Reminder: 'Weekly planning' starts in 15 minutes. Meeting ID: ABC-DEF-GHJ");
+        insert.setString(first + 4, "MEETING_REMINDER_15MIN");
+        insert.setString(first + 5, "EMAIL");
+        insert.setString(first + 6, "PENDING");
+        insert.setTimestamp(first + 7, Timestamp.valueOf(LocalDateTime.now().plusMinutes(i % 60)));
+    }
+}
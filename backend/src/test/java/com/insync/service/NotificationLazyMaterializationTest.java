@@ -0,0 +1,205 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.MeetingParticipant;
+import com.insync.entity.MeetingReminder;
+import com.insync.entity.Notification;
+import com.insync.entity.NotificationPreference;
+import com.insync.entity.User;
+import com.insync.repository.MeetingParticipantRepository;
+import com.insync.repository.MeetingReminderRepository;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationPreferenceRepository;
+import com.insync.repository.NotificationRepository;
+import com.insync.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * In lazy mode a meeting stores one reminder row per type, and the per-user, per-channel
+ * notifications are only built when a reminder fires. Reminders are fired here by calling the
+ * timer callback directly after moving their fire time into the past.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:lazy",
+    "notifications.materialization=lazy",
+    "notifications.smoothing.enabled=false",
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class NotificationLazyMaterializationTest {
+
+    private static final Notification.NotificationType FIVE_MINUTES = Notification.NotificationType.MEETING_REMINDER_5MIN;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MeetingReminderRepository meetingReminderRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private MeetingParticipantRepository meetingParticipantRepository;
+
+    @Autowired
+    private NotificationPreferenceRepository notificationPreferenceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void firingAReminderBuildsNotificationsFromEachRecipientsPreferences() {
+        Meeting meeting = meeting("expand");
+        User texter = guest(meeting, "expand-texter");
+        texter.setPhone("+15550100");
+        userRepository.save(texter);
+        User muted = guest(meeting, "expand-muted");
+        NotificationPreference noPush = new NotificationPreference(muted);
+        noPush.setPushMeetingReminder5Min(false);
+        notificationPreferenceRepository.save(noPush);
+        schedule(meeting);
+
+        assertEquals(EnumSet.of(Notification.NotificationType.MEETING_REMINDER_15MIN, FIVE_MINUTES,
+            Notification.NotificationType.MEETING_STARTED, Notification.NotificationType.MEETING_ENDING_SOON,
+            Notification.NotificationType.MEETING_ENDED), reminders(meeting).stream().map(MeetingReminder::getType).collect(Collectors.toSet()));
+        assertTrue(notificationRepository.findByMeeting(meeting).isEmpty(), "notifications stored before any reminder fired");
+
+        fire(reminder(meeting, FIVE_MINUTES));
+
+        assertEquals(MeetingReminder.ReminderStatus.FIRED, reminder(meeting, FIVE_MINUTES).getStatus());
+        assertEquals(EnumSet.of(Notification.NotificationChannel.EMAIL, Notification.NotificationChannel.PUSH,
+            Notification.NotificationChannel.IN_APP), channels(meeting, meeting.getHost()));
+        assertEquals(EnumSet.of(Notification.NotificationChannel.EMAIL, Notification.NotificationChannel.SMS,
+            Notification.NotificationChannel.PUSH, Notification.NotificationChannel.IN_APP), channels(meeting, texter));
+        assertEquals(EnumSet.of(Notification.NotificationChannel.EMAIL, Notification.NotificationChannel.IN_APP),
+            channels(meeting, muted));
+
+        // Firing again, e.g. from a second timer after a refill, sends nothing more
+        int sent = notificationRepository.findByMeeting(meeting).size();
+        fire(reminder(meeting, FIVE_MINUTES));
+        assertEquals(sent, notificationRepository.findByMeeting(meeting).size());
+    }
+
+    @Test
+    void cancelledMeetingsRemindersNeverFire() {
+        Meeting meeting = meeting("cancel");
+        guest(meeting, "cancel-guest");
+        schedule(meeting);
+        MeetingReminder reminder = reminder(meeting, FIVE_MINUTES);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            notificationService.cancelMeetingNotifications(meeting));
+        fire(reminder);
+
+        reminders(meeting).forEach(cancelled -> assertEquals(MeetingReminder.ReminderStatus.CANCELLED, cancelled.getStatus()));
+        assertTrue(notificationRepository.findByMeeting(meeting).isEmpty(), "a cancelled reminder was sent");
+    }
+
+    @Test
+    void reschedulingReplacesTheRemindersAndTheOldOnesNeverFire() {
+        Meeting meeting = meeting("reschedule");
+        guest(meeting, "reschedule-guest");
+        schedule(meeting);
+        MeetingReminder previous = reminder(meeting, FIVE_MINUTES);
+        LocalDateTime previousStart = meeting.getStartTime();
+        LocalDateTime newStart = previousStart.plusHours(2);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Meeting moved = meetingRepository.findByIdWithParticipants(meeting.getId()).orElseThrow();
+            moved.setStartTime(newStart);
+            moved.setEndTime(newStart.plusHours(1));
+            notificationService.rescheduleMeetingNotifications(moved, previousStart, previousStart.plusHours(1),
+                                                               moved.getStartTime(), moved.getEndTime());
+        });
+        fire(previous);
+
+        assertEquals(MeetingReminder.ReminderStatus.CANCELLED, meetingReminderRepository.findById(previous.getId()).orElseThrow().getStatus());
+        assertTrue(notificationRepository.findByMeeting(meeting).isEmpty(), "the reminder for the old time was sent");
+        MeetingReminder moved = reminder(meeting, FIVE_MINUTES);
+        assertEquals(newStart.minusMinutes(5), moved.getFireTime());
+        assertEquals(newStart.plusHours(1), reminder(meeting, Notification.NotificationType.MEETING_ENDED).getFireTime());
+
+        // Host and guest, neither with a phone, get email, push and in-app
+        fire(moved);
+        assertEquals(6, notificationRepository.findByMeeting(meeting).size());
+    }
+
+    private Meeting meeting(String name) {
+        User host = userRepository.save(new User(name + " host", name + "-host@example.com", "secret"));
+        Meeting meeting = new Meeting(name, LocalDateTime.now().plusDays(1).withNano(0), host);
+        meeting.setEndTime(meeting.getStartTime().plusHours(1));
+        return meetingRepository.save(meeting);
+    }
+
+    private User guest(Meeting meeting, String name) {
+        User guest = userRepository.save(new User(name, name + "@example.com", "secret"));
+        meetingParticipantRepository.save(new MeetingParticipant(meeting, guest));
+        return guest;
+    }
+
+    private void schedule(Meeting meeting) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Meeting loaded = meetingRepository.findByIdWithParticipants(meeting.getId()).orElseThrow();
+            notificationService.scheduleMeetingNotifications(loaded, loaded.getStartTime(), loaded.getEndTime());
+        });
+    }
+
+    /**
+     * Makes a reminder due and runs the timer callback for it, as its timer would
+     */
+    private void fire(MeetingReminder reminder) {
+        MeetingReminder stored = meetingReminderRepository.findById(reminder.getId()).orElseThrow();
+        if (stored.getStatus() == MeetingReminder.ReminderStatus.PENDING) {
+            stored.setFireTime(LocalDateTime.now().minusSeconds(1));
+            meetingReminderRepository.save(stored);
+        }
+        NotificationService target = AopTestUtils.getTargetObject(notificationService);
+        ReflectionTestUtils.invokeMethod(target, "fireReminders", List.of(reminder.getId()));
+    }
+
+    private List<MeetingReminder> reminders(Meeting meeting) {
+        return meetingReminderRepository.findAll().stream()
+            .filter(reminder -> reminder.getMeeting().getId().equals(meeting.getId()))
+            .toList();
+    }
+
+    /**
+     * Gets the meeting's pending reminder of a type
+     */
+    private MeetingReminder reminder(Meeting meeting, Notification.NotificationType type) {
+        return reminders(meeting).stream()
+            .filter(reminder -> reminder.getType() == type && reminder.getStatus() != MeetingReminder.ReminderStatus.CANCELLED)
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private Set<Notification.NotificationChannel> channels(Meeting meeting, User user) {
+        return notificationRepository.findByMeeting(meeting).stream()
+            .filter(notification -> notification.getUser().getId().equals(user.getId()))
+            .map(Notification::getChannel)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(Notification.NotificationChannel.class)));
+    }
+}
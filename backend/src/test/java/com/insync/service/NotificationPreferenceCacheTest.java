@@ -0,0 +1,71 @@
+package com.insync.service;
+
+import com.insync.entity.NotificationPreference;
+import com.insync.entity.User;
+import com.insync.repository.NotificationPreferenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationPreferenceCacheTest {
+
+    private static final long USER_ID = 7L;
+
+    private final NotificationPreferenceRepository repository = mock(NotificationPreferenceRepository.class);
+    private final NotificationPreferenceCache cache = new NotificationPreferenceCache();
+
+    private NotificationPreference stored;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(USER_ID);
+        stored = new NotificationPreference(user);
+        when(repository.findByUser_IdIn(anyCollection())).thenAnswer(invocation -> List.of(stored));
+
+        ReflectionTestUtils.setField(cache, "notificationPreferenceRepository", repository);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        int mask = cache.getMask(USER_ID);
+
+        assertEquals(mask, cache.getMask(USER_ID));
+        verify(repository, times(1)).findByUser_IdIn(anyCollection());
+    }
+
+    @Test
+    void reloadsPreferencesChangedOnAnotherInstanceOnceTheEntryExpires() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        int before = cache.getMask(USER_ID);
+
+        // Saved through another instance, so this one was never invalidated
+        stored.setEmailMeetingReminder15Min(false);
+
+        int after = cache.getMask(USER_ID);
+        assertEquals(stored.toBitmask(), after);
+        assertNotEquals(before, after, "changed preferences were not reloaded");
+        verify(repository, times(2)).findByUser_IdIn(anyCollection());
+    }
+
+    @Test
+    void reloadsAfterInvalidation() {
+        cache.getMask(USER_ID);
+        stored.setEmailMeetingReminder15Min(false);
+        cache.invalidate(USER_ID);
+
+        assertEquals(stored.toBitmask(), cache.getMask(USER_ID));
+    }
+}
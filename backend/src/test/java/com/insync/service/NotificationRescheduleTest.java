@@ -0,0 +1,191 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.MeetingParticipant;
+import com.insync.entity.Notification;
+import com.insync.entity.User;
+import com.insync.repository.MeetingParticipantRepository;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationRepository;
+import com.insync.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that rescheduling moves a meeting's reminders with a fixed number of statements however
+ * many rows it has, and that cancelling or moving a meeting also stops reminders waiting for a retry.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.insync.service.NotificationRescheduleTest$TestThreadStatements",
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class NotificationRescheduleTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private MeetingParticipantRepository meetingParticipantRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rescheduleTakesTheSameNotificationStatementsForTwoOrTwentyParticipants() {
+        List<String> small = rescheduleStatements("small", 2);
+        List<String> large = rescheduleStatements("large", 20);
+
+        assertEquals(small.size(), large.size(), "statements for 2 participants vs 20: " + large);
+        // The two advance reminders show the start time, so they are the only types reworded
+        assertEquals(1, large.stream().filter(sql -> sql.startsWith("update notifications") && sql.contains(" set scheduled_time=")).count(), large.toString());
+        assertEquals(2, large.stream().filter(sql -> sql.startsWith("update notifications") && sql.contains(" set title=")).count(), large.toString());
+    }
+
+    @Test
+    void rescheduleMovesRemindersAndRewordsThem() {
+        Meeting meeting = meetingWithParticipants("moved", 2);
+        LocalDateTime newStart = meeting.getStartTime().plusHours(3);
+        reschedule(meeting, newStart);
+
+        List<Notification> reminders = notificationRepository.findByMeetingAndType(meeting, Notification.NotificationType.MEETING_REMINDER_15MIN);
+        assertFalse(reminders.isEmpty());
+        String time = newStart.format(DateTimeFormatter.ofPattern("h:mm a", Locale.ENGLISH));
+        for (Notification reminder : reminders) {
+            assertEquals(Notification.NotificationStatus.PENDING, reminder.getStatus());
+            assertEquals(newStart.minusMinutes(15), reminder.getScheduledTime());
+            assertTrue(reminder.getMessage().contains(time), reminder.getMessage());
+        }
+        for (Notification ended : notificationRepository.findByMeetingAndType(meeting, Notification.NotificationType.MEETING_ENDED)) {
+            assertEquals(newStart.plusHours(1), ended.getScheduledTime());
+        }
+    }
+
+    @Test
+    void cancellingAMeetingStopsItsFailedReminders() {
+        Meeting meeting = meetingWithParticipants("cancelled", 0);
+        Long failed = failedReminder(meeting);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            notificationService.cancelMeetingNotifications(meeting));
+        notificationService.retryFailedNotifications();
+
+        assertEquals(Notification.NotificationStatus.CANCELLED, notificationRepository.findById(failed).orElseThrow().getStatus());
+    }
+
+    @Test
+    void reschedulingAMeetingStopsItsFailedReminders() {
+        Meeting meeting = meetingWithParticipants("retried", 0);
+        Long failed = failedReminder(meeting);
+
+        reschedule(meeting, meeting.getStartTime().plusHours(1));
+        notificationService.retryFailedNotifications();
+
+        assertEquals(Notification.NotificationStatus.CANCELLED, notificationRepository.findById(failed).orElseThrow().getStatus());
+    }
+
+    /**
+     * Schedules a meeting's reminders, then records the statements its reschedule takes
+     */
+    private List<String> rescheduleStatements(String name, int participants) {
+        Meeting meeting = meetingWithParticipants(name, participants);
+        TestThreadStatements.start();
+        try {
+            reschedule(meeting, meeting.getStartTime().plusHours(1));
+            return List.copyOf(TestThreadStatements.statements);
+        } finally {
+            TestThreadStatements.stop();
+        }
+    }
+
+    private void reschedule(Meeting meeting, LocalDateTime newStart) {
+        LocalDateTime previousStart = meeting.getStartTime();
+        LocalDateTime previousEnd = meeting.getEndTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Meeting moved = meetingRepository.findByIdWithParticipants(meeting.getId()).orElseThrow();
+            moved.setStartTime(newStart);
+            moved.setEndTime(newStart.plusHours(1));
+            notificationService.rescheduleMeetingNotifications(moved, previousStart, previousEnd,
+                                                               moved.getStartTime(), moved.getEndTime());
+        });
+    }
+
+    private Meeting meetingWithParticipants(String name, int participants) {
+        User host = userRepository.save(new User(name + " host", name + "-host@example.com", "secret"));
+        Meeting meeting = new Meeting(name, LocalDateTime.now().plusDays(1).withNano(0), host);
+        meeting.setEndTime(meeting.getStartTime().plusHours(1));
+        Meeting saved = meetingRepository.save(meeting);
+        for (int i = 0; i < participants; i++) {
+            User guest = userRepository.save(new User(name + " guest " + i, name + "-guest-" + i + "@example.com", "secret"));
+            meetingParticipantRepository.save(new MeetingParticipant(saved, guest));
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Meeting loaded = meetingRepository.findByIdWithParticipants(saved.getId()).orElseThrow();
+            notificationService.scheduleMeetingNotifications(loaded, loaded.getStartTime(), loaded.getEndTime());
+        });
+        return saved;
+    }
+
+    /**
+     * Saves a reminder whose send failed and whose retry is due
+     */
+    private Long failedReminder(Meeting meeting) {
+        Notification notification = new Notification(meeting.getHost(), meeting, "Meeting Reminder", "Reminder: '" + meeting.getTitle() + "'",
+            Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.IN_APP,
+            LocalDateTime.now().minusMinutes(5));
+        notification.setStatus(Notification.NotificationStatus.FAILED);
+        notification.setAttemptCount(1);
+        notification.setNextAttemptTime(LocalDateTime.now().minusSeconds(1));
+        return notificationRepository.save(notification).getId();
+    }
+
+    /**
+     * Records the notification statements Hibernate prepares on the test thread only, leaving out
+     * the meeting load and the schedulers polling in the background
+     */
+    public static class TestThreadStatements implements StatementInspector {
+        private static volatile Thread countedThread;
+        private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        static void start() {
+            statements.clear();
+            countedThread = Thread.currentThread();
+        }
+
+        static void stop() {
+            countedThread = null;
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == countedThread && sql.toLowerCase(Locale.ROOT).contains(" notifications ")) {
+                statements.add(sql.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT));
+            }
+            return sql;
+        }
+    }
+}
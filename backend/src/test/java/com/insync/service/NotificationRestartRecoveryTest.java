@@ -0,0 +1,93 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import com.insync.entity.User;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationRepository;
+import com.insync.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rows written before a restart were never armed in this process's timing wheel. The refill must
+ * arm the pending ones, send the overdue ones and take over leases that a dead run left behind,
+ * without touching rows another live run still holds.
+ */
+@SpringBootTest(properties = {
+    "notifications.email.enabled=false",
+    "notifications.smoothing.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class NotificationRestartRecoveryTest {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void refillRearmsPendingRowsAndReclaimsExpiredLeases() throws Exception {
+        User user = userRepository.save(new User("Restart", "restart@example.com", "secret"));
+        Meeting meeting = meetingRepository.save(new Meeting("Restart", LocalDateTime.now().plusHours(1), user));
+        LocalDateTime now = LocalDateTime.now();
+
+        Long upcoming = pending(user, meeting, now.plusMinutes(5), null, null);
+        Long beyondHorizon = pending(user, meeting, now.plusDays(1), null, null);
+        Long overdue = pending(user, meeting, now.minusMinutes(2), null, null);
+        Long expiredLease = pending(user, meeting, now.minusMinutes(1), "crashed-run", now.minusSeconds(30));
+        Long liveLease = pending(user, meeting, now.minusMinutes(1), "live-run", now.plusMinutes(10));
+
+        notificationService.processPendingNotifications();
+
+        HashedTimingWheel wheel = (HashedTimingWheel) ReflectionTestUtils.getField(notificationService, "timingWheel");
+        assertTrue(wheel.contains(upcoming), "pending row inside the horizon was not re-armed");
+        assertFalse(wheel.contains(beyondHorizon), "row beyond the horizon was armed early");
+        assertFalse(wheel.contains(liveLease), "row leased by a live run was armed");
+
+        awaitStatus(overdue, Notification.NotificationStatus.SENT);
+        awaitStatus(expiredLease, Notification.NotificationStatus.SENT);
+
+        Notification held = notificationRepository.findById(liveLease).orElseThrow();
+        assertEquals(Notification.NotificationStatus.PENDING, held.getStatus());
+        assertEquals("live-run", held.getClaimToken());
+    }
+
+    private Long pending(User user, Meeting meeting, LocalDateTime scheduledTime, String claimToken,
+                         LocalDateTime claimedUntil) {
+        Notification notification = new Notification(user, meeting, "Meeting Reminder", "Reminder: 'Restart'",
+            Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.IN_APP, scheduledTime);
+        notification.setClaimToken(claimToken);
+        notification.setClaimedUntil(claimedUntil);
+        return notificationRepository.save(notification).getId();
+    }
+
+    private void awaitStatus(Long id, Notification.NotificationStatus expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        Notification.NotificationStatus status = null;
+        while (System.currentTimeMillis() < deadline) {
+            status = notificationRepository.findById(id).orElseThrow().getStatus();
+            if (status == expected) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(expected, status, "status of notification " + id);
+    }
+}
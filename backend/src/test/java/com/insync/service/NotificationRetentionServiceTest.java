@@ -0,0 +1,136 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import com.insync.entity.NotificationDelivery;
+import com.insync.entity.User;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationDeliveryRepository;
+import com.insync.repository.NotificationRepository;
+import com.insync.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the retention job against its own database with a chunk size of two, so five expired rows
+ * take three chunks. The scheduled run is pushed out of the way and the job is called directly.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:retention",
+    "notifications.retention.chunk-size=2",
+    "notifications.retention.chunk-pause-ms=0",
+    "notifications.retention.initial-delay-ms=3600000",
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class NotificationRetentionServiceTest {
+
+    @MockitoSpyBean
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationRetentionService notificationRetentionService;
+
+    @Autowired
+    private NotificationDeliveryRepository notificationDeliveryRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    private Meeting meeting;
+
+    @BeforeEach
+    void setUp() {
+        String name = "retention-" + System.nanoTime();
+        user = userRepository.save(new User(name, name + "@example.com", "secret"));
+        meeting = meetingRepository.save(new Meeting(name, LocalDateTime.now().minusDays(200), user));
+        ReflectionTestUtils.setField(notificationRetentionService, "mode", "archive");
+    }
+
+    @Test
+    void archivesExpiredTerminalRowsInChunksAndKeepsTheRest() {
+        LocalDateTime expired = LocalDateTime.now().minusDays(120);
+        List<Long> old = new ArrayList<>();
+        for (Notification.NotificationStatus status : List.of(Notification.NotificationStatus.SENT,
+                Notification.NotificationStatus.SENT, Notification.NotificationStatus.CANCELLED,
+                Notification.NotificationStatus.DEAD_LETTER, Notification.NotificationStatus.DUPLICATE)) {
+            old.add(notification(status, expired));
+        }
+        Long oldFailed = notification(Notification.NotificationStatus.FAILED, expired);
+        Long recent = notification(Notification.NotificationStatus.SENT, LocalDateTime.now().minusDays(1));
+        clearInvocations(notificationRepository);
+
+        notificationRetentionService.purge();
+
+        for (Long id : old) {
+            assertFalse(notificationRepository.existsById(id), "expired notification " + id + " was kept");
+            assertEquals(1, archivedRows(id), "expired notification " + id + " was not archived");
+        }
+        assertTrue(notificationRepository.existsById(oldFailed), "a notification still awaiting retry was purged");
+        assertTrue(notificationRepository.existsById(recent), "a notification inside the retention age was purged");
+        assertEquals(0, archivedRows(oldFailed) + archivedRows(recent));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(notificationRepository, atLeastOnce()).deleteByIds(chunks.capture());
+        assertEquals(List.of(2, 2, 1), chunks.getAllValues().stream().map(List::size).toList());
+    }
+
+    @Test
+    void deleteModeSkipsTheArchiveAndPrunesOldLedgerEntries() {
+        ReflectionTestUtils.setField(notificationRetentionService, "mode", "delete");
+        Long expired = notification(Notification.NotificationStatus.SENT, LocalDateTime.now().minusDays(120));
+        Long oldEntry = notificationDeliveryRepository.save(
+            new NotificationDelivery("retention-old-" + expired, expired, LocalDateTime.now().minusDays(40))).getId();
+        Long recentEntry = notificationDeliveryRepository.save(
+            new NotificationDelivery("retention-recent-" + expired, expired, LocalDateTime.now().minusDays(1))).getId();
+        clearInvocations(notificationRepository);
+
+        notificationRetentionService.purge();
+
+        assertFalse(notificationRepository.existsById(expired));
+        assertEquals(0, archivedRows(expired));
+        verify(notificationRepository, never()).archiveByIds(any(), any());
+        assertFalse(notificationDeliveryRepository.existsById(oldEntry), "an expired ledger entry was kept");
+        assertTrue(notificationDeliveryRepository.existsById(recentEntry), "a recent ledger entry was pruned");
+    }
+
+    private Long notification(Notification.NotificationStatus status, LocalDateTime scheduledTime) {
+        Notification notification = new Notification(user, meeting, "Meeting Reminder", "Reminder",
+            Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.IN_APP, scheduledTime);
+        notification.setStatus(status);
+        return notificationRepository.save(notification).getId();
+    }
+
+    private int archivedRows(Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications_archive WHERE id = ?", Integer.class, id);
+    }
+}
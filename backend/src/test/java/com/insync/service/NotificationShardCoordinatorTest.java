@@ -0,0 +1,155 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import com.insync.entity.User;
+import com.insync.repository.MeetingRepository;
+import com.insync.repository.NotificationRepository;
+import com.insync.repository.SchedulerLockRepository;
+import com.insync.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two coordinators with their own node ids against one H2 lock table. The context gets its own
+ * database, so coordinators of other cached test contexts don't count as live nodes, and the
+ * application's coordinator is replaced by a mock that holds no shards.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:shards",
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class NotificationShardCoordinatorTest {
+
+    private static final int SHARDS = 4;
+
+    @MockitoBean
+    private NotificationShardCoordinator applicationCoordinator;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private MeetingRepository meetingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<NotificationShardCoordinator> started = new ArrayList<>();
+
+    @AfterEach
+    void stopCoordinators() {
+        started.forEach(NotificationShardCoordinator::shutdown);
+    }
+
+    @Test
+    void secondNodeTakesHalfTheShardsAndEachClaimsOnlyItsUsers() {
+        NotificationShardCoordinator first = coordinator("split-a", 30);
+        assertEquals(List.of(0, 1, 2, 3), first.getOwnedShards());
+
+        NotificationShardCoordinator second = coordinator("split-b", 30);
+        first.heartbeat();
+        second.heartbeat();
+
+        Set<Integer> all = new HashSet<>(first.getOwnedShards());
+        all.addAll(second.getOwnedShards());
+        assertEquals(2, first.getOwnedShards().size());
+        assertEquals(2, second.getOwnedShards().size());
+        assertEquals(Set.of(0, 1, 2, 3), all);
+
+        List<Long> failed = failedNotificationsForUsers(8);
+        Set<Long> firstClaims = retryable(first);
+        Set<Long> secondClaims = retryable(second);
+        for (Long id : failed) {
+            assertTrue(firstClaims.contains(id) ^ secondClaims.contains(id), "notification " + id + " not claimed by exactly one node");
+            Notification notification = notificationRepository.findById(id).orElseThrow();
+            int shard = (int) (notification.getUser().getId() % SHARDS);
+            NotificationShardCoordinator owner = firstClaims.contains(id) ? first : second;
+            assertTrue(owner.getOwnedShards().contains(shard), "user shard " + shard + " worked by the wrong node");
+        }
+    }
+
+    @Test
+    void survivorTakesOverTheShardsOfANodeWhoseLeaseRanOutAndDeletesItsRow() throws Exception {
+        NotificationShardCoordinator crashed = coordinator("crash-a", 1);
+        NotificationShardCoordinator survivor = coordinator("crash-b", 1);
+        assertEquals(List.of(0, 1, 2, 3), crashed.getOwnedShards());
+        assertTrue(survivor.getOwnedShards().isEmpty(), "shards taken while another node still held them");
+        started.remove(crashed);
+
+        // The crashed node stops renewing; after one lease its shards are free and after two its row goes
+        Thread.sleep(2_100);
+        survivor.heartbeat();
+
+        assertEquals(List.of(0, 1, 2, 3), survivor.getOwnedShards());
+        assertFalse(schedulerLockRepository.existsById("node:crash-a"), "expired node row was kept");
+        assertTrue(schedulerLockRepository.existsById("node:crash-b"));
+
+        survivor.shutdown();
+        assertFalse(schedulerLockRepository.existsById("node:crash-b"), "node row kept after shutdown");
+    }
+
+    private NotificationShardCoordinator coordinator(String nodeId, long leaseSeconds) {
+        SchedulerLockService locks = new SchedulerLockService();
+        ReflectionTestUtils.setField(locks, "schedulerLockRepository", schedulerLockRepository);
+        ReflectionTestUtils.setField(locks, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(locks, "configuredNodeId", nodeId);
+        locks.init();
+
+        NotificationShardCoordinator coordinator = new NotificationShardCoordinator();
+        ReflectionTestUtils.setField(coordinator, "schedulerLockService", locks);
+        ReflectionTestUtils.setField(coordinator, "shardCount", SHARDS);
+        ReflectionTestUtils.setField(coordinator, "leaseSeconds", leaseSeconds);
+        coordinator.init();
+        started.add(coordinator);
+        return coordinator;
+    }
+
+    private Set<Long> retryable(NotificationShardCoordinator coordinator) {
+        return new HashSet<>(notificationRepository.findRetryableNotificationIds(LocalDateTime.now(), SHARDS,
+            coordinator.getOwnedShards(), PageRequest.of(0, 1000)));
+    }
+
+    /**
+     * Saves a failed notification due for retry for each of several new users
+     */
+    private List<Long> failedNotificationsForUsers(int users) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = userRepository.save(new User("Shard " + i, "shard-" + i + "@example.com", "secret"));
+            Meeting meeting = meetingRepository.save(new Meeting("Shard " + i, LocalDateTime.now().plusHours(1), user));
+            Notification notification = new Notification(user, meeting, "Meeting Reminder", "Reminder",
+                Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.IN_APP,
+                LocalDateTime.now().minusMinutes(5));
+            notification.setStatus(Notification.NotificationStatus.FAILED);
+            notification.setAttemptCount(1);
+            notification.setNextAttemptTime(LocalDateTime.now().minusSeconds(1));
+            ids.add(notificationRepository.save(notification).getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,101 @@
+package com.insync.service;
+
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationTemplatesTest {
+
+    @TempDir
+    Path overrides;
+
+    private final NotificationTemplates templates = new NotificationTemplates();
+
+    private Meeting meeting;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        write("notification-templates.properties", "meeting_started.sms.message=Started: {title} ({meetingId})");
+        write("notification-templates_de.properties", "meeting_started.subject=Besprechung gestartet: {title}");
+        write("notification-templates_fr.properties", "meeting_started.subject=Réunion commencée : {titre}");
+
+        ReflectionTestUtils.setField(templates, "location", overrides.toString());
+        ReflectionTestUtils.setField(templates, "defaultLocaleTag", "en");
+        ReflectionTestUtils.setField(templates, "cacheSize", 100);
+        templates.init();
+
+        meeting = new Meeting("Planning", LocalDateTime.of(2026, 3, 2, 14, 30), null);
+        meeting.setId(1L);
+        meeting.setMeetingId("ABC-DEF-GHJ");
+    }
+
+    @Test
+    void rendersEveryPlaceholderOfTheCompiledTemplate() {
+        NotificationTemplates.RenderedMessage text = templates.render(meeting,
+            Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.EMAIL);
+
+        assertEquals("Meeting Reminder: Planning starts in 15 minutes", text.getSubject());
+        assertEquals("Reminder: 'Planning' starts in 15 minutes at 2:30 PM. Meeting ID: ABC-DEF-GHJ", text.getMessage());
+        assertTrue(templates.mentionsStartTime(Notification.NotificationType.MEETING_REMINDER_15MIN));
+        assertFalse(templates.mentionsStartTime(Notification.NotificationType.MEETING_STARTED));
+    }
+
+    @Test
+    void usesAChannelsOwnWordingOnlyForThatChannel() {
+        assertEquals("Started: Planning (ABC-DEF-GHJ)", templates.render(meeting,
+            Notification.NotificationType.MEETING_STARTED, Notification.NotificationChannel.SMS).getMessage());
+        assertEquals("'Planning' has started! Join now with Meeting ID: ABC-DEF-GHJ", templates.render(meeting,
+            Notification.NotificationType.MEETING_STARTED, Notification.NotificationChannel.EMAIL).getMessage());
+    }
+
+    @Test
+    void memoizesPerMeetingTypeAndChannelUntilTheMeetingChanges() {
+        NotificationTemplates.RenderedMessage first = templates.render(meeting,
+            Notification.NotificationType.MEETING_REMINDER_5MIN, Notification.NotificationChannel.PUSH);
+        assertSame(first, templates.render(meeting,
+            Notification.NotificationType.MEETING_REMINDER_5MIN, Notification.NotificationChannel.PUSH));
+        assertEquals(1L, templates.getStats().get("renders"));
+        assertEquals(1L, templates.getStats().get("cacheHits"));
+
+        meeting.setStartTime(meeting.getStartTime().plusHours(1));
+        NotificationTemplates.RenderedMessage moved = templates.render(meeting,
+            Notification.NotificationType.MEETING_REMINDER_5MIN, Notification.NotificationChannel.PUSH);
+        assertTrue(moved.getMessage().contains("3:30 PM"), moved.getMessage());
+        assertEquals(2L, templates.getStats().get("renders"));
+    }
+
+    @Test
+    void translationFallsBackToTheDefaultWordingKeyByKey() {
+        NotificationTemplates.RenderedMessage text = templates.render(meeting,
+            Notification.NotificationType.MEETING_STARTED, Notification.NotificationChannel.EMAIL, Locale.GERMAN);
+
+        assertEquals("Besprechung gestartet: Planning", text.getSubject());
+        assertEquals("'Planning' has started! Join now with Meeting ID: ABC-DEF-GHJ", text.getMessage());
+    }
+
+    @Test
+    void brokenTranslationFallsBackToTheDefaultLocale() {
+        NotificationTemplates.RenderedMessage text = templates.render(meeting,
+            Notification.NotificationType.MEETING_STARTED, Notification.NotificationChannel.EMAIL, Locale.FRENCH);
+
+        assertEquals("Meeting Started: Planning", text.getSubject());
+    }
+
+    private void write(String name, String content) throws Exception {
+        Files.writeString(overrides.resolve(name), content + "\n", StandardCharsets.UTF_8);
+    }
+}
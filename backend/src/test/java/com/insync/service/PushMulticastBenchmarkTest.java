@@ -0,0 +1,108 @@
+package com.insync.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insync.repository.DeviceTokenRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures push messages per second for a meeting wave of 10k recipients with one device each,
+ * one token per request against multicast batches of 500, through a stub gateway that accepts
+ * every token. Run with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class PushMulticastBenchmarkTest {
+
+    private static final int RECIPIENTS = 10_000;
+
+    @Test
+    void measureMulticastThroughput() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpServer gateway = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        gateway.setExecutor(Executors.newFixedThreadPool(4));
+        gateway.createContext("/push", exchange -> {
+            int tokens = objectMapper.readTree(exchange.getRequestBody().readAllBytes()).path("tokens").size();
+            StringBuilder body = new StringBuilder("{\"results\":[");
+            for (int i = 0; i < tokens; i++) {
+                body.append(i == 0 ? "" : ",").append("{\"status\":\"OK\"}");
+            }
+            byte[] bytes = body.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        gateway.start();
+
+        DeviceTokenRepository deviceTokenRepository = mock(DeviceTokenRepository.class);
+        when(deviceTokenRepository.findTokensByUserIds(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long userId : invocation.<Collection<Long>>getArgument(0)) {
+                rows.add(new Object[] {userId, "device-token-" + userId});
+            }
+            return rows;
+        });
+
+        try {
+            for (int round = 0; round < 3; round++) {
+                for (int batchSize : new int[] {1, 500}) {
+                    PushService pushService = pushService(gateway, batchSize, deviceTokenRepository, objectMapper);
+                    try {
+                        long start = System.nanoTime();
+                        List<CompletableFuture<Boolean>> results = new ArrayList<>(RECIPIENTS);
+                        for (long userId = 1; userId <= RECIPIENTS; userId++) {
+                            results.add(pushService.sendPushAsync(PushServiceTest.notification(userId, 1L, "Reminder: 'All hands'")));
+                        }
+                        for (CompletableFuture<Boolean> result : results) {
+                            result.join();
+                        }
+                        double seconds = (System.nanoTime() - start) / 1e9;
+                        System.out.printf("round %d: batch size %d, %.0f messages/s (%s requests in %.2fs)%n",
+                            round, batchSize, RECIPIENTS / seconds, pushService.getStats().get("requests"), seconds);
+                    } finally {
+                        pushService.shutdown();
+                    }
+                }
+            }
+        } finally {
+            gateway.stop(0);
+        }
+    }
+
+    private PushService pushService(HttpServer gateway, int batchSize, DeviceTokenRepository deviceTokenRepository,
+                                    ObjectMapper objectMapper) {
+        PushService service = new PushService();
+        ReflectionTestUtils.setField(service, "gatewayUrl", "http://localhost:" + gateway.getAddress().getPort() + "/push");
+        ReflectionTestUtils.setField(service, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "requestTimeoutMs", 10000L);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "batchWindowMs", 20L);
+        ReflectionTestUtils.setField(service, "maxMessagesPerRound", 5000);
+        ReflectionTestUtils.setField(service, "maxInFlight", 8);
+        ReflectionTestUtils.setField(service, "queueCapacity", 20000);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "retryDelayMs", 500L);
+        ReflectionTestUtils.setField(service, "sendTimeoutMs", 120000L);
+        ReflectionTestUtils.setField(service, "maxDevicesPerUser", 10);
+        ReflectionTestUtils.setField(service, "deviceTokenRepository", deviceTokenRepository);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        service.init();
+        return service;
+    }
+}
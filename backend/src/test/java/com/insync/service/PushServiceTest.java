@@ -0,0 +1,197 @@
+package com.insync.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insync.entity.Meeting;
+import com.insync.entity.Notification;
+import com.insync.entity.User;
+import com.insync.repository.DeviceTokenRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the push service against a stub multicast gateway to check batching, pruning of tokens
+ * the gateway rejects and retries of server errors.
+ */
+class PushServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer gateway;
+
+    // Tokens of each multicast request, in arrival order
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+
+    // Requests answered with a 503 before the gateway recovers
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    private final DeviceTokenRepository deviceTokenRepository = mock(DeviceTokenRepository.class);
+
+    private final Map<Long, List<String>> devices = new HashMap<>();
+
+    private PushService pushService;
+
+    @BeforeEach
+    void startGateway() throws Exception {
+        gateway = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        gateway.createContext("/push", exchange -> {
+            JsonNode payload = objectMapper.readTree(exchange.getRequestBody().readAllBytes());
+            List<String> tokens = new ArrayList<>();
+            payload.path("tokens").forEach(token -> tokens.add(token.asText()));
+            requests.add(tokens);
+            if (failuresLeft.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            List<Map<String, String>> results = new ArrayList<>();
+            for (String token : tokens) {
+                results.add(Map.of("status", token.startsWith("stale-") ? "UNREGISTERED" : "OK"));
+            }
+            byte[] body = objectMapper.writeValueAsBytes(Map.of("results", results));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        gateway.start();
+
+        when(deviceTokenRepository.findTokensByUserIds(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long userId : invocation.<Collection<Long>>getArgument(0)) {
+                devices.getOrDefault(userId, List.of()).forEach(token -> rows.add(new Object[] {userId, token}));
+            }
+            return rows;
+        });
+        when(deviceTokenRepository.deleteByTokens(anyCollection()))
+            .thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).size());
+    }
+
+    @AfterEach
+    void stopGateway() {
+        if (pushService != null) {
+            pushService.shutdown();
+        }
+        gateway.stop(0);
+    }
+
+    @Test
+    void groupsMessagesWithTheSamePayloadIntoMulticastBatches() {
+        pushService = pushService(3, 1);
+        devices.put(1L, List.of("a-1", "a-2"));
+        devices.put(2L, List.of("b-1", "b-2"));
+        devices.put(3L, List.of("c-1", "c-2"));
+        devices.put(4L, List.of("d-1"));
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (long userId = 1; userId <= 3; userId++) {
+            results.add(pushService.sendPushAsync(notification(userId, 10L, "Reminder: 'Planning'")));
+        }
+        results.add(pushService.sendPushAsync(notification(4L, 20L, "Reminder: 'Review'")));
+
+        results.forEach(result -> assertTrue(result.join()));
+        // Six tokens of one meeting in batches of three, then the other meeting on its own
+        assertEquals(List.of(List.of("a-1", "a-2", "b-1"), List.of("b-2", "c-1", "c-2"), List.of("d-1")),
+            requests.stream().sorted((a, b) -> a.get(0).compareTo(b.get(0))).toList());
+        assertEquals(7L, pushService.getStats().get("tokensSent"));
+        assertEquals(4L, pushService.getStats().get("messagesSent"));
+    }
+
+    @Test
+    void prunesTokensTheGatewayReportsAsUnregistered() {
+        pushService = pushService(500, 1);
+        devices.put(1L, List.of("live-1", "stale-1"));
+        devices.put(2L, List.of("stale-2"));
+
+        assertTrue(pushService.sendPushAsync(notification(1L, 10L, "Reminder: 'Planning'")).join());
+        // Every device of this user is gone, which is not a failure
+        assertTrue(pushService.sendPushAsync(notification(2L, 10L, "Reminder: 'Planning'")).join());
+
+        verify(deviceTokenRepository, timeout(2000)).deleteByTokens(List.of("stale-1"));
+        verify(deviceTokenRepository, timeout(2000)).deleteByTokens(List.of("stale-2"));
+        assertEquals(1L, pushService.getStats().get("tokensSent"));
+    }
+
+    @Test
+    void retriesAServerErrorUntilTheGatewayRecovers() {
+        pushService = pushService(500, 3);
+        devices.put(1L, List.of("a-1"));
+        failuresLeft.set(2);
+
+        assertTrue(pushService.sendPushAsync(notification(1L, 10L, "Reminder: 'Planning'")).join());
+
+        assertEquals(3, requests.size());
+        assertEquals(1L, pushService.getStats().get("requests"));
+    }
+
+    @Test
+    void failsTheMessageOnceRetriesAreUsedUp() {
+        pushService = pushService(500, 2);
+        devices.put(1L, List.of("a-1", "stale-1"));
+        failuresLeft.set(5);
+
+        assertFalse(pushService.sendPushAsync(notification(1L, 10L, "Reminder: 'Planning'")).join());
+
+        assertEquals(2, requests.size());
+        assertEquals(1L, pushService.getStats().get("messagesFailed"));
+        // Nothing is known about the tokens of a failed request, so none are pruned
+        verify(deviceTokenRepository, never()).deleteByTokens(anyCollection());
+    }
+
+    private PushService pushService(int batchSize, int maxAttempts) {
+        PushService service = new PushService();
+        ReflectionTestUtils.setField(service, "gatewayUrl", "http://localhost:" + gateway.getAddress().getPort() + "/push");
+        ReflectionTestUtils.setField(service, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "requestTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "batchWindowMs", 100L);
+        ReflectionTestUtils.setField(service, "maxMessagesPerRound", 5000);
+        ReflectionTestUtils.setField(service, "maxInFlight", 8);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        ReflectionTestUtils.setField(service, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(service, "retryDelayMs", 20L);
+        ReflectionTestUtils.setField(service, "sendTimeoutMs", TimeUnit.SECONDS.toMillis(10));
+        ReflectionTestUtils.setField(service, "maxDevicesPerUser", 10);
+        ReflectionTestUtils.setField(service, "deviceTokenRepository", deviceTokenRepository);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        service.init();
+        return service;
+    }
+
+    static Notification notification(Long userId, Long meetingId, String message) {
+        User user = new User();
+        user.setId(userId);
+        Meeting meeting = new Meeting();
+        meeting.setId(meetingId);
+        return new Notification(user, meeting, "Meeting Reminder", message,
+            Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.PUSH, LocalDateTime.now());
+    }
+}
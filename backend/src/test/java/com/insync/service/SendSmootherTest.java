@@ -0,0 +1,147 @@
+package com.insync.service;
+
+import com.insync.entity.Notification;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SendSmootherTest {
+
+    private static final long NOW_SECOND = 1_800_000_000L;
+    private static final long NOW_MILLIS = NOW_SECOND * 1000 + 250;
+
+    private final SendSmoother smoother = new SendSmoother(capacities(), tolerances());
+
+    @Test
+    void everySendLandsBetweenItsDueTimeAndDeadlineWithinChannelCapacity() {
+        List<Notification> wave = new ArrayList<>();
+        wave.addAll(notifications(300, Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.PUSH, 0));
+        wave.addAll(notifications(40, Notification.NotificationType.MEETING_REMINDER_5MIN, Notification.NotificationChannel.SMS, 0));
+        wave.addAll(notifications(20, Notification.NotificationType.MEETING_STARTED, Notification.NotificationChannel.SMS, 30));
+
+        SendSmoother.Plan plan = smoother.plan(wave, NOW_MILLIS);
+
+        assertPlanned(plan, wave.size());
+        assertWithinCapacity(plan);
+        assertEquals(340, plan.getPeakPerSecond());
+        assertEquals(5 + 2, plan.getSmoothedPeakPerSecond());
+        assertEquals(300 / 5 - 1, plan.getSpreadSeconds());
+    }
+
+    @Test
+    void sendsThatCannotFitGoOutAtTheirDeadlineRatherThanLater() {
+        List<Notification> wave = notifications(50, Notification.NotificationType.MEETING_STARTED, Notification.NotificationChannel.SMS, 0);
+
+        SendSmoother.Plan plan = smoother.plan(wave, NOW_MILLIS);
+
+        assertPlanned(plan, wave.size());
+        // Seconds 0 to 14 hold 2 each; the other 20 share the deadline second
+        assertEquals(NOW_SECOND + 15, (long) plan.getBySecond().lastKey());
+        assertEquals(20, plan.getBySecond().lastEntry().getValue().size());
+        assertEquals(48, plan.getDeferredCount());
+    }
+
+    @Test
+    void tighterDeadlinesAreServedFirst() {
+        List<Notification> loose = notifications(10, Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.SMS, 0);
+        List<Notification> tight = notifications(10, Notification.NotificationType.MEETING_STARTED, Notification.NotificationChannel.SMS, 0);
+        List<Notification> wave = new ArrayList<>(loose);
+        wave.addAll(tight);
+
+        SendSmoother.Plan plan = smoother.plan(wave, NOW_MILLIS);
+
+        long lastTight = slotOf(plan, tight.get(tight.size() - 1));
+        long firstLoose = slotOf(plan, loose.get(0));
+        assertTrue(lastTight < firstLoose, "started notices at " + lastTight + " after reminders from " + firstLoose);
+        assertPlanned(plan, wave.size());
+    }
+
+    @Test
+    void slotsFilledByAnEarlierWaveStayTaken() {
+        smoother.plan(notifications(5, Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.PUSH, 0), NOW_MILLIS);
+
+        SendSmoother.Plan second = smoother.plan(
+            notifications(5, Notification.NotificationType.MEETING_REMINDER_15MIN, Notification.NotificationChannel.PUSH, 0), NOW_MILLIS);
+
+        assertEquals(List.of(NOW_SECOND + 1), new ArrayList<>(second.getBySecond().keySet()));
+    }
+
+    /**
+     * Checks that every notification is planned once, no earlier than it is due and no later than its deadline
+     */
+    private void assertPlanned(SendSmoother.Plan plan, int expected) {
+        int planned = 0;
+        for (Map.Entry<Long, List<Notification>> slot : plan.getBySecond().entrySet()) {
+            for (Notification notification : slot.getValue()) {
+                long due = Math.max(NOW_SECOND, epochSecond(notification));
+                long deadline = due + tolerances().get(notification.getType()).getSeconds();
+                assertTrue(slot.getKey() >= due, "planned before it is due");
+                assertTrue(slot.getKey() <= deadline, "planned " + (slot.getKey() - deadline) + "s past its deadline");
+                planned++;
+            }
+        }
+        assertEquals(expected, planned);
+    }
+
+    private void assertWithinCapacity(SendSmoother.Plan plan) {
+        for (Map.Entry<Long, List<Notification>> slot : plan.getBySecond().entrySet()) {
+            Map<Notification.NotificationChannel, Integer> perChannel = new EnumMap<>(Notification.NotificationChannel.class);
+            slot.getValue().forEach(notification -> perChannel.merge(notification.getChannel(), 1, Integer::sum));
+            perChannel.forEach((channel, count) -> assertTrue(count <= capacities().get(channel),
+                count + " " + channel + " sends in second " + (slot.getKey() - NOW_SECOND)));
+        }
+    }
+
+    private static long slotOf(SendSmoother.Plan plan, Notification notification) {
+        return plan.getBySecond().entrySet().stream()
+            .filter(slot -> slot.getValue().contains(notification))
+            .mapToLong(Map.Entry::getKey)
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static List<Notification> notifications(int count, Notification.NotificationType type,
+                                                    Notification.NotificationChannel channel, long dueInSeconds) {
+        LocalDateTime scheduledTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(NOW_SECOND + dueInSeconds), ZoneId.systemDefault());
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Notification notification = new Notification();
+            notification.setType(type);
+            notification.setChannel(channel);
+            notification.setScheduledTime(scheduledTime);
+            notifications.add(notification);
+        }
+        return notifications;
+    }
+
+    private static long epochSecond(Notification notification) {
+        return notification.getScheduledTime().atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static Map<Notification.NotificationChannel, Integer> capacities() {
+        Map<Notification.NotificationChannel, Integer> capacities = new EnumMap<>(Notification.NotificationChannel.class);
+        capacities.put(Notification.NotificationChannel.EMAIL, 3);
+        capacities.put(Notification.NotificationChannel.SMS, 2);
+        capacities.put(Notification.NotificationChannel.PUSH, 5);
+        capacities.put(Notification.NotificationChannel.IN_APP, 10);
+        return capacities;
+    }
+
+    private static Map<Notification.NotificationType, Duration> tolerances() {
+        Map<Notification.NotificationType, Duration> tolerances = new EnumMap<>(Notification.NotificationType.class);
+        tolerances.put(Notification.NotificationType.MEETING_REMINDER_15MIN, Duration.ofSeconds(120));
+        tolerances.put(Notification.NotificationType.MEETING_REMINDER_5MIN, Duration.ofSeconds(60));
+        tolerances.put(Notification.NotificationType.MEETING_STARTED, Duration.ofSeconds(15));
+        return tolerances;
+    }
+}
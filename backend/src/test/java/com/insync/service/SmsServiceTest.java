@@ -0,0 +1,145 @@
+package com.insync.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the SMS client against a stub provider to check rate limiting, 429 back-off and the
+ * circuit breaker.
+ */
+class SmsServiceTest {
+
+    private HttpServer provider;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    // Status the stub answers with; 429 answers also carry Retry-After: 1
+    private volatile int responseStatus = 200;
+
+    private SmsService smsService;
+
+    @BeforeEach
+    void startProvider() throws Exception {
+        provider = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        provider.createContext("/messages", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            requests.incrementAndGet();
+            if (responseStatus == 429) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+            }
+            exchange.sendResponseHeaders(responseStatus, -1);
+            exchange.close();
+        });
+        provider.start();
+    }
+
+    @AfterEach
+    void stopProvider() {
+        provider.stop(0);
+    }
+
+    @Test
+    void rejectsSendsBeyondTheBurstWhenTokensDoNotRefillInTime() {
+        smsService = smsService(1, 2, 0, 5, 30);
+
+        int delivered = 0;
+        for (int i = 0; i < 5; i++) {
+            delivered += smsService.sendSms("+15550000000", "hello") ? 1 : 0;
+        }
+
+        assertEquals(2, delivered);
+        assertEquals(2, requests.get());
+        assertEquals(3L, smsService.getStats().get("rejected"));
+    }
+
+    @Test
+    void waitsForATokenWithinTheAcquireTimeout() {
+        smsService = smsService(10, 1, 1000, 5, 30);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(smsService.sendSms("+15550000000", "hello"));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Two refills at 10 per second
+        assertTrue(elapsedMillis >= 150, "sent 3 in " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void pausesAfterAThrottledResponseWithoutOpeningTheCircuit() {
+        smsService = smsService(100, 10, 200, 1, 30);
+        responseStatus = 429;
+
+        assertFalse(smsService.sendSms("+15550000000", "hello"));
+        responseStatus = 200;
+        // Retry-After: 1 is longer than the acquire timeout, so the next send is refused locally
+        assertFalse(smsService.sendSms("+15550000000", "hello"));
+
+        assertEquals(1, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, smsService.getStats().get("circuit"));
+        assertEquals(1L, smsService.getStats().get("throttled"));
+        assertEquals(1L, smsService.getStats().get("rejected"));
+    }
+
+    @Test
+    void opensTheCircuitAfterConsecutiveServerErrors() {
+        smsService = smsService(100, 10, 0, 3, 60);
+        responseStatus = 503;
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(smsService.sendSms("+15550000000", "hello"));
+        }
+
+        assertEquals(3, requests.get());
+        assertEquals(CircuitBreaker.State.OPEN, smsService.getStats().get("circuit"));
+        assertEquals(2L, smsService.getStats().get("shortCircuited"));
+    }
+
+    @Test
+    void closesTheCircuitWhenTheTrialCallSucceeds() {
+        smsService = smsService(100, 10, 0, 2, 0);
+        responseStatus = 500;
+        smsService.sendSms("+15550000000", "hello");
+        smsService.sendSms("+15550000000", "hello");
+        assertEquals(CircuitBreaker.State.OPEN, smsService.getStats().get("circuit"));
+
+        responseStatus = 200;
+        assertTrue(smsService.sendSms("+15550000000", "hello"));
+
+        assertEquals(CircuitBreaker.State.CLOSED, smsService.getStats().get("circuit"));
+    }
+
+    private SmsService smsService(double ratePerSecond, int burst, long acquireTimeoutMs,
+                                  int failureThreshold, long openSeconds) {
+        SmsService service = new SmsService();
+        ReflectionTestUtils.setField(service, "apiKey", "test-key");
+        ReflectionTestUtils.setField(service, "apiUrl", "http://localhost:" + provider.getAddress().getPort() + "/messages");
+        ReflectionTestUtils.setField(service, "fromNumber", "+15551234567");
+        ReflectionTestUtils.setField(service, "connectTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "requestTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "maxInFlight", 4);
+        ReflectionTestUtils.setField(service, "acquireTimeoutMs", acquireTimeoutMs);
+        ReflectionTestUtils.setField(service, "ratePerSecond", ratePerSecond);
+        ReflectionTestUtils.setField(service, "burst", burst);
+        ReflectionTestUtils.setField(service, "circuitFailureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(service, "circuitOpenSeconds", openSeconds);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,67 @@
+package com.insync.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures webhook events per second to a local receiver, one event per request against batches
+ * of 50, over the same pooled client the service uses. Run with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class WebhookClientBenchmarkTest {
+
+    private static final int EVENTS = 20_000;
+    private static final int WORKERS = 8;
+
+    @Test
+    void measureBatchedThroughput() throws Exception {
+        HttpServer receiver = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        receiver.setExecutor(Executors.newFixedThreadPool(4));
+        receiver.createContext("/hook", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        receiver.start();
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        try {
+            WebhookClient client = new WebhookClient(Duration.ofSeconds(2), Duration.ofSeconds(10), Executors.newFixedThreadPool(2));
+            String url = "http://localhost:" + receiver.getAddress().getPort() + "/hook";
+            String event = "{\"id\":\"meeting-event-1\",\"type\":\"meeting.created\",\"occurredAt\":\"2026-01-01T10:00:00\"," +
+                           "\"data\":{\"meetingId\":\"ABC-DEF-GHJ\",\"title\":\"Weekly planning\",\"hostId\":1}}";
+            for (int round = 0; round < 3; round++) {
+                for (int batchSize : new int[] {1, 50}) {
+                    List<String> batch = new ArrayList<>();
+                    for (int i = 0; i < batchSize; i++) {
+                        batch.add(event);
+                    }
+                    int requests = EVENTS / batchSize;
+                    long start = System.nanoTime();
+                    List<Future<Integer>> sent = new ArrayList<>(requests);
+                    for (int i = 0; i < requests; i++) {
+                        sent.add(workers.submit(() -> client.send(url, "benchmark-secret", batch)));
+                    }
+                    for (Future<Integer> future : sent) {
+                        future.get();
+                    }
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("round %d: batch size %d, %.0f events/s (%d requests in %.2fs)%n",
+                        round, batchSize, EVENTS / seconds, requests, seconds);
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+            receiver.stop(0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.insync.service;
+
+import com.insync.entity.User;
+import com.insync.entity.WebhookDelivery;
+import com.insync.entity.WebhookEndpoint;
+import com.insync.repository.UserRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Delivers webhooks to a receiver on this machine, which is only reachable because "localhost"
+ * is allow-listed; the loopback address itself stays refused.
+ */
+@SpringBootTest(properties = {
+    "webhooks.allowed-hosts=localhost",
+    "notifications.email.enabled=false",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+class WebhookDeliveryTest {
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private HttpServer receiver;
+
+    private final BlockingQueue<String[]> received = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void startReceiver() throws Exception {
+        receiver = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        receiver.createContext("/hook", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            received.add(new String[] {exchange.getRequestHeaders().getFirst(WebhookClient.SIGNATURE_HEADER), body});
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        receiver.start();
+    }
+
+    @AfterEach
+    void stopReceiver() {
+        receiver.stop(0);
+    }
+
+    @Test
+    void deliversASignedPingToAnAllowListedReceiver() throws Exception {
+        User user = userRepository.save(new User("Hooks", "hooks@example.com", "secret"));
+        String url = "http://localhost:" + receiver.getAddress().getPort() + "/hook";
+        var registered = webhookService.registerEndpoint(user.getId(), url, List.of("ping"));
+        WebhookEndpoint endpoint = (WebhookEndpoint) registered.get("endpoint");
+        String secret = (String) registered.get("secret");
+
+        webhookService.ping(user.getId(), endpoint.getId());
+
+        String[] request = received.poll(10, TimeUnit.SECONDS);
+        assertNotNull(request, "receiver got no request");
+        String signature = request[0];
+        String body = request[1];
+        assertTrue(body.contains("\"type\":\"ping\""), body);
+        long timestamp = Long.parseLong(signature.substring(2, signature.indexOf(',')));
+        assertEquals("t=" + timestamp + ",v1=" + WebhookClient.sign(secret, timestamp, body.getBytes(StandardCharsets.UTF_8)),
+            signature);
+
+        WebhookDelivery delivery = awaitDelivered(user.getId(), endpoint.getId());
+        assertEquals(204, delivery.getLastStatusCode());
+    }
+
+    @Test
+    void refusesLoopbackAndMetadataAddresses() {
+        User user = userRepository.save(new User("Probe", "probe@example.com", "secret"));
+        int port = receiver.getAddress().getPort();
+
+        assertThrows(RuntimeException.class, () ->
+            webhookService.registerEndpoint(user.getId(), "http://127.0.0.1:" + port + "/hook", List.of()));
+        assertThrows(RuntimeException.class, () ->
+            webhookService.registerEndpoint(user.getId(), "http://169.254.169.254/latest/meta-data/", List.of()));
+        assertTrue(webhookService.getEndpoints(user.getId()).isEmpty());
+    }
+
+    private WebhookDelivery awaitDelivered(Long userId, Long endpointId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        WebhookDelivery delivery = null;
+        while (System.currentTimeMillis() < deadline) {
+            List<WebhookDelivery> recent = webhookService.getRecentDeliveries(userId, endpointId, 1);
+            delivery = recent.isEmpty() ? null : recent.get(0);
+            if (delivery != null && delivery.getStatus() == WebhookDelivery.DeliveryStatus.DELIVERED) {
+                return delivery;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("delivery not marked delivered: " + (delivery != null ? delivery.getStatus() : "none"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.insync.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebhookTargetPolicyTest {
+
+    private final WebhookTargetPolicy policy = new WebhookTargetPolicy(List.of());
+
+    @Test
+    void rejectsInternalAddresses() {
+        for (String url : List.of(
+                "http://localhost:8080/hook",
+                "http://127.0.0.1/hook",
+                "http://0.0.0.0/hook",
+                "http://169.254.169.254/latest/meta-data/",
+                "http://10.0.0.5/hook",
+                "http://172.16.0.1/hook",
+                "http://192.168.1.1/hook",
+                "http://100.64.0.1/hook",
+                "http://[::1]/hook",
+                "http://[fe80::1]/hook",
+                "http://[fd00::1]/hook",
+                "http://[::ffff:127.0.0.1]/hook",
+                "http://224.0.0.1/hook")) {
+            assertThrows(RuntimeException.class, () -> policy.check(URI.create(url)), url);
+        }
+    }
+
+    @Test
+    void rejectsHostsThatDoNotResolve() {
+        assertThrows(RuntimeException.class, () -> policy.check(URI.create("https://receiver.invalid/hook")));
+    }
+
+    @Test
+    void acceptsPublicAddresses() {
+        assertDoesNotThrow(() -> policy.check(URI.create("https://8.8.8.8/hook")));
+        assertDoesNotThrow(() -> policy.check(URI.create("https://[2001:4860:4860::8888]/hook")));
+    }
+
+    @Test
+    void acceptsAllowListedHosts() {
+        WebhookTargetPolicy allowing = new WebhookTargetPolicy(List.of("LocalHost", " 10.0.0.5 "));
+
+        assertDoesNotThrow(() -> allowing.check(URI.create("http://localhost:8080/hook")));
+        assertDoesNotThrow(() -> allowing.check(URI.create("http://10.0.0.5/hook")));
+        assertThrows(RuntimeException.class, () -> allowing.check(URI.create("http://127.0.0.1/hook")));
+    }
+}